@@ -1,14 +1,19 @@
 package ca.polymtl.mrasl.drone;
 
+import ca.polymtl.mrasl.mission.FordHook;
 import ca.polymtl.mrasl.mission.Mission;
+import ca.polymtl.mrasl.mission.State;
 import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.telemetry.PowerMonitor;
+import ca.polymtl.mrasl.telemetry.RateProfileController;
 import dji.sdk.Battery.DJIBattery;
 import dji.sdk.Camera.DJICamera;
 import dji.sdk.Products.DJIAircraft;
 import dji.sdk.base.DJIBaseProduct;
 
 /**
- * This class represents the aircraft and its components.
+ * This class represents the aircraft and its components. The mission isn't part of the aircraft:
+ * it is given to every aircraft that connects, so it outlives a disconnection.
  *
  * @author Gabriel-Andrew Pollo-Guilbert
  */
@@ -21,7 +26,9 @@ public class Aircraft implements IDisposable {
     private final DJIBaseProduct fProduct;
     private final DJIAircraft fAircraft;
     private final RadioLink fRadioLink;
-    private final Mission fMission = new Mission();
+    private final Mission fMission;
+    private final FordHook fFordHook;
+    private final RateProfileController fRateController = new RateProfileController();
     private final Camera fCamera;
     private final Gimbal fGimbal;
 
@@ -34,32 +41,39 @@ public class Aircraft implements IDisposable {
      * instance of {@link DJIAircraft}. It returns {@code null} if it is not.
      *
      * @param product The product to create an aircraft from
+     * @param mission The mission flown by the aircraft
      *
      * @return The new aircraft
      */
-    public static Aircraft createAircraft(DJIBaseProduct product) {
+    public static Aircraft createAircraft(DJIBaseProduct product, Mission mission) {
         /* Make sure we have a drone */
         if (!(product instanceof DJIAircraft)) {
             return null;
         }
 
-        return new Aircraft(product);
+        return new Aircraft(product, mission);
     }
 
     /**
      * Constructor for an aircraft.
      *
      * @param product An instance of {@link DJIAircraft}
+     * @param mission The mission flown by the aircraft
      */
-    Aircraft(DJIBaseProduct product) {
+    Aircraft(DJIBaseProduct product, Mission mission) {
         fProduct = product;
         fAircraft = (DJIAircraft) product;
+        fMission = mission;
+        fFordHook = new FordHook(fMission);
         fRadioLink = new RadioLink(fAircraft, fMission);
         fCamera = Camera.createCamera(product, fMission);
         fGimbal = Gimbal.from(fAircraft.getGimbal());
 
         /* Set the payload manager of the mission */
         fMission.setPayloadManager(fRadioLink.getPayloadManager());
+
+        /* Change the rates of the telemetry with the mission */
+        fMission.addMissionStateChangedListener(fRateController);
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -68,8 +82,14 @@ public class Aircraft implements IDisposable {
 
     @Override
     public void dispose() {
+        /* The aircraft is gone, so the telemetry goes back to the ground rates */
+        fMission.removeMissionStateChangedListener(fRateController);
+        fRateController.onStateChanged(State.READY);
+
+        /* The mission stays, without a link to send its commands */
+        fMission.setPayloadManager(null);
+        fFordHook.dispose();
         fRadioLink.dispose();
-        fMission.dispose();
 
         /* Make sure there is a gimbal object */
         if (fGimbal != null) {
@@ -99,6 +119,25 @@ public class Aircraft implements IDisposable {
         return fMission;
     }
 
+    /**
+     * This accessor returns the hook of the Ford console of the aircraft.
+     *
+     * @return The hook of the Ford console
+     */
+    public FordHook getFordHook() {
+        return fFordHook;
+    }
+
+    /**
+     * This accessor returns the monitor of the power used in each state while the aircraft is
+     * connected.
+     *
+     * @return The power monitor
+     */
+    public PowerMonitor getPowerMonitor() {
+        return fRateController.getPowerMonitor();
+    }
+
     /**
      * This accessor returns the camera of the aircraft.
      *
@@ -0,0 +1,84 @@
+package ca.polymtl.mrasl.drone;
+
+import static dji.sdk.base.DJIBaseComponent.DJICompletionCallback;
+import static dji.sdk.FlightController.DJIFlightControllerDelegate.FlightControllerReceivedDataFromExternalDeviceCallback;
+
+import ca.polymtl.mrasl.transport.IFrameListener;
+import ca.polymtl.mrasl.transport.ISendCallback;
+import ca.polymtl.mrasl.transport.ITransport;
+import dji.sdk.FlightController.DJIFlightController;
+import dji.sdk.base.DJIError;
+
+/**
+ * This class carries the frames over the DJI radio link, between the tablet and the onboard SDK
+ * device of the drone.
+ */
+public class DJITransport implements ITransport, FlightControllerReceivedDataFromExternalDeviceCallback {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final DJIFlightController fController;
+
+    private volatile IFrameListener fListener;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a transport over a flight controller.
+     *
+     * @param controller The flight controller of the drone
+     */
+    public DJITransport(DJIFlightController controller) {
+        fController = controller;
+
+        /* Register the callback of external data */
+        fController.setReceiveExternalDeviceDataCallback(this);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void send(byte[] frame, ISendCallback callback) {
+        fController.sendDataToOnboardSDKDevice(frame, new Completion(callback));
+    }
+
+    @Override
+    public void setFrameListener(IFrameListener listener) {
+        fListener = listener;
+    }
+
+    @Override
+    public void onResult(byte[] bytes) {
+        IFrameListener listener = fListener;
+        if (listener != null) {
+            listener.onFrame(bytes);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class converts the result of the DJI SDK for the callback of the transport.
+     */
+    private static class Completion implements DJICompletionCallback {
+        private final ISendCallback fCallback;
+
+        public Completion(ISendCallback callback) {
+            fCallback = callback;
+        }
+
+        @Override
+        public void onResult(DJIError error) {
+            fCallback.onSent((error != null) ? error.getDescription() : null);
+        }
+    }
+
+}
@@ -1,14 +1,16 @@
 package ca.polymtl.mrasl.drone;
 
 import android.content.Context;
-import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
-import java.util.ArrayList;
-
 import static dji.sdk.SDKManager.DJISDKManager.DJISDKManagerCallback;
 
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.mission.Mission;
+import ca.polymtl.mrasl.shared.ListenerRegistry;
+import ca.polymtl.mrasl.shared.Timekeeper;
 import ca.polymtl.mrasl.ui.activity.MainActivity;
 import ca.polymtl.mrasl.R;
 import dji.sdk.SDKManager.DJISDKManager;
@@ -17,7 +19,9 @@ import dji.sdk.base.DJIError;
 import dji.sdk.base.DJISDKError;
 
 /**
- * This class handles the DJI SDK for registering the application and connecting to a drone.
+ * This class handles the DJI SDK for registering the application and connecting to a drone. It
+ * owns the mission and gives it to every aircraft that connects, so the mission recovered after a
+ * restart is shown and controlled before the drone reconnects.
  *
  * @author Gabriel-Andrew Pollo-Guilbert
  */
@@ -36,10 +40,13 @@ public class Registration implements DJISDKManagerCallback {
     // ---------------------------------------------------------------------------------------------
 
     private final Context fContext;
-    private final Handler fHandler = new Handler();
+    private final IScheduler fScheduler =
+            Timekeeper.getInstance().createScheduler(Looper.getMainLooper());
+    private final Mission fMission = new Mission();
 
     private Aircraft fAircraft;
-    private ArrayList<Runnable> fConnectionListeners = new ArrayList<>();
+    private final ListenerRegistry<Runnable> fConnectionListeners =
+            new ListenerRegistry<>(Runnable.class);
 
     // ---------------------------------------------------------------------------------------------
     // Constructors
@@ -86,7 +93,7 @@ public class Registration implements DJISDKManagerCallback {
         fConnectionListeners.add(listener);
 
         /* Call the listener a first time */
-        fHandler.post(listener);
+        fScheduler.post(listener);
     }
 
     /**
@@ -96,10 +103,8 @@ public class Registration implements DJISDKManagerCallback {
      * @param listener The listener to remove from the list
      */
     public void removeConnectionListener(Runnable listener) {
-        /* Remove the listener frm the list */
-        if (fConnectionListeners.contains(listener)) {
-            fConnectionListeners.remove(listener);
-        }
+        /* Remove the listener from the list */
+        fConnectionListeners.remove(listener);
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -113,7 +118,7 @@ public class Registration implements DJISDKManagerCallback {
             Log.e(TAG, error.toString());
 
             /* Handle if the registration failed */
-            fHandler.post(new RegistrationFailed());
+            fScheduler.post(new RegistrationFailed());
 
             return;
         }
@@ -122,17 +127,22 @@ public class Registration implements DJISDKManagerCallback {
         DJISDKManager.getInstance().startConnectionToProduct();
 
         /* Handle if the registration was successful */
-        fHandler.post(new RegistrationSuccessful());
+        fScheduler.post(new RegistrationSuccessful());
     }
 
     @Override
     public void onProductChanged(DJIBaseProduct oldProduct, DJIBaseProduct newProduct) {
+        /* The previous aircraft must let go of the mission */
+        if (fAircraft != null) {
+            fAircraft.dispose();
+        }
+
         /* Create the aircraft object if possible */
-        fAircraft = Aircraft.createAircraft(newProduct);
+        fAircraft = Aircraft.createAircraft(newProduct, fMission);
 
         /* Call every listener for a connection change */
-        for (Runnable listener : fConnectionListeners) {
-            fHandler.post(listener);
+        for (Runnable listener : fConnectionListeners.getListeners()) {
+            fScheduler.post(listener);
         }
     }
 
@@ -174,4 +184,13 @@ public class Registration implements DJISDKManagerCallback {
         return fAircraft;
     }
 
+    /**
+     * This accessor returns the mission, whether an aircraft is connected or not.
+     *
+     * @return The mission
+     */
+    public Mission getMission() {
+        return fMission;
+    }
+
 }
@@ -0,0 +1,30 @@
+package ca.polymtl.mrasl.log;
+
+/**
+ * This class writes the messages of the core into the Android log.
+ */
+public class AndroidLogger implements ILogger {
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void log(Level level, String tag, String message, Throwable throwable) {
+        switch (level) {
+            case DEBUG:
+                android.util.Log.d(tag, message, throwable);
+                break;
+            case INFO:
+                android.util.Log.i(tag, message, throwable);
+                break;
+            case WARNING:
+                android.util.Log.w(tag, message, throwable);
+                break;
+            case ERROR:
+                android.util.Log.e(tag, message, throwable);
+                break;
+        }
+    }
+
+}
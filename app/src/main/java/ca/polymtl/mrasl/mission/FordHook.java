@@ -1,73 +1,67 @@
 package ca.polymtl.mrasl.mission;
 
+import static android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+
 import android.content.SharedPreferences;
-import android.os.Handler;
 import android.os.HandlerThread;
 import android.preference.PreferenceManager;
-import android.util.Log;
-
-import com.ford.DJIL;
-import com.ford.DJILListener;
-import com.google.common.collect.Iterators;
-
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
 
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.ford.FordBridge;
+import ca.polymtl.mrasl.ford.FordConsole;
 import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.shared.Timekeeper;
 import ca.polymtl.mrasl.ui.activity.MainActivity;
 
 /**
- * This class handles the event coming from the FordHook SDK.
+ * This class handles the Ford console of the mission. The console is connected to the address of
+ * the preferences and reconnected when it changes. The connection never blocks the thread of the
+ * console, so the state of the mission is mirrored to the console as soon as it is connected.
  *
  * @author Gabriel-Andrew Pollo-Guilbert
  */
-public class FordHook implements IDisposable, DJILListener {
-
-    private static FordHook Instance;
+public class FordHook implements IDisposable, OnSharedPreferenceChangeListener {
 
     // ---------------------------------------------------------------------------------------------
     // Constants
     // ---------------------------------------------------------------------------------------------
 
     private static final String TAG = FordHook.class.getName();
-    private static final int DELAY_RECONNECT = 1000;
-    private static final int DELAY_MESSAGE = 60000;
-    private static String TEAM = "Team MRASL";
-    private static String[] MESSAGES = {
-            "Don't panic.",
-            "The pizza is coming.",
-            "The cake is a lie.",
-            "Just eat!",
-    };
+    private static final String KEY_ADDRESS = "ford_address";
+    private static final String TEAM = "Team MRASL";
 
     // ---------------------------------------------------------------------------------------------
     // Attributes
     // ---------------------------------------------------------------------------------------------
 
     private final HandlerThread fThread;
-    private final Handler fHandler;
-    private final Runnable fConnection = new Connection();
-    private final Runnable fSendMessage = new SendRandomMessage();
-    private final DJIL fLink;
-    private final Mission fMission;
+    private final IScheduler fScheduler;
+    private final FordConsole fConsole;
+    private final FordBridge fBridge;
 
     // ---------------------------------------------------------------------------------------------
     // Constructors
     // ---------------------------------------------------------------------------------------------
 
     public FordHook(Mission mission) {
-        fMission = mission;
-        fLink = new DJIL(this);
-
         /* Start the thread that handles the ford connection */
         fThread = new HandlerThread("ford");
         fThread.start();
+        fScheduler = Timekeeper.getInstance().createScheduler(fThread.getLooper());
+
+        /* Connect the console to the mission */
+        fConsole = new FordConsole(fScheduler, TEAM);
+        fBridge = new FordBridge(fConsole, mission, fScheduler);
+
+        /* Get the shared preferences */
+        MainActivity main = MainActivity.getInstance();
+        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(main);
 
         /* Start the connection */
-        fHandler = new Handler(fThread.getLooper());
-        fHandler.post(fConnection);
+        onSharedPreferenceChanged(preferences, KEY_ADDRESS);
+
+        /* Reconnect when the address is changed */
+        preferences.registerOnSharedPreferenceChangeListener(this);
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -76,97 +70,52 @@ public class FordHook implements IDisposable, DJILListener {
 
     @Override
     public void dispose() {
-        /* Remove periodic callbacks */
-        fHandler.removeCallbacks(fConnection);
-        fHandler.removeCallbacks(fSendMessage);
-
-        /* Disconnect from the server */
-        fLink.disconnect();
-    }
-
-    @Override
-    public void startButton() {
-        Log.d(TAG, "Start mission request from Ford hook");
+        /* Get the shared preferences */
+        MainActivity main = MainActivity.getInstance();
+        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(main);
 
-        /* Execute the command */
-        fMission.startMission();
-    }
+        /* Remove the preference listener */
+        preferences.unregisterOnSharedPreferenceChangeListener(this);
 
-    @Override
-    public void abortLanding() {
-        Log.d(TAG, "Abort landing request from Ford hook");
+        /* Disconnect from the console */
+        fBridge.dispose();
+        fConsole.dispose();
 
-        /* Execute the command */
-        fMission.abortLanding();
+        /* Stop the thread once the console is closed */
+        fThread.quitSafely();
     }
 
     @Override
-    public void abortMission() {
-        Log.d(TAG, "Abort mission request from Ford hook");
+    public void onSharedPreferenceChanged(SharedPreferences preferences, String key) {
+        /* Make sure the address was changed */
+        if (!KEY_ADDRESS.equals(key)) {
+            return;
+        }
 
-        /* Execute the command */
-        fMission.abortMission();
+        fConsole.connect(preferences.getString(KEY_ADDRESS, "127.0.0.1"));
     }
 
     // ---------------------------------------------------------------------------------------------
-    // Anonymous classes
+    // Accessors
     // ---------------------------------------------------------------------------------------------
 
     /**
-     * This class connects to the FordHook server.
+     * Accessor that returns the Ford console, to check the health of its connection.
+     *
+     * @return The Ford console
      */
-    private class Connection implements Runnable {
-        @Override
-        public void run() {
-            /* Get the shared preferences */
-            MainActivity main = MainActivity.getInstance();
-            SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(main);
-
-            /* Get the frequency from the preferences */
-            String address = preferences.getString("ford_address", "127.0.0.1");
-
-            Log.d(TAG, "Trying connection to Ford SDK on " + address);
-            try {
-                /* Try to connect */
-                fLink.connect(address, TEAM);
-
-                Log.d(TAG, "Successfully connected to Ford SDK");
-
-                /* Send a random message */
-                fHandler.post(fSendMessage);
-            } catch (Exception exception) {
-                /* Retry the connection later */
-                fHandler.postDelayed(fConnection, DELAY_RECONNECT);
-                exception.printStackTrace();
-            }
-        }
+    public FordConsole getConsole() {
+        return fConsole;
     }
 
     /**
-     * This class sends random messages to the Ford screen.
+     * Accessor that returns the bridge between the console and the mission, to read the latency of
+     * the commands of the console.
+     *
+     * @return The bridge of the console
      */
-    private class SendRandomMessage implements Runnable {
-        private Iterator<String> fMessage;
-
-        public SendRandomMessage() {
-            /* Shuffle the list */
-            List<String> messages = Arrays.asList(MESSAGES);
-            Collections.shuffle(messages);
-
-            /* Create a circular iterator */
-            fMessage = Iterators.cycle(messages);
-        }
-
-        @Override
-        public void run() {
-            /* Send the message  */
-            if(fMessage.hasNext()) {
-                fLink.show(fMessage.next());
-            }
-
-            /* Send another message later */
-            fHandler.postDelayed(this, DELAY_MESSAGE);
-        }
+    public FordBridge getBridge() {
+        return fBridge;
     }
 
 }
@@ -0,0 +1,380 @@
+package ca.polymtl.mrasl.recorder;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.payload.IPayload;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.ui.activity.MainActivity;
+
+/**
+ * This class records the telemetry, the radio frames and the mission states of a flight into a
+ * flight log. Each run of the application creates a new flight log in the storage of the
+ * application. The record methods can be called from any thread, and do nothing once the recorder
+ * is disposed.
+ */
+public class FlightRecorder implements IDisposable, IRecorder {
+
+    private static FlightRecorder Instance;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = FlightRecorder.class.getName();
+    private static final String DIRECTORY = "flights";
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int FLUSH_DELAY = 1000;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final HandlerThread fThread;
+    private final Handler fHandler;
+    private final File fRoot;
+    private final Runnable fPrepareSegment = new PrepareSegment();
+    private final Runnable fFlush = new Flush();
+
+    private volatile FlightLogWriter fWriter;
+    private volatile boolean fDisposed;
+    private boolean fFailureReported;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method returns the recorder of this run. A recorder that was disposed stays the
+     * instance until a new one is started, so the late records of the modules are dropped.
+     *
+     * @return The recorder
+     */
+    public static synchronized FlightRecorder getInstance() {
+        /* Setup the singleton instance */
+        if (Instance == null) {
+            Instance = new FlightRecorder();
+        }
+
+        return Instance;
+    }
+
+    /**
+     * This method starts a new flight log if the current recorder was disposed, like when the
+     * activity is created again in the same process.
+     *
+     * @return The running recorder
+     */
+    public static synchronized FlightRecorder start() {
+        if (Instance == null || Instance.fDisposed) {
+            Instance = new FlightRecorder();
+        }
+
+        return Instance;
+    }
+
+    FlightRecorder() {
+        Context context = MainActivity.getInstance().getApplicationContext();
+
+        /* Find where to put the flight logs */
+        File external = context.getExternalFilesDir(DIRECTORY);
+        fRoot = (external != null) ? external : new File(context.getFilesDir(), DIRECTORY);
+
+        /* Start the thread that maps and flushes the segments */
+        fThread = new HandlerThread("recorder");
+        fThread.start();
+        fHandler = new Handler(fThread.getLooper());
+
+        /* Recover the flight logs of the previous runs before starting a new one */
+        fHandler.post(new RecoverFlightLogs(fRoot.listFiles()));
+
+        /* Create the flight log of this run */
+        File directory = new File(fRoot, String.valueOf(System.currentTimeMillis()));
+        try {
+            fWriter = new FlightLogWriter(directory, SEGMENT_SIZE);
+            fWriter.setRotationListener(new SegmentRotated());
+
+            Log.d(TAG, "Recording the flight into " + directory);
+        } catch (IOException exception) {
+            Log.e(TAG, "Unable to create the flight log: " + exception.getMessage());
+            fWriter = null;
+        }
+
+        /* Prepare the next segment and flush periodically */
+        fHandler.post(fPrepareSegment);
+        fHandler.postDelayed(fFlush, FLUSH_DELAY);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method records a GPS telemetry sample.
+     *
+     * @param payload The GPS payload
+     */
+    public void recordGPS(IPayload payload) {
+        record(RecordType.GPS, payload.getPayload());
+    }
+
+    /**
+     * This method records a sensors telemetry sample.
+     *
+     * @param payload The sensors payload
+     */
+    public void recordSensors(IPayload payload) {
+        record(RecordType.SENSORS, payload.getPayload());
+    }
+
+    /**
+     * This method records an encoded frame that is sent to the drone.
+     *
+     * @param frame The bytes of the frame
+     */
+    @Override
+    public void recordUplink(byte[] frame) {
+        record(RecordType.UPLINK, frame);
+    }
+
+    /**
+     * This method records a frame received from the drone.
+     *
+     * @param frame The bytes of the frame
+     */
+    @Override
+    public void recordDownlink(byte[] frame) {
+        record(RecordType.DOWNLINK, frame);
+    }
+
+    /**
+     * This method records a change in the state of the mission.
+     *
+     * @param state The new state of the mission
+     */
+    @Override
+    public void recordState(State state) {
+        record(RecordType.MISSION_STATE, new byte[]{(byte) state.ordinal()});
+    }
+
+    /**
+     * This method records an error of the radio link.
+     *
+     * @param description The description of the error
+     */
+    @Override
+    public void recordLinkError(String description) {
+        record(RecordType.LINK_ERROR, description.getBytes(UTF_8));
+    }
+
+    /**
+     * This method records the trace of a command that ended.
+     *
+     * @param trace The trace of the command
+     */
+    @Override
+    public void recordCommandTrace(CommandTrace trace) {
+        record(RecordType.COMMAND_TRACE, trace.toRecord());
+    }
+
+    /**
+     * This method appends a record into the flight log of this run.
+     *
+     * @param type The type of the record
+     * @param data The data of the record
+     */
+    private void record(RecordType type, byte[] data) {
+        FlightLogWriter writer = fWriter;
+
+        /* Make sure the recorder is still running */
+        if (writer == null) {
+            return;
+        }
+
+        /* Report the failure only once, the writer stops by itself */
+        if (writer.append(type, data) < 0 && !fFailureReported) {
+            fFailureReported = true;
+            fHandler.post(new ReportFailure());
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        synchronized (FlightRecorder.class) {
+            if (fDisposed) {
+                return;
+            }
+            fDisposed = true;
+        }
+
+        FlightLogWriter writer = fWriter;
+        fWriter = null;
+
+        /* Remove periodic callbacks */
+        fHandler.removeCallbacks(fFlush);
+        fHandler.removeCallbacks(fPrepareSegment);
+
+        /* Close the flight log on the recorder thread, then stop it */
+        if (writer != null) {
+            fHandler.post(new Close(writer));
+        }
+        fThread.quitSafely();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class maps the next segment ahead of the rotation.
+     */
+    private class PrepareSegment implements Runnable {
+        @Override
+        public void run() {
+            FlightLogWriter writer = fWriter;
+            if (writer == null) {
+                return;
+            }
+
+            try {
+                writer.prepareNextSegment();
+            } catch (IOException exception) {
+                Log.e(TAG, "Unable to prepare a segment: " + exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * This class is fired by the writer when a segment is full. It is called on the producing
+     * thread, so it only posts the work on the recorder thread.
+     */
+    private class SegmentRotated implements Runnable {
+        private final Runnable fFinish = new FinishSegments();
+
+        @Override
+        public void run() {
+            fHandler.post(fFinish);
+            fHandler.post(fPrepareSegment);
+        }
+    }
+
+    /**
+     * This class flushes and truncates the segments that are full.
+     */
+    private class FinishSegments implements Runnable {
+        @Override
+        public void run() {
+            FlightLogWriter writer = fWriter;
+            if (writer != null) {
+                writer.finishRetiredSegments();
+            }
+        }
+    }
+
+    /**
+     * This class periodically flushes the current segment.
+     */
+    private class Flush implements Runnable {
+        @Override
+        public void run() {
+            FlightLogWriter writer = fWriter;
+            if (writer == null) {
+                return;
+            }
+
+            writer.flush();
+
+            /* Flush again later */
+            fHandler.postDelayed(this, FLUSH_DELAY);
+        }
+    }
+
+    /**
+     * This class closes a flight log.
+     */
+    private class Close implements Runnable {
+        private final FlightLogWriter fClosed;
+
+        public Close(FlightLogWriter writer) {
+            fClosed = writer;
+        }
+
+        @Override
+        public void run() {
+            fClosed.dispose();
+
+            Log.d(TAG, "Recorded " + fClosed.getRecordCount() + " records");
+        }
+    }
+
+    /**
+     * This class logs the error that stopped the writer.
+     */
+    private class ReportFailure implements Runnable {
+        @Override
+        public void run() {
+            FlightLogWriter writer = fWriter;
+            if (writer == null || writer.getFailure() == null) {
+                return;
+            }
+
+            Log.e(TAG, "The flight recorder stopped: " + writer.getFailure().getMessage());
+        }
+    }
+
+    /**
+     * This class recovers the tail of the flight logs that weren't properly closed, which happens
+     * if the application was killed during a flight. The writer maps the next segment ahead, so
+     * the last segment is often empty and the torn tail is in the one before it.
+     */
+    private class RecoverFlightLogs implements Runnable {
+        private final File[] fDirectories;
+
+        public RecoverFlightLogs(File[] directories) {
+            fDirectories = (directories != null) ? directories : new File[0];
+        }
+
+        @Override
+        public void run() {
+            for (File directory : fDirectories) {
+                File[] segments = LogFormat.listSegments(directory);
+                if (segments.length == 0) {
+                    continue;
+                }
+
+                /* Cut the preallocated segments until the last one that holds records */
+                for (int i = segments.length - 1; i >= 0; i--) {
+                    File segment = segments[i];
+                    if (segment.length() != SEGMENT_SIZE) {
+                        break;
+                    }
+
+                    try {
+                        long count = FlightLogReader.recover(segment);
+                        Log.d(TAG, "Recovered " + count + " records from " + segment);
+                        if (count > 0) {
+                            break;
+                        }
+                    } catch (IOException exception) {
+                        Log.e(TAG, "Unable to recover " + segment + ": " + exception.getMessage());
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+}
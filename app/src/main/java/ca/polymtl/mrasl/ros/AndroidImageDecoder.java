@@ -0,0 +1,68 @@
+package ca.polymtl.mrasl.ros;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import java.io.IOException;
+
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.tag.TagImage;
+
+/**
+ * This class decodes the compressed images of the survivors with the region decoder of Android,
+ * which only decodes the tiles of the region.
+ */
+public class AndroidImageDecoder implements IImageDecoder {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = AndroidImageDecoder.class.getName();
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public TagImage decodeRegion(byte[] data, int offset, int length, int left, int top,
+                                 int right, int bottom) {
+        BitmapRegionDecoder decoder;
+        try {
+            decoder = BitmapRegionDecoder.newInstance(data, offset, length, false);
+        } catch (IOException exception) {
+            Log.e(TAG, "Unable to decode a compressed image", exception);
+            return null;
+        }
+
+        try {
+            /* Clamp the region to the image */
+            Rect region = new Rect(Math.max(0, left), Math.max(0, top),
+                    Math.min(right, decoder.getWidth()), Math.min(bottom, decoder.getHeight()));
+            if (region.isEmpty()) {
+                return null;
+            }
+
+            /* Decode only the region, in the format of the tag images */
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            Bitmap bitmap = decoder.decodeRegion(region, options);
+            if (bitmap == null) {
+                return null;
+            }
+
+            int w = bitmap.getWidth();
+            int h = bitmap.getHeight();
+            int[] pixels = new int[w * h];
+            bitmap.getPixels(pixels, 0, w, 0, 0, w, h);
+            bitmap.recycle();
+
+            return new TagImage(w, h, pixels);
+        } finally {
+            decoder.recycle();
+        }
+    }
+
+}
@@ -4,26 +4,24 @@ import static android.content.SharedPreferences.OnSharedPreferenceChangeListener
 
 import android.content.Context;
 import android.content.SharedPreferences;
-import android.os.Handler;
 import android.os.HandlerThread;
 import android.preference.PreferenceManager;
 
-import org.ros.node.DefaultNodeMainExecutor;
-import org.ros.node.NodeConfiguration;
 import org.ros.node.NodeMain;
-import org.ros.node.NodeMainExecutor;
 
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.List;
 
-import ca.polymtl.mrasl.ui.activity.MainActivity;
 import ca.polymtl.mrasl.R;
+import ca.polymtl.mrasl.shared.Timekeeper;
+import ca.polymtl.mrasl.ui.activity.MainActivity;
 
 /**
+ * This class launches the ROS nodes of the application. The nodes are handled by a
+ * {@link NodeLauncher} connected to the master node configured in the preferences.
+ *
  * @author Gabriel-Andrew Pollo-Guilbert
  */
-public class RosConnection implements OnSharedPreferenceChangeListener {
+public class RosConnection implements INodeLauncher, OnSharedPreferenceChangeListener {
 
     private static RosConnection Instance;
 
@@ -38,13 +36,9 @@ public class RosConnection implements OnSharedPreferenceChangeListener {
     // ---------------------------------------------------------------------------------------------
 
     private final HandlerThread fThread;
-    private final Handler fHandler;
+    private final NodeLauncher fLauncher;
     private final String fKeyAddress;
     private final String fKeyPort;
-    private final List<NodeMain> fNodes = new ArrayList<>();
-
-    private NodeMainExecutor fExecutor;
-    private URI fMasterURI;
 
     // ---------------------------------------------------------------------------------------------
     // Constructors
@@ -72,10 +66,10 @@ public class RosConnection implements OnSharedPreferenceChangeListener {
 
         fThread = new HandlerThread("ros");
         fThread.start();
-        fHandler = new Handler(fThread.getLooper());
 
-        /* Generate a default URI */
-        fMasterURI = getURIFromPreferences();
+        /* Launch the nodes on the master URI configured by the user */
+        fLauncher = new NodeLauncher(Timekeeper.getInstance().createScheduler(fThread.getLooper()),
+                getURIFromPreferences());
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -100,30 +94,12 @@ public class RosConnection implements OnSharedPreferenceChangeListener {
         return URI.create("http://" + String.valueOf(addr) + ':' + String.valueOf(port) + '/');
     }
 
-    /**
-     * This method launches a ROS node and connects it to the master node.
-     *
-     * @param node The node to launch
-     */
-    public void launchNode(NodeMain node) {
-        fHandler.post(new LaunchNode(node));
-    }
-
     /**
      * This method shutdown all the nodes. It must be called before exiting the application or the
      * master node will have zombie nodes.
      */
     public void shutdown() {
-        fHandler.post(new Shutdown());
-    }
-
-    /**
-     * This method shutdown an individual node.
-     *
-     * @param node The node to shutdown
-     */
-    public void shutdownNode(NodeMain node) {
-        fHandler.post(new ShutdownNode(node));
+        fLauncher.shutdown();
     }
 
     /**
@@ -131,13 +107,23 @@ public class RosConnection implements OnSharedPreferenceChangeListener {
      * or the address to the master node is changed.
      */
     public void restart() {
-        fHandler.post(new Restart());
+        fLauncher.restart();
     }
 
     // ---------------------------------------------------------------------------------------------
     // Overriden methods
     // ---------------------------------------------------------------------------------------------
 
+    @Override
+    public void launchNode(NodeMain node) {
+        fLauncher.launchNode(node);
+    }
+
+    @Override
+    public void shutdownNode(NodeMain node) {
+        fLauncher.shutdownNode(node);
+    }
+
     @Override
     public void onSharedPreferenceChanged(SharedPreferences preferences, String key) {
         /* Check that address or the port was the preferences that was changed */
@@ -145,89 +131,8 @@ public class RosConnection implements OnSharedPreferenceChangeListener {
             return;
         }
 
-        /* Create the URI to the master node again */
-        fMasterURI = getURIFromPreferences();
-
         /* Restart all the node using the new address */
-        restart();
-    }
-
-    // ---------------------------------------------------------------------------------------------
-    // Anonymous classes
-    // ---------------------------------------------------------------------------------------------
-
-    private class LaunchNode implements Runnable {
-        private final NodeMain fNode;
-
-        public LaunchNode(NodeMain node) {
-            fNode = node;
-        }
-
-        @Override
-        public void run() {
-            if (fExecutor == null) {
-                fExecutor = DefaultNodeMainExecutor.newDefault();
-            }
-
-            /* Create the configuration to connect to the master node */
-            NodeConfiguration config = NodeConfiguration.newPrivate(fMasterURI);
-
-            /* Start the node */
-            fExecutor.execute(fNode, config);
-
-            /* Keep a reference to the node */
-            if (!fNodes.contains(fNode)) {
-                fNodes.add(fNode);
-            }
-        }
-    }
-
-    private class Shutdown implements Runnable {
-        @Override
-        public void run() {
-            /* Shutdown all the node */
-            fExecutor.shutdown();
-            fExecutor = null;
-
-            /* Clear the node list */
-            fNodes.clear();
-        }
-    }
-
-    private class ShutdownNode implements Runnable {
-        private final NodeMain fNode;
-
-        public ShutdownNode(NodeMain node) {
-            fNode = node;
-        }
-
-        @Override
-        public void run() {
-            /* Make sure our node is in the list */
-            if (!fNodes.contains(fNode)) {
-                return;
-            }
-
-            /* Shutdown the node */
-            fExecutor.shutdownNodeMain(fNode);
-
-            /* Remove the node from the list */
-            fNodes.remove(fNode);
-        }
-    }
-
-    public class Restart implements Runnable {
-        @Override
-        public void run() {
-            /* Shutdown all the node */
-            fExecutor.shutdown();
-            fExecutor = null;
-
-            /* Restart all the node */
-            for (NodeMain node : fNodes) {
-                launchNode(node);
-            }
-        }
+        fLauncher.setMasterURI(getURIFromPreferences());
     }
 
 }
@@ -0,0 +1,62 @@
+package ca.polymtl.mrasl.shared;
+
+import android.os.Handler;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.clock.RealClock;
+
+/**
+ * This class schedules the tasks on the thread of a handler, in the real time.
+ */
+public class HandlerScheduler implements IScheduler {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final Handler fHandler;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a scheduler on the thread of a handler.
+     *
+     * @param handler The handler that runs the tasks
+     */
+    public HandlerScheduler(Handler handler) {
+        fHandler = handler;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void post(Runnable task) {
+        fHandler.post(task);
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delay) {
+        fHandler.postDelayed(task, delay);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable task) {
+        fHandler.removeCallbacks(task);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        fHandler.post(task);
+    }
+
+    @Override
+    public IClock getClock() {
+        return RealClock.getInstance();
+    }
+
+}
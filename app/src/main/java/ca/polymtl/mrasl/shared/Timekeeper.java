@@ -0,0 +1,85 @@
+package ca.polymtl.mrasl.shared;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.clock.VirtualClock;
+import ca.polymtl.mrasl.platform.Platform;
+
+/**
+ * This class provides the clock and the schedulers of the application. By default, the time is
+ * real and the tasks run on the handlers. A virtual clock can replace it for a simulation, so the
+ * timers of every component are driven by whoever advances the virtual time. The clock is the one
+ * of the {@link Platform}, so the core and the application always share the same time.
+ */
+public class Timekeeper {
+
+    private static Timekeeper Instance;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    public static synchronized Timekeeper getInstance() {
+        /* Setup the singleton instance */
+        if (Instance == null) {
+            Instance = new Timekeeper();
+        }
+
+        return Instance;
+    }
+
+    Timekeeper() {
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method creates a scheduler for the tasks of a thread. In virtual time, the tasks are
+     * run by the thread that advances the clock instead.
+     *
+     * @param looper The looper of the thread
+     *
+     * @return The new scheduler
+     */
+    public IScheduler createScheduler(Looper looper) {
+        VirtualClock clock = Platform.getInstance().getVirtualClock();
+        if (clock != null) {
+            return clock.createScheduler();
+        }
+
+        return new HandlerScheduler(new Handler(looper));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator replaces the real time by a virtual time. It only affects the components that
+     * are created after the call.
+     *
+     * @param clock The virtual clock, or {@code null} to go back to the real time
+     */
+    public void setVirtualClock(VirtualClock clock) {
+        Platform.getInstance().setVirtualClock(clock);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the clock of the application, which is virtual during a simulation.
+     *
+     * @return The clock of the application
+     */
+    public IClock getClock() {
+        return Platform.getInstance().getClock();
+    }
+
+}
@@ -0,0 +1,62 @@
+package ca.polymtl.mrasl.tag;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * This class compresses the images of the tags in WebP with the bitmaps of Android. The images are
+ * decoded with the sample size of the bitmap factory, so a large crop is never decoded at its full
+ * size.
+ */
+public class AndroidTagImageCodec implements ITagImageCodec {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final int QUALITY = 90;
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public byte[] encode(TagImage image) {
+        Bitmap bitmap = Bitmap.createBitmap(image.getPixels(), image.getWidth(), image.getHeight(),
+                Bitmap.Config.ARGB_8888);
+
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            if (!bitmap.compress(Bitmap.CompressFormat.WEBP, QUALITY, output)) {
+                return null;
+            }
+
+            return output.toByteArray();
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    @Override
+    public TagImage decode(byte[] data, int sampleSize) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inSampleSize = sampleSize;
+
+        Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (bitmap == null) {
+            return null;
+        }
+
+        int w = bitmap.getWidth();
+        int h = bitmap.getHeight();
+        int[] pixels = new int[w * h];
+        bitmap.getPixels(pixels, 0, w, 0, 0, w, h);
+        bitmap.recycle();
+
+        return new TagImage(w, h, pixels);
+    }
+
+}
@@ -9,10 +9,14 @@ import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.SystemClock;
 
+import ca.polymtl.mrasl.mission.State;
 import ca.polymtl.mrasl.ui.activity.MainActivity;
 import ca.polymtl.mrasl.payload.PayloadGPS;
 import ca.polymtl.mrasl.payload.PayloadManager;
+import ca.polymtl.mrasl.recorder.FlightRecorder;
 
 /**
  * This class implements a telemetry module for the GPS system.
@@ -35,10 +39,12 @@ public class GPSModule implements ITelemetryModule<PayloadGPS> {
 
     private final Context fContext;
     private final LocationManager fLocManager;
+    private final LocationListener fListener = new LocListener();
 
     private PayloadManager fPayloadManager;
     private PayloadGPS fPayload;
     private boolean fConnected;
+    private long fInterval;
 
     // ---------------------------------------------------------------------------------------------
     // Constructors
@@ -59,12 +65,9 @@ public class GPSModule implements ITelemetryModule<PayloadGPS> {
         /* Get the GPS service */
         fLocManager = (LocationManager) fContext.getSystemService(Context.LOCATION_SERVICE);
 
-        /* Request location updates into our listener */
-        LocationListener listener = new LocListener();
-
-        /* Request as location updates */
-        fLocManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, 0, 0, listener);
-        fLocManager.requestLocationUpdates(LocationManager.NETWORK_PROVIDER, 0, 0, listener);
+        /* Request location updates into our listener, the drone is on the ground for now */
+        fInterval = RateProfile.forState(State.READY).getGPSInterval();
+        requestUpdates();
 
         /* Add a GPS status listener */
         fLocManager.addGpsStatusListener(new StatusListener());
@@ -76,6 +79,23 @@ public class GPSModule implements ITelemetryModule<PayloadGPS> {
         fConnected = true;
     }
 
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method requests the location updates at the current interval. The updates are
+     * delivered on the main thread whatever the thread that requests them.
+     */
+    private void requestUpdates() {
+        Looper looper = fContext.getMainLooper();
+
+        fLocManager.requestLocationUpdates(
+                LocationManager.GPS_PROVIDER, fInterval, 0, fListener, looper);
+        fLocManager.requestLocationUpdates(
+                LocationManager.NETWORK_PROVIDER, fInterval, 0, fListener, looper);
+    }
+
     // ---------------------------------------------------------------------------------------------
     // Overriden methods
     // ---------------------------------------------------------------------------------------------
@@ -90,6 +110,27 @@ public class GPSModule implements ITelemetryModule<PayloadGPS> {
         fPayloadManager = manager;
     }
 
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator changes the interval of the location updates to the one of a rate profile.
+     * The updates are requested again only if the interval changed.
+     *
+     * @param profile The rate profile
+     */
+    public synchronized void setRateProfile(RateProfile profile) {
+        /* Make sure the interval changed */
+        if (profile.getGPSInterval() == fInterval) {
+            return;
+        }
+
+        fInterval = profile.getGPSInterval();
+        fLocManager.removeUpdates(fListener);
+        requestUpdates();
+    }
+
     // ---------------------------------------------------------------------------------------------
     // Accessors
     // ---------------------------------------------------------------------------------------------
@@ -103,6 +144,32 @@ public class GPSModule implements ITelemetryModule<PayloadGPS> {
         return fConnected;
     }
 
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Util method that builds a GPS payload from a {@link Location}. The fields that the location
+     * doesn't provide are set to zero.
+     *
+     * @param location The location to build the payload from
+     *
+     * @return The GPS payload
+     */
+    private static PayloadGPS createPayload(Location location) {
+        /* The GPSModule always provides the latitude and longitude */
+        float latitude = (float) location.getLatitude();
+        float longitude = (float) location.getLongitude();
+
+        /* Set the optional fields if possible */
+        float altitude = location.hasAltitude() ? (float) location.getAltitude() : 0L;
+        float bearing = location.hasBearing() ? location.getBearing() : 0L;
+        float accuracy = location.hasAccuracy() ? location.getAccuracy() : 0L;
+        float speed = location.hasSpeed() ? location.getSpeed() : 0L;
+
+        return new PayloadGPS(latitude, longitude, altitude, bearing, accuracy, speed);
+    }
+
     // ---------------------------------------------------------------------------------------------
     // Anonymous classes
     // ---------------------------------------------------------------------------------------------
@@ -113,7 +180,13 @@ public class GPSModule implements ITelemetryModule<PayloadGPS> {
     private class LocListener implements LocationListener {
         @Override
         public void onLocationChanged(Location location) {
-            fPayload = new PayloadGPS(location);
+            fPayload = createPayload(location);
+
+            /* Record the sample in the flight log */
+            FlightRecorder.getInstance().recordGPS(fPayload);
+
+            /* Keep the sample in the history of the mission */
+            TelemetryHistory.getInstance().recordGPS(SystemClock.elapsedRealtime(), fPayload);
 
             /* Add the payload to the queue if possible */
             if (fPayloadManager != null) {
@@ -0,0 +1,144 @@
+package ca.polymtl.mrasl.telemetry;
+
+import android.content.Context;
+import android.os.BatteryManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Locale;
+
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.ui.activity.MainActivity;
+
+/**
+ * This class measures the CPU time of the application and the battery drained by the tablet for
+ * each state of the mission, which shows what each {@link RateProfile} costs. The battery is read
+ * from the charge counter, so the drop is meaningless while the tablet is charging.
+ */
+public class PowerMonitor {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = PowerMonitor.class.getName();
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final BatteryManager fBatteryManager;
+    private final long[] fTime = new long[State.values().length];
+    private final long[] fCpuTime = new long[State.values().length];
+    private final long[] fCharge = new long[State.values().length];
+
+    private State fState;
+    private long fLastTime;
+    private long fLastCpuTime;
+    private int fLastCharge;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    public PowerMonitor() {
+        Context context = MainActivity.getInstance().getApplicationContext();
+
+        /* Get the battery service */
+        fBatteryManager = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method closes the measurement of the previous state and starts the one of a new
+     * state.
+     *
+     * @param state The new state of the mission
+     */
+    public synchronized void onStateChanged(State state) {
+        long time = SystemClock.elapsedRealtime();
+        long cpuTime = Process.getElapsedCpuTime();
+        int charge = getChargeCounter();
+
+        /* Account the previous state */
+        if (fState != null) {
+            int index = fState.ordinal();
+            long elapsed = time - fLastTime;
+            long cpu = cpuTime - fLastCpuTime;
+
+            fTime[index] += elapsed;
+            fCpuTime[index] += cpu;
+            if (charge > 0 && fLastCharge > 0) {
+                fCharge[index] += fLastCharge - charge;
+            }
+
+            Log.d(TAG, String.format(Locale.US, "%s: %d ms, cpu %d ms (%.1f%%), battery %d uAh",
+                    fState, elapsed, cpu, (elapsed > 0) ? 100.0 * cpu / elapsed : 0.0,
+                    (charge > 0 && fLastCharge > 0) ? fLastCharge - charge : 0));
+        }
+
+        fState = state;
+        fLastTime = time;
+        fLastCpuTime = cpuTime;
+        fLastCharge = charge;
+    }
+
+    /**
+     * This method reads the remaining charge of the battery.
+     *
+     * @return The remaining charge in microampere-hours, or zero if unknown
+     */
+    private int getChargeCounter() {
+        if (fBatteryManager == null) {
+            return 0;
+        }
+
+        /* Some devices don't support the charge counter */
+        int charge = fBatteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CHARGE_COUNTER);
+        return (charge > 0) ? charge : 0;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the total time spent in a state in milliseconds. The current state is
+     * only accounted once it's left.
+     *
+     * @param state The state of the mission
+     *
+     * @return The time spent in the state
+     */
+    public synchronized long getTime(State state) {
+        return fTime[state.ordinal()];
+    }
+
+    /**
+     * Accessor that returns the CPU time used by the application during a state in milliseconds.
+     *
+     * @param state The state of the mission
+     *
+     * @return The CPU time used during the state
+     */
+    public synchronized long getCpuTime(State state) {
+        return fCpuTime[state.ordinal()];
+    }
+
+    /**
+     * Accessor that returns the charge drained from the battery during a state in
+     * microampere-hours.
+     *
+     * @param state The state of the mission
+     *
+     * @return The charge drained during the state
+     */
+    public synchronized long getBatteryDrop(State state) {
+        return fCharge[state.ordinal()];
+    }
+
+}
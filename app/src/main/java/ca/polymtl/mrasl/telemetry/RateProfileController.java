@@ -0,0 +1,47 @@
+package ca.polymtl.mrasl.telemetry;
+
+import ca.polymtl.mrasl.mission.MissionStateChangedListener;
+import ca.polymtl.mrasl.mission.State;
+
+/**
+ * This class applies the {@link RateProfile} of the state of the mission to the telemetry modules
+ * and measures the power used in each state.
+ */
+public class RateProfileController implements MissionStateChangedListener {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final PowerMonitor fPowerMonitor = new PowerMonitor();
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void onStateChanged(State state) {
+        RateProfile profile = RateProfile.forState(state);
+
+        /* Change the rates of the modules */
+        GPSModule.getInstance().setRateProfile(profile);
+        SensorsModule.getInstance().setRateProfile(profile);
+
+        /* Start measuring the new profile */
+        fPowerMonitor.onStateChanged(state);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This accessor returns the monitor that measures the power used in each state.
+     *
+     * @return The power monitor
+     */
+    public PowerMonitor getPowerMonitor() {
+        return fPowerMonitor;
+    }
+
+}
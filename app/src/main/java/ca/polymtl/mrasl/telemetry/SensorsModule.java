@@ -7,10 +7,13 @@ import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.os.Handler;
 import android.os.HandlerThread;
+import android.os.SystemClock;
 
+import ca.polymtl.mrasl.mission.State;
 import ca.polymtl.mrasl.ui.activity.MainActivity;
 import ca.polymtl.mrasl.payload.PayloadManager;
 import ca.polymtl.mrasl.payload.PayloadSensors;
+import ca.polymtl.mrasl.recorder.FlightRecorder;
 
 /**
  * This class implements a telemetry module for the sensors system.
@@ -21,12 +24,6 @@ public class SensorsModule implements ITelemetryModule<PayloadSensors> {
 
     private static SensorsModule Instance;
 
-    // ---------------------------------------------------------------------------------------------
-    // Constants
-    // ---------------------------------------------------------------------------------------------
-
-    private static final int FREQUENCY = SensorManager.SENSOR_DELAY_FASTEST;
-
     // ---------------------------------------------------------------------------------------------
     // Attributes
     // ---------------------------------------------------------------------------------------------
@@ -37,9 +34,11 @@ public class SensorsModule implements ITelemetryModule<PayloadSensors> {
     private final SensorManager fSensorManager;
     private final Sensor fAccelerometer;
     private final Sensor fRotation;
+    private final SensorEventListener fListener = new SensorsListener();
 
     private PayloadManager fPayloadManager;
     private PayloadSensors fPayload;
+    private int fSensorPeriod;
 
     // ---------------------------------------------------------------------------------------------
     // Constructors
@@ -69,10 +68,21 @@ public class SensorsModule implements ITelemetryModule<PayloadSensors> {
         fThread.start();
         fHandler = new Handler(fThread.getLooper());
 
-        /* Add listener to the sensor */
-        SensorEventListener listener = new SensorsListener();
-        fSensorManager.registerListener(listener, fAccelerometer, FREQUENCY, fHandler);
-        fSensorManager.registerListener(listener, fRotation, FREQUENCY, fHandler);
+        /* Add listener to the sensor, the drone is on the ground until a mission starts */
+        fSensorPeriod = RateProfile.forState(State.READY).getSensorPeriod();
+        registerListeners();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method registers the listener to the sensors at the current sampling period.
+     */
+    private void registerListeners() {
+        fSensorManager.registerListener(fListener, fAccelerometer, fSensorPeriod, fHandler);
+        fSensorManager.registerListener(fListener, fRotation, fSensorPeriod, fHandler);
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -89,6 +99,27 @@ public class SensorsModule implements ITelemetryModule<PayloadSensors> {
         fPayloadManager = manager;
     }
 
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator changes the sampling period of the sensors to the one of a rate profile. The
+     * listener is registered again only if the period changed.
+     *
+     * @param profile The rate profile
+     */
+    public synchronized void setRateProfile(RateProfile profile) {
+        /* Make sure the period changed */
+        if (profile.getSensorPeriod() == fSensorPeriod) {
+            return;
+        }
+
+        fSensorPeriod = profile.getSensorPeriod();
+        fSensorManager.unregisterListener(fListener);
+        registerListeners();
+    }
+
     // ---------------------------------------------------------------------------------------------
     // Anonymous classes
     // ---------------------------------------------------------------------------------------------
@@ -100,12 +131,28 @@ public class SensorsModule implements ITelemetryModule<PayloadSensors> {
         @Override
         public void onSensorChanged(SensorEvent event) {
             /* We copy the information about the previous sensors, if possible */
-            if (fPayload == null) {
-                fPayload = new PayloadSensors(event);
-            } else {
-                fPayload = new PayloadSensors(event, fPayload);
+            PayloadSensors previous = (fPayload != null) ? fPayload : new PayloadSensors();
+            float[] accelerometer = previous.getAccelerometer();
+            float[] rotation = previous.getRotation();
+
+            /* Check which sensor triggered the listener */
+            switch (event.sensor.getType()) {
+                case Sensor.TYPE_ACCELEROMETER:
+                    accelerometer = event.values.clone();
+                    break;
+                case Sensor.TYPE_ROTATION_VECTOR:
+                    rotation = event.values.clone();
+                    break;
             }
 
+            fPayload = new PayloadSensors(accelerometer, rotation);
+
+            /* Record the sample in the flight log */
+            FlightRecorder.getInstance().recordSensors(fPayload);
+
+            /* Keep the sample in the history of the mission */
+            TelemetryHistory.getInstance().recordSensors(SystemClock.elapsedRealtime(), fPayload);
+
             /* Add the payload to the queue if possible */
             if (fPayloadManager != null) {
                 fPayloadManager.setPayload(fPayload);
@@ -3,10 +3,9 @@ package ca.polymtl.mrasl.ui.activity;
 import static android.view.View.OnSystemUiVisibilityChangeListener;
 import static dji.sdk.Battery.DJIBattery.DJIBatteryStateUpdateCallback;
 
-import android.app.Activity;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
-import android.os.Handler;
+import android.os.Looper;
 import android.view.TextureView;
 import android.view.View;
 import android.view.Window;
@@ -19,11 +18,12 @@ import android.widget.TableLayout;
 import android.widget.TextView;
 
 import ca.polymtl.mrasl.R;
+import ca.polymtl.mrasl.clock.IScheduler;
 import ca.polymtl.mrasl.drone.Aircraft;
 import ca.polymtl.mrasl.drone.Camera;
 import ca.polymtl.mrasl.drone.Registration;
 import ca.polymtl.mrasl.mission.Mission;
-import ca.polymtl.mrasl.tag.TagList;
+import ca.polymtl.mrasl.shared.Timekeeper;
 import ca.polymtl.mrasl.ui.control.MissionControl;
 import ca.polymtl.mrasl.ui.control.TagTableControl;
 import ca.polymtl.mrasl.ui.control.TimerControl;
@@ -48,7 +48,8 @@ public class CommandCenterActivity extends AppCompatActivity implements
     // Attributes
     // ---------------------------------------------------------------------------------------------
 
-    private final Handler fHandler = new Handler();
+    private final IScheduler fScheduler =
+            Timekeeper.getInstance().createScheduler(Looper.getMainLooper());
     private final Runnable fListener = new ConnectionChangeListener();
 
     private Aircraft fAircraft;
@@ -74,8 +75,26 @@ public class CommandCenterActivity extends AppCompatActivity implements
         /* Load activity view */
         setContentView(R.layout.activity_command_center);
 
+        /* The mission is shown and controlled even before the aircraft connects */
+        Mission mission = Registration.getInstance().getMission();
+
+        /* Create the table control */
+        TableLayout table = (TableLayout) findViewById(R.id.table_tags);
+        ImageView image = (ImageView) findViewById(R.id.image_tag);
+        fTable = new TagTableControl(this, mission.getTagList(), image, table);
+
+        /* Create the mission control */
+        Button startMission = (Button) findViewById(R.id.start_mission);
+        Button abortLanding = (Button) findViewById(R.id.abort_landing);
+        Button abortMission = (Button) findViewById(R.id.abort_mission);
+        fControl = new MissionControl(this, mission, startMission, abortLanding, abortMission);
+
+        /* Create the timer control */
+        TextView timer = (TextView) findViewById(R.id.time);
+        fTimer = new TimerControl(this, timer, mission);
+
         /* Hide the navigation buttons */
-        fHandler.post(new HideNavigationButton());
+        fScheduler.post(new HideNavigationButton());
 
         /* Add a listener that will keep the button hidden */
         OnSystemUiVisibilityChangeListener listener = new SystemUIChangeListener();
@@ -169,7 +188,7 @@ public class CommandCenterActivity extends AppCompatActivity implements
 
         @Override
         public void onSystemUiVisibilityChange(int visibility) {
-            fHandler.postDelayed(fHideButtons, HIDE_BUTTON_DELAY);
+            fScheduler.postDelayed(fHideButtons, HIDE_BUTTON_DELAY);
         }
     }
 
@@ -184,26 +203,6 @@ public class CommandCenterActivity extends AppCompatActivity implements
                 return;
             }
 
-            /* Get the mission and the tag list */
-            Mission mission = fAircraft.getMission();
-            TagList list = mission.getTagList();
-
-            /* Create the table control */
-            TableLayout table = (TableLayout) findViewById(R.id.table_tags);
-            ImageView image = (ImageView) findViewById(R.id.image_tag);
-            fTable = new TagTableControl(CommandCenterActivity.this, list, image, table);
-
-            /* Create the mission control */
-            Activity act = CommandCenterActivity.this;
-            Button startMission = (Button) findViewById(R.id.start_mission);
-            Button abortLanding = (Button) findViewById(R.id.abort_landing);
-            Button abortMission = (Button) findViewById(R.id.abort_mission);
-            fControl = new MissionControl(act, mission, startMission, abortLanding, abortMission);
-
-            /* Create the timer control */
-            TextView timer = (TextView) findViewById(R.id.time);
-            fTimer = new TimerControl(CommandCenterActivity.this, timer, mission);
-
             /* Add the battery callback */
             fAircraft.getBattery().setBatteryStateUpdateCallback(CommandCenterActivity.this);
 
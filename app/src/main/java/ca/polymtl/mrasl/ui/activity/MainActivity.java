@@ -5,6 +5,7 @@ import static android.support.design.widget.NavigationView.OnNavigationItemSelec
 import android.Manifest;
 import android.app.Fragment;
 import android.app.FragmentManager;
+import android.content.ComponentCallbacks2;
 import android.content.Intent;
 import android.graphics.Color;
 import android.graphics.PorterDuff;
@@ -21,10 +22,22 @@ import android.support.v7.widget.Toolbar;
 import android.view.Menu;
 import android.view.MenuItem;
 
+import java.io.File;
+
 import ca.polymtl.mrasl.R;
+import ca.polymtl.mrasl.clock.IScheduler;
 import ca.polymtl.mrasl.drone.Aircraft;
 import ca.polymtl.mrasl.drone.Registration;
+import ca.polymtl.mrasl.log.AndroidLogger;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.mission.MissionCheckpoint;
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.recorder.FlightRecorder;
+import ca.polymtl.mrasl.ros.AndroidImageDecoder;
 import ca.polymtl.mrasl.ros.RosConnection;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.tag.AndroidTagImageCodec;
+import ca.polymtl.mrasl.tag.TagImageStore;
 import ca.polymtl.mrasl.ui.fragment.CameraFragment;
 import ca.polymtl.mrasl.ui.fragment.MissionFragment;
 import ca.polymtl.mrasl.ui.fragment.TelemetryFragment;
@@ -51,6 +64,7 @@ public class MainActivity extends AppCompatActivity implements OnNavigationItemS
     private ActionBarDrawerToggle fDrawerToggle;
     private NavigationView fNavigation;
     private Toolbar fToolbar;
+    private IScheduler fTrimScheduler;
 
     // ---------------------------------------------------------------------------------------------
     // Constructors
@@ -115,6 +129,34 @@ public class MainActivity extends AppCompatActivity implements OnNavigationItemS
         fFragmentManager = getFragmentManager();
         fFragmentManager.beginTransaction().replace(R.id.flContent, new MissionFragment()).commit();
 
+        /* Setup the platform of the core before anything produces data */
+        Platform platform = Platform.getInstance();
+        Log.setLogger(new AndroidLogger());
+        platform.setRecorder(FlightRecorder.start());
+        platform.setNodeLauncher(RosConnection.getInstance());
+        platform.setImageDecoder(new AndroidImageDecoder());
+        platform.setTagImageCodec(new AndroidTagImageCodec());
+
+        /* The images spilled by a previous run belong to no mission anymore */
+        File images = new File(getCacheDir(), "tags");
+        File[] stale = images.listFiles();
+        if (stale != null) {
+            for (File file : stale) {
+                if (!file.delete()) {
+                    Log.w(TAG, "Unable to delete " + file);
+                }
+            }
+        }
+        platform.setTagImageDirectory(images);
+
+        /* Releasing the images may write them to the storage, so it is done off the UI thread */
+        fTrimScheduler = platform.createScheduler("trim");
+
+        /* Recover the mission of the previous run, the mission is created by the registration */
+        File journal = new File(getFilesDir(), "mission.journal");
+        platform.setCheckpoint(new MissionCheckpoint(journal,
+                platform.createScheduler("checkpoint")));
+
         /* Start the DJI registration instance */
         Registration.getInstance();
     }
@@ -126,11 +168,46 @@ public class MainActivity extends AppCompatActivity implements OnNavigationItemS
         /* Shutdown ROS node */
         RosConnection.getInstance().shutdown();
 
-        /* Dispose the aircraft */
+        /* Dispose the aircraft, then the mission it was flying */
         Aircraft aircraft = Registration.getInstance().getAicraft();
         if(aircraft != null) {
             aircraft.dispose();
         }
+        Registration.getInstance().getMission().dispose();
+
+        /* Close the flight log */
+        FlightRecorder.getInstance().dispose();
+
+        /* Stop the thread that releases the images */
+        if (fTrimScheduler instanceof IDisposable) {
+            ((IDisposable) fTrimScheduler).dispose();
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        /* The decoded images go first, the compressed ones when the process may be killed */
+        final TagImageStore images = Registration.getInstance().getMission().getTagList()
+                .getImageStore();
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            fTrimScheduler.post(new Runnable() {
+                @Override
+                public void run() {
+                    /* The compressed images are spilled to the storage */
+                    images.trimAll();
+                }
+            });
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            fTrimScheduler.post(new Runnable() {
+                @Override
+                public void run() {
+                    images.trimCache();
+                }
+            });
+        }
     }
 
     @Override
@@ -6,16 +6,19 @@ import android.app.Activity;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.DialogInterface;
-import android.os.Handler;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 
 import ca.polymtl.mrasl.R;
+import ca.polymtl.mrasl.clock.IScheduler;
 import ca.polymtl.mrasl.mission.Mission;
 import ca.polymtl.mrasl.mission.MissionStateChangedListener;
 import ca.polymtl.mrasl.mission.State;
 import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.shared.Timekeeper;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.trace.TriggerSource;
 import ca.polymtl.mrasl.ui.activity.MainActivity;
 
 /**
@@ -39,7 +42,7 @@ public class MissionControl implements
     // Attributes
     // ---------------------------------------------------------------------------------------------
 
-    private final Handler fHandler;
+    private final IScheduler fScheduler;
     private final Mission fMission;
     private final Button fStartMission;
     private final Button fAbortLanding;
@@ -66,7 +69,7 @@ public class MissionControl implements
                           Button startMission,
                           Button abortLanding,
                           Button abortMission) {
-        fHandler = new Handler(activity.getMainLooper());
+        fScheduler = Timekeeper.getInstance().createScheduler(activity.getMainLooper());
         fMission = mission;
         fStartMission = startMission;
         fAbortLanding = abortLanding;
@@ -77,8 +80,8 @@ public class MissionControl implements
         fAbortLanding.setOnClickListener(this);
         fAbortMission.setOnClickListener(this);
 
-        /* Add a mission state listener */
-        fMission.addMissionStateChangedListener(this);
+        /* Add a mission state listener on the main thread, only the latest state matters */
+        fMission.addMissionStateChangedListener(this, fScheduler, true);
 
         /* Create a base builder for all the dialogs */
         Context context = MainActivity.getInstance().getApplicationContext();
@@ -141,13 +144,16 @@ public class MissionControl implements
             return;
         }
 
+        /* The command is triggered when the operator confirms */
+        CommandTrace trace = new CommandTrace(TriggerSource.UI);
+
         /* Execute the command */
         if (dialog == fStartMissionDialog) {
-            success = fMission.startMission();
+            success = fMission.startMission(trace);
         } else if (dialog == fAbortLandingDialog) {
-            success = fMission.abortLanding();
+            success = fMission.abortLanding(trace);
         } else if (dialog == fAbortMissionDialog) {
-            success = fMission.abortMission();
+            success = fMission.abortMission(trace);
         } else {
             return;
         }
@@ -158,15 +164,15 @@ public class MissionControl implements
         }
 
         /* Update the controls */
-        fHandler.post(new UpdateControls());
+        fScheduler.post(new UpdateControls());
     }
 
     @Override
     public void onStateChanged(State state) {
         Log.d(TAG, "State change received");
 
-        /* Update the controls */
-        fHandler.post(new UpdateControls());
+        /* The listener is already called on the main thread */
+        new UpdateControls().run();
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -3,8 +3,8 @@ package ca.polymtl.mrasl.ui.control;
 import static android.view.View.OnClickListener;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.support.v4.content.ContextCompat;
-import android.os.Handler;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -15,18 +15,29 @@ import android.widget.TableRow;
 import android.widget.TextView;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import ca.polymtl.mrasl.R;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.platform.Platform;
 import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.shared.Timekeeper;
 import ca.polymtl.mrasl.tag.Tag;
 import ca.polymtl.mrasl.tag.TagAddedListener;
+import ca.polymtl.mrasl.tag.TagImage;
 import ca.polymtl.mrasl.tag.TagList;
+import ca.polymtl.mrasl.tag.TagSnapshot;
+import ca.polymtl.mrasl.tag.TagUpdatedListener;
+import ca.polymtl.mrasl.tag.TagsRestoredListener;
 
 /**
  * @author Gabriel-Andrew Pollo-Guilbert
  */
-public class TagTableControl implements IDisposable, TagAddedListener, OnClickListener {
+public class TagTableControl implements IDisposable, TagAddedListener, TagUpdatedListener,
+        TagsRestoredListener, OnClickListener {
 
     // ---------------------------------------------------------------------------------------------
     // Constants
@@ -34,19 +45,26 @@ public class TagTableControl implements IDisposable, TagAddedListener, OnClickLi
 
     private static final String TAG = TagTableControl.class.getName();
     private static final int RESIZE = 3;
+    private static final int DISPLAY_SIZE = 160;
 
     // ---------------------------------------------------------------------------------------------
     // Attributes
     // ---------------------------------------------------------------------------------------------
 
     private final Context fContext;
-    private final Handler fHandler;
+    private final IScheduler fScheduler;
+    private final IScheduler fDecoder;
     private final TagList fList;
     private final ImageView fView;
     private final TableLayout fTable;
     private final Map<TableRow, Tag> fRows = new HashMap<>();
+    private final Map<Tag, TableRow> fTagRows = new IdentityHashMap<>();
+    private final AtomicBoolean fRefreshPending = new AtomicBoolean();
+    private final Runnable fRefresh = new Refresh();
 
     private View fSelection;
+    private volatile Tag fShownTag;
+    private int fVersion;
 
     // ---------------------------------------------------------------------------------------------
     // Constructors
@@ -54,18 +72,19 @@ public class TagTableControl implements IDisposable, TagAddedListener, OnClickLi
 
     public TagTableControl(Context context, TagList list, ImageView view, TableLayout table) {
         fContext = context;
-        fHandler = new Handler(context.getMainLooper());
+        fScheduler = Timekeeper.getInstance().createScheduler(context.getMainLooper());
+        fDecoder = Platform.getInstance().createScheduler("tag-images");
         fList = list;
         fView = view;
         fTable = table;
 
-        /* Connect the listener to the tag list */
+        /* Connect the listeners to the tag list */
         fList.addListener(this);
+        fList.addUpdateListener(this);
+        fList.addRestoreListener(this);
 
         /* Add the tags that are already detected */
-        for (Tag tag : fList.getList()) {
-            new AddRow(tag).run();
-        }
+        fRefresh.run();
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -73,18 +92,48 @@ public class TagTableControl implements IDisposable, TagAddedListener, OnClickLi
     // ---------------------------------------------------------------------------------------------
 
     /**
-     * This method changes the tag image that is being showed.
+     * This method changes the tag image that is being showed. The image may have to be read from
+     * the storage and decoded, so it is done by the decoder and shown on the UI thread once ready.
      *
      * @param tag The tag that has the image
      */
     private void setImage(Tag tag) {
-        /* Set the view aspect ratio to the same of the image */
-        ViewGroup.LayoutParams params = fView.getLayoutParams();
-        params.width = tag.getImage().getWidth() * RESIZE;
-        params.height = tag.getImage().getHeight() * RESIZE;
+        fShownTag = tag;
+        fDecoder.post(new Decode(tag));
+    }
+
+    /**
+     * This method adds a new row based on the information of a tag.
+     *
+     * @param tag The new tag
+     */
+    private void addRow(Tag tag) {
+        /* Create an empty row */
+        TableRow row = (TableRow) LayoutInflater.from(fContext).inflate(R.layout.row_tag, null);
 
-        /* Put the image into the view */
-        fView.setImageBitmap(tag.getImage());
+        /* Put the tag information in the cells */
+        TextView ID = (TextView) row.findViewById(R.id.tag_id);
+        ID.setText(String.valueOf(tag.getID()));
+        setPosition(row, tag);
+
+        /* Add the click listener */
+        row.setOnClickListener(this);
+
+        /* Add the row into the table */
+        fTable.addView(row);
+
+        /* Link the row with the tag */
+        fRows.put(row, tag);
+        fTagRows.put(tag, row);
+    }
+
+    /**
+     * This method posts a refresh of the table, unless one is already waiting.
+     */
+    private void postRefresh() {
+        if (fRefreshPending.compareAndSet(false, true)) {
+            fScheduler.post(fRefresh);
+        }
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -93,14 +142,35 @@ public class TagTableControl implements IDisposable, TagAddedListener, OnClickLi
 
     @Override
     public void dispose() {
-        /* Disconnect the listener from the tag list */
+        /* Disconnect the listeners from the tag list */
         fList.removeListener(this);
+        fList.removeUpdateListener(this);
+        fList.removeRestoreListener(this);
+        fScheduler.removeCallbacks(fRefresh);
+
+        /* Forget the image being decoded */
+        fShownTag = null;
+        if (fDecoder instanceof IDisposable) {
+            ((IDisposable) fDecoder).dispose();
+        }
     }
 
     @Override
     public void onNewTag(Tag tag) {
-        /* Add a new row */
-        fHandler.post(new AddRow(tag));
+        /* Pull the new tag from the list */
+        postRefresh();
+    }
+
+    @Override
+    public void onTagUpdated(Tag tag) {
+        /* Pull the updated tag from the list */
+        postRefresh();
+    }
+
+    @Override
+    public void onTagsRestored(List<Tag> tags) {
+        /* Pull the recovered tags from the list */
+        postRefresh();
     }
 
     @Override
@@ -136,40 +206,113 @@ public class TagTableControl implements IDisposable, TagAddedListener, OnClickLi
     // ---------------------------------------------------------------------------------------------
 
     /**
-     * This class adds a new row based on the information of a tag.
+     * This class pulls the tags that changed since the last refresh from the snapshot of the list.
+     * A burst of sightings is posted once, and only the rows of its tags are touched.
      */
-    private class AddRow implements Runnable {
+    private class Refresh implements Runnable {
+        @Override
+        public void run() {
+            fRefreshPending.set(false);
+
+            TagSnapshot snapshot = fList.getSnapshot();
+            for (Tag tag : snapshot.getChangedSince(fVersion)) {
+                TableRow row = fTagRows.get(tag);
+                if (row == null) {
+                    addRow(tag);
+                    continue;
+                }
+
+                /* Put the fused position in the cells */
+                setPosition(row, tag);
+
+                /* A better image may have been found for the selected tag */
+                if (row == fSelection) {
+                    setImage(tag);
+                }
+            }
+
+            fVersion = snapshot.getVersion();
+        }
+    }
+
+    /**
+     * This class decodes the image of a tag off the UI thread. An image is skipped if another tag
+     * was selected in the meantime.
+     */
+    private class Decode implements Runnable {
         private final Tag fTag;
 
-        public AddRow(Tag tag) {
+        public Decode(Tag tag) {
             fTag = tag;
         }
 
         @Override
         public void run() {
-            /* Create an empty row */
-            TableRow row = (TableRow) LayoutInflater.from(fContext).inflate(R.layout.row_tag, null);
+            if (fShownTag != fTag) {
+                return;
+            }
+
+            /* The tags recovered after a restart have no image */
+            TagImage image = fList.getImageStore().getImage(fTag, DISPLAY_SIZE, DISPLAY_SIZE);
+            Bitmap bitmap = null;
+            if (image != null) {
+                bitmap = Bitmap.createBitmap(image.getPixels(), image.getWidth(),
+                        image.getHeight(), Bitmap.Config.ARGB_8888);
+            }
+
+            fScheduler.post(new ShowImage(fTag, bitmap));
+        }
+    }
 
-            /* Get individual cells */
-            TextView ID = (TextView) row.findViewById(R.id.tag_id);
-            TextView latitude = (TextView) row.findViewById(R.id.tag_latitude);
-            TextView longitude = (TextView) row.findViewById(R.id.tag_longitude);
+    /**
+     * This class puts a decoded image in the view, on the UI thread.
+     */
+    private class ShowImage implements Runnable {
+        private final Tag fTag;
+        private final Bitmap fBitmap;
 
-            /* Put the tag information in the cells */
-            ID.setText(String.valueOf(fTag.getID()));
-            latitude.setText(String.valueOf((float) fTag.getLatitude()));
-            longitude.setText(String.valueOf((float) fTag.getLongitude()));
+        public ShowImage(Tag tag, Bitmap bitmap) {
+            fTag = tag;
+            fBitmap = bitmap;
+        }
 
-            /* Add the click listener */
-            row.setOnClickListener(TagTableControl.this);
+        @Override
+        public void run() {
+            if (fShownTag != fTag) {
+                return;
+            }
+
+            if (fBitmap == null) {
+                fView.setImageBitmap(null);
+                return;
+            }
+
+            /* Set the view aspect ratio to the same of the image */
+            ViewGroup.LayoutParams params = fView.getLayoutParams();
+            params.width = fBitmap.getWidth() * RESIZE;
+            params.height = fBitmap.getHeight() * RESIZE;
+
+            /* Put the image into the view */
+            fView.setImageBitmap(fBitmap);
+        }
+    }
 
-            /* Add the row into the table */
-            fTable.addView(row);
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
 
-            /* Link the row with the tag */
-            fRows.put(row, fTag);
-        }
+    /**
+     * This util method puts the position of a tag in the cells of its row.
+     *
+     * @param row The row of the tag
+     * @param tag The tag
+     */
+    private static void setPosition(TableRow row, Tag tag) {
+        TextView latitude = (TextView) row.findViewById(R.id.tag_latitude);
+        TextView longitude = (TextView) row.findViewById(R.id.tag_longitude);
+
+        latitude.setText(String.valueOf((float) tag.getLatitude()));
+        longitude.setText(String.valueOf((float) tag.getLongitude()));
     }
 
 }
-
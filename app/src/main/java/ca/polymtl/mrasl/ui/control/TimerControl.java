@@ -4,14 +4,15 @@ import android.app.Activity;
 import android.content.Context;
 import android.util.Log;
 import android.widget.TextView;
-import android.os.Handler;
 
 import java.util.concurrent.TimeUnit;
 
+import ca.polymtl.mrasl.clock.IScheduler;
 import ca.polymtl.mrasl.mission.Mission;
 import ca.polymtl.mrasl.mission.MissionStateChangedListener;
 import ca.polymtl.mrasl.mission.State;
 import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.shared.Timekeeper;
 
 /**
  * This class controls the timer of a mission.
@@ -31,7 +32,7 @@ public class TimerControl implements IDisposable, Runnable, MissionStateChangedL
     // Attributes
     // ---------------------------------------------------------------------------------------------
 
-    private final Handler fHandler;
+    private final IScheduler fScheduler;
     private final Mission fMission;
     private final TextView fTimer;
 
@@ -40,12 +41,12 @@ public class TimerControl implements IDisposable, Runnable, MissionStateChangedL
     // ---------------------------------------------------------------------------------------------
 
     public TimerControl(Activity activity, TextView timer, Mission mission) {
-        fHandler = new Handler(activity.getMainLooper());
+        fScheduler = Timekeeper.getInstance().createScheduler(activity.getMainLooper());
         fTimer = timer;
         fMission = mission;
 
-        /* Add a mission state listener */
-        fMission.addMissionStateChangedListener(this);
+        /* Add a mission state listener on the main thread, only the latest state matters */
+        fMission.addMissionStateChangedListener(this, fScheduler, true);
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -57,7 +58,7 @@ public class TimerControl implements IDisposable, Runnable, MissionStateChangedL
      */
     private void start() {
         /* The timer will post itself at interval */
-        fHandler.post(this);
+        fScheduler.post(this);
     }
 
     /**
@@ -65,7 +66,7 @@ public class TimerControl implements IDisposable, Runnable, MissionStateChangedL
      */
     private void stop() {
         /* Remove the callback of the timer */
-        fHandler.removeCallbacks(this);
+        fScheduler.removeCallbacks(this);
     }
 
     /**
@@ -101,14 +102,14 @@ public class TimerControl implements IDisposable, Runnable, MissionStateChangedL
     public void run() {
         /* Calculate the current time duration of the mission */
         long start = fMission.getStartTime();
-        long now = System.currentTimeMillis();
+        long now = fScheduler.getClock().currentTimeMillis();
         long diff = now - start;
 
         /* Show the time into the text view */
         setTimestamp(diff);
 
         /* Update the timer again later */
-        fHandler.postDelayed(this, DELAY);
+        fScheduler.postDelayed(this, DELAY);
     }
 
     @Override
@@ -4,7 +4,6 @@ import android.app.Activity;
 import android.app.Fragment;
 import android.content.Context;
 import android.os.Bundle;
-import android.os.Handler;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -38,7 +37,6 @@ public class MissionFragment extends Fragment {
     // --------------------------------------------------------------------------------------------
 
     private final Context fContext;
-    private final Handler fHandler = new Handler();
 
     private Mission fMission;
     private MissionControl fControl;
@@ -62,6 +60,20 @@ public class MissionFragment extends Fragment {
         /* Inflate the layout for this fragment */
         View view = inflater.inflate(R.layout.content_mission, container, false);
 
+        /* The mission is shown and controlled even before the aircraft connects */
+        fMission = Registration.getInstance().getMission();
+
+        /* Create the mission control */
+        Activity act = MainActivity.getInstance();
+        Button start = (Button) view.findViewById(R.id.button_start_mission);
+        Button abortLanding = (Button) view.findViewById(R.id.button_abort_landing);
+        Button abortMission = (Button) view.findViewById(R.id.button_abort_mission);
+        fControl = new MissionControl(act, fMission, start, abortLanding, abortMission);
+
+        /* Create the timer control */
+        TextView timer = (TextView) view.findViewById(R.id.text_time);
+        fTimerControl = new TimerControl(act, timer, fMission);
+
         /* Add a listener for a connection change */
         fConnectionListener = new ConnectionChangedListener(view);
         Registration.getInstance().addConnectionListener(fConnectionListener);
@@ -108,45 +120,15 @@ public class MissionFragment extends Fragment {
             String status;
             String drone;
 
-            /* Get the mission planner */
+            /* Update the text */
             Aircraft aircraft = Registration.getInstance().getAicraft();
             if (aircraft != null) {
-                fMission = aircraft.getMission();
-            } else {
-                fMission = null;
-            }
-
-            /* Update the text */
-            if (fMission != null) {
                 DJIBaseProduct product = aircraft.getProduct();
 
-                /* Create the mission control */
-                Activity act = MainActivity.getInstance();
-                Button start = (Button) getView().findViewById(R.id.button_start_mission);
-                Button abortLanding = (Button) getView().findViewById(R.id.button_abort_landing);
-                Button abortMission = (Button) getView().findViewById(R.id.button_abort_mission);
-                fControl = new MissionControl(act, fMission, start, abortLanding, abortMission);
-
-                /* Create the timer control */
-                TextView timer = (TextView) getView().findViewById(R.id.text_time);
-                fTimerControl = new TimerControl(MainActivity.getInstance(), timer, fMission);
-
                 /* The connection was successful */
                 status = fContext.getResources().getString(R.string.aircraft_connected);
                 drone = product.getModel().getDisplayName();
             } else {
-                /* Remove the mission control */
-                if (fControl != null) {
-                    fControl.dispose();
-                    fControl = null;
-                }
-
-                /* Remove the timer control */
-                if (fTimerControl != null) {
-                    fTimerControl.dispose();
-                    fTimerControl = null;
-                }
-
                 /* The connection failed */
                 status = fContext.getResources().getString(R.string.aircraft_disconnected);
                 drone = fContext.getResources().getString(R.string.aircraft_none);
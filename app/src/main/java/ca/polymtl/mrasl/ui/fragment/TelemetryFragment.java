@@ -2,22 +2,39 @@ package ca.polymtl.mrasl.ui.fragment;
 
 import android.app.Fragment;
 import android.os.Bundle;
-import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import java.text.DecimalFormat;
+import java.util.Locale;
 
 import ca.polymtl.mrasl.R;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.drone.Aircraft;
+import ca.polymtl.mrasl.drone.Registration;
+import ca.polymtl.mrasl.ford.FordConsole;
+import ca.polymtl.mrasl.mission.FordHook;
+import ca.polymtl.mrasl.mission.State;
 import ca.polymtl.mrasl.payload.PayloadGPS;
 import ca.polymtl.mrasl.payload.PayloadSensors;
+import ca.polymtl.mrasl.ros.TagSurvivorSubscriberNode;
+import ca.polymtl.mrasl.shared.Histogram;
+import ca.polymtl.mrasl.shared.KeyedWorkerPool;
+import ca.polymtl.mrasl.shared.Timekeeper;
 import ca.polymtl.mrasl.telemetry.GPSModule;
+import ca.polymtl.mrasl.telemetry.PowerMonitor;
 import ca.polymtl.mrasl.telemetry.SensorsModule;
+import ca.polymtl.mrasl.trace.CommandTrace.Outcome;
+import ca.polymtl.mrasl.trace.CommandTracer;
+import ca.polymtl.mrasl.trace.Stage;
 
 /**
- * This class shows the sensors and the GPS information.
+ * This class shows the sensors, the GPS information, the latency of the commands, the health of
+ * the Ford console, the power used in each state of the mission and the reception of the survivor
+ * images.
  *
  * @author Gabriel-Andrew Pollo-Guilbert
  */
@@ -28,12 +45,15 @@ public class TelemetryFragment extends Fragment {
     // ---------------------------------------------------------------------------------------------
 
     private static final int INTERVAL = 1000;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+    private static final long MILLIS_PER_SECOND = 1000;
 
     // ---------------------------------------------------------------------------------------------
     // Attributes
     // ---------------------------------------------------------------------------------------------
 
-    private final Handler fHandler = new Handler();
+    private final IScheduler fScheduler =
+            Timekeeper.getInstance().createScheduler(Looper.getMainLooper());
 
     private UpdateInfoTimer fUpdateInfo;
 
@@ -87,6 +107,33 @@ public class TelemetryFragment extends Fragment {
         private final TextView fRotation4;
         private final DecimalFormat fFormatter = new DecimalFormat("0.000000000");
 
+        /* Command latency information */
+        private final TextView fCommandOutcomes;
+        private final TextView fCommandTransition;
+        private final TextView fCommandEnqueue;
+        private final TextView fCommandSend;
+        private final TextView fCommandAck;
+        private final TextView fCommandTotal;
+
+        /* Ford console information */
+        private final TextView fFordState;
+        private final TextView fFordUptime;
+        private final TextView fFordFailures;
+        private final TextView fFordError;
+        private final TextView fFordLatency;
+
+        /* Power information, by state of the mission */
+        private final TextView fPowerTotal;
+        private final TextView[] fPower = new TextView[State.values().length];
+
+        /* Survivor imagery information */
+        private final TextView fImageryUnpaired;
+        private final TextView fImageryRaw;
+        private final TextView fImageryCompressed;
+        private final TextView fImageryQueue;
+        private final TextView fImageryOverflow;
+        private final TextView fImageryLatency;
+
         private UpdateInfoTimer(View view) {
             /* Get the GPS text views */
             fStatus = (TextView) view.findViewById(R.id.gps_status);
@@ -104,6 +151,40 @@ public class TelemetryFragment extends Fragment {
             fRotation2 = (TextView) view.findViewById(R.id.sensors_rotation_2);
             fRotation3 = (TextView) view.findViewById(R.id.sensors_rotation_3);
             fRotation4 = (TextView) view.findViewById(R.id.sensors_rotation_4);
+
+            /* Get the command latency text views */
+            fCommandOutcomes = (TextView) view.findViewById(R.id.command_outcomes);
+            fCommandTransition = (TextView) view.findViewById(R.id.command_transition);
+            fCommandEnqueue = (TextView) view.findViewById(R.id.command_enqueue);
+            fCommandSend = (TextView) view.findViewById(R.id.command_send);
+            fCommandAck = (TextView) view.findViewById(R.id.command_ack);
+            fCommandTotal = (TextView) view.findViewById(R.id.command_total);
+
+            /* Get the Ford console text views */
+            fFordState = (TextView) view.findViewById(R.id.ford_state);
+            fFordUptime = (TextView) view.findViewById(R.id.ford_uptime);
+            fFordFailures = (TextView) view.findViewById(R.id.ford_failures);
+            fFordError = (TextView) view.findViewById(R.id.ford_error);
+            fFordLatency = (TextView) view.findViewById(R.id.ford_latency);
+
+            /* Get the power text views */
+            fPowerTotal = (TextView) view.findViewById(R.id.power_total);
+            fPower[State.READY.ordinal()] = (TextView) view.findViewById(R.id.power_ready);
+            fPower[State.START_MISSION.ordinal()] =
+                    (TextView) view.findViewById(R.id.power_start_mission);
+            fPower[State.ABORT_LANDING.ordinal()] =
+                    (TextView) view.findViewById(R.id.power_abort_landing);
+            fPower[State.ABORT_MISSION.ordinal()] =
+                    (TextView) view.findViewById(R.id.power_abort_mission);
+            fPower[State.FINISHED.ordinal()] = (TextView) view.findViewById(R.id.power_finished);
+
+            /* Get the survivor imagery text views */
+            fImageryUnpaired = (TextView) view.findViewById(R.id.imagery_unpaired);
+            fImageryRaw = (TextView) view.findViewById(R.id.imagery_raw);
+            fImageryCompressed = (TextView) view.findViewById(R.id.imagery_compressed);
+            fImageryQueue = (TextView) view.findViewById(R.id.imagery_queue);
+            fImageryOverflow = (TextView) view.findViewById(R.id.imagery_overflow);
+            fImageryLatency = (TextView) view.findViewById(R.id.imagery_latency);
         }
 
         public void start() {
@@ -111,7 +192,7 @@ public class TelemetryFragment extends Fragment {
         }
 
         public void stop() {
-            fHandler.removeCallbacks(this);
+            fScheduler.removeCallbacks(this);
         }
 
         @Override
@@ -119,9 +200,13 @@ public class TelemetryFragment extends Fragment {
             /* Update the text fields */
             updateGPS();
             updateSensors();
+            updateCommands();
+            updateFord();
+            updatePower();
+            updateImagery();
 
             /* Set the timer for running the task later */
-            fHandler.postDelayed(this, INTERVAL);
+            fScheduler.postDelayed(this, INTERVAL);
         }
 
         public void updateGPS() {
@@ -166,6 +251,123 @@ public class TelemetryFragment extends Fragment {
             fRotation3.setText(fFormatter.format(payload.getRotation()[2]));
             fRotation4.setText(fFormatter.format(payload.getRotation()[3]));
         }
+
+        public void updateCommands() {
+            CommandTracer tracer = CommandTracer.getInstance();
+
+            /* Update the number of commands of each outcome */
+            fCommandOutcomes.setText(String.format(Locale.US, "%d acked, %d failed, %d not sent",
+                    tracer.getCount(Outcome.ACKED), tracer.getCount(Outcome.FAILED),
+                    tracer.getCount(Outcome.DROPPED) + tracer.getCount(Outcome.REJECTED)));
+
+            /* Update the latency of each stage */
+            fCommandTransition.setText(formatLatency(tracer.getHistogram(Stage.TRANSITION)));
+            fCommandEnqueue.setText(formatLatency(tracer.getHistogram(Stage.ENQUEUE)));
+            fCommandSend.setText(formatLatency(tracer.getHistogram(Stage.SEND)));
+            fCommandAck.setText(formatLatency(tracer.getHistogram(Stage.ACK)));
+            fCommandTotal.setText(formatLatency(tracer.getTotalHistogram()));
+        }
+
+        public void updateFord() {
+            /* The console is only connected while an aircraft is */
+            Aircraft aircraft = Registration.getInstance().getAicraft();
+            if (aircraft == null) {
+                fFordState.setText("No aircraft");
+                fFordUptime.setText("-");
+                return;
+            }
+
+            FordHook hook = aircraft.getFordHook();
+            FordConsole console = hook.getConsole();
+
+            /* Update the health of the connection */
+            long uptime = console.getUptime();
+            fFordState.setText(console.getState().toString());
+            fFordUptime.setText((uptime < 0) ? "-" : String.format(Locale.US, "%d s",
+                    uptime / MILLIS_PER_SECOND));
+            fFordFailures.setText(String.format(Locale.US, "%d of %d attempts, %d lost",
+                    console.getFailureCount(), console.getAttemptCount(),
+                    console.getLostCount()));
+
+            String error = console.getLastError();
+            fFordError.setText((error == null) ? "-" : error);
+
+            /* Update the latency of the buttons */
+            fFordLatency.setText(formatLatency(hook.getBridge().getLatency()));
+        }
+
+        public void updatePower() {
+            /* The power is measured while an aircraft is connected */
+            Aircraft aircraft = Registration.getInstance().getAicraft();
+            if (aircraft == null) {
+                return;
+            }
+
+            PowerMonitor monitor = aircraft.getPowerMonitor();
+            long totalCpu = 0;
+            long totalDrop = 0;
+
+            /* Update the CPU time and the battery drop of each state */
+            for (State state : State.values()) {
+                long time = monitor.getTime(state);
+                long cpu = monitor.getCpuTime(state);
+                long drop = monitor.getBatteryDrop(state);
+                totalCpu += cpu;
+                totalDrop += drop;
+
+                if (time == 0) {
+                    fPower[state.ordinal()].setText("-");
+                    continue;
+                }
+
+                fPower[state.ordinal()].setText(String.format(Locale.US,
+                        "cpu %d of %d s (%.1f%%), %d uAh", cpu / MILLIS_PER_SECOND,
+                        time / MILLIS_PER_SECOND, 100.0 * cpu / time, drop));
+            }
+
+            fPowerTotal.setText(String.format(Locale.US, "cpu %d s, %d uAh",
+                    totalCpu / MILLIS_PER_SECOND, totalDrop));
+        }
+
+        public void updateImagery() {
+            TagSurvivorSubscriberNode subscriber =
+                    Registration.getInstance().getMission().getTagList().getSubscriber();
+            KeyedWorkerPool pool = subscriber.getWorkerPool();
+
+            /* Update the bytes received per tag in each mode */
+            fImageryUnpaired.setText(String.format(Locale.US, "%d unpaired",
+                    subscriber.getDroppedCount()));
+            fImageryRaw.setText(formatBytesPerTag(subscriber.getRawCount(),
+                    subscriber.getRawBytes()));
+            fImageryCompressed.setText(formatBytesPerTag(subscriber.getCompressedCount(),
+                    subscriber.getCompressedBytes()));
+
+            /* Update the queue of the workers that crop the images */
+            fImageryQueue.setText(String.format(Locale.US, "%d waiting (max %d), %d submitted",
+                    pool.getDepth(), pool.getMaxDepth(), pool.getSubmittedCount()));
+            fImageryOverflow.setText(String.format(Locale.US, "%d dropped, %d merged",
+                    pool.getDroppedCount(), pool.getMergedCount()));
+            fImageryLatency.setText(formatLatency(pool.getLatencyHistogram()));
+        }
+
+        private String formatBytesPerTag(long count, long bytes) {
+            if (count == 0) {
+                return "-";
+            }
+
+            return String.format(Locale.US, "%d tags, %d B/tag", count, bytes / count);
+        }
+
+        private String formatLatency(Histogram histogram) {
+            if (histogram.getCount() == 0) {
+                return "-";
+            }
+
+            return String.format(Locale.US, "%.1f / %.1f / %.1f ms",
+                    histogram.getPercentile(0.50) / NANOS_PER_MILLI,
+                    histogram.getPercentile(0.99) / NANOS_PER_MILLI,
+                    histogram.getMax() / NANOS_PER_MILLI);
+        }
     }
 
 }
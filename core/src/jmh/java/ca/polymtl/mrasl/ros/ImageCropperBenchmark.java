@@ -0,0 +1,178 @@
+package ca.polymtl.mrasl.ros;
+
+import static ca.polymtl.mrasl.ros.MessageFixture.newMessage;
+import static ca.polymtl.mrasl.ros.MessageFixture.newPoint;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import ca.polymtl.mrasl.tag.TagImage;
+import geometry_msgs.Point32;
+import sensor_msgs.Image;
+
+/**
+ * This class measures the crop of a tag out of a full HD frame, with the cropper that reads the
+ * rows of the bounding box and with the previous crop that copied the whole frame and walked every
+ * pixel between the first and the last corner. Run it with {@code gradle :core:jmh}.
+ * <p/>
+ * The messages are the proxies of the {@link MessageFixture} of the tests. Their accessors are
+ * only called a few times per crop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageCropperBenchmark {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final int BYTES_PER_PIXEL = 3;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    /* The side of the tag in pixels */
+    @Param({"64", "256"})
+    public int fSize;
+
+    private final ImageCropper fCropper = new ImageCropper();
+
+    private Image fImage;
+    private List<Point32> fCorners;
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @Setup
+    public void setUp() {
+        byte[] data = new byte[WIDTH * HEIGHT * BYTES_PER_PIXEL];
+        new Random(42).nextBytes(data);
+
+        fImage = newMessage(Image.class);
+        fImage.setWidth(WIDTH);
+        fImage.setHeight(HEIGHT);
+        fImage.setStep(WIDTH * BYTES_PER_PIXEL);
+        fImage.setEncoding("rgb8");
+        fImage.setData(ChannelBuffers.wrappedBuffer(data));
+
+        /* A tag in the middle of the frame */
+        int left = (WIDTH - fSize) / 2;
+        int top = (HEIGHT - fSize) / 2;
+        fCorners = new ArrayList<>();
+        fCorners.add(newPoint(left, top));
+        fCorners.add(newPoint(left + fSize, top));
+        fCorners.add(newPoint(left + fSize, top + fSize));
+        fCorners.add(newPoint(left, top + fSize));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Benchmarks
+    // ---------------------------------------------------------------------------------------------
+
+    @Benchmark
+    public TagImage cropRows() {
+        return fCropper.crop(fImage, fCorners);
+    }
+
+    @Benchmark
+    public TagImage cropWholeFrame() {
+        return cropWholeFrame(fImage, fCorners);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method is the crop that the cropper replaced, kept as the baseline. It copies the
+     * whole frame, then walks every pixel between the first and the last corner.
+     *
+     * @param image   The ROS image message
+     * @param corners The points used for cropping
+     *
+     * @return The cropped image
+     */
+    private static TagImage cropWholeFrame(Image image, List<Point32> corners) {
+        /* Copy the image from the buffer */
+        ChannelBuffer data = image.getData();
+        byte[] array = data.array();
+        int offset = data.arrayOffset();
+        byte[] buffer = new byte[array.length - offset];
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = array[offset + i];
+        }
+
+        int w1 = image.getWidth();
+        int h1 = image.getHeight();
+
+        /* Find the lowest and highest points for cropping */
+        int lowestX = h1;
+        int lowestY = w1;
+        int highestX = 0;
+        int highestY = 0;
+        for (Point32 point : corners) {
+            int x = (int) point.getX();
+            int y = (int) point.getY();
+            if (x < lowestX) {
+                lowestX = x;
+            } else if (x > highestX) {
+                highestX = x;
+            }
+            if (y < lowestY) {
+                lowestY = y;
+            } else if (y > highestY) {
+                highestY = y;
+            }
+        }
+
+        /* Convert and crop the image from RGB888 to ARGB8888 */
+        int w2 = highestX - lowestX;
+        int h2 = highestY - lowestY;
+        int[] bitmap = new int[w2 * h2];
+        int start = w1 * lowestY + lowestX;
+        int end = w1 * highestY + highestX;
+        for (int i = start, j = 0; i < end; i++) {
+            int currentX = i % w1;
+            int currentY = i / w1;
+            if (currentX < lowestX || currentX >= highestX) {
+                continue;
+            }
+            if (currentY < lowestY || currentY >= highestY) {
+                continue;
+            }
+
+            bitmap[j] = 0xFF << 24;
+            bitmap[j] += buffer[3 * i + 0] << 16;
+            bitmap[j] += buffer[3 * i + 1] << 8;
+            bitmap[j] += buffer[3 * i + 2];
+            j++;
+        }
+
+        return new TagImage(w2, h2, bitmap);
+    }
+
+}
@@ -0,0 +1,103 @@
+package ca.polymtl.mrasl.checkpoint;
+
+import ca.polymtl.mrasl.mission.State;
+
+/**
+ * This class contains the mission recovered from a journal: the last state with its version and
+ * times. The tags aren't part of the checkpoint, they are recovered from the tag log.
+ */
+public class Checkpoint {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private State fState;
+    private long fVersion = -1L;
+    private long fStartTime;
+    private long fStopTime;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for an empty checkpoint, when there is nothing to recover.
+     */
+    public Checkpoint() {
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator sets the state of the mission if it is newer than the current one. The entries
+     * of the journal are normally in order, but the version is the authority.
+     *
+     * @param state     The state of the mission
+     * @param version   The version of the state
+     * @param startTime The start time of the mission, or zero
+     * @param stopTime  The stop time of the mission, or zero
+     */
+    void setState(State state, long version, long startTime, long stopTime) {
+        if (version < fVersion) {
+            return;
+        }
+
+        fState = state;
+        fVersion = version;
+        fStartTime = startTime;
+        fStopTime = stopTime;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns whether a state was recovered.
+     *
+     * @return {@code true} if the checkpoint has a state, else {@code false}
+     */
+    public boolean hasState() {
+        return fState != null;
+    }
+
+    /**
+     * Accessor that returns the recovered state of the mission, or {@code null} if there is none.
+     *
+     * @return The state of the mission
+     */
+    public State getState() {
+        return fState;
+    }
+
+    /**
+     * Accessor that returns the version of the recovered state, or -1 if there is none.
+     *
+     * @return The version of the state
+     */
+    public long getVersion() {
+        return fVersion;
+    }
+
+    /**
+     * Accessor that returns the recovered start time of the mission, or zero if it wasn't started.
+     *
+     * @return The start time of the mission
+     */
+    public long getStartTime() {
+        return fStartTime;
+    }
+
+    /**
+     * Accessor that returns the recovered stop time of the mission, or zero if it wasn't stopped.
+     *
+     * @return The stop time of the mission
+     */
+    public long getStopTime() {
+        return fStopTime;
+    }
+
+}
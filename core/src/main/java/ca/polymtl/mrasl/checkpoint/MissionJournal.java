@@ -0,0 +1,287 @@
+package ca.polymtl.mrasl.checkpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.shared.IDisposable;
+
+/**
+ * This class is a write-ahead journal of the mission. Every change of the mission is appended to
+ * a file and forced to the storage before the method returns, so the mission can be recovered
+ * after the application or the device crashed. The file starts with the following header:
+ * <p/>
+ * [  0 -  3 ] The magic number of a journal
+ * [  4 -  5 ] The version of the format
+ * [  6 -  7 ] Reserved
+ * <p/>
+ * The header is followed by the entries, which are formatted as follows:
+ * <p/>
+ * [  0 -  3 ] The CRC32 of the bytes 4 to the end of the entry
+ * [  4 -  7 ] The length of the data
+ * [  8      ] The type of the entry
+ * [  9 - ...] The data of the entry
+ * <p/>
+ * A state entry contains the ordinal of the state, its version, the start time and the stop time
+ * of the mission. The tags are kept in a {@link TagLog} instead. When the journal is opened, the
+ * entries are read until the first invalid one and the torn tail is cut, so the next entries are
+ * appended after the last valid one. Every value is written in big endian.
+ */
+public class MissionJournal implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    public static final int MAGIC_NUMBER = 0x4D524A4E;
+    public static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int POS_HEADER_MAGIC = 0;
+    private static final int POS_HEADER_VERSION = 4;
+
+    private static final int ENTRY_HEADER_SIZE = 9;
+    private static final int POS_ENTRY_CRC = 0;
+    private static final int POS_ENTRY_LENGTH = 4;
+    private static final int POS_ENTRY_TYPE = 8;
+
+    private static final byte TYPE_STATE = 0x1;
+    private static final int STATE_SIZE = 1 + 8 + 8 + 8;
+    private static final int MAX_ENTRY_SIZE = ENTRY_HEADER_SIZE + STATE_SIZE;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final RandomAccessFile fFile;
+    private final FileChannel fChannel;
+    private final Checkpoint fCheckpoint = new Checkpoint();
+    private final CRC32 fChecksum = new CRC32();
+    private final ByteBuffer fScratch = ByteBuffer.allocate(MAX_ENTRY_SIZE);
+
+    private long fPosition;
+    private int fTornBytes;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor that opens a journal and recovers its entries. The file is created if it doesn't
+     * exist, and is started over if it isn't a journal.
+     *
+     * @param file The file of the journal
+     *
+     * @throws IOException If the file cannot be opened or read
+     */
+    public MissionJournal(File file) throws IOException {
+        fFile = new RandomAccessFile(file, "rw");
+        fChannel = fFile.getChannel();
+
+        try {
+            recover();
+        } catch (IOException exception) {
+            fFile.close();
+            throw exception;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method appends the state of the mission to the journal.
+     *
+     * @param state     The state of the mission
+     * @param version   The version of the state
+     * @param startTime The start time of the mission, or zero
+     * @param stopTime  The stop time of the mission, or zero
+     *
+     * @throws IOException If the entry cannot be written
+     */
+    public synchronized void appendState(State state, long version, long startTime, long stopTime)
+            throws IOException {
+        fScratch.clear();
+        fScratch.position(ENTRY_HEADER_SIZE);
+        fScratch.put((byte) state.ordinal());
+        fScratch.putLong(version);
+        fScratch.putLong(startTime);
+        fScratch.putLong(stopTime);
+
+        append(TYPE_STATE);
+    }
+
+    /**
+     * This method removes every entry of the journal, once the mission doesn't need to be
+     * recovered anymore.
+     *
+     * @throws IOException If the file cannot be truncated
+     */
+    public synchronized void reset() throws IOException {
+        fChannel.truncate(HEADER_SIZE);
+        fChannel.force(true);
+        fPosition = HEADER_SIZE;
+    }
+
+    /**
+     * This method writes the entry in the scratch buffer at the end of the journal and forces it
+     * to the storage. The data of the entry must already be in the buffer after the header.
+     *
+     * @param type The type of the entry
+     *
+     * @throws IOException If the entry cannot be written
+     */
+    private void append(byte type) throws IOException {
+        int size = fScratch.position();
+
+        /* Format the header of the entry */
+        fScratch.putInt(POS_ENTRY_LENGTH, size - ENTRY_HEADER_SIZE);
+        fScratch.put(POS_ENTRY_TYPE, type);
+
+        /* Compute the checksum of everything except the checksum itself */
+        fChecksum.reset();
+        fChecksum.update(fScratch.array(), POS_ENTRY_LENGTH, size - POS_ENTRY_LENGTH);
+        fScratch.putInt(POS_ENTRY_CRC, (int) fChecksum.getValue());
+
+        /* Write the entry and wait until it reaches the storage */
+        fScratch.flip();
+        while (fScratch.hasRemaining()) {
+            fPosition += fChannel.write(fScratch, fPosition);
+        }
+        fChannel.force(false);
+    }
+
+    /**
+     * This method reads the entries of the journal into the checkpoint and cuts whatever follows
+     * the last valid entry.
+     *
+     * @throws IOException If the file cannot be read
+     */
+    private void recover() throws IOException {
+        long length = fChannel.size();
+
+        /* Start the journal over if it has no valid header */
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (length < HEADER_SIZE || fChannel.read(header, 0) < HEADER_SIZE
+                || header.getInt(POS_HEADER_MAGIC) != MAGIC_NUMBER
+                || header.getShort(POS_HEADER_VERSION) != VERSION) {
+            header.clear();
+            header.putInt(POS_HEADER_MAGIC, MAGIC_NUMBER);
+            header.putShort(POS_HEADER_VERSION, VERSION);
+
+            fChannel.truncate(0);
+            fChannel.write(header, 0);
+            fChannel.force(true);
+            fPosition = HEADER_SIZE;
+            return;
+        }
+
+        /* The journal is small, so read it at once */
+        ByteBuffer buffer = ByteBuffer.allocate((int) (length - HEADER_SIZE));
+        while (buffer.hasRemaining()) {
+            if (fChannel.read(buffer, HEADER_SIZE + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+
+        /* Read the entries until the first one that is torn or invalid */
+        while (buffer.remaining() >= ENTRY_HEADER_SIZE) {
+            int start = buffer.position();
+            int size = buffer.getInt(start + POS_ENTRY_LENGTH);
+            if (size < 0 || size > buffer.remaining() - ENTRY_HEADER_SIZE) {
+                break;
+            }
+
+            /* Verify the checksum of the entry */
+            fChecksum.reset();
+            fChecksum.update(buffer.array(), start + POS_ENTRY_LENGTH,
+                    ENTRY_HEADER_SIZE - POS_ENTRY_LENGTH + size);
+            if ((int) fChecksum.getValue() != buffer.getInt(start + POS_ENTRY_CRC)) {
+                break;
+            }
+
+            /* Apply the entry to the checkpoint */
+            buffer.position(start + ENTRY_HEADER_SIZE);
+            if (!replay(buffer.get(start + POS_ENTRY_TYPE), buffer, size)) {
+                break;
+            }
+            buffer.position(start + ENTRY_HEADER_SIZE + size);
+        }
+
+        /* Cut the torn tail so the next entries follow the last valid one */
+        fPosition = HEADER_SIZE + buffer.position();
+        fTornBytes = (int) (length - fPosition);
+        if (fTornBytes > 0) {
+            fChannel.truncate(fPosition);
+            fChannel.force(true);
+        }
+    }
+
+    /**
+     * This method applies an entry of the journal to the checkpoint.
+     *
+     * @param type   The type of the entry
+     * @param buffer The buffer positioned at the data of the entry
+     * @param size   The size of the data
+     *
+     * @return {@code true} if the entry is valid, else {@code false}
+     */
+    private boolean replay(byte type, ByteBuffer buffer, int size) {
+        switch (type) {
+            case TYPE_STATE:
+                int ordinal = buffer.get();
+                if (size != STATE_SIZE || ordinal < 0 || ordinal >= State.values().length) {
+                    return false;
+                }
+                fCheckpoint.setState(State.values()[ordinal], buffer.getLong(), buffer.getLong(),
+                        buffer.getLong());
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public synchronized void dispose() {
+        try {
+            fFile.close();
+        } catch (IOException exception) {
+            /* Every entry was already forced to the storage */
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the mission recovered when the journal was opened. It isn't changed by
+     * the entries appended since.
+     *
+     * @return The checkpoint of the mission
+     */
+    public Checkpoint getCheckpoint() {
+        return fCheckpoint;
+    }
+
+    /**
+     * Accessor that returns the number of bytes that were cut after the last valid entry when the
+     * journal was opened.
+     *
+     * @return The number of torn bytes
+     */
+    public int getTornBytes() {
+        return fTornBytes;
+    }
+
+}
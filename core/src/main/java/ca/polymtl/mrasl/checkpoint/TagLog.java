@@ -0,0 +1,458 @@
+package ca.polymtl.mrasl.checkpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.tag.Tag;
+import ca.polymtl.mrasl.tag.TagImageStore;
+
+/**
+ * This class is an append-only log of the tags of the mission. Every time a tag is detected or
+ * seen again, its whole state is appended as a record of fixed size, so the last record of a tag
+ * is its latest state. The compressed images are appended to a second file, and the records refer
+ * to them. The log file starts with the following header:
+ * <p/>
+ * [  0 -  3 ] The magic number of a tag log
+ * [  4 -  5 ] The version of the format
+ * [  6 -  7 ] Reserved
+ * <p/>
+ * The header is followed by the records, which are formatted as follows:
+ * <p/>
+ * [  0 -  3 ] The CRC32 of the bytes 4 to the end of the record
+ * [  4 -  7 ] The slot of the tag, its index in the list of tags
+ * [  8 - 11 ] The ID of the tag
+ * [ 12 - 19 ] The latitude of the tag
+ * [ 20 - 27 ] The longitude of the tag
+ * [ 28 - 35 ] The uncertainty of the position in meters
+ * [ 36 - 39 ] The number of sightings
+ * [ 40 - 47 ] The time of the first sighting in milliseconds since the epoch
+ * [ 48 - 55 ] The time of the last sighting in milliseconds since the epoch
+ * [ 56 - 63 ] The position of the image in the image file, or -1 if there is none
+ * [ 64 - 67 ] The length of the image
+ * [ 68 - 71 ] The width of the image
+ * [ 72 - 75 ] The height of the image
+ * <p/>
+ * When the log is opened, it is mapped in memory and the records are checked until the first
+ * invalid one, whose torn tail is cut. Only the position of the last record of every slot is
+ * kept, and the tags are created from the mapping the first time they are read, so reopening a
+ * mission with thousands of tags only costs a pass over the mapped records. Every value is written
+ * in big endian.
+ */
+public class TagLog implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    public static final int MAGIC_NUMBER = 0x4D52544C;
+    public static final short VERSION = 2;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int POS_HEADER_MAGIC = 0;
+    private static final int POS_HEADER_VERSION = 4;
+
+    private static final int RECORD_SIZE = 76;
+    private static final int POS_CRC = 0;
+    private static final int POS_SLOT = 4;
+    private static final int POS_ID = 8;
+    private static final int POS_LATITUDE = 12;
+    private static final int POS_LONGITUDE = 20;
+    private static final int POS_UNCERTAINTY = 28;
+    private static final int POS_SIGHTINGS = 36;
+    private static final int POS_FIRST_SEEN = 40;
+    private static final int POS_LAST_SEEN = 48;
+    private static final int POS_IMAGE_OFFSET = 56;
+    private static final int POS_IMAGE_LENGTH = 64;
+    private static final int POS_IMAGE_WIDTH = 68;
+    private static final int POS_IMAGE_HEIGHT = 72;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final RandomAccessFile fFile;
+    private final FileChannel fChannel;
+    private final File fImageFile;
+    private final RandomAccessFile fImages;
+    private final CRC32 fChecksum = new CRC32();
+    private final ByteBuffer fScratch = ByteBuffer.allocate(RECORD_SIZE);
+    private final Map<Tag, Integer> fRecoveredSlots = new IdentityHashMap<>();
+
+    /* The records of the previous runs, read when their tag is first needed */
+    private MappedByteBuffer fMapping;
+    private int fRecoveredCount;
+    private int[] fRecoveredRecords;
+    private Tag[] fRecoveredTags;
+
+    /* The image of every slot, as written in the last record */
+    private int fSlotCount;
+    private long[] fImageOffsets = new long[INITIAL_CAPACITY];
+    private int[] fImageLengths = new int[INITIAL_CAPACITY];
+    private int[] fImageWidths = new int[INITIAL_CAPACITY];
+    private int[] fImageHeights = new int[INITIAL_CAPACITY];
+
+    private long fPosition;
+    private int fTornBytes;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor that opens a log and maps its records. The files are created if they don't
+     * exist, and the log is started over if it isn't a tag log.
+     *
+     * @param file      The file of the records
+     * @param imageFile The file of the compressed images
+     *
+     * @throws IOException If the files cannot be opened or read
+     */
+    public TagLog(File file, File imageFile) throws IOException {
+        fFile = new RandomAccessFile(file, "rw");
+        fChannel = fFile.getChannel();
+        fImageFile = imageFile;
+
+        RandomAccessFile images = null;
+        try {
+            images = new RandomAccessFile(imageFile, "rw");
+            recover();
+        } catch (IOException exception) {
+            fFile.close();
+            if (images != null) {
+                images.close();
+            }
+            throw exception;
+        }
+        fImages = images;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method appends the state of a tag to the log. A new image is appended to the image
+     * file before the record that refers to it.
+     *
+     * @param slot  The slot of the tag, which is the next slot for a new tag
+     * @param tag   The tag
+     * @param image The new image of the tag, or {@code null} to keep the previous one
+     *
+     * @throws IOException If the record cannot be written
+     */
+    public synchronized void append(int slot, Tag tag, TagImageStore.Encoded image)
+            throws IOException {
+        if (slot < 0 || slot > fSlotCount) {
+            throw new IllegalArgumentException("The slot " + slot + " isn't between 0 and " +
+                    fSlotCount);
+        }
+        if (slot == fSlotCount) {
+            addSlot();
+        }
+
+        /* The image must reach the storage before the record that refers to it */
+        if (image != null) {
+            long offset = fImages.length();
+            fImages.seek(offset);
+            fImages.write(image.getData());
+            fImages.getChannel().force(false);
+
+            fImageOffsets[slot] = offset;
+            fImageLengths[slot] = image.getData().length;
+            fImageWidths[slot] = image.getWidth();
+            fImageHeights[slot] = image.getHeight();
+        }
+
+        fScratch.clear();
+        fScratch.putInt(POS_SLOT, slot);
+        fScratch.putInt(POS_ID, tag.getID());
+        fScratch.putDouble(POS_LATITUDE, tag.getLatitude());
+        fScratch.putDouble(POS_LONGITUDE, tag.getLongitude());
+        fScratch.putDouble(POS_UNCERTAINTY, tag.getUncertainty());
+        fScratch.putInt(POS_SIGHTINGS, tag.getSightingCount());
+        fScratch.putLong(POS_FIRST_SEEN, tag.getFirstSeen());
+        fScratch.putLong(POS_LAST_SEEN, tag.getLastSeen());
+        fScratch.putLong(POS_IMAGE_OFFSET, fImageOffsets[slot]);
+        fScratch.putInt(POS_IMAGE_LENGTH, fImageLengths[slot]);
+        fScratch.putInt(POS_IMAGE_WIDTH, fImageWidths[slot]);
+        fScratch.putInt(POS_IMAGE_HEIGHT, fImageHeights[slot]);
+
+        /* Compute the checksum of everything except the checksum itself */
+        fChecksum.reset();
+        fChecksum.update(fScratch.array(), POS_SLOT, RECORD_SIZE - POS_SLOT);
+        fScratch.putInt(POS_CRC, (int) fChecksum.getValue());
+
+        /* Write the record and wait until it reaches the storage */
+        fScratch.position(0);
+        fScratch.limit(RECORD_SIZE);
+        while (fScratch.hasRemaining()) {
+            fPosition += fChannel.write(fScratch, fPosition);
+        }
+        fChannel.force(false);
+    }
+
+    /**
+     * This method gives the image of a tag to the store of its list, as a reference to the image
+     * file. The image is only read when it is shown.
+     *
+     * @param slot  The slot of the tag
+     * @param tag   The tag
+     * @param store The store of the images of the list
+     */
+    public synchronized void restoreImage(int slot, Tag tag, TagImageStore store) {
+        if (slot < fSlotCount && fImageOffsets[slot] >= 0) {
+            store.putReference(tag, fImageFile, fImageOffsets[slot], fImageLengths[slot],
+                    fImageWidths[slot], fImageHeights[slot]);
+        }
+    }
+
+    /**
+     * This method removes every tag of the log and their images, once the mission doesn't need
+     * to be recovered anymore.
+     *
+     * @throws IOException If the files cannot be truncated
+     */
+    public synchronized void reset() throws IOException {
+        fMapping = null;
+        fRecoveredCount = 0;
+        fRecoveredRecords = null;
+        fRecoveredTags = null;
+        fRecoveredSlots.clear();
+        fSlotCount = 0;
+
+        fChannel.truncate(HEADER_SIZE);
+        fChannel.force(true);
+        fPosition = HEADER_SIZE;
+
+        fImages.setLength(0);
+        fImages.getChannel().force(true);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public synchronized void dispose() {
+        try {
+            fFile.close();
+            fImages.close();
+        } catch (IOException exception) {
+            /* Every record was already forced to the storage */
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of tags recovered when the log was opened.
+     *
+     * @return The number of recovered tags
+     */
+    public synchronized int getRecoveredCount() {
+        return fRecoveredCount;
+    }
+
+    /**
+     * Accessor that returns a tag recovered when the log was opened, in its latest state. The tag
+     * is created from the mapping the first time it is read, and the same instance is returned
+     * afterward.
+     *
+     * @param slot The slot of the tag
+     *
+     * @return The recovered tag, without its image
+     */
+    public synchronized Tag getRecoveredTag(int slot) {
+        if (slot < 0 || slot >= fRecoveredCount) {
+            throw new IndexOutOfBoundsException("Tag " + slot + " of " + fRecoveredCount);
+        }
+
+        Tag tag = fRecoveredTags[slot];
+        if (tag == null) {
+            int record = fRecoveredRecords[slot];
+            tag = new Tag(fMapping.getInt(record + POS_ID),
+                    fMapping.getDouble(record + POS_LATITUDE),
+                    fMapping.getDouble(record + POS_LONGITUDE),
+                    fMapping.getDouble(record + POS_UNCERTAINTY),
+                    fMapping.getInt(record + POS_SIGHTINGS),
+                    fMapping.getLong(record + POS_FIRST_SEEN),
+                    fMapping.getLong(record + POS_LAST_SEEN));
+            fRecoveredTags[slot] = tag;
+            fRecoveredSlots.put(tag, slot);
+        }
+
+        return tag;
+    }
+
+    /**
+     * Accessor that returns the slot of a tag recovered when the log was opened. Only the tags
+     * that were already read can be found, the others don't exist yet.
+     *
+     * @param tag The tag
+     *
+     * @return The slot of the tag, or -1 if it wasn't recovered
+     */
+    public synchronized int getRecoveredSlot(Tag tag) {
+        Integer slot = fRecoveredSlots.get(tag);
+        return (slot != null) ? slot : -1;
+    }
+
+    /**
+     * Accessor that returns the recovered tags as an immutable list, whose tags are created when
+     * they are read.
+     *
+     * @return The recovered tags, in the order of their slot
+     */
+    public List<Tag> getRecoveredTags() {
+        return new AbstractList<Tag>() {
+            @Override
+            public Tag get(int index) {
+                return getRecoveredTag(index);
+            }
+
+            @Override
+            public int size() {
+                return getRecoveredCount();
+            }
+        };
+    }
+
+    /**
+     * Accessor that returns the size of the image written for a tag.
+     *
+     * @param slot The slot of the tag
+     *
+     * @return The number of pixels of the image, or zero if it has none
+     */
+    public synchronized long getImageArea(int slot) {
+        if (slot >= fSlotCount || fImageOffsets[slot] < 0) {
+            return 0;
+        }
+
+        return (long) fImageWidths[slot] * fImageHeights[slot];
+    }
+
+    /**
+     * Accessor that returns the number of bytes that were cut after the last valid record when
+     * the log was opened.
+     *
+     * @return The number of torn bytes
+     */
+    public int getTornBytes() {
+        return fTornBytes;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method maps the records of the log, keeps the last record of every slot and cuts
+     * whatever follows the last valid record.
+     *
+     * @throws IOException If the file cannot be read
+     */
+    private void recover() throws IOException {
+        long length = fChannel.size();
+
+        /* Start the log over if it has no valid header */
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (length < HEADER_SIZE || fChannel.read(header, 0) < HEADER_SIZE
+                || header.getInt(POS_HEADER_MAGIC) != MAGIC_NUMBER
+                || header.getShort(POS_HEADER_VERSION) != VERSION) {
+            header.clear();
+            header.putInt(POS_HEADER_MAGIC, MAGIC_NUMBER);
+            header.putShort(POS_HEADER_VERSION, VERSION);
+
+            fChannel.truncate(0);
+            fChannel.write(header, 0);
+            fChannel.force(true);
+            fPosition = HEADER_SIZE;
+            return;
+        }
+
+        /* Check the records in place, without copying them */
+        MappedByteBuffer mapping = fChannel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        byte[] record = new byte[RECORD_SIZE];
+        int[] records = new int[INITIAL_CAPACITY];
+        int position = HEADER_SIZE;
+        while (length - position >= RECORD_SIZE) {
+            mapping.position(position);
+            mapping.get(record);
+
+            /* Verify the checksum of the record */
+            fChecksum.reset();
+            fChecksum.update(record, POS_SLOT, RECORD_SIZE - POS_SLOT);
+            if ((int) fChecksum.getValue() != mapping.getInt(position + POS_CRC)) {
+                break;
+            }
+
+            /* A slot is either updated or the next one */
+            int slot = mapping.getInt(position + POS_SLOT);
+            if (slot < 0 || slot > fSlotCount) {
+                break;
+            }
+            if (slot == fSlotCount) {
+                addSlot();
+                if (slot == records.length) {
+                    records = Arrays.copyOf(records, 2 * records.length);
+                }
+            }
+
+            records[slot] = position;
+            fImageOffsets[slot] = mapping.getLong(position + POS_IMAGE_OFFSET);
+            fImageLengths[slot] = mapping.getInt(position + POS_IMAGE_LENGTH);
+            fImageWidths[slot] = mapping.getInt(position + POS_IMAGE_WIDTH);
+            fImageHeights[slot] = mapping.getInt(position + POS_IMAGE_HEIGHT);
+            position += RECORD_SIZE;
+        }
+
+        fMapping = mapping;
+        fRecoveredCount = fSlotCount;
+        fRecoveredRecords = records;
+        fRecoveredTags = new Tag[fSlotCount];
+
+        /* Cut the torn tail so the next records follow the last valid one */
+        fPosition = position;
+        fTornBytes = (int) (length - position);
+        if (fTornBytes > 0) {
+            fChannel.truncate(fPosition);
+            fChannel.force(true);
+        }
+    }
+
+    /**
+     * This util method adds a slot without image, growing the arrays if needed.
+     */
+    private void addSlot() {
+        if (fSlotCount == fImageOffsets.length) {
+            int capacity = 2 * fSlotCount;
+            fImageOffsets = Arrays.copyOf(fImageOffsets, capacity);
+            fImageLengths = Arrays.copyOf(fImageLengths, capacity);
+            fImageWidths = Arrays.copyOf(fImageWidths, capacity);
+            fImageHeights = Arrays.copyOf(fImageHeights, capacity);
+        }
+
+        fImageOffsets[fSlotCount] = -1L;
+        fImageLengths[fSlotCount] = 0;
+        fImageWidths[fSlotCount] = 0;
+        fImageHeights[fSlotCount] = 0;
+        fSlotCount++;
+    }
+
+}
@@ -0,0 +1,23 @@
+package ca.polymtl.mrasl.clock;
+
+/**
+ * This interface defines a source of time. The components read the time through a clock instead
+ * of the system, so they can run in virtual time.
+ */
+public interface IClock {
+
+    /**
+     * This method returns the wall clock time, like {@link System#currentTimeMillis()}.
+     *
+     * @return The wall clock time in milliseconds
+     */
+    long currentTimeMillis();
+
+    /**
+     * This method returns the monotonic time, like {@link System#nanoTime()}.
+     *
+     * @return The monotonic time in nanoseconds
+     */
+    long nanoTime();
+
+}
@@ -0,0 +1,40 @@
+package ca.polymtl.mrasl.clock;
+
+import java.util.concurrent.Executor;
+
+/**
+ * This interface defines a scheduler that runs the tasks one at a time, in the order of their
+ * time, like a handler. The delays are measured with the clock of the scheduler.
+ */
+public interface IScheduler extends Executor {
+
+    /**
+     * This method runs a task as soon as possible.
+     *
+     * @param task The task to run
+     */
+    void post(Runnable task);
+
+    /**
+     * This method runs a task after a delay.
+     *
+     * @param task  The task to run
+     * @param delay The delay in milliseconds
+     */
+    void postDelayed(Runnable task, long delay);
+
+    /**
+     * This method removes every pending run of a task.
+     *
+     * @param task The task to remove
+     */
+    void removeCallbacks(Runnable task);
+
+    /**
+     * This method returns the clock that measures the delays of the scheduler.
+     *
+     * @return The clock of the scheduler
+     */
+    IClock getClock();
+
+}
@@ -0,0 +1,40 @@
+package ca.polymtl.mrasl.clock;
+
+/**
+ * This class reads the time of the system.
+ */
+public class RealClock implements IClock {
+
+    private static RealClock Instance;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    public static synchronized RealClock getInstance() {
+        /* Setup the singleton instance */
+        if (Instance == null) {
+            Instance = new RealClock();
+        }
+
+        return Instance;
+    }
+
+    RealClock() {
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+}
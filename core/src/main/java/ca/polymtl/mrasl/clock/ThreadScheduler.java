@@ -0,0 +1,135 @@
+package ca.polymtl.mrasl.clock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import ca.polymtl.mrasl.shared.IDisposable;
+
+/**
+ * This class schedules the tasks on a dedicated thread in the real time. It is the equivalent of
+ * a handler thread for the JVM, where there is no looper.
+ */
+public class ThreadScheduler implements IScheduler, IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final ScheduledThreadPoolExecutor fExecutor;
+    private final Map<Runnable, List<Task>> fPending = new HashMap<>();
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor that starts the thread of the scheduler.
+     *
+     * @param name The name of the thread
+     */
+    public ThreadScheduler(final String name) {
+        fExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        fExecutor.setRemoveOnCancelPolicy(true);
+        fExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void post(Runnable task) {
+        postDelayed(task, 0L);
+    }
+
+    @Override
+    public synchronized void postDelayed(Runnable task, long delay) {
+        /* The tasks are dropped once the scheduler is disposed, like a handler that quit */
+        if (fExecutor.isShutdown()) {
+            return;
+        }
+
+        /* Keep the pending run so the task can be removed */
+        List<Task> runs = fPending.get(task);
+        if (runs == null) {
+            runs = new ArrayList<>(1);
+            fPending.put(task, runs);
+        }
+
+        Task run = new Task(task);
+        run.fFuture = fExecutor.schedule(run, Math.max(0L, delay), TimeUnit.MILLISECONDS);
+        runs.add(run);
+    }
+
+    @Override
+    public synchronized void removeCallbacks(Runnable task) {
+        List<Task> runs = fPending.remove(task);
+        if (runs == null) {
+            return;
+        }
+
+        for (Task run : runs) {
+            run.fFuture.cancel(false);
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        post(task);
+    }
+
+    @Override
+    public IClock getClock() {
+        return RealClock.getInstance();
+    }
+
+    @Override
+    public synchronized void dispose() {
+        /* Drop the delayed tasks, like a handler thread that quits safely */
+        fExecutor.shutdown();
+        fPending.clear();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class is a pending run of a task, which is forgotten once it runs.
+     */
+    private class Task implements Runnable {
+        private final Runnable fTask;
+        private ScheduledFuture<?> fFuture;
+
+        public Task(Runnable task) {
+            fTask = task;
+        }
+
+        @Override
+        public void run() {
+            /* Forget this run, it can't be removed anymore */
+            synchronized (ThreadScheduler.this) {
+                List<Task> runs = fPending.get(fTask);
+                if (runs != null && runs.remove(this) && runs.isEmpty()) {
+                    fPending.remove(fTask);
+                }
+            }
+
+            fTask.run();
+        }
+    }
+
+}
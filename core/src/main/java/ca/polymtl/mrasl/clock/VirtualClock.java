@@ -0,0 +1,252 @@
+package ca.polymtl.mrasl.clock;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * This class is a clock whose time only moves when it is advanced. The schedulers created by the
+ * clock share its queue of tasks, and the tasks are run by the thread that advances the time, in
+ * the order of their time and then in the order they were posted. Hours of timers can therefore
+ * run in a few milliseconds, always in the same order.
+ */
+public class VirtualClock implements IClock {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final long fEpoch;
+    private final PriorityQueue<Task> fTasks = new PriorityQueue<>();
+
+    private long fNow;
+    private long fSequence;
+    private long fRunCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a clock that starts at a given wall clock time. The monotonic time starts at
+     * zero.
+     *
+     * @param epoch The wall clock time of the start in milliseconds
+     */
+    public VirtualClock(long epoch) {
+        fEpoch = epoch;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method creates a scheduler that runs its tasks in the virtual time of this clock.
+     *
+     * @return The new scheduler
+     */
+    public IScheduler createScheduler() {
+        return new Scheduler();
+    }
+
+    /**
+     * This method moves the time forward and runs every task that is due on the way. The tasks
+     * posted by the tasks are also run if they are due before the end.
+     *
+     * @param millis The time to move forward in milliseconds
+     *
+     * @return The number of tasks that were run
+     */
+    public int advance(long millis) {
+        long target;
+        synchronized (this) {
+            target = fNow + millis;
+        }
+
+        int count = 0;
+        while (true) {
+            Task task;
+
+            /* Take the next task if it is due, moving the time to it */
+            synchronized (this) {
+                task = fTasks.peek();
+                if (task == null || task.fTime > target) {
+                    fNow = target;
+                    return count;
+                }
+
+                fTasks.poll();
+                fNow = Math.max(fNow, task.fTime);
+                fRunCount++;
+            }
+
+            /* Run the task without holding the lock, it may post other tasks */
+            task.fRunnable.run();
+            count++;
+        }
+    }
+
+    /**
+     * This method moves the time to the next pending task and runs it.
+     *
+     * @return {@code true} if a task was run, or {@code false} if none is pending
+     */
+    public boolean runNext() {
+        Task task;
+
+        /* Take the next task and move the time to it */
+        synchronized (this) {
+            task = fTasks.poll();
+            if (task == null) {
+                return false;
+            }
+
+            fNow = Math.max(fNow, task.fTime);
+            fRunCount++;
+        }
+
+        /* Run the task without holding the lock, it may post other tasks */
+        task.fRunnable.run();
+
+        return true;
+    }
+
+    /**
+     * This method adds a task to the queue.
+     *
+     * @param scheduler The scheduler of the task
+     * @param runnable  The task to run
+     * @param delay     The delay in milliseconds
+     */
+    private synchronized void schedule(Scheduler scheduler, Runnable runnable, long delay) {
+        fTasks.add(new Task(scheduler, runnable, fNow + Math.max(0L, delay), fSequence++));
+    }
+
+    /**
+     * This method removes the pending tasks of a scheduler.
+     *
+     * @param scheduler The scheduler of the tasks
+     * @param runnable  The task to remove
+     */
+    private synchronized void unschedule(Scheduler scheduler, Runnable runnable) {
+        Iterator<Task> iterator = fTasks.iterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            if (task.fScheduler == scheduler && task.fRunnable == runnable) {
+                iterator.remove();
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public synchronized long currentTimeMillis() {
+        return fEpoch + fNow;
+    }
+
+    @Override
+    public synchronized long nanoTime() {
+        return fNow * NANOS_PER_MILLI;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the time elapsed since the start of the clock.
+     *
+     * @return The elapsed time in milliseconds
+     */
+    public synchronized long getElapsed() {
+        return fNow;
+    }
+
+    /**
+     * Accessor that returns the number of tasks waiting for their time.
+     *
+     * @return The number of pending tasks
+     */
+    public synchronized int getPendingCount() {
+        return fTasks.size();
+    }
+
+    /**
+     * Accessor that returns the number of tasks that were run since the start of the clock.
+     *
+     * @return The number of tasks that were run
+     */
+    public synchronized long getRunCount() {
+        return fRunCount;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class posts the tasks in the queue of the clock.
+     */
+    private class Scheduler implements IScheduler {
+        @Override
+        public void post(Runnable task) {
+            schedule(this, task, 0L);
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delay) {
+            schedule(this, task, delay);
+        }
+
+        @Override
+        public void removeCallbacks(Runnable task) {
+            unschedule(this, task);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            schedule(this, task, 0L);
+        }
+
+        @Override
+        public IClock getClock() {
+            return VirtualClock.this;
+        }
+    }
+
+    /**
+     * This class contains a task waiting for its time.
+     */
+    private static class Task implements Comparable<Task> {
+        private final Scheduler fScheduler;
+        private final Runnable fRunnable;
+        private final long fTime;
+        private final long fSequence;
+
+        public Task(Scheduler scheduler, Runnable runnable, long time, long sequence) {
+            fScheduler = scheduler;
+            fRunnable = runnable;
+            fTime = time;
+            fSequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (fTime != other.fTime) {
+                return (fTime < other.fTime) ? -1 : 1;
+            }
+
+            return (fSequence < other.fSequence) ? -1 : (fSequence > other.fSequence) ? 1 : 0;
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package ca.polymtl.mrasl.ford;
+
+/**
+ * This enumeration contains the states of the connection to the Ford console.
+ */
+public enum ConnectionState {
+
+    /**
+     * There is no connection and none is attempted
+     */
+    DISCONNECTED,
+    /**
+     * The connection to the console is being opened
+     */
+    CONNECTING,
+    /**
+     * The console is connected and receives the messages
+     */
+    CONNECTED,
+    /**
+     * The last attempt failed, another one is made after a delay
+     */
+    BACKOFF;
+
+}
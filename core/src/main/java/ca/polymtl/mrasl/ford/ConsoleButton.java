@@ -0,0 +1,38 @@
+package ca.polymtl.mrasl.ford;
+
+/**
+ * This enumeration contains the buttons of the Ford console and the message that the console
+ * sends when they are pressed.
+ */
+public enum ConsoleButton {
+
+    /**
+     * The button that starts the mission
+     */
+    START("StartButtonPressed"),
+    /**
+     * The button that aborts the mission by landing
+     */
+    ABORT_LANDING("AbortLandingButtonPressed"),
+    /**
+     * The button that aborts the mission by hovering
+     */
+    ABORT_MISSION("AbortMissionButtonPressed");
+
+    /* Contains the message sent by the console */
+    private final String fMessage;
+
+    ConsoleButton(String message) {
+        fMessage = message;
+    }
+
+    /**
+     * Accessor that returns the message sent by the console when the button is pressed.
+     *
+     * @return The message of the button
+     */
+    public String getMessage() {
+        return fMessage;
+    }
+
+}
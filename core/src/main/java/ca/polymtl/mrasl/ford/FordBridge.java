@@ -0,0 +1,260 @@
+package ca.polymtl.mrasl.ford;
+
+import java.util.Locale;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.mission.Mission;
+import ca.polymtl.mrasl.mission.MissionSnapshot;
+import ca.polymtl.mrasl.mission.MissionStateChangedListener;
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.shared.Histogram;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.tag.Tag;
+import ca.polymtl.mrasl.tag.TagAddedListener;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.trace.TriggerSource;
+
+/**
+ * This class connects the Ford console to a mission. The buttons of the console send the commands
+ * of the mission, and the console mirrors the state of the mission, its elapsed time and the
+ * number of detected tags. The console is only updated when its text changes, at most once per
+ * second, so a burst of tags or states is shown as a single update.
+ * <p/>
+ * The time from the reception of a button to the end of its transition is kept in a histogram.
+ * Everything runs on the thread of the scheduler of the console.
+ */
+public class FordBridge implements IDisposable, IConsoleListener {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = FordBridge.class.getName();
+    private static final long MIN_INTERVAL = 1000;
+    private static final long TICK_DELAY = 1000;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final FordConsole fConsole;
+    private final Mission fMission;
+    private final IScheduler fScheduler;
+    private final IClock fClock;
+    private final Histogram fLatency = new Histogram();
+    private final MissionStateChangedListener fStateListener = new StateListener();
+    private final TagAddedListener fTagListener = new TagListener();
+    private final Runnable fRequestUpdate = new RequestUpdate();
+    private final Runnable fUpdate = new Update();
+    private final Runnable fTick = new Tick();
+
+    private String fShownText;
+    private long fLastShown = -MIN_INTERVAL;
+    private boolean fUpdatePending;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor that connects a console to a mission.
+     *
+     * @param console   The Ford console
+     * @param mission   The mission driven by the console
+     * @param scheduler The scheduler of the console
+     */
+    public FordBridge(FordConsole console, Mission mission, IScheduler scheduler) {
+        fConsole = console;
+        fMission = mission;
+        fScheduler = scheduler;
+        fClock = scheduler.getClock();
+
+        /* Receive the buttons and follow the mission on the thread of the console */
+        fConsole.setListener(this);
+        fMission.addMissionStateChangedListener(fStateListener, fScheduler, true);
+        fMission.getTagList().addListener(fTagListener);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method updates the console as soon as the rate allows it. The requests that arrive in
+     * the meantime are merged into the same update.
+     */
+    private void requestUpdate() {
+        if (fUpdatePending) {
+            return;
+        }
+        fUpdatePending = true;
+
+        long wait = fLastShown + MIN_INTERVAL - fClock.currentTimeMillis();
+        fScheduler.postDelayed(fUpdate, Math.max(0L, wait));
+    }
+
+    /**
+     * This method formats the text of the console from the current snapshot of the mission.
+     *
+     * @return The text to display
+     */
+    private String getText() {
+        MissionSnapshot snapshot = fMission.getSnapshot();
+        State state = snapshot.getState();
+
+        /* The time stops once the mission is finished */
+        long elapsed;
+        if (state == State.READY) {
+            elapsed = 0L;
+        } else if (state == State.FINISHED) {
+            elapsed = snapshot.getStopTime() - snapshot.getStartTime();
+        } else {
+            elapsed = fClock.currentTimeMillis() - snapshot.getStartTime();
+        }
+        elapsed = Math.max(0L, elapsed) / 1000;
+
+        return String.format(Locale.US, "%s %02d:%02d %d tags", state, elapsed / 60, elapsed % 60,
+                fMission.getTagList().getSnapshot().getCount());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void onButton(ConsoleButton button, long received) {
+        CommandTrace trace = new CommandTrace(TriggerSource.FORD, fClock);
+
+        /* Execute the command */
+        boolean result = false;
+        switch (button) {
+            case START:
+                result = fMission.startMission(trace);
+                break;
+            case ABORT_LANDING:
+                result = fMission.abortLanding(trace);
+                break;
+            case ABORT_MISSION:
+                result = fMission.abortMission(trace);
+                break;
+        }
+
+        /* Measure the time from the console to the mission */
+        long latency = fClock.nanoTime() - received;
+        synchronized (fLatency) {
+            fLatency.add(latency);
+        }
+
+        Log.d(TAG, String.format(Locale.US, "%s from Ford console %s in %.3f ms", button,
+                result ? "applied" : "rejected", latency / NANOS_PER_MILLI));
+    }
+
+    @Override
+    public void onConnectionChanged(ConnectionState state) {
+        /* A console that reconnects shows nothing until it is told */
+        if (state == ConnectionState.CONNECTED) {
+            fShownText = null;
+            requestUpdate();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        fConsole.setListener(null);
+        fMission.removeMissionStateChangedListener(fStateListener);
+        fMission.getTagList().removeListener(fTagListener);
+
+        fScheduler.removeCallbacks(fRequestUpdate);
+        fScheduler.removeCallbacks(fUpdate);
+        fScheduler.removeCallbacks(fTick);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns a copy of the histogram of the time from the reception of a button to
+     * the end of its transition, in nanoseconds.
+     *
+     * @return The histogram of the latency
+     */
+    public Histogram getLatency() {
+        synchronized (fLatency) {
+            return new Histogram(fLatency);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class follows the state of the mission. The elapsed time ticks while the drone flies.
+     */
+    private class StateListener implements MissionStateChangedListener {
+        @Override
+        public void onStateChanged(State state) {
+            requestUpdate();
+
+            fScheduler.removeCallbacks(fTick);
+            if (state != State.READY && state != State.FINISHED) {
+                fScheduler.postDelayed(fTick, TICK_DELAY);
+            }
+        }
+    }
+
+    /**
+     * This class follows the detected tags, which are added on the thread of ROS.
+     */
+    private class TagListener implements TagAddedListener {
+        @Override
+        public void onNewTag(Tag tag) {
+            fScheduler.post(fRequestUpdate);
+        }
+    }
+
+    /**
+     * This class requests an update on the thread of the console.
+     */
+    private class RequestUpdate implements Runnable {
+        @Override
+        public void run() {
+            requestUpdate();
+        }
+    }
+
+    /**
+     * This class shows the text of the mission if it changed.
+     */
+    private class Update implements Runnable {
+        @Override
+        public void run() {
+            fUpdatePending = false;
+
+            String text = getText();
+            if (text.equals(fShownText)) {
+                return;
+            }
+
+            fConsole.show(text);
+            fShownText = text;
+            fLastShown = fClock.currentTimeMillis();
+        }
+    }
+
+    /**
+     * This class refreshes the elapsed time of a flying mission.
+     */
+    private class Tick implements Runnable {
+        @Override
+        public void run() {
+            requestUpdate();
+            fScheduler.postDelayed(this, TICK_DELAY);
+        }
+    }
+
+}
@@ -0,0 +1,619 @@
+package ca.polymtl.mrasl.ford;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.shared.IDisposable;
+
+/**
+ * This class connects to the Ford console without ever blocking the thread of its scheduler. It
+ * speaks the protocol of the DJIL library of Ford: the console listens on the TCP port 9999, the
+ * client sends {@code connect<team>} once connected and {@code show<text>} to display a text, and
+ * the console sends the name of a button when it is pressed. The messages have no delimiter, so
+ * at most one message is written per poll and the received text is scanned for the names of the
+ * buttons.
+ * <p/>
+ * The socket is non-blocking and polled on the scheduler. A failed attempt or a lost connection
+ * is retried after a delay that doubles up to a maximum, and that is reset once connected. Only
+ * the latest text is kept while the previous one is being written. The name of the console is
+ * resolved on a thread of its own, since the lookup blocks, and is kept until the address changes.
+ */
+public class FordConsole implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = FordConsole.class.getName();
+    private static final int PORT = 9999;
+    private static final int BUFFER_SIZE = 1024;
+    private static final long CONNECT_TIMEOUT = 3000;
+    private static final long CONNECT_POLL = 50;
+    private static final long READ_POLL = 20;
+    private static final long MIN_BACKOFF = 500;
+    private static final long MAX_BACKOFF = 30000;
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final IScheduler fScheduler;
+    private final IScheduler fResolver;
+    private final IClock fClock;
+    private final String fTeam;
+    private final Runnable fPoll = new Poll();
+    private final Runnable fRetry = new Retry();
+    private final ByteBuffer fInput = ByteBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder fReceived = new StringBuilder();
+
+    private volatile IConsoleListener fListener;
+    private String fAddress;
+    private InetSocketAddress fResolved;
+    private int fGeneration;
+    private SocketChannel fChannel;
+    private ByteBuffer fOutput;
+    private String fPendingText;
+    private ConnectionState fState = ConnectionState.DISCONNECTED;
+    private long fBackoff = MIN_BACKOFF;
+    private long fAttemptStart;
+    private long fConnectedSince = -1L;
+    private String fLastError;
+    private long fAttemptCount;
+    private long fFailureCount;
+    private long fLostCount;
+    private int fConsecutiveFailures;
+    private long fShownCount;
+    private long fDroppedCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a console that isn't connected yet.
+     *
+     * @param scheduler The scheduler that polls the connection
+     * @param team      The name of the team shown by the console
+     */
+    public FordConsole(IScheduler scheduler, String team) {
+        fScheduler = scheduler;
+        fResolver = Platform.getInstance().createScheduler("ford-resolver");
+        fClock = scheduler.getClock();
+        fTeam = team;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method connects to the console at an address, and keeps reconnecting until it is
+     * disposed. A previous connection is closed first.
+     *
+     * @param address The address of the console
+     */
+    public void connect(String address) {
+        fScheduler.post(new Connect(address));
+    }
+
+    /**
+     * This method displays a text on the console. The text is dropped if the console isn't
+     * connected, or replaced if a newer text is shown before it is written.
+     *
+     * @param text The text to display
+     */
+    public void show(String text) {
+        fScheduler.post(new Show(text));
+    }
+
+    /**
+     * This method starts an attempt to connect to the console. The address is resolved first if it
+     * wasn't yet, and the connection itself is completed by the polls.
+     */
+    private void attempt() {
+        fScheduler.removeCallbacks(fPoll);
+        fScheduler.removeCallbacks(fRetry);
+
+        fAttemptCount++;
+        fAttemptStart = fClock.currentTimeMillis();
+
+        setState(ConnectionState.CONNECTING);
+
+        /* The lookup blocks, so it is done by the resolver and the attempt goes on once it's done */
+        if (fResolved == null) {
+            fResolver.post(new Resolve(fAddress, fGeneration));
+            return;
+        }
+
+        open();
+    }
+
+    /**
+     * This method opens the socket and starts to connect it to the resolved address. It only waits
+     * for the socket to be created.
+     */
+    private void open() {
+        try {
+            fChannel = SocketChannel.open();
+            fChannel.configureBlocking(false);
+
+            /* Each message must leave in its own segment, the console doesn't split them */
+            fChannel.socket().setTcpNoDelay(true);
+
+            if (fChannel.connect(fResolved)) {
+                onConnected();
+            }
+            fScheduler.postDelayed(fPoll, CONNECT_POLL);
+        } catch (IOException exception) {
+            fail(exception.getMessage());
+        }
+    }
+
+    /**
+     * This method introduces the team once the socket is connected.
+     */
+    private void onConnected() {
+        fOutput = ASCII.encode("connect" + fTeam);
+        fPendingText = null;
+        fReceived.setLength(0);
+
+        fConnectedSince = fClock.currentTimeMillis();
+        fBackoff = MIN_BACKOFF;
+        fConsecutiveFailures = 0;
+
+        Log.i(TAG, String.format(Locale.US, "Connected to the Ford console on %s in %d ms",
+                fAddress, fConnectedSince - fAttemptStart));
+        setState(ConnectionState.CONNECTED);
+    }
+
+    /**
+     * This method closes the connection after an error and retries later.
+     *
+     * @param error The description of the error
+     */
+    private void fail(String error) {
+        closeChannel();
+
+        /* Count the connections that were lost apart from the attempts that failed */
+        if (fState == ConnectionState.CONNECTED) {
+            fLostCount++;
+        } else {
+            fFailureCount++;
+        }
+        fConsecutiveFailures++;
+        fLastError = error;
+
+        Log.w(TAG, String.format(Locale.US, "Ford console on %s: %s, retrying in %d ms",
+                fAddress, error, fBackoff));
+
+        /* Retry later, a bit later each time */
+        setState(ConnectionState.BACKOFF);
+        fScheduler.postDelayed(fRetry, fBackoff);
+        fBackoff = Math.min(fBackoff * 2, MAX_BACKOFF);
+    }
+
+    /**
+     * This method reads the messages of the console and sends the buttons that were pressed.
+     *
+     * @throws IOException If the connection was lost
+     */
+    private void read() throws IOException {
+        fInput.clear();
+        int count = fChannel.read(fInput);
+        if (count < 0) {
+            throw new IOException("Connection closed by the console");
+        } else if (count == 0) {
+            return;
+        }
+
+        long received = fClock.nanoTime();
+        fInput.flip();
+        fReceived.append(ASCII.decode(fInput));
+
+        /* Find the buttons in the text, a message may be split between two reads */
+        String text = fReceived.toString();
+        int position = 0;
+        while (position < text.length()) {
+            ConsoleButton match = null;
+            boolean partial = false;
+            int left = text.length() - position;
+
+            for (ConsoleButton button : ConsoleButton.values()) {
+                String message = button.getMessage();
+                if (left >= message.length()) {
+                    if (text.regionMatches(true, position, message, 0, message.length())) {
+                        match = button;
+                        break;
+                    }
+                } else if (text.regionMatches(true, position, message, 0, left)) {
+                    partial = true;
+                }
+            }
+
+            if (match != null) {
+                fScheduler.post(new NotifyButton(match, received));
+                position += match.getMessage().length();
+            } else if (partial) {
+                break;
+            } else {
+                position++;
+            }
+        }
+        fReceived.delete(0, position);
+    }
+
+    /**
+     * This method writes the next message to the console, at most one at a time.
+     *
+     * @throws IOException If the connection was lost
+     */
+    private void write() throws IOException {
+        if (fOutput == null || !fOutput.hasRemaining()) {
+            if (fPendingText == null) {
+                return;
+            }
+
+            fOutput = ASCII.encode("show" + fPendingText);
+            fPendingText = null;
+            fShownCount++;
+        }
+
+        fChannel.write(fOutput);
+    }
+
+    /**
+     * This method closes the socket without retrying.
+     */
+    private void closeChannel() {
+        fScheduler.removeCallbacks(fPoll);
+        fConnectedSince = -1L;
+        fOutput = null;
+        fPendingText = null;
+
+        if (fChannel == null) {
+            return;
+        }
+
+        try {
+            fChannel.close();
+        } catch (IOException exception) {
+            Log.d(TAG, "Unable to close the socket: " + exception.getMessage());
+        }
+        fChannel = null;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        fScheduler.post(new Close());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "%s, %d attempts, %d failed, %d lost, %d shown, %d dropped, last error: %s",
+                fState, fAttemptCount, fFailureCount, fLostCount, fShownCount, fDroppedCount,
+                fLastError);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator sets the listener of the console.
+     *
+     * @param listener The new listener, or {@code null}
+     */
+    public void setListener(IConsoleListener listener) {
+        fListener = listener;
+    }
+
+    /**
+     * This mutator changes the state of the connection and tells the listener.
+     *
+     * @param state The new state
+     */
+    private void setState(ConnectionState state) {
+        if (fState == state) {
+            return;
+        }
+
+        fState = state;
+        fScheduler.post(new NotifyState(state));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the state of the connection.
+     *
+     * @return The state of the connection
+     */
+    public synchronized ConnectionState getState() {
+        return fState;
+    }
+
+    /**
+     * Accessor that returns the time since the console is connected.
+     *
+     * @return The time in milliseconds, or {@code -1} if it isn't connected
+     */
+    public synchronized long getUptime() {
+        return (fConnectedSince >= 0) ? fClock.currentTimeMillis() - fConnectedSince : -1L;
+    }
+
+    /**
+     * Accessor that returns the number of attempts to connect.
+     *
+     * @return The number of attempts
+     */
+    public synchronized long getAttemptCount() {
+        return fAttemptCount;
+    }
+
+    /**
+     * Accessor that returns the number of attempts that failed.
+     *
+     * @return The number of failed attempts
+     */
+    public synchronized long getFailureCount() {
+        return fFailureCount;
+    }
+
+    /**
+     * Accessor that returns the number of connections that were lost after being opened.
+     *
+     * @return The number of lost connections
+     */
+    public synchronized long getLostCount() {
+        return fLostCount;
+    }
+
+    /**
+     * Accessor that returns the number of failures since the last connection.
+     *
+     * @return The number of consecutive failures
+     */
+    public synchronized int getConsecutiveFailures() {
+        return fConsecutiveFailures;
+    }
+
+    /**
+     * Accessor that returns the description of the last error.
+     *
+     * @return The last error, or {@code null} if there was none
+     */
+    public synchronized String getLastError() {
+        return fLastError;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class replaces the connection by a new one.
+     */
+    private class Connect implements Runnable {
+        private final String fNewAddress;
+
+        public Connect(String address) {
+            fNewAddress = address;
+        }
+
+        @Override
+        public void run() {
+            synchronized (FordConsole.this) {
+                closeChannel();
+                fAddress = fNewAddress;
+                fResolved = null;
+                fGeneration++;
+                fBackoff = MIN_BACKOFF;
+                fConsecutiveFailures = 0;
+                attempt();
+            }
+        }
+    }
+
+    /**
+     * This class resolves the address of the console on the resolver, then hands it back to the
+     * scheduler.
+     */
+    private class Resolve implements Runnable {
+        private final String fHost;
+        private final int fResolveGeneration;
+
+        public Resolve(String host, int generation) {
+            fHost = host;
+            fResolveGeneration = generation;
+        }
+
+        @Override
+        public void run() {
+            InetSocketAddress address = new InetSocketAddress(fHost, PORT);
+            fScheduler.post(new Resolved(address, fResolveGeneration));
+        }
+    }
+
+    /**
+     * This class goes on with the attempt once the address is resolved. The result is ignored if
+     * the address changed or the console was closed meanwhile.
+     */
+    private class Resolved implements Runnable {
+        private final InetSocketAddress fResult;
+        private final int fResolveGeneration;
+
+        public Resolved(InetSocketAddress address, int generation) {
+            fResult = address;
+            fResolveGeneration = generation;
+        }
+
+        @Override
+        public void run() {
+            synchronized (FordConsole.this) {
+                if (fResolveGeneration != fGeneration || fState != ConnectionState.CONNECTING) {
+                    return;
+                }
+
+                /* An unknown host is resolved again on the next attempt */
+                if (fResult.isUnresolved()) {
+                    fail("Unknown host " + fAddress);
+                    return;
+                }
+
+                fResolved = fResult;
+                open();
+            }
+        }
+    }
+
+    /**
+     * This class completes the connection, then reads and writes the messages.
+     */
+    private class Poll implements Runnable {
+        @Override
+        public void run() {
+            synchronized (FordConsole.this) {
+                if (fChannel == null) {
+                    return;
+                }
+
+                try {
+                    /* Wait for the connection to complete, or give up */
+                    if (fState == ConnectionState.CONNECTING) {
+                        if (!fChannel.finishConnect()) {
+                            if (fClock.currentTimeMillis() - fAttemptStart >= CONNECT_TIMEOUT) {
+                                throw new IOException("Connection timed out");
+                            }
+
+                            fScheduler.postDelayed(this, CONNECT_POLL);
+                            return;
+                        }
+
+                        onConnected();
+                    }
+
+                    read();
+                    write();
+                    fScheduler.postDelayed(this, READ_POLL);
+                } catch (IOException exception) {
+                    fail(exception.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * This class makes another attempt after a failure.
+     */
+    private class Retry implements Runnable {
+        @Override
+        public void run() {
+            synchronized (FordConsole.this) {
+                if (fState == ConnectionState.BACKOFF) {
+                    attempt();
+                }
+            }
+        }
+    }
+
+    /**
+     * This class queues a text for the console.
+     */
+    private class Show implements Runnable {
+        private final String fText;
+
+        public Show(String text) {
+            fText = text;
+        }
+
+        @Override
+        public void run() {
+            synchronized (FordConsole.this) {
+                if (fState != ConnectionState.CONNECTED || fPendingText != null) {
+                    fDroppedCount++;
+                }
+
+                if (fState == ConnectionState.CONNECTED) {
+                    fPendingText = fText;
+                }
+            }
+        }
+    }
+
+    /**
+     * This class closes the connection for good.
+     */
+    private class Close implements Runnable {
+        @Override
+        public void run() {
+            synchronized (FordConsole.this) {
+                fScheduler.removeCallbacks(fRetry);
+                closeChannel();
+                fGeneration++;
+                setState(ConnectionState.DISCONNECTED);
+
+                if (fResolver instanceof IDisposable) {
+                    ((IDisposable) fResolver).dispose();
+                }
+            }
+        }
+    }
+
+    /**
+     * This class tells the listener that the state of the connection changed. It is called
+     * outside of the lock, so the listener can use the console.
+     */
+    private class NotifyState implements Runnable {
+        private final ConnectionState fNewState;
+
+        public NotifyState(ConnectionState state) {
+            fNewState = state;
+        }
+
+        @Override
+        public void run() {
+            IConsoleListener listener = fListener;
+            if (listener != null) {
+                listener.onConnectionChanged(fNewState);
+            }
+        }
+    }
+
+    /**
+     * This class tells the listener that a button was pressed.
+     */
+    private class NotifyButton implements Runnable {
+        private final ConsoleButton fButton;
+        private final long fReceived;
+
+        public NotifyButton(ConsoleButton button, long received) {
+            fButton = button;
+            fReceived = received;
+        }
+
+        @Override
+        public void run() {
+            IConsoleListener listener = fListener;
+            if (listener != null) {
+                listener.onButton(fButton, fReceived);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package ca.polymtl.mrasl.ford;
+
+/**
+ * This interface defines a listener of the Ford console. It is called on the thread of the
+ * scheduler of the console.
+ */
+public interface IConsoleListener {
+
+    /**
+     * This method is called when a button of the console is pressed.
+     *
+     * @param button   The button that was pressed
+     * @param received The time at which the message was received, from the nano time of the clock
+     */
+    void onButton(ConsoleButton button, long received);
+
+    /**
+     * This method is called when the state of the connection changes.
+     *
+     * @param state The new state of the connection
+     */
+    void onConnectionChanged(ConnectionState state);
+
+}
@@ -0,0 +1,57 @@
+package ca.polymtl.mrasl.log;
+
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * This class writes the messages on the standard error, with their time, level and tag.
+ */
+public class ConsoleLogger implements ILogger {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final Level fLevel;
+    private final PrintStream fStream = System.err;
+    private final SimpleDateFormat fFormat = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a logger that skips the messages below a level.
+     *
+     * @param level The lowest level that is written
+     */
+    public ConsoleLogger(Level level) {
+        fLevel = level;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void log(Level level, String tag, String message, Throwable throwable) {
+        if (level.compareTo(fLevel) < 0) {
+            return;
+        }
+
+        /* Only keep the name of the class in the tag */
+        String name = tag.substring(tag.lastIndexOf('.') + 1);
+
+        /* Write the whole message at once, the threads log concurrently */
+        synchronized (this) {
+            fStream.println(String.format(Locale.US, "%s %-7s %s: %s",
+                    fFormat.format(new Date()), level, name, message));
+            if (throwable != null) {
+                throwable.printStackTrace(fStream);
+            }
+        }
+    }
+
+}
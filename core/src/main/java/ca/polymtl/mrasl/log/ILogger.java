@@ -0,0 +1,19 @@
+package ca.polymtl.mrasl.log;
+
+/**
+ * This interface defines where the messages of the {@link Log} facade are written, like the
+ * Android log or the console.
+ */
+public interface ILogger {
+
+    /**
+     * This method writes a message.
+     *
+     * @param level     The level of the message
+     * @param tag       The tag of the class that writes the message
+     * @param message   The message
+     * @param throwable The cause of the message, or {@code null}
+     */
+    void log(Level level, String tag, String message, Throwable throwable);
+
+}
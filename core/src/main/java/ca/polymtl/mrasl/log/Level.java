@@ -0,0 +1,25 @@
+package ca.polymtl.mrasl.log;
+
+/**
+ * This enumeration defines the levels of the messages, from the least to the most important.
+ */
+public enum Level {
+
+    /**
+     * Message that only matters to debug the application
+     */
+    DEBUG,
+    /**
+     * Message about the normal operation of the application
+     */
+    INFO,
+    /**
+     * Message about an unexpected situation that the application recovered from
+     */
+    WARNING,
+    /**
+     * Message about an operation that failed
+     */
+    ERROR;
+
+}
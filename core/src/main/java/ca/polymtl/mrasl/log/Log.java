@@ -0,0 +1,87 @@
+package ca.polymtl.mrasl.log;
+
+/**
+ * This class is the logging facade of the core. It has the same methods as the Android log, so
+ * the core can log without depending on Android. The messages are written by the logger that is
+ * set by the application, or on the console by default.
+ */
+public final class Log {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private static volatile ILogger Logger = new ConsoleLogger(Level.DEBUG);
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    private Log() {
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Util method that writes a debug message.
+     *
+     * @param tag     The tag of the class that writes the message
+     * @param message The message
+     */
+    public static void d(String tag, String message) {
+        Logger.log(Level.DEBUG, tag, message, null);
+    }
+
+    /**
+     * Util method that writes an information message.
+     *
+     * @param tag     The tag of the class that writes the message
+     * @param message The message
+     */
+    public static void i(String tag, String message) {
+        Logger.log(Level.INFO, tag, message, null);
+    }
+
+    /**
+     * Util method that writes a warning message.
+     *
+     * @param tag     The tag of the class that writes the message
+     * @param message The message
+     */
+    public static void w(String tag, String message) {
+        Logger.log(Level.WARNING, tag, message, null);
+    }
+
+    /**
+     * Util method that writes an error message.
+     *
+     * @param tag     The tag of the class that writes the message
+     * @param message The message
+     */
+    public static void e(String tag, String message) {
+        Logger.log(Level.ERROR, tag, message, null);
+    }
+
+    /**
+     * Util method that writes an error message with its cause.
+     *
+     * @param tag       The tag of the class that writes the message
+     * @param message   The message
+     * @param throwable The cause of the error
+     */
+    public static void e(String tag, String message, Throwable throwable) {
+        Logger.log(Level.ERROR, tag, message, throwable);
+    }
+
+    /**
+     * Util method that changes where the messages are written.
+     *
+     * @param logger The new logger
+     */
+    public static void setLogger(ILogger logger) {
+        Logger = logger;
+    }
+
+}
@@ -0,0 +1,566 @@
+package ca.polymtl.mrasl.mission;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.payload.PayloadCommand;
+import ca.polymtl.mrasl.payload.PayloadManager;
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.recorder.IRecorder;
+import ca.polymtl.mrasl.ros.INodeLauncher;
+import ca.polymtl.mrasl.ros.MissionPlannerSubscriberNode;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.tag.Tag;
+import ca.polymtl.mrasl.tag.TagAddedListener;
+import ca.polymtl.mrasl.tag.TagUpdatedListener;
+import ca.polymtl.mrasl.tag.TagList;
+import ca.polymtl.mrasl.tag.TagsRestoredListener;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.trace.CommandTrace.Outcome;
+import ca.polymtl.mrasl.trace.CommandTracer;
+import ca.polymtl.mrasl.trace.Stage;
+
+/**
+ * This class represents the search and rescue mission of the drone.
+ */
+public class Mission implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = Mission.class.getName();
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final IClock fClock;
+    private final TagList fTagList;
+    private final MissionTimeline fTimeline;
+    private final INodeLauncher fLauncher = Platform.getInstance().getNodeLauncher();
+    private final IScheduler fPlannerScheduler;
+    private final PlannerFeed fPlannerFeed;
+    private final MissionPlannerSubscriberNode fPlannerNode;
+    private final MissionEventBus fEventBus;
+    private final MissionCheckpoint fCheckpoint;
+    private final IRecorder fRecorder = Platform.getInstance().getRecorder();
+    private final TagAddedListener fRecordTag = new RecordTag();
+    private final TagUpdatedListener fRecordUpdate = new RecordUpdate();
+    private final TagsRestoredListener fRecordRestored = new RecordRestored();
+    private final MissionSnapshot fInitialSnapshot = new MissionSnapshot(State.READY, 0L, 0L, 0L);
+    private final AtomicReference<MissionSnapshot> fSnapshot =
+            new AtomicReference<>(fInitialSnapshot);
+    private final Object fPublishLock = new Object();
+
+    private volatile PayloadManager fPayloadManager;
+    private long fNotifiedVersion = -1L;
+    private long fPublishedVersion = fInitialSnapshot.getVersion();
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a mission that is ready to start, and continues the mission kept by the
+     * checkpoint once it is read, if there is one. The clock and the checkpoint are the ones of
+     * the platform.
+     */
+    public Mission() {
+        this(Platform.getInstance().getClock(), Platform.getInstance().getCheckpoint());
+    }
+
+    /**
+     * Constructor for a mission that is ready to start, with the time of the transitions read
+     * from a given clock. The mission kept by a checkpoint, if there is one, is continued once the
+     * checkpoint read it on its own thread, so the caller never waits on the storage.
+     *
+     * @param clock      The clock of the transitions
+     * @param checkpoint The checkpoint of the mission, or {@code null} if it isn't kept
+     */
+    public Mission(IClock clock, MissionCheckpoint checkpoint) {
+        fClock = clock;
+        fCheckpoint = checkpoint;
+        fEventBus = new MissionEventBus(clock);
+
+        fTagList = new TagList();
+        fTagList.addListener(fRecordTag);
+        fTagList.addUpdateListener(fRecordUpdate);
+        fTagList.addRestoreListener(fRecordRestored);
+
+        fTimeline = new MissionTimeline(clock);
+        fTimeline.recordState(fInitialSnapshot.getState());
+
+        /* Follow the state reported by the mission planner of the drone */
+        fPlannerScheduler = Platform.getInstance().createScheduler("planner");
+        fPlannerFeed = new PlannerFeed(this, fPlannerScheduler);
+        fPlannerNode = new MissionPlannerSubscriberNode(fPlannerFeed);
+        fLauncher.launchNode(fPlannerNode);
+
+        /* Continue the mission and the tags that were already detected, once they are read */
+        if (checkpoint != null) {
+            checkpoint.recover(fTagList.getImageStore(), new Continue());
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method starts the search and rescue mission of the drone.
+     *
+     * @param trace The trace of the command, or {@code null} if it isn't traced
+     *
+     * @return {@code true} if the operation is successful, else {@code false}
+     */
+    public boolean startMission(CommandTrace trace) {
+        return apply(Transition.START, trace, true);
+    }
+
+    /**
+     * This method aborts the search and rescue mission by landing immediately.
+     *
+     * @param trace The trace of the command, or {@code null} if it isn't traced
+     *
+     * @return {@code true} if the operation is successful, else {@code false}
+     */
+    public boolean abortLanding(CommandTrace trace) {
+        return apply(Transition.ABORT_LANDING, trace, true);
+    }
+
+    /**
+     * This method aborts the search and rescue mission by hovering the drone on place.
+     *
+     * @param trace The trace of the command, or {@code null} if it isn't traced
+     *
+     * @return {@code true} if the operation is successful, else {@code false}
+     */
+    public boolean abortMission(CommandTrace trace) {
+        return apply(Transition.ABORT_MISSION, trace, true);
+    }
+
+    /**
+     * This method finishes the mission. The drone is totally immobile and its motors are turned
+     * off.
+     *
+     * @return {@code true} if the operation is successful, else {@code false}
+     */
+    public boolean finishMission() {
+        if (!apply(Transition.FINISH, null, true)) {
+            return false;
+        }
+
+        Log.d(TAG, "The mission ended");
+
+        return true;
+    }
+
+    /**
+     * This method moves the mission to the state reported by the mission planner of the drone. It
+     * goes through the same transitions as the commands, but no command is sent since the drone
+     * is already in that state. The trace ends once the mission followed the state.
+     *
+     * @param state The state reported by the mission planner
+     * @param trace The trace of the report, or {@code null} if it isn't traced
+     *
+     * @return {@code true} if the mission is in that state, else {@code false} if the state can't
+     * be reached from the current one
+     */
+    public boolean followPlanner(State state, CommandTrace trace) {
+        Transition transition = Transition.between(getState(), state);
+        if (transition == null) {
+            boolean reached = getState() == state;
+            CommandTracer.getInstance().finish(trace, reached ? Outcome.DROPPED : Outcome.REJECTED);
+            return reached;
+        }
+
+        if (!apply(transition, trace, false)) {
+            return false;
+        }
+
+        CommandTracer.getInstance().finish(trace, Outcome.FOLLOWED);
+        return true;
+    }
+
+    /**
+     * This method applies a transition to the mission. The new snapshot is published with a
+     * compare-and-set, so when many threads race on the same transition, only one of them applies
+     * it and sends its command. The command and the flight log are then updated in the order of
+     * the versions, so a thread that was preempted after its transition can't replace the command
+     * of a newer one.
+     *
+     * @param transition The transition to apply
+     * @param trace      The trace of the command, or {@code null} if it isn't traced
+     * @param send       {@code true} to send the command of the transition to the drone
+     *
+     * @return {@code true} if the transition was applied, else {@code false}
+     */
+    private boolean apply(Transition transition, CommandTrace trace, boolean send) {
+        PayloadManager manager = fPayloadManager;
+        boolean command = send && transition.getCommand() != null;
+
+        /* Make sure we have a payload manager to send the command */
+        if (command && manager == null) {
+            CommandTracer.getInstance().finish(trace, Outcome.REJECTED);
+            return false;
+        }
+
+        /* Publish the next snapshot if the transition is still allowed */
+        MissionSnapshot current;
+        MissionSnapshot next;
+        do {
+            current = fSnapshot.get();
+            if (!transition.isAllowedFrom(current.getState())) {
+                CommandTracer.getInstance().finish(trace, Outcome.REJECTED);
+                return false;
+            }
+
+            next = current.apply(transition, fClock.currentTimeMillis());
+        } while (!fSnapshot.compareAndSet(current, next));
+
+        /* The transition is applied, the command only needs to be queued */
+        if (trace != null) {
+            trace.setCommand(transition.getCommand());
+            trace.stamp(Stage.TRANSITION);
+        }
+
+        synchronized (fPublishLock) {
+            /* Wait for the threads that applied the previous versions */
+            boolean interrupted = false;
+            while (fPublishedVersion < next.getVersion() - 1) {
+                try {
+                    fPublishLock.wait();
+                } catch (InterruptedException exception) {
+                    interrupted = true;
+                }
+            }
+
+            /* The version is published even if a sink fails, the next transitions wait on it */
+            try {
+                /* Set the command to the drone */
+                if (command) {
+                    try {
+                        manager.setPayload(new PayloadCommand(transition.getCommand(), trace));
+                    } catch (RuntimeException exception) {
+                        Log.e(TAG, "Unable to queue the command of " + next.getState(),
+                                exception);
+                        CommandTracer.getInstance().finish(trace, Outcome.FAILED);
+                    }
+                }
+
+                /* Record the new state in the flight log */
+                try {
+                    fRecorder.recordState(next.getState());
+                } catch (RuntimeException exception) {
+                    Log.e(TAG, "Unable to record the state " + next.getState(), exception);
+                }
+            } finally {
+                fPublishedVersion = next.getVersion();
+                fPublishLock.notifyAll();
+
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /* Write the new state in the checkpoint once the command is queued */
+        if (fCheckpoint != null) {
+            fCheckpoint.recordState(next);
+        }
+
+        /* Call the listeners that the state has changed */
+        callListeners(next);
+
+        return true;
+    }
+
+    /**
+     * This method connects a listener that wants to know when the state of the mission changes. It
+     * will call the listener a first time when it is added. The listener is called on the threads
+     * of the event bus.
+     *
+     * @param listener The listener to connect
+     */
+    public void addMissionStateChangedListener(MissionStateChangedListener listener) {
+        synchronized (fEventBus) {
+            /* Make sure the listener isn't already connected */
+            if (!fEventBus.subscribe(listener)) {
+                return;
+            }
+
+            /* Call the listener a first time */
+            fEventBus.publish(listener, fSnapshot.get().getState());
+        }
+    }
+
+    /**
+     * This method connects a listener that wants to know when the state of the mission changes on
+     * a given executor, like the main thread for the UI. It will call the listener a first time
+     * when it is added.
+     *
+     * @param listener The listener to connect
+     * @param executor The executor that calls the listener
+     * @param coalesce {@code true} if only the latest state matters to the listener, else
+     *                 {@code false}
+     */
+    public void addMissionStateChangedListener(MissionStateChangedListener listener,
+                                               Executor executor, boolean coalesce) {
+        synchronized (fEventBus) {
+            /* Make sure the listener isn't already connected */
+            if (!fEventBus.subscribe(listener, executor, MissionEventBus.DEFAULT_CAPACITY,
+                    coalesce)) {
+                return;
+            }
+
+            /* Call the listener a first time */
+            fEventBus.publish(listener, fSnapshot.get().getState());
+        }
+    }
+
+    /**
+     * This method disconnects a listener that wanted to know when the state of the mission
+     * changed.
+     *
+     * @param listener The listener to remove
+     */
+    public void removeMissionStateChangedListener(MissionStateChangedListener listener) {
+        fEventBus.unsubscribe(listener);
+    }
+
+    /**
+     * This method continues a recovered mission, if no transition was applied yet. The recovered
+     * version is published, so the next transitions follow it.
+     *
+     * @param snapshot The snapshot of the recovered mission
+     *
+     * @return {@code true} if the mission was continued, else {@code false}
+     */
+    private boolean restore(MissionSnapshot snapshot) {
+        synchronized (fPublishLock) {
+            if (!fSnapshot.compareAndSet(fInitialSnapshot, snapshot)) {
+                return false;
+            }
+
+            fPublishedVersion = snapshot.getVersion();
+            fPublishLock.notifyAll();
+        }
+
+        Log.d(TAG, "Continuing the mission in " + snapshot.getState());
+        callListeners(snapshot);
+        return true;
+    }
+
+    /**
+     * This method queues the new state of the mission for every listener. The states are queued in
+     * the order of the versions: if a newer snapshot was already queued, this one is skipped so the
+     * listeners never go back to an older state. The listeners are called later by the event bus,
+     * so the thread that applied the transition never waits on them.
+     *
+     * @param snapshot The snapshot after the transition
+     */
+    private void callListeners(MissionSnapshot snapshot) {
+        synchronized (fEventBus) {
+            /* Skip the snapshots that are already outdated */
+            if (snapshot.getVersion() <= fNotifiedVersion) {
+                return;
+            }
+            fNotifiedVersion = snapshot.getVersion();
+
+            /* Add the state to the timeline in the order of the versions too */
+            fTimeline.recordState(snapshot.getState());
+
+            /* Queue the state for all the listeners */
+            fEventBus.publish(snapshot.getState());
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        /* A finished mission doesn't need to be continued */
+        if (fCheckpoint != null && getState() == State.FINISHED) {
+            fCheckpoint.reset();
+        }
+
+        fTagList.removeListener(fRecordTag);
+        fTagList.removeUpdateListener(fRecordUpdate);
+        fTagList.removeRestoreListener(fRecordRestored);
+        fTagList.dispose();
+        fEventBus.dispose();
+
+        /* Stop following the mission planner */
+        fLauncher.shutdownNode(fPlannerNode);
+        fPlannerFeed.dispose();
+        if (fPlannerScheduler instanceof IDisposable) {
+            ((IDisposable) fPlannerScheduler).dispose();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator sets the payload manager to send the command.
+     *
+     * @param manager The payload manager
+     */
+    public void setPayloadManager(PayloadManager manager) {
+        fPayloadManager = manager;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the current state of the mission.
+     *
+     * @return The current state of the mission
+     */
+    public State getState() {
+        return fSnapshot.get().getState();
+    }
+
+    /**
+     * Accessor that returns the start time of the mission. It will return zero if the mission isn't
+     * started.
+     *
+     * @return The start time of the mission
+     */
+    public long getStartTime() {
+        return fSnapshot.get().getStartTime();
+    }
+
+    /**
+     * Accessor that returns the stop time of the mission. It will return zero if the mission isn't
+     * stopped.
+     *
+     * @return The stop time of the mission
+     */
+    public long getStopTime() {
+        return fSnapshot.get().getStopTime();
+    }
+
+    /**
+     * Accessor that returns a consistent snapshot of the mission, with the version of the last
+     * transition.
+     *
+     * @return The snapshot of the mission
+     */
+    public MissionSnapshot getSnapshot() {
+        return fSnapshot.get();
+    }
+
+    /**
+     * Accessor that returns the event bus that calls the listeners, which measures the latency of
+     * the dispatch.
+     *
+     * @return The event bus of the mission
+     */
+    public MissionEventBus getEventBus() {
+        return fEventBus;
+    }
+
+    /**
+     * Accessor that returns the feed of the states reported by the mission planner, with its rate
+     * and its staleness.
+     *
+     * @return The feed of the mission planner
+     */
+    public PlannerFeed getPlannerFeed() {
+        return fPlannerFeed;
+    }
+
+    /**
+     * Accessor that returns the timeline of the events of the mission.
+     *
+     * @return The timeline of the mission
+     */
+    public MissionTimeline getTimeline() {
+        return fTimeline;
+    }
+
+    /**
+     * This accessor returns the list of detected tags of the mission.
+     *
+     * @return The tag list of the mission
+     */
+    public TagList getTagList() {
+        return fTagList;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class writes the detected tags in the timeline and the checkpoint.
+     */
+    private class RecordTag implements TagAddedListener {
+        @Override
+        public void onNewTag(Tag tag) {
+            fTimeline.recordTag(tag.getID());
+
+            if (fCheckpoint != null) {
+                fCheckpoint.recordTag(tag, fTagList.getImageStore());
+            }
+        }
+    }
+
+    /**
+     * This class writes the restored tags in the timeline. They are already in the checkpoint.
+     */
+    private class RecordRestored implements TagsRestoredListener {
+        @Override
+        public void onTagsRestored(List<Tag> tags) {
+            for (Tag tag : tags) {
+                fTimeline.recordTag(tag.getID());
+            }
+        }
+    }
+
+    /**
+     * This class continues the mission recovered by the checkpoint. The recovered state is only
+     * taken while the mission is still ready to start: if a transition was applied before the
+     * checkpoint was read, the recovered mission is dropped and the checkpoint starts over from
+     * the current one.
+     */
+    private class Continue implements MissionRecoveredListener {
+        @Override
+        public void onMissionRecovered(MissionSnapshot snapshot, List<Tag> tags) {
+            if (snapshot != null && !restore(snapshot)) {
+                Log.w(TAG, "The mission changed before the recovered one was read, the "
+                        + snapshot.getState() + " mission is dropped");
+                fCheckpoint.reset();
+                fCheckpoint.recordState(fSnapshot.get());
+                return;
+            }
+
+            /* The tags are read once, straight from the checkpoint */
+            fTagList.restore(tags);
+        }
+    }
+
+    /**
+     * This class writes the new state of a tag seen again in the checkpoint.
+     */
+    private class RecordUpdate implements TagUpdatedListener {
+        @Override
+        public void onTagUpdated(Tag tag) {
+            if (fCheckpoint != null) {
+                fCheckpoint.recordTag(tag, fTagList.getImageStore());
+            }
+        }
+    }
+
+}
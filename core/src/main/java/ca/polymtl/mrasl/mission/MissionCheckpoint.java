@@ -0,0 +1,400 @@
+package ca.polymtl.mrasl.mission;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.polymtl.mrasl.checkpoint.Checkpoint;
+import ca.polymtl.mrasl.checkpoint.MissionJournal;
+import ca.polymtl.mrasl.checkpoint.TagLog;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.tag.Tag;
+import ca.polymtl.mrasl.tag.TagImageStore;
+
+/**
+ * This class keeps the mission in a journal, so a mission that was interrupted by the death of
+ * the application is recovered when it starts again. The journal is opened and read on the thread
+ * of a scheduler, like every write that follows, so the thread that creates the checkpoint never
+ * waits on the storage. A mission that was finished isn't recovered.
+ * <p/>
+ * The tags are kept in a {@link TagLog} next to the journal, with their fused position, their
+ * times and their image. The log is mapped and checked on the thread of the scheduler too, and
+ * the recovered tags are given to the mission as a list whose tags are created from the mapping
+ * when they are first read. The slot of a tag is chosen on that thread when it is first written,
+ * after the slots of the recovered tags.
+ * <p/>
+ * The latest state and tags are also kept, so a mission that is created again after the previous
+ * one was disposed continues where it stopped.
+ */
+public class MissionCheckpoint implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = MissionCheckpoint.class.getName();
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final IScheduler fScheduler;
+
+    /* Only used on the thread of the scheduler */
+    private final List<Tag> fTags = new ArrayList<>();
+    private final Map<Tag, Integer> fSlots = new IdentityHashMap<>();
+    private MissionJournal fJournal;
+    private TagLog fTagLog;
+    private long fWrittenVersion = -1L;
+
+    private MissionSnapshot fSnapshot;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor that recovers the mission from a journal. The journal is read on the thread of
+     * the scheduler, the recovered mission is given to {@link #recover}.
+     *
+     * @param file      The file of the journal
+     * @param scheduler The scheduler that reads and writes the journal
+     */
+    public MissionCheckpoint(File file, IScheduler scheduler) {
+        fScheduler = scheduler;
+
+        /* Open the files before any write, on the thread of the writes */
+        fScheduler.post(new Open(file));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method writes the state of the mission in the journal. The snapshots that are older
+     * than the last one written are skipped.
+     *
+     * @param snapshot The snapshot of the mission
+     */
+    public void recordState(MissionSnapshot snapshot) {
+        synchronized (this) {
+            if (fSnapshot == null || snapshot.getVersion() > fSnapshot.getVersion()) {
+                fSnapshot = snapshot;
+            }
+        }
+
+        fScheduler.post(new WriteState(snapshot));
+    }
+
+    /**
+     * This method writes a tag in the log, when it is detected or seen again. Its image is written
+     * when it is larger than the one already written.
+     *
+     * @param tag    The detected tag
+     * @param images The store of the images of the tag, or {@code null} if it has none
+     */
+    public void recordTag(Tag tag, TagImageStore images) {
+        /* The writes run in order, so the new tags get their slot in the order they were given */
+        fScheduler.post(new WriteTag(tag, images));
+    }
+
+    /**
+     * This method gives the recovered mission to a listener, on the thread of the scheduler once
+     * the journal is read. The images of the tags are given to the store of the mission as
+     * references to the log, so they are only read when they are shown.
+     *
+     * @param images   The store of the images of the mission, or {@code null} to skip the images
+     * @param listener The listener of the recovered mission
+     */
+    public void recover(TagImageStore images, MissionRecoveredListener listener) {
+        fScheduler.post(new Recover(images, listener));
+    }
+
+    /**
+     * This method removes the mission from the journal, once it doesn't need to be recovered.
+     */
+    public void reset() {
+        synchronized (this) {
+            fSnapshot = null;
+        }
+
+        fScheduler.post(new Reset());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        /* Close the journal on its thread */
+        fScheduler.post(new Close());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the latest snapshot of the mission, or {@code null} if there is no
+     * mission to continue or if the journal isn't read yet.
+     *
+     * @return The latest snapshot of the mission
+     */
+    public synchronized MissionSnapshot getSnapshot() {
+        return fSnapshot;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class opens the journal and the tag log, and keeps the mission they recover.
+     */
+    private class Open implements Runnable {
+        private final File fFile;
+
+        public Open(File file) {
+            fFile = file;
+        }
+
+        @Override
+        public void run() {
+            /* Recover the mission of the previous run, it only reads a few entries */
+            long start = System.nanoTime();
+            Checkpoint checkpoint = new Checkpoint();
+            try {
+                fJournal = new MissionJournal(fFile);
+                checkpoint = fJournal.getCheckpoint();
+
+                /* A finished mission doesn't need to be recovered */
+                if (checkpoint.getState() == State.FINISHED) {
+                    fJournal.reset();
+                    checkpoint = new Checkpoint();
+                }
+
+                /* Continue after the recovered version */
+                fWrittenVersion = checkpoint.getVersion();
+            } catch (IOException exception) {
+                Log.e(TAG, "Unable to open the mission journal: " + exception.getMessage());
+                if (fJournal != null) {
+                    fJournal.dispose();
+                    fJournal = null;
+                }
+            }
+
+            /* Map the tags, they are only created when the mission reads them */
+            try {
+                fTagLog = new TagLog(new File(fFile.getPath() + ".tags"),
+                        new File(fFile.getPath() + ".images"));
+                if (!checkpoint.hasState()) {
+                    fTagLog.reset();
+                }
+            } catch (IOException exception) {
+                Log.e(TAG, "Unable to open the tag log: " + exception.getMessage());
+            }
+
+            if (!checkpoint.hasState()) {
+                return;
+            }
+
+            /* Keep the recovered mission, unless a newer state was already recorded */
+            synchronized (MissionCheckpoint.this) {
+                if (fSnapshot == null || checkpoint.getVersion() > fSnapshot.getVersion()) {
+                    fSnapshot = new MissionSnapshot(checkpoint.getState(),
+                            checkpoint.getVersion(), checkpoint.getStartTime(),
+                            checkpoint.getStopTime());
+                }
+            }
+
+            int count = (fTagLog != null) ? fTagLog.getRecoveredCount() : 0;
+            Log.d(TAG, "Recovered the mission in " + checkpoint.getState() + " with " + count
+                    + " tags in " + (System.nanoTime() - start) / NANOS_PER_MILLI + " ms");
+        }
+    }
+
+    /**
+     * This class gives the recovered mission to a listener, with the references to the images of
+     * its tags.
+     */
+    private class Recover implements Runnable {
+        private final TagImageStore fImages;
+        private final MissionRecoveredListener fListener;
+
+        public Recover(TagImageStore images, MissionRecoveredListener listener) {
+            fImages = images;
+            fListener = listener;
+        }
+
+        @Override
+        public void run() {
+            /* The recovered tags are read from the log, the ones written since follow them */
+            List<Tag> tags = Collections.emptyList();
+            if (fTagLog != null) {
+                tags = fTagLog.getRecoveredTags();
+            }
+            if (!fTags.isEmpty()) {
+                tags = new ArrayList<>(tags);
+                tags.addAll(fTags);
+            }
+
+            /* The index of a tag is its slot */
+            if (fTagLog != null && fImages != null) {
+                for (int i = 0; i < tags.size(); i++) {
+                    fTagLog.restoreImage(i, tags.get(i), fImages);
+                }
+            }
+
+            fListener.onMissionRecovered(getSnapshot(), tags);
+        }
+    }
+
+    /**
+     * This class writes the state of the mission in the journal.
+     */
+    private class WriteState implements Runnable {
+        private final MissionSnapshot fWritten;
+
+        public WriteState(MissionSnapshot snapshot) {
+            fWritten = snapshot;
+        }
+
+        @Override
+        public void run() {
+            /* Skip the snapshots that are already outdated */
+            if (fJournal == null || fWritten.getVersion() <= fWrittenVersion) {
+                return;
+            }
+            fWrittenVersion = fWritten.getVersion();
+
+            try {
+                fJournal.appendState(fWritten.getState(), fWritten.getVersion(),
+                        fWritten.getStartTime(), fWritten.getStopTime());
+            } catch (IOException exception) {
+                Log.e(TAG, "Unable to write the state: " + exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * This class writes the state of a tag in the log, with its image if it is new.
+     */
+    private class WriteTag implements Runnable {
+        private final Tag fTag;
+        private final TagImageStore fImages;
+
+        public WriteTag(Tag tag, TagImageStore images) {
+            fTag = tag;
+            fImages = images;
+        }
+
+        @Override
+        public void run() {
+            if (fTagLog == null) {
+                return;
+            }
+
+            /* Only write an image that is closer than the one in the log. Reading it doesn't
+             * make it recently used in the store, nor bring it back in memory if it was spilled */
+            int slot = getSlot(fTag);
+            TagImageStore.Encoded image = null;
+            if (fImages != null && fImages.getImageArea(fTag) > fTagLog.getImageArea(slot)) {
+                image = fImages.getEncoded(fTag);
+            }
+
+            try {
+                fTagLog.append(slot, fTag, image);
+            } catch (IOException exception) {
+                Log.e(TAG, "Unable to write the tag: " + exception.getMessage());
+            } catch (RuntimeException exception) {
+                /* A slot the log doesn't expect must not stop the thread of the journal */
+                Log.e(TAG, "Unable to write the tag in slot " + slot, exception);
+            }
+        }
+    }
+
+    /**
+     * This class removes every entry of the journal and every tag of the log. Each file is reset
+     * on its own, so the tags are removed even without a journal.
+     */
+    private class Reset implements Runnable {
+        @Override
+        public void run() {
+            fTags.clear();
+            fSlots.clear();
+
+            if (fJournal != null) {
+                try {
+                    fJournal.reset();
+                    fWrittenVersion = -1L;
+                } catch (IOException exception) {
+                    Log.e(TAG, "Unable to reset the journal: " + exception.getMessage());
+                }
+            }
+
+            if (fTagLog != null) {
+                try {
+                    fTagLog.reset();
+                } catch (IOException exception) {
+                    Log.e(TAG, "Unable to reset the tag log: " + exception.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * This class closes the journal.
+     */
+    private class Close implements Runnable {
+        @Override
+        public void run() {
+            if (fJournal != null) {
+                fJournal.dispose();
+                fJournal = null;
+            }
+            if (fTagLog != null) {
+                fTagLog.dispose();
+                fTagLog = null;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method returns the slot of a tag in the log. A tag that isn't recovered nor
+     * written yet takes the next slot. It must be called on the thread of the scheduler.
+     *
+     * @param tag The tag
+     *
+     * @return The slot of the tag
+     */
+    private int getSlot(Tag tag) {
+        Integer slot = fSlots.get(tag);
+        if (slot != null) {
+            return slot;
+        }
+
+        int recovered = fTagLog.getRecoveredSlot(tag);
+        if (recovered >= 0) {
+            return recovered;
+        }
+
+        slot = fTagLog.getRecoveredCount() + fTags.size();
+        fTags.add(tag);
+        fSlots.put(tag, slot);
+        return slot;
+    }
+
+}
@@ -0,0 +1,360 @@
+package ca.polymtl.mrasl.mission;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.shared.ListenerRegistry;
+
+/**
+ * This class dispatches the changes of state of the mission to the listeners without blocking the
+ * thread that changed the state. Each listener has its own bounded queue that is drained on the
+ * executor of the listener, so a slow listener only delays itself and always receives the events
+ * in order.
+ * <p/>
+ * A listener that only shows the current state, like the UI, can ask for its events to be
+ * coalesced: only the latest pending state is then delivered. When the queue of a listener is
+ * full, its oldest event is dropped.
+ */
+public class MissionEventBus implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Default capacity of the queue of a listener
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final String TAG = MissionEventBus.class.getName();
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final IClock fClock;
+    private final ExecutorService fExecutor = Executors.newCachedThreadPool(new EventThreadFactory());
+    private final ListenerRegistry<Subscriber> fSubscribers = new ListenerRegistry<>(Subscriber.class);
+
+    /* Statistics of the dispatch */
+    private long fDispatched;
+    private long fTotalLatency;
+    private long fMaxLatency;
+    private long fDropped;
+    private long fCoalesced;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a bus that measures the latency of the events on the clock of the platform.
+     */
+    public MissionEventBus() {
+        this(Platform.getInstance().getClock());
+    }
+
+    /**
+     * Constructor for a bus.
+     *
+     * @param clock The clock that measures the latency of the events
+     */
+    public MissionEventBus(IClock clock) {
+        fClock = clock;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method connects a listener that receives the events on the threads of the bus.
+     *
+     * @param listener The listener to connect
+     *
+     * @return {@code true} if the listener was added, or {@code false} if already connected
+     */
+    public boolean subscribe(MissionStateChangedListener listener) {
+        return subscribe(listener, fExecutor, DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * This method connects a listener that receives the events on a given executor.
+     *
+     * @param listener The listener to connect
+     * @param executor The executor that calls the listener
+     * @param capacity The maximum number of pending events of the listener
+     * @param coalesce {@code true} to only deliver the latest pending event, else {@code false}
+     *
+     * @return {@code true} if the listener was added, or {@code false} if already connected
+     */
+    public boolean subscribe(MissionStateChangedListener listener, Executor executor, int capacity,
+                             boolean coalesce) {
+        return fSubscribers.add(new Subscriber(listener, executor, capacity, coalesce));
+    }
+
+    /**
+     * This method disconnects a listener. The pending events of the listener are discarded, but an
+     * event being delivered may still complete after this method returns.
+     *
+     * @param listener The listener to disconnect
+     */
+    public void unsubscribe(MissionStateChangedListener listener) {
+        Subscriber subscriber = find(listener);
+        if (subscriber != null) {
+            subscriber.fActive = false;
+            fSubscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * This method queues a change of state for every listener. It never waits on the listeners.
+     *
+     * @param state The new state of the mission
+     */
+    public void publish(State state) {
+        Event event = new Event(state, fClock.nanoTime());
+
+        for (Subscriber subscriber : fSubscribers.getListeners()) {
+            subscriber.offer(event);
+        }
+    }
+
+    /**
+     * This method queues a change of state for a single listener, like the first call made when a
+     * listener is connected.
+     *
+     * @param listener The listener
+     * @param state    The state to deliver
+     */
+    public void publish(MissionStateChangedListener listener, State state) {
+        Subscriber subscriber = find(listener);
+        if (subscriber != null) {
+            subscriber.offer(new Event(state, fClock.nanoTime()));
+        }
+    }
+
+    /**
+     * This method finds the subscriber of a listener.
+     *
+     * @param listener The listener
+     *
+     * @return The subscriber of the listener, or {@code null} if not connected
+     */
+    private Subscriber find(MissionStateChangedListener listener) {
+        for (Subscriber subscriber : fSubscribers.getListeners()) {
+            if (subscriber.fListener == listener) {
+                return subscriber;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * This method accounts the delivery of an event.
+     *
+     * @param latency The time between the publication and the delivery in nanoseconds
+     */
+    private synchronized void onDispatched(long latency) {
+        fDispatched++;
+        fTotalLatency += latency;
+        fMaxLatency = Math.max(fMaxLatency, latency);
+    }
+
+    private synchronized void onDropped() {
+        fDropped++;
+    }
+
+    private synchronized void onCoalesced() {
+        fCoalesced++;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        for (Subscriber subscriber : fSubscribers.getListeners()) {
+            subscriber.fActive = false;
+        }
+        fSubscribers.clear();
+
+        fExecutor.shutdown();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of events delivered to the listeners.
+     *
+     * @return The number of delivered events
+     */
+    public synchronized long getDispatchCount() {
+        return fDispatched;
+    }
+
+    /**
+     * Accessor that returns the mean time between the publication and the delivery of an event in
+     * nanoseconds.
+     *
+     * @return The mean dispatch latency
+     */
+    public synchronized long getMeanLatency() {
+        return (fDispatched > 0) ? fTotalLatency / fDispatched : 0L;
+    }
+
+    /**
+     * Accessor that returns the largest time between the publication and the delivery of an
+     * event in nanoseconds.
+     *
+     * @return The maximum dispatch latency
+     */
+    public synchronized long getMaxLatency() {
+        return fMaxLatency;
+    }
+
+    /**
+     * Accessor that returns the number of events dropped because the queue of a listener was
+     * full.
+     *
+     * @return The number of dropped events
+     */
+    public synchronized long getDroppedCount() {
+        return fDropped;
+    }
+
+    /**
+     * Accessor that returns the number of events replaced by a newer one for a coalescing
+     * listener.
+     *
+     * @return The number of coalesced events
+     */
+    public synchronized long getCoalescedCount() {
+        return fCoalesced;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class contains an event waiting in the queue of a listener.
+     */
+    private static class Event {
+        private final State fState;
+        private final long fTime;
+
+        public Event(State state, long time) {
+            fState = state;
+            fTime = time;
+        }
+    }
+
+    /**
+     * This class contains the queue of a listener and drains it on the executor of the listener.
+     * Only one drain is scheduled at a time, which keeps the events in order. Two subscribers are
+     * equal if they have the same listener.
+     */
+    private class Subscriber implements Runnable {
+        private final MissionStateChangedListener fListener;
+        private final Executor fExecutor;
+        private final BlockingQueue<Event> fQueue;
+        private final boolean fCoalesce;
+        private final AtomicBoolean fScheduled = new AtomicBoolean();
+
+        private volatile boolean fActive = true;
+
+        public Subscriber(MissionStateChangedListener listener, Executor executor, int capacity,
+                          boolean coalesce) {
+            fListener = listener;
+            fExecutor = executor;
+            fQueue = new ArrayBlockingQueue<>(coalesce ? 1 : capacity);
+            fCoalesce = coalesce;
+        }
+
+        /**
+         * This method queues an event and schedules the drain if needed.
+         *
+         * @param event The event to queue
+         */
+        public void offer(Event event) {
+            /* Make room for the event */
+            while (!fQueue.offer(event)) {
+                if (fQueue.poll() != null) {
+                    if (fCoalesce) {
+                        onCoalesced();
+                    } else {
+                        onDropped();
+                    }
+                }
+            }
+
+            schedule();
+        }
+
+        private void schedule() {
+            if (fActive && fScheduled.compareAndSet(false, true)) {
+                fExecutor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Event event;
+                while (fActive && (event = fQueue.poll()) != null) {
+                    onDispatched(fClock.nanoTime() - event.fTime);
+                    fListener.onStateChanged(event.fState);
+                }
+            } catch (RuntimeException exception) {
+                Log.e(TAG, "A mission listener failed", exception);
+            } finally {
+                fScheduled.set(false);
+
+                /* An event might have been queued after the last poll, or left by the failure */
+                if (!fQueue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return (object instanceof Subscriber) && ((Subscriber) object).fListener == fListener;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(fListener);
+        }
+    }
+
+    /**
+     * This class names the threads of the bus.
+     */
+    private static class EventThreadFactory implements ThreadFactory {
+        private final AtomicInteger fCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "mission-events-" + fCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package ca.polymtl.mrasl.mission;
+
+import java.util.List;
+
+import ca.polymtl.mrasl.tag.Tag;
+
+/**
+ * This interface defines a callback when the mission kept by a checkpoint is recovered.
+ */
+public interface MissionRecoveredListener {
+
+    /**
+     * This method is called on the thread of the checkpoint once its files are read. The tags
+     * are created from the log when they are first read from the list.
+     *
+     * @param snapshot The snapshot of the mission, or {@code null} if there is none to continue
+     * @param tags     The tags detected during the mission, in the order of their slot
+     */
+    void onMissionRecovered(MissionSnapshot snapshot, List<Tag> tags);
+
+}
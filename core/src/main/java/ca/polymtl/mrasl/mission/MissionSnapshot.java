@@ -0,0 +1,103 @@
+package ca.polymtl.mrasl.mission;
+
+/**
+ * This class is an immutable snapshot of the mission. A new snapshot is published for every
+ * transition with a version number that is larger than the previous one, so the fields of a
+ * snapshot are always consistent with each other.
+ */
+public class MissionSnapshot {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final State fState;
+    private final long fVersion;
+    private final long fStartTime;
+    private final long fStopTime;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a snapshot of the mission.
+     *
+     * @param state     The state of the mission
+     * @param version   The version of the snapshot
+     * @param startTime The start time of the mission, or zero
+     * @param stopTime  The stop time of the mission, or zero
+     */
+    public MissionSnapshot(State state, long version, long startTime, long stopTime) {
+        fState = state;
+        fVersion = version;
+        fStartTime = startTime;
+        fStopTime = stopTime;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method returns the snapshot after a transition.
+     *
+     * @param transition The transition to apply
+     * @param time       The time of the transition
+     *
+     * @return The next snapshot
+     */
+    MissionSnapshot apply(Transition transition, long time) {
+        State state = transition.getTarget();
+
+        /* Set the start and stop time of the mission */
+        long start = (state == State.START_MISSION) ? time : fStartTime;
+        long stop = (state == State.FINISHED) ? time : fStopTime;
+
+        return new MissionSnapshot(state, fVersion + 1, start, stop);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the state of the mission.
+     *
+     * @return The state of the mission
+     */
+    public State getState() {
+        return fState;
+    }
+
+    /**
+     * Accessor that returns the version of the snapshot. It starts at zero and increases by one
+     * for every transition.
+     *
+     * @return The version of the snapshot
+     */
+    public long getVersion() {
+        return fVersion;
+    }
+
+    /**
+     * Accessor that returns the start time of the mission. It returns zero if the mission isn't
+     * started.
+     *
+     * @return The start time of the mission
+     */
+    public long getStartTime() {
+        return fStartTime;
+    }
+
+    /**
+     * Accessor that returns the stop time of the mission. It returns zero if the mission isn't
+     * stopped.
+     *
+     * @return The stop time of the mission
+     */
+    public long getStopTime() {
+        return fStopTime;
+    }
+
+}
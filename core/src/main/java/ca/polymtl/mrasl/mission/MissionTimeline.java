@@ -0,0 +1,335 @@
+package ca.polymtl.mrasl.mission;
+
+import java.util.Arrays;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.payload.PayloadCommand.CommandType;
+
+/**
+ * This class contains the events of a mission in the order they happened: the changes of state,
+ * the drops and recoveries of the radio link, the detected tags and the commands sent to the drone.
+ * The timeline is append-only and held in primitive arrays, one per column, so it costs a few
+ * bytes per event.
+ * <p/>
+ * Along with each event, the timeline keeps what was happening after it: the state of the mission,
+ * whether the link was up, the number of tags and the command waiting for its acknowledgement. The
+ * times never go backward, so finding what was happening at a given time is a binary search,
+ * without scanning the events before it.
+ */
+public class MissionTimeline {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final byte NO_COMMAND = -1;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final IClock fClock;
+
+    private int fCount;
+    private long[] fTimes = new long[INITIAL_CAPACITY];
+    private byte[] fTypes = new byte[INITIAL_CAPACITY];
+    private int[] fValues = new int[INITIAL_CAPACITY];
+    private byte[] fStates = new byte[INITIAL_CAPACITY];
+    private boolean[] fLinkUp = new boolean[INITIAL_CAPACITY];
+    private int[] fTagCounts = new int[INITIAL_CAPACITY];
+    private byte[] fPendingCommands = new byte[INITIAL_CAPACITY];
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for an empty timeline.
+     *
+     * @param clock The clock that stamps the events
+     */
+    public MissionTimeline(IClock clock) {
+        fClock = clock;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method adds a change of state of the mission.
+     *
+     * @param state The new state
+     */
+    public synchronized void recordState(State state) {
+        int index = append(TimelineEvent.STATE, state.ordinal());
+        fStates[index] = (byte) state.ordinal();
+    }
+
+    /**
+     * This method adds a drop of the radio link.
+     */
+    public synchronized void recordLinkDown() {
+        int index = append(TimelineEvent.LINK_DOWN, 0);
+        fLinkUp[index] = false;
+    }
+
+    /**
+     * This method adds the start of the radio link, the first time or after a drop.
+     */
+    public synchronized void recordLinkUp() {
+        int index = append(TimelineEvent.LINK_UP, 0);
+        fLinkUp[index] = true;
+    }
+
+    /**
+     * This method adds a detected tag.
+     *
+     * @param id The ID of the tag
+     */
+    public synchronized void recordTag(int id) {
+        int index = append(TimelineEvent.TAG, id);
+        fTagCounts[index]++;
+    }
+
+    /**
+     * This method adds a command sent to the drone.
+     *
+     * @param command The command that was sent
+     */
+    public synchronized void recordCommandSent(CommandType command) {
+        int index = append(TimelineEvent.COMMAND_SENT, command.ordinal());
+        fPendingCommands[index] = (byte) command.ordinal();
+    }
+
+    /**
+     * This method adds the acknowledgement of a command by the drone.
+     *
+     * @param command The command that was acknowledged
+     */
+    public synchronized void recordCommandAcked(CommandType command) {
+        int index = append(TimelineEvent.COMMAND_ACKED, command.ordinal());
+        if (fPendingCommands[index] == command.ordinal()) {
+            fPendingCommands[index] = NO_COMMAND;
+        }
+    }
+
+    /**
+     * This method returns the index of the last event at or before a time. The event tells what
+     * was happening at that time.
+     *
+     * @param time The time in milliseconds
+     *
+     * @return The index of the event, or {@code -1} if the time is before the first event
+     */
+    public synchronized int indexAt(long time) {
+        /* Find the first event after the time */
+        int low = 0;
+        int high = fCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (fTimes[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low - 1;
+    }
+
+    /**
+     * This method returns the index of the first event at or after a time. With
+     * {@link #indexAt(long)}, it gives the events between two times.
+     *
+     * @param time The time in milliseconds
+     *
+     * @return The index of the event, or the number of events if the time is after the last one
+     */
+    public synchronized int indexFrom(long time) {
+        int low = 0;
+        int high = fCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (fTimes[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * This method appends an event that carries on what was happening before it.
+     *
+     * @param type  The type of the event
+     * @param value The value of the event
+     *
+     * @return The index of the new event
+     */
+    private int append(TimelineEvent type, int value) {
+        if (fCount == fTimes.length) {
+            int capacity = fCount * 2;
+            fTimes = Arrays.copyOf(fTimes, capacity);
+            fTypes = Arrays.copyOf(fTypes, capacity);
+            fValues = Arrays.copyOf(fValues, capacity);
+            fStates = Arrays.copyOf(fStates, capacity);
+            fLinkUp = Arrays.copyOf(fLinkUp, capacity);
+            fTagCounts = Arrays.copyOf(fTagCounts, capacity);
+            fPendingCommands = Arrays.copyOf(fPendingCommands, capacity);
+        }
+
+        int index = fCount;
+        long time = fClock.currentTimeMillis();
+
+        /* The times must stay sorted for the binary search, even if the clock is adjusted */
+        if (index > 0) {
+            int previous = index - 1;
+            fTimes[index] = Math.max(time, fTimes[previous]);
+            fStates[index] = fStates[previous];
+            fLinkUp[index] = fLinkUp[previous];
+            fTagCounts[index] = fTagCounts[previous];
+            fPendingCommands[index] = fPendingCommands[previous];
+        } else {
+            fTimes[index] = time;
+            fStates[index] = (byte) State.READY.ordinal();
+            fLinkUp[index] = false;
+            fTagCounts[index] = 0;
+            fPendingCommands[index] = NO_COMMAND;
+        }
+        fTypes[index] = (byte) type.ordinal();
+        fValues[index] = value;
+
+        fCount++;
+        return index;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of events in the timeline.
+     *
+     * @return The number of events
+     */
+    public synchronized int getCount() {
+        return fCount;
+    }
+
+    /**
+     * Accessor that returns the time of an event.
+     *
+     * @param index The index of the event
+     *
+     * @return The time in milliseconds
+     */
+    public synchronized long getTime(int index) {
+        checkIndex(index);
+        return fTimes[index];
+    }
+
+    /**
+     * Accessor that returns the type of an event.
+     *
+     * @param index The index of the event
+     *
+     * @return The type of the event
+     */
+    public synchronized TimelineEvent getType(int index) {
+        checkIndex(index);
+        return TimelineEvent.values()[fTypes[index]];
+    }
+
+    /**
+     * Accessor that returns the value of an event, which depends on its type.
+     *
+     * @param index The index of the event
+     *
+     * @return The value of the event
+     */
+    public synchronized int getValue(int index) {
+        checkIndex(index);
+        return fValues[index];
+    }
+
+    /**
+     * Accessor that returns the state of the mission after an event.
+     *
+     * @param index The index of the event
+     *
+     * @return The state of the mission
+     */
+    public synchronized State getState(int index) {
+        checkIndex(index);
+        return State.values()[fStates[index]];
+    }
+
+    /**
+     * Accessor that returns whether the radio link was up after an event.
+     *
+     * @param index The index of the event
+     *
+     * @return {@code true} if the link was up, else {@code false}
+     */
+    public synchronized boolean isLinkUp(int index) {
+        checkIndex(index);
+        return fLinkUp[index];
+    }
+
+    /**
+     * Accessor that returns the number of tags detected up to an event.
+     *
+     * @param index The index of the event
+     *
+     * @return The number of tags
+     */
+    public synchronized int getTagCount(int index) {
+        checkIndex(index);
+        return fTagCounts[index];
+    }
+
+    /**
+     * Accessor that returns the command that was waiting for its acknowledgement after an event.
+     *
+     * @param index The index of the event
+     *
+     * @return The command, or {@code null} if there was none
+     */
+    public synchronized CommandType getPendingCommand(int index) {
+        checkIndex(index);
+        byte command = fPendingCommands[index];
+        return (command != NO_COMMAND) ? CommandType.values()[command] : null;
+    }
+
+    /**
+     * Accessor that returns the state of the mission at a time.
+     *
+     * @param time The time in milliseconds
+     *
+     * @return The state of the mission, or {@code null} if the time is before the timeline
+     */
+    public synchronized State getStateAt(long time) {
+        int index = indexAt(time);
+        return (index >= 0) ? State.values()[fStates[index]] : null;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method makes sure an index is in the timeline.
+     *
+     * @param index The index of an event
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + fCount + " events");
+        }
+    }
+
+}
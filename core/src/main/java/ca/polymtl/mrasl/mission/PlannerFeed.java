@@ -0,0 +1,364 @@
+package ca.polymtl.mrasl.mission;
+
+import java.util.Locale;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.trace.CommandTrace.Outcome;
+import ca.polymtl.mrasl.trace.CommandTracer;
+import ca.polymtl.mrasl.trace.TriggerSource;
+
+/**
+ * This class follows the state reported by the mission planner of the drone. The messages are
+ * decoded on the thread that receives them, but only the latest state is kept, and it is applied
+ * to the mission at most once per frame on the thread of a scheduler. A burst of messages thus
+ * changes the mission, and redraws the interface, only once.
+ * <p/>
+ * Each state is traced from the reception of its message to the transition of the mission, and a
+ * state replaced by a newer one ends its trace as dropped. The feed also measures the rate of the
+ * messages and warns once when the planner goes quiet.
+ */
+public class PlannerFeed implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = PlannerFeed.class.getName();
+    private static final long FRAME_DELAY = 16;
+    private static final long WATCHDOG_DELAY = 1000;
+    private static final long STALE_DELAY = 2000;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final Mission fMission;
+    private final IScheduler fScheduler;
+    private final IClock fClock;
+    private final Runnable fApply = new Apply();
+    private final Runnable fWatchdog = new Watchdog();
+
+    private State fPending;
+    private CommandTrace fPendingTrace;
+    private State fLastState;
+    private long fLastNanos;
+    private long fMessageCount;
+    private long fInvalidCount;
+    private long fCoalescedCount;
+    private long fAppliedCount;
+    private long fRejectedCount;
+    private long fWindowCount;
+    private long fWindowNanos;
+    private double fRate;
+    private boolean fStale;
+    private boolean fDisposed;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a feed. Until the first message, the staleness is counted from now.
+     *
+     * @param mission   The mission that follows the planner
+     * @param scheduler The scheduler that applies the states
+     */
+    public PlannerFeed(Mission mission, IScheduler scheduler) {
+        fMission = mission;
+        fScheduler = scheduler;
+        fClock = scheduler.getClock();
+        fLastNanos = fClock.nanoTime();
+        fWindowNanos = fLastNanos;
+
+        /* Watch the rate of the messages */
+        fScheduler.postDelayed(fWatchdog, WATCHDOG_DELAY);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method receives a message of the mission planner. The state is either its name, in any
+     * case, or its ordinal.
+     *
+     * @param data The content of the message
+     */
+    public void onMessage(String data) {
+        CommandTrace trace = new CommandTrace(TriggerSource.ROS, fClock);
+        State state = decode(data);
+        CommandTrace replaced;
+
+        synchronized (this) {
+            if (fDisposed) {
+                return;
+            }
+
+            fMessageCount++;
+            fWindowCount++;
+            fLastNanos = fClock.nanoTime();
+
+            if (state == null) {
+                fInvalidCount++;
+                Log.w(TAG, "Invalid planner state: " + data);
+                return;
+            }
+
+            /* A pending state is replaced, only the latest one is applied */
+            replaced = fPendingTrace;
+            if (fPending != null) {
+                fCoalescedCount++;
+            }
+            fPending = state;
+            fPendingTrace = trace;
+        }
+
+        if (replaced != null) {
+            CommandTracer.getInstance().finish(replaced, Outcome.DROPPED);
+            return;
+        }
+
+        fScheduler.postDelayed(fApply, FRAME_DELAY);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        CommandTrace trace;
+        synchronized (this) {
+            fDisposed = true;
+            fPending = null;
+            trace = fPendingTrace;
+            fPendingTrace = null;
+        }
+
+        CommandTracer.getInstance().finish(trace, Outcome.DROPPED);
+
+        fScheduler.removeCallbacks(fApply);
+        fScheduler.removeCallbacks(fWatchdog);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "%d messages (%d invalid, %d coalesced), %d applied, %d rejected, %.1f Hz%s",
+                fMessageCount, fInvalidCount, fCoalescedCount, fAppliedCount, fRejectedCount,
+                fRate, fStale ? ", stale" : "");
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of messages received, including the invalid ones.
+     *
+     * @return The number of messages
+     */
+    public synchronized long getMessageCount() {
+        return fMessageCount;
+    }
+
+    /**
+     * Accessor that returns the number of messages that didn't contain a state.
+     *
+     * @return The number of invalid messages
+     */
+    public synchronized long getInvalidCount() {
+        return fInvalidCount;
+    }
+
+    /**
+     * Accessor that returns the number of states replaced by a newer one before being applied.
+     *
+     * @return The number of coalesced states
+     */
+    public synchronized long getCoalescedCount() {
+        return fCoalescedCount;
+    }
+
+    /**
+     * Accessor that returns the number of states that changed the mission.
+     *
+     * @return The number of applied states
+     */
+    public synchronized long getAppliedCount() {
+        return fAppliedCount;
+    }
+
+    /**
+     * Accessor that returns the number of states that can't be reached from the state of the
+     * mission.
+     *
+     * @return The number of rejected states
+     */
+    public synchronized long getRejectedCount() {
+        return fRejectedCount;
+    }
+
+    /**
+     * Accessor that returns the rate of the messages over the last period of the watchdog.
+     *
+     * @return The rate in messages per second
+     */
+    public synchronized double getRate() {
+        return fRate;
+    }
+
+    /**
+     * Accessor that returns the time since the last message, or since the creation of the feed if
+     * no message was received.
+     *
+     * @return The time in milliseconds
+     */
+    public synchronized long getStaleness() {
+        return (fClock.nanoTime() - fLastNanos) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Accessor that returns whether the planner stopped sending its state after sending it at
+     * least once.
+     *
+     * @return {@code true} if the feed is stale, else {@code false}
+     */
+    public synchronized boolean isStale() {
+        return fStale;
+    }
+
+    /**
+     * Accessor that returns the last state applied from the planner.
+     *
+     * @return The last state, or {@code null} if none was applied
+     */
+    public synchronized State getLastState() {
+        return fLastState;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class applies the latest state of the planner to the mission.
+     */
+    private class Apply implements Runnable {
+        @Override
+        public void run() {
+            State state;
+            CommandTrace trace;
+            synchronized (PlannerFeed.this) {
+                state = fPending;
+                trace = fPendingTrace;
+                fPending = null;
+                fPendingTrace = null;
+            }
+
+            /* The mission may already be there, from a local command */
+            if (state == null || state == fMission.getState()) {
+                CommandTracer.getInstance().finish(trace, Outcome.DROPPED);
+                return;
+            }
+
+            boolean applied = fMission.followPlanner(state, trace);
+            synchronized (PlannerFeed.this) {
+                if (applied) {
+                    fAppliedCount++;
+                    fLastState = state;
+                } else {
+                    fRejectedCount++;
+                }
+            }
+
+            if (!applied) {
+                Log.w(TAG, "Planner state " + state + " unreachable from " + fMission.getState());
+            }
+        }
+    }
+
+    /**
+     * This class measures the rate of the messages and detects when the planner goes quiet.
+     */
+    private class Watchdog implements Runnable {
+        @Override
+        public void run() {
+            long now = fClock.nanoTime();
+            boolean stale;
+            boolean changed;
+
+            synchronized (PlannerFeed.this) {
+                if (fDisposed) {
+                    return;
+                }
+
+                /* Compute the rate over the elapsed window */
+                long elapsed = now - fWindowNanos;
+                if (elapsed > 0) {
+                    fRate = fWindowCount * 1000.0 * NANOS_PER_MILLI / elapsed;
+                }
+                fWindowCount = 0;
+                fWindowNanos = now;
+
+                /* A planner that never talked isn't stale, and only the changes are logged */
+                stale = fMessageCount > 0 && (now - fLastNanos) / NANOS_PER_MILLI > STALE_DELAY;
+                changed = stale != fStale;
+                fStale = stale;
+            }
+
+            if (changed && stale) {
+                Log.w(TAG, "The mission planner is stale");
+            } else if (changed) {
+                Log.i(TAG, "The mission planner is back");
+            }
+
+            fScheduler.postDelayed(this, WATCHDOG_DELAY);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method decodes a state of the planner.
+     *
+     * @param data The content of the message
+     *
+     * @return The state, or {@code null} if the message doesn't contain one
+     */
+    private static State decode(String data) {
+        if (data == null) {
+            return null;
+        }
+
+        String name = data.trim().toUpperCase(Locale.US);
+        if (name.isEmpty()) {
+            return null;
+        }
+
+        /* The planner may send the ordinal of the state */
+        if (Character.isDigit(name.charAt(0))) {
+            try {
+                int ordinal = Integer.parseInt(name);
+                State[] states = State.values();
+                return (ordinal < states.length) ? states[ordinal] : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        try {
+            return State.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
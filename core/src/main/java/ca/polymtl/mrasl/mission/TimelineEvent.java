@@ -0,0 +1,33 @@
+package ca.polymtl.mrasl.mission;
+
+/**
+ * This enumeration contains the types of event of a {@link MissionTimeline}.
+ */
+public enum TimelineEvent {
+
+    /**
+     * The mission changed of state, the value is the ordinal of the new state
+     */
+    STATE,
+    /**
+     * The radio link stopped after an error
+     */
+    LINK_DOWN,
+    /**
+     * The radio link started sending
+     */
+    LINK_UP,
+    /**
+     * A tag was detected, the value is the ID of the tag
+     */
+    TAG,
+    /**
+     * A command was sent to the drone, the value is the ordinal of the command
+     */
+    COMMAND_SENT,
+    /**
+     * A command was acknowledged, the value is the ordinal of the command
+     */
+    COMMAND_ACKED;
+
+}
@@ -0,0 +1,103 @@
+package ca.polymtl.mrasl.mission;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import ca.polymtl.mrasl.payload.PayloadCommand.CommandType;
+
+/**
+ * This enumeration defines the transitions between the states of the mission. Each transition
+ * has the states it can be applied from, the state it leads to and the command it sends to the
+ * drone.
+ */
+public enum Transition {
+
+    /**
+     * Transition that starts the mission
+     */
+    START(EnumSet.of(State.READY), State.START_MISSION, CommandType.START_MISSION),
+    /**
+     * Transition that aborts the mission by landing
+     */
+    ABORT_LANDING(EnumSet.of(State.START_MISSION), State.ABORT_LANDING, CommandType.ABORT_LANDING),
+    /**
+     * Transition that aborts the mission by hovering
+     */
+    ABORT_MISSION(EnumSet.of(State.START_MISSION), State.ABORT_MISSION, CommandType.ABORT_MISSION),
+    /**
+     * Transition that finishes the mission once the drone is immobile
+     */
+    FINISH(EnumSet.of(State.START_MISSION, State.ABORT_LANDING, State.ABORT_MISSION),
+            State.FINISHED, null);
+
+    /* Contains the states the transition can be applied from */
+    private final Set<State> fSources;
+
+    /* Contains the state after the transition */
+    private final State fTarget;
+
+    /* Contains the command sent to the drone, if any */
+    private final CommandType fCommand;
+
+    /**
+     * Constructor.
+     *
+     * @param sources The states the transition can be applied from
+     * @param target  The state after the transition
+     * @param command The command sent to the drone, or {@code null}
+     */
+    Transition(Set<State> sources, State target, CommandType command) {
+        fSources = sources;
+        fTarget = target;
+        fCommand = command;
+    }
+
+    /**
+     * This method finds the transition that leads from a state to another.
+     *
+     * @param source The current state of the mission
+     * @param target The state to reach
+     *
+     * @return The transition, or {@code null} if the target can't be reached from the source
+     */
+    public static Transition between(State source, State target) {
+        for (Transition transition : values()) {
+            if (transition.fTarget == target && transition.isAllowedFrom(source)) {
+                return transition;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * This method returns whether the transition can be applied from a state.
+     *
+     * @param state The current state of the mission
+     *
+     * @return {@code true} if the transition is allowed, else {@code false}
+     */
+    public boolean isAllowedFrom(State state) {
+        return fSources.contains(state);
+    }
+
+    /**
+     * Accessor that returns the state after the transition.
+     *
+     * @return The target state
+     */
+    public State getTarget() {
+        return fTarget;
+    }
+
+    /**
+     * Accessor that returns the command sent to the drone by the transition. It returns
+     * {@code null} if the transition doesn't send a command.
+     *
+     * @return The command of the transition
+     */
+    public CommandType getCommand() {
+        return fCommand;
+    }
+
+}
@@ -2,6 +2,8 @@ package ca.polymtl.mrasl.payload;
 
 import static ca.polymtl.mrasl.shared.PayloadUtil.putFloatToBytes;
 
+import ca.polymtl.mrasl.trace.CommandTrace;
+
 /**
  * This class implements a payload for sending commands.
  * <p/>
@@ -15,7 +17,7 @@ public class PayloadCommand implements IPayload {
     // Constants
     // ---------------------------------------------------------------------------------------------
 
-    private static final int PAYLOAD_SIZE = 1;
+    public static final int PAYLOAD_SIZE = 1;
     private static final int POS_CMD = 0;
 
     // ---------------------------------------------------------------------------------------------
@@ -57,6 +59,7 @@ public class PayloadCommand implements IPayload {
     // ---------------------------------------------------------------------------------------------
 
     private final CommandType fCommand;
+    private final CommandTrace fTrace;
 
     // ---------------------------------------------------------------------------------------------
     // Constructors
@@ -68,7 +71,18 @@ public class PayloadCommand implements IPayload {
      * @param command The type of command that the payload contains.
      */
     public PayloadCommand(CommandType command) {
+        this(command, null);
+    }
+
+    /**
+     * Constructor for a command payload that is traced until it reaches the drone.
+     *
+     * @param command The type of command that the payload contains.
+     * @param trace   The trace of the command, or {@code null} if it isn't traced
+     */
+    public PayloadCommand(CommandType command, CommandTrace trace) {
         fCommand = command;
+        fTrace = trace;
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -85,4 +99,26 @@ public class PayloadCommand implements IPayload {
         return payload;
     }
 
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the type of command of the payload.
+     *
+     * @return The type of command
+     */
+    public CommandType getCommand() {
+        return fCommand;
+    }
+
+    /**
+     * Accessor that returns the trace of the command.
+     *
+     * @return The trace of the command, or {@code null} if it isn't traced
+     */
+    public CommandTrace getTrace() {
+        return fTrace;
+    }
+
 }
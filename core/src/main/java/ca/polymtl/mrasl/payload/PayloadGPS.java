@@ -1,10 +1,9 @@
 package ca.polymtl.mrasl.payload;
 
+import static ca.polymtl.mrasl.shared.PayloadUtil.getFloatFromBytes;
 import static ca.polymtl.mrasl.shared.PayloadUtil.putFloatToBytes;
 import static ca.polymtl.mrasl.shared.PayloadUtil.putDoubleToBytes;
 
-import android.location.Location;
-
 /**
  * This class implements a payload for the GPS module. The format of the payload is defined in the
  * following graph:
@@ -25,7 +24,7 @@ public class PayloadGPS implements IPayload {
     // Constants
     // ---------------------------------------------------------------------------------------------
 
-    private static final int PAYLOAD_SIZE = 25;
+    public static final int PAYLOAD_SIZE = 25;
     private static final int POS_LATITUDE = 0;
     private static final int POS_LONGITUDE = 4;
     private static final int POS_ALTITUDE = 8;
@@ -62,42 +61,44 @@ public class PayloadGPS implements IPayload {
     }
 
     /**
-     * Constructor with a {@link Location} provided.
+     * Constructor with every field provided.
+     *
+     * @param latitude  The latitude
+     * @param longitude The longitude
+     * @param altitude  The altitude
+     * @param bearing   The bearing
+     * @param accuracy  The accuracy
+     * @param speed     The speed
+     */
+    public PayloadGPS(float latitude,
+                      float longitude,
+                      float altitude,
+                      float bearing,
+                      float accuracy,
+                      float speed) {
+        fLatitude = latitude;
+        fLongitude = longitude;
+        fAltitude = altitude;
+        fBearing = bearing;
+        fAccuracy = accuracy;
+        fSpeed = speed;
+    }
+
+    /**
+     * Factory constructor that decodes a payload built by {@link #getPayload()}.
+     *
+     * @param payload The byte representation of the payload
      *
-     * @param location The location to build the payload from
+     * @return The decoded payload
      */
-    public PayloadGPS(Location location) {
-        /* The GPSModule always provides the latitude and longitude */
-        fLatitude = (float) location.getLatitude();
-        fLongitude = (float) location.getLongitude();
-
-        /* Set the altitude if possible */
-        if (location.hasAltitude()) {
-            fAltitude = (float) location.getAltitude();
-        } else {
-            fAltitude = 0L;
-        }
-
-        /* Set the bearing if possible */
-        if (location.hasBearing()) {
-            fBearing = location.getBearing();
-        } else {
-            fBearing = 0L;
-        }
-
-        /* Set the accuracy if possible */
-        if (location.hasAccuracy()) {
-            fAccuracy = location.getAccuracy();
-        } else {
-            fAccuracy = 0L;
-        }
-
-        /* Set the speed if possible */
-        if (location.hasSpeed()) {
-            fSpeed = location.getSpeed();
-        } else {
-            fSpeed = 0L;
-        }
+    public static PayloadGPS fromPayload(byte[] payload) {
+        return new PayloadGPS(
+                getFloatFromBytes(payload, POS_LATITUDE),
+                getFloatFromBytes(payload, POS_LONGITUDE),
+                getFloatFromBytes(payload, POS_ALTITUDE),
+                getFloatFromBytes(payload, POS_BEARING),
+                getFloatFromBytes(payload, POS_ACCURACY),
+                getFloatFromBytes(payload, POS_SPEED));
     }
 
     // ---------------------------------------------------------------------------------------------
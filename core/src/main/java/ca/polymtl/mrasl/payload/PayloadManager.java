@@ -1,12 +1,14 @@
 package ca.polymtl.mrasl.payload;
 
-import android.os.Handler;
-import android.util.Log;
+import java.util.concurrent.Executor;
 
-import ca.polymtl.mrasl.drone.RadioLink;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.trace.CommandTrace.Outcome;
+import ca.polymtl.mrasl.trace.CommandTracer;
+import ca.polymtl.mrasl.trace.Stage;
 
 /**
- * This class manages {@link IPayload} that has to be sent through a {@link RadioLink}.
+ * This class manages {@link IPayload} that has to be sent through a radio link.
  *
  * @author Gabriel-Andrew Pollo-Guilbert
  */
@@ -22,14 +24,27 @@ public class PayloadManager {
     // Attributes
     // ---------------------------------------------------------------------------------------------
 
-    private final Handler fHandler = new Handler();
+    private final Executor fExecutor;
 
     private Runnable fListener;
     private IPayload fPayloadGPS;
     private IPayload fPayloadSensors;
-    private IPayload fPayloadCommand;
+    private PayloadCommand fPayloadCommand;
     private boolean fReady = false;
 
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a payload manager.
+     *
+     * @param executor The executor that fires the readiness listener
+     */
+    public PayloadManager(Executor executor) {
+        fExecutor = executor;
+    }
+
     // ---------------------------------------------------------------------------------------------
     // Operations
     // ---------------------------------------------------------------------------------------------
@@ -60,7 +75,7 @@ public class PayloadManager {
 
             /* Send a broadcast that the payload manager is ready */
             if (fListener != null) {
-                fHandler.post(fListener);
+                fExecutor.execute(fListener);
             }
         }
     }
@@ -71,7 +86,18 @@ public class PayloadManager {
      * @param payload The new command payload
      */
     public void setPayload(PayloadCommand payload) {
+        PayloadCommand previous = fPayloadCommand;
+
+        /* The command waits here until the radio link sends it */
+        if (payload.getTrace() != null) {
+            payload.getTrace().stamp(Stage.ENQUEUE);
+        }
         fPayloadCommand = payload;
+
+        /* A command that wasn't sent yet is replaced */
+        if (previous != null) {
+            CommandTracer.getInstance().finish(previous.getTrace(), Outcome.DROPPED);
+        }
     }
 
     /**
@@ -112,6 +138,9 @@ public class PayloadManager {
         fReady = false;
 
         /* Remove current payloads */
+        if (fPayloadCommand != null) {
+            CommandTracer.getInstance().finish(fPayloadCommand.getTrace(), Outcome.DROPPED);
+        }
         fPayloadCommand = null;
         fPayloadGPS = null;
         fPayloadSensors = null;
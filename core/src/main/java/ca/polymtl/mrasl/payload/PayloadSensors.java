@@ -1,13 +1,8 @@
 package ca.polymtl.mrasl.payload;
 
+import static ca.polymtl.mrasl.shared.PayloadUtil.getFloatFromBytes;
 import static ca.polymtl.mrasl.shared.PayloadUtil.putFloatToBytes;
 
-import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorManager;
-
-import java.util.Arrays;
-
 /**
  * This class implements a payload for the sensors module.
  * <p>
@@ -27,7 +22,7 @@ public class PayloadSensors implements IPayload {
     // Constants
     // ---------------------------------------------------------------------------------------------
 
-    private static final int PAYLOAD_SIZE = 28;
+    public static final int PAYLOAD_SIZE = 28;
     private static final int POS_ACC_X = 0;
     private static final int POS_ACC_Y = 4;
     private static final int POS_ACC_Z = 8;
@@ -40,41 +35,53 @@ public class PayloadSensors implements IPayload {
     // Attributes
     // ---------------------------------------------------------------------------------------------
 
-    private float[] fAccelerometer = {0L, 0L, 0L};
-    private float[] fRotation = {0L, 0L, 0L, 0L};
+    private final float[] fAccelerometer;
+    private final float[] fRotation;
 
     // ---------------------------------------------------------------------------------------------
     // Constructors
     // ---------------------------------------------------------------------------------------------
 
-    public PayloadSensors(SensorEvent event) {
-        /* Compute the fields */
-        computeFields(event);
+    /**
+     * Default constructor.
+     */
+    public PayloadSensors() {
+        fAccelerometer = new float[]{0L, 0L, 0L};
+        fRotation = new float[]{0L, 0L, 0L, 0L};
     }
 
-    public PayloadSensors(SensorEvent event, PayloadSensors payload) {
-        /* Copy the sensors data from the previous packet */
-        fAccelerometer = Arrays.copyOf(payload.fAccelerometer, payload.fAccelerometer.length);
-        fRotation = Arrays.copyOf(payload.fRotation, payload.fRotation.length);
-
-        /* Compute the fields */
-        computeFields(event);
+    /**
+     * Constructor with the sensors data provided.
+     *
+     * @param accelerometer The acceleration in the XYZ axes
+     * @param rotation      The rotation values
+     */
+    public PayloadSensors(float[] accelerometer, float[] rotation) {
+        fAccelerometer = accelerometer;
+        fRotation = rotation;
     }
 
-    // ---------------------------------------------------------------------------------------------
-    // Operations
-    // ---------------------------------------------------------------------------------------------
-
-    private void computeFields(SensorEvent event) {
-        /* Check which sensor triggered the listener */
-        switch (event.sensor.getType()) {
-            case Sensor.TYPE_ACCELEROMETER:
-                fAccelerometer = event.values;
-                break;
-            case Sensor.TYPE_ROTATION_VECTOR:
-                fRotation = event.values;
-                break;
-        }
+    /**
+     * Factory constructor that decodes a payload built by {@link #getPayload()}.
+     *
+     * @param payload The byte representation of the payload
+     *
+     * @return The decoded payload
+     */
+    public static PayloadSensors fromPayload(byte[] payload) {
+        float[] accelerometer = {
+                getFloatFromBytes(payload, POS_ACC_X),
+                getFloatFromBytes(payload, POS_ACC_Y),
+                getFloatFromBytes(payload, POS_ACC_Z),
+        };
+        float[] rotation = {
+                getFloatFromBytes(payload, POS_ROT_1),
+                getFloatFromBytes(payload, POS_ROT_2),
+                getFloatFromBytes(payload, POS_ROT_3),
+                getFloatFromBytes(payload, POS_ROT_4),
+        };
+
+        return new PayloadSensors(accelerometer, rotation);
     }
 
     // ---------------------------------------------------------------------------------------------
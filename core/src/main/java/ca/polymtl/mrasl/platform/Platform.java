@@ -0,0 +1,272 @@
+package ca.polymtl.mrasl.platform;
+
+import org.ros.node.NodeMain;
+
+import java.io.File;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.clock.RealClock;
+import ca.polymtl.mrasl.clock.ThreadScheduler;
+import ca.polymtl.mrasl.clock.VirtualClock;
+import ca.polymtl.mrasl.mission.MissionCheckpoint;
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.recorder.IRecorder;
+import ca.polymtl.mrasl.ros.IImageDecoder;
+import ca.polymtl.mrasl.ros.INodeLauncher;
+import ca.polymtl.mrasl.tag.DeflateTagImageCodec;
+import ca.polymtl.mrasl.tag.ITagImageCodec;
+import ca.polymtl.mrasl.trace.CommandTrace;
+
+/**
+ * This class contains the services that the core needs from the platform it runs on: the clock,
+ * the threads, the flight recorder, the checkpoint of the mission, the launcher of the ROS nodes,
+ * the decoder of the compressed images and the storage of the tag images. The Android application
+ * sets its own services when it starts, and so does the headless ground station. The defaults run
+ * in the real time, record nothing, launch no node, decode no compressed image and keep the tag
+ * images deflated in memory.
+ * <p/>
+ * The services must be set before the components that use them are created.
+ */
+public class Platform {
+
+    private static Platform Instance;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private volatile VirtualClock fVirtualClock;
+    private volatile IRecorder fRecorder = new NoRecorder();
+    private volatile INodeLauncher fNodeLauncher = new NoNodeLauncher();
+    private volatile MissionCheckpoint fCheckpoint;
+    private volatile IImageDecoder fImageDecoder;
+    private volatile ITagImageCodec fTagImageCodec = new DeflateTagImageCodec();
+    private volatile File fTagImageDirectory;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    public static synchronized Platform getInstance() {
+        /* Setup the singleton instance */
+        if (Instance == null) {
+            Instance = new Platform();
+        }
+
+        return Instance;
+    }
+
+    Platform() {
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method creates a scheduler that runs its tasks on a new thread. In virtual time, the
+     * tasks are run by the thread that advances the clock instead.
+     *
+     * @param name The name of the thread
+     *
+     * @return The new scheduler
+     */
+    public IScheduler createScheduler(String name) {
+        VirtualClock clock = fVirtualClock;
+        if (clock != null) {
+            return clock.createScheduler();
+        }
+
+        return new ThreadScheduler(name);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator replaces the real time by a virtual time.
+     *
+     * @param clock The virtual clock, or {@code null} to go back to the real time
+     */
+    public void setVirtualClock(VirtualClock clock) {
+        fVirtualClock = clock;
+    }
+
+    /**
+     * This mutator sets the recorder of the flight.
+     *
+     * @param recorder The recorder of the flight
+     */
+    public void setRecorder(IRecorder recorder) {
+        fRecorder = (recorder != null) ? recorder : new NoRecorder();
+    }
+
+    /**
+     * This mutator sets the launcher of the ROS nodes.
+     *
+     * @param launcher The launcher of the ROS nodes
+     */
+    public void setNodeLauncher(INodeLauncher launcher) {
+        fNodeLauncher = (launcher != null) ? launcher : new NoNodeLauncher();
+    }
+
+    /**
+     * This mutator sets the checkpoint that keeps the mission across the restarts.
+     *
+     * @param checkpoint The checkpoint, or {@code null} if the mission isn't kept
+     */
+    public void setCheckpoint(MissionCheckpoint checkpoint) {
+        fCheckpoint = checkpoint;
+    }
+
+    /**
+     * This mutator sets the decoder of the compressed images of the survivors.
+     *
+     * @param decoder The decoder, or {@code null} if only the raw images are received
+     */
+    public void setImageDecoder(IImageDecoder decoder) {
+        fImageDecoder = decoder;
+    }
+
+    /**
+     * This mutator sets the codec that compresses the images of the tags.
+     *
+     * @param codec The codec, or {@code null} to deflate the pixels
+     */
+    public void setTagImageCodec(ITagImageCodec codec) {
+        fTagImageCodec = (codec != null) ? codec : new DeflateTagImageCodec();
+    }
+
+    /**
+     * This mutator sets the directory where the cold images of the tags are spilled.
+     *
+     * @param directory The directory, or {@code null} to keep the images in memory
+     */
+    public void setTagImageDirectory(File directory) {
+        fTagImageDirectory = directory;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the clock of the platform, which is virtual during a simulation.
+     *
+     * @return The clock of the platform
+     */
+    public IClock getClock() {
+        VirtualClock clock = fVirtualClock;
+        return (clock != null) ? clock : RealClock.getInstance();
+    }
+
+    /**
+     * Accessor that returns the virtual clock, or {@code null} if the time is real.
+     *
+     * @return The virtual clock
+     */
+    public VirtualClock getVirtualClock() {
+        return fVirtualClock;
+    }
+
+    /**
+     * Accessor that returns the recorder of the flight.
+     *
+     * @return The recorder of the flight
+     */
+    public IRecorder getRecorder() {
+        return fRecorder;
+    }
+
+    /**
+     * Accessor that returns the launcher of the ROS nodes.
+     *
+     * @return The launcher of the ROS nodes
+     */
+    public INodeLauncher getNodeLauncher() {
+        return fNodeLauncher;
+    }
+
+    /**
+     * Accessor that returns the checkpoint of the mission, or {@code null} if there is none.
+     *
+     * @return The checkpoint of the mission
+     */
+    public MissionCheckpoint getCheckpoint() {
+        return fCheckpoint;
+    }
+
+    /**
+     * Accessor that returns the decoder of the compressed images, or {@code null} if there is
+     * none.
+     *
+     * @return The decoder of the compressed images
+     */
+    public IImageDecoder getImageDecoder() {
+        return fImageDecoder;
+    }
+
+    /**
+     * Accessor that returns the codec of the images of the tags.
+     *
+     * @return The codec of the tag images
+     */
+    public ITagImageCodec getTagImageCodec() {
+        return fTagImageCodec;
+    }
+
+    /**
+     * Accessor that returns the directory of the spilled images of the tags, or {@code null} if
+     * they are kept in memory.
+     *
+     * @return The directory of the tag images
+     */
+    public File getTagImageDirectory() {
+        return fTagImageDirectory;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class is a recorder that ignores everything.
+     */
+    private static class NoRecorder implements IRecorder {
+        @Override
+        public void recordUplink(byte[] frame) {
+        }
+
+        @Override
+        public void recordDownlink(byte[] frame) {
+        }
+
+        @Override
+        public void recordState(State state) {
+        }
+
+        @Override
+        public void recordLinkError(String description) {
+        }
+
+        @Override
+        public void recordCommandTrace(CommandTrace trace) {
+        }
+    }
+
+    /**
+     * This class is a launcher without a master node, which launches nothing.
+     */
+    private static class NoNodeLauncher implements INodeLauncher {
+        @Override
+        public void launchNode(NodeMain node) {
+        }
+
+        @Override
+        public void shutdownNode(NodeMain node) {
+        }
+    }
+
+}
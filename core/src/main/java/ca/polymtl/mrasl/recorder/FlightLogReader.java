@@ -0,0 +1,346 @@
+package ca.polymtl.mrasl.recorder;
+
+import static ca.polymtl.mrasl.recorder.LogFormat.HEADER_SIZE;
+import static ca.polymtl.mrasl.recorder.LogFormat.MAGIC_NUMBER;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_HEADER_MAGIC;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_HEADER_MONO_TIME;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_HEADER_WALL_TIME;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_RECORD_CRC;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_RECORD_LENGTH;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_RECORD_SEQUENCE;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_RECORD_TIMESTAMP;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_RECORD_TYPE;
+import static ca.polymtl.mrasl.recorder.LogFormat.RECORD_HEADER_SIZE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import ca.polymtl.mrasl.shared.IDisposable;
+
+/**
+ * This class reads the records of a flight log in order. Only one segment is mapped at a time and
+ * the buffers are reused between the records, so the memory used doesn't depend on the size of
+ * the flight log. A segment ends at its first torn or missing record.
+ *
+ * @see LogFormat
+ */
+public class FlightLogReader implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final File[] fSegments;
+    private final CRC32 fChecksum = new CRC32();
+
+    private RandomAccessFile fAccess;
+    private MappedByteBuffer fBuffer;
+    private byte[] fRecord = new byte[256];
+    private byte[] fData = new byte[256];
+    private int fNextSegment;
+    private int fTornSegments;
+
+    private long fWallTime;
+    private long fMonoTime;
+    private byte fTypeNumber;
+    private int fLength;
+    private long fSequence;
+    private long fTimestamp;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a flight log reader.
+     *
+     * @param directory The directory of the flight log
+     */
+    public FlightLogReader(File directory) {
+        this(LogFormat.listSegments(directory));
+    }
+
+    /**
+     * Constructor for a reader of specific segments.
+     *
+     * @param segments The ordered segments to read
+     */
+    private FlightLogReader(File[] segments) {
+        fSegments = segments;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method moves the reader to the next valid record of the flight log.
+     *
+     * @return {@code true} if there is a record, or {@code false} at the end of the flight log
+     *
+     * @throws IOException If a segment cannot be mapped
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            /* Open the next segment if needed */
+            if (fBuffer == null) {
+                if (fNextSegment >= fSegments.length) {
+                    return false;
+                }
+
+                openSegment(fSegments[fNextSegment++]);
+                continue;
+            }
+
+            /* Read a record from the current segment */
+            if (readRecord()) {
+                return true;
+            }
+
+            closeSegment();
+        }
+    }
+
+    /**
+     * This method maps a segment and validates its header. A segment with an invalid header is
+     * skipped.
+     *
+     * @param file The segment to map
+     *
+     * @throws IOException If the segment cannot be mapped
+     */
+    private void openSegment(File file) throws IOException {
+        RandomAccessFile access = new RandomAccessFile(file, "r");
+        long length = access.length();
+
+        /* Make sure the header is complete */
+        if (length < HEADER_SIZE) {
+            fTornSegments++;
+            access.close();
+            return;
+        }
+
+        /* Map the whole segment, they are never larger than an integer */
+        FileChannel channel = access.getChannel();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+
+        /* Make sure it is a segment */
+        if (buffer.getInt(POS_HEADER_MAGIC) != MAGIC_NUMBER) {
+            fTornSegments++;
+            access.close();
+            return;
+        }
+
+        /* Read the time base of the flight log */
+        fWallTime = buffer.getLong(POS_HEADER_WALL_TIME);
+        fMonoTime = buffer.getLong(POS_HEADER_MONO_TIME);
+        buffer.position(HEADER_SIZE);
+
+        fAccess = access;
+        fBuffer = buffer;
+    }
+
+    /**
+     * This method releases the current segment.
+     */
+    private void closeSegment() {
+        fBuffer = null;
+
+        try {
+            fAccess.close();
+        } catch (IOException exception) {
+            /* Nothing to do, the segment was only read */
+        }
+
+        fAccess = null;
+    }
+
+    /**
+     * This method reads the record at the position of the current segment.
+     *
+     * @return {@code true} if a valid record was read, or {@code false} at the end of the segment
+     */
+    private boolean readRecord() {
+        ByteBuffer buffer = fBuffer;
+        int position = buffer.position();
+
+        /* Make sure there is room for a header */
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            return false;
+        }
+
+        /* A null record marks the end of the written records */
+        int checksum = buffer.getInt(position + POS_RECORD_CRC);
+        int length = buffer.getInt(position + POS_RECORD_LENGTH);
+        if (checksum == 0 && length == 0) {
+            return false;
+        }
+
+        /* Make sure the length is possible */
+        int size = RECORD_HEADER_SIZE + length;
+        if (length < 0 || size > buffer.remaining()) {
+            fTornSegments++;
+            return false;
+        }
+
+        /* Copy the record */
+        if (fRecord.length < size) {
+            fRecord = new byte[Math.max(size, 2 * fRecord.length)];
+        }
+        buffer.get(fRecord, 0, size);
+
+        /* Make sure the record wasn't torn */
+        fChecksum.reset();
+        fChecksum.update(fRecord, POS_RECORD_LENGTH, size - POS_RECORD_LENGTH);
+        if ((int) fChecksum.getValue() != checksum) {
+            buffer.position(position);
+            fTornSegments++;
+            return false;
+        }
+
+        /* Parse the header of the record */
+        fTypeNumber = fRecord[POS_RECORD_TYPE];
+        fLength = length;
+        fSequence = buffer.getLong(position + POS_RECORD_SEQUENCE);
+        fTimestamp = buffer.getLong(position + POS_RECORD_TIMESTAMP);
+
+        /* Copy the data so that it starts at zero */
+        if (fData.length < length) {
+            fData = new byte[Math.max(length, 2 * fData.length)];
+        }
+        System.arraycopy(fRecord, RECORD_HEADER_SIZE, fData, 0, length);
+
+        return true;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        if (fBuffer != null) {
+            closeSegment();
+        }
+
+        /* Don't open any other segment */
+        fNextSegment = fSegments.length;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the type of the current record. It returns {@code null} if the type is
+     * unknown to this version.
+     *
+     * @return The type of the record
+     */
+    public RecordType getType() {
+        return RecordType.fromMagicNumber(fTypeNumber);
+    }
+
+    /**
+     * Accessor that returns the sequence number of the current record.
+     *
+     * @return The sequence number of the record
+     */
+    public long getSequence() {
+        return fSequence;
+    }
+
+    /**
+     * Accessor that returns the monotonic timestamp of the current record in nanoseconds.
+     *
+     * @return The timestamp of the record
+     */
+    public long getTimestamp() {
+        return fTimestamp;
+    }
+
+    /**
+     * Accessor that returns the wall clock time of the current record in milliseconds. It is
+     * computed from the time base of the flight log.
+     *
+     * @return The wall clock time of the record
+     */
+    public long getWallTime() {
+        return fWallTime + (fTimestamp - fMonoTime) / 1000000L;
+    }
+
+    /**
+     * Accessor that returns the data of the current record. The array is reused by the next
+     * record and can be larger than the data, so {@link #getLength()} must be used.
+     *
+     * @return The buffer that contains the data of the record
+     */
+    public byte[] getData() {
+        return fData;
+    }
+
+    /**
+     * Accessor that returns the length of the data of the current record.
+     *
+     * @return The length of the data
+     */
+    public int getLength() {
+        return fLength;
+    }
+
+    /**
+     * Accessor that returns the number of segments that ended with a torn record or that had an
+     * invalid header. It should be zero if the recorder was properly closed.
+     *
+     * @return The number of torn segments
+     */
+    public int getTornSegments() {
+        return fTornSegments;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Util method that recovers a segment that wasn't properly closed. The segment is truncated
+     * after its last valid record, which removes the torn record and the preallocated space.
+     *
+     * @param file The segment to recover
+     *
+     * @return The number of records that were kept
+     *
+     * @throws IOException If the segment cannot be read or truncated
+     */
+    public static long recover(File file) throws IOException {
+        FlightLogReader reader = new FlightLogReader(new File[]{file});
+        long count = 0;
+        long end = 0;
+
+        /* Find the end of the last valid record */
+        try {
+            while (reader.next()) {
+                end = reader.fBuffer.position();
+                count++;
+            }
+        } finally {
+            reader.dispose();
+        }
+
+        /* Truncate the segment, keeping the header if there is no record */
+        RandomAccessFile access = new RandomAccessFile(file, "rw");
+        try {
+            access.setLength(Math.max(end, Math.min(HEADER_SIZE, access.length())));
+        } finally {
+            access.close();
+        }
+
+        return count;
+    }
+
+}
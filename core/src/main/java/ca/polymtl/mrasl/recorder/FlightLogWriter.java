@@ -0,0 +1,445 @@
+package ca.polymtl.mrasl.recorder;
+
+import static ca.polymtl.mrasl.recorder.LogFormat.HEADER_SIZE;
+import static ca.polymtl.mrasl.recorder.LogFormat.MAGIC_NUMBER;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_HEADER_INDEX;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_HEADER_MAGIC;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_HEADER_MONO_TIME;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_HEADER_VERSION;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_HEADER_WALL_TIME;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_RECORD_CRC;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_RECORD_LENGTH;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_RECORD_SEQUENCE;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_RECORD_TIMESTAMP;
+import static ca.polymtl.mrasl.recorder.LogFormat.POS_RECORD_TYPE;
+import static ca.polymtl.mrasl.recorder.LogFormat.RECORD_HEADER_SIZE;
+import static ca.polymtl.mrasl.recorder.LogFormat.VERSION;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import ca.polymtl.mrasl.shared.IDisposable;
+
+/**
+ * This class appends records to a flight log through memory-mapped segments. Appending a record is
+ * a copy into the mapped memory under a short lock, so it can be called from the telemetry and
+ * radio threads. The expensive operations, like mapping the next segment and flushing the pages,
+ * are done by {@link #prepareNextSegment()}, {@link #finishRetiredSegments()} and
+ * {@link #flush()}, which should be called from a background thread.
+ *
+ * @see LogFormat
+ */
+public class FlightLogWriter implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final File fDirectory;
+    private final int fSegmentSize;
+    private final long fWallTime;
+    private final long fMonoTime;
+    private final CRC32 fChecksum = new CRC32();
+    private final List<Segment> fRetired = new ArrayList<>();
+
+    private byte[] fScratch = new byte[256];
+    private ByteBuffer fScratchBuffer = ByteBuffer.wrap(fScratch);
+    private Segment fSegment;
+    private Segment fNextSegment;
+    private Runnable fRotationListener;
+    private IOException fFailure;
+    private int fNextIndex;
+    private long fSequence;
+    private long fLastTimestamp;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a flight log writer. It creates the directory of the flight log and maps its
+     * first segment.
+     *
+     * @param directory   The directory of the flight log
+     * @param segmentSize The size of each segment in bytes
+     *
+     * @throws IOException If the first segment cannot be created
+     */
+    public FlightLogWriter(File directory, int segmentSize) throws IOException {
+        /* Create the directory of the flight log */
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the flight log " + directory);
+        }
+
+        fDirectory = directory;
+        fSegmentSize = segmentSize;
+        fWallTime = System.currentTimeMillis();
+        fMonoTime = System.nanoTime();
+        fLastTimestamp = fMonoTime;
+
+        /* Map the first segment right away */
+        fSegment = openSegment(fNextIndex++);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method appends a record to the flight log.
+     *
+     * @param type The type of the record
+     * @param data The data of the record
+     *
+     * @return The sequence number of the record, or {@code -1} if it couldn't be written
+     */
+    public long append(RecordType type, byte[] data) {
+        return append(type, data, 0, data.length);
+    }
+
+    /**
+     * This method appends a record to the flight log.
+     *
+     * @param type   The type of the record
+     * @param data   The buffer that contains the data of the record
+     * @param offset The position of the data in the buffer
+     * @param length The length of the data
+     *
+     * @return The sequence number of the record, or {@code -1} if it couldn't be written
+     */
+    public synchronized long append(RecordType type, byte[] data, int offset, int length) {
+        int size = RECORD_HEADER_SIZE + length;
+
+        /* Make sure the log is still opened and that the record fits into a segment */
+        if (fSegment == null || size > fSegmentSize - HEADER_SIZE) {
+            return -1;
+        }
+
+        /* Change the segment if the current one is full */
+        if (fSegment.fBuffer.remaining() < size) {
+            try {
+                rotate();
+            } catch (IOException exception) {
+                fail(exception);
+                return -1;
+            }
+        }
+
+        /* The timestamps are monotonic even if the clock goes backward */
+        long timestamp = Math.max(System.nanoTime(), fLastTimestamp);
+        long sequence = fSequence++;
+        fLastTimestamp = timestamp;
+
+        /* Grow the scratch buffer if needed */
+        if (fScratch.length < size) {
+            fScratch = new byte[Math.max(size, 2 * fScratch.length)];
+            fScratchBuffer = ByteBuffer.wrap(fScratch);
+        }
+
+        /* Format the record into the scratch buffer */
+        fScratchBuffer.putInt(POS_RECORD_LENGTH, length);
+        fScratchBuffer.put(POS_RECORD_TYPE, type.getMagicNumber());
+        fScratchBuffer.putLong(POS_RECORD_SEQUENCE, sequence);
+        fScratchBuffer.putLong(POS_RECORD_TIMESTAMP, timestamp);
+        System.arraycopy(data, offset, fScratch, RECORD_HEADER_SIZE, length);
+
+        /* Compute the checksum of everything except the checksum itself */
+        fChecksum.reset();
+        fChecksum.update(fScratch, POS_RECORD_LENGTH, size - POS_RECORD_LENGTH);
+
+        /* Copy the record and commit it by writing the checksum last */
+        MappedByteBuffer buffer = fSegment.fBuffer;
+        int position = buffer.position();
+        buffer.position(position + POS_RECORD_LENGTH);
+        buffer.put(fScratch, POS_RECORD_LENGTH, size - POS_RECORD_LENGTH);
+        buffer.putInt(position + POS_RECORD_CRC, (int) fChecksum.getValue());
+
+        return sequence;
+    }
+
+    /**
+     * This method maps the next segment ahead of time, so the rotation doesn't have to map a file
+     * on the producing thread. It does nothing if a segment is already prepared.
+     *
+     * @throws IOException If the segment cannot be created
+     */
+    public void prepareNextSegment() throws IOException {
+        int index;
+
+        /* Reserve the index of the next segment */
+        synchronized (this) {
+            if (fSegment == null || fNextSegment != null) {
+                return;
+            }
+
+            index = fNextIndex++;
+        }
+
+        /* Map the file without holding the lock */
+        Segment segment = openSegment(index);
+
+        /* Keep the segment unless a rotation already went past it */
+        synchronized (this) {
+            if (fSegment != null && fNextSegment == null && fSegment.fIndex < index) {
+                fNextSegment = segment;
+                return;
+            }
+        }
+
+        segment.discard();
+    }
+
+    /**
+     * This method flushes and truncates the segments that are full. The segments are retired by the
+     * producing threads, so this should be called after the rotation listener is fired.
+     */
+    public void finishRetiredSegments() {
+        List<Segment> retired;
+
+        /* Take the retired segments */
+        synchronized (this) {
+            if (fRetired.isEmpty()) {
+                return;
+            }
+
+            retired = new ArrayList<>(fRetired);
+            fRetired.clear();
+        }
+
+        /* Finish them without holding the lock */
+        for (Segment segment : retired) {
+            try {
+                segment.finish();
+            } catch (IOException exception) {
+                synchronized (this) {
+                    fFailure = exception;
+                }
+            }
+        }
+    }
+
+    /**
+     * This method flushes the pages of the current segment to the storage. It is not needed to
+     * survive a crash of the application, but it is needed to survive a crash of the device.
+     */
+    public void flush() {
+        Segment segment;
+        synchronized (this) {
+            segment = fSegment;
+        }
+
+        /* The log might be closed */
+        if (segment != null) {
+            segment.fBuffer.force();
+        }
+    }
+
+    /**
+     * This method replaces the current segment by the next one. It must be called with the lock.
+     *
+     * @throws IOException If the next segment cannot be created
+     */
+    private void rotate() throws IOException {
+        Segment next = fNextSegment;
+        fNextSegment = null;
+
+        /* Map the next segment ourselves if it wasn't prepared in time */
+        if (next == null) {
+            next = openSegment(fNextIndex++);
+        }
+
+        /* Retire the current segment */
+        fRetired.add(fSegment);
+        fSegment = next;
+
+        /* Tell that a segment needs to be finished */
+        if (fRotationListener != null) {
+            fRotationListener.run();
+        }
+    }
+
+    /**
+     * This method stops the writer after an error. It must be called with the lock.
+     *
+     * @param exception The error that happened
+     */
+    private void fail(IOException exception) {
+        fFailure = exception;
+
+        /* Retire the current segment so it is properly truncated */
+        if (fSegment != null) {
+            fRetired.add(fSegment);
+            fSegment = null;
+        }
+    }
+
+    /**
+     * This method creates and maps a segment of the flight log.
+     *
+     * @param index The index of the segment
+     *
+     * @return The mapped segment
+     *
+     * @throws IOException If the segment cannot be created
+     */
+    private Segment openSegment(int index) throws IOException {
+        File file = new File(fDirectory, LogFormat.getSegmentName(index));
+
+        /* The segment must be filled with zeros */
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Unable to replace the segment " + file);
+        }
+
+        RandomAccessFile access = new RandomAccessFile(file, "rw");
+        try {
+            /* Preallocate and map the segment */
+            access.setLength(fSegmentSize);
+            FileChannel channel = access.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fSegmentSize);
+
+            /* Format the header */
+            buffer.putInt(POS_HEADER_MAGIC, MAGIC_NUMBER);
+            buffer.putShort(POS_HEADER_VERSION, VERSION);
+            buffer.putInt(POS_HEADER_INDEX, index);
+            buffer.putLong(POS_HEADER_WALL_TIME, fWallTime);
+            buffer.putLong(POS_HEADER_MONO_TIME, fMonoTime);
+            buffer.position(HEADER_SIZE);
+
+            return new Segment(index, file, access, buffer);
+        } catch (IOException exception) {
+            access.close();
+            throw exception;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        Segment next;
+
+        /* Stop accepting records */
+        synchronized (this) {
+            if (fSegment != null) {
+                fRetired.add(fSegment);
+                fSegment = null;
+            }
+
+            next = fNextSegment;
+            fNextSegment = null;
+        }
+
+        /* Remove the segment that was never used */
+        if (next != null) {
+            next.discard();
+        }
+
+        /* Truncate the last segments to their real size */
+        finishRetiredSegments();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator changes the listener that is fired when a segment is retired. The listener is
+     * called on the producing thread with the lock, so it should only post some work. To remove the
+     * listener, simply set the listener to {@code null}.
+     *
+     * @param listener The new listener
+     */
+    public synchronized void setRotationListener(Runnable listener) {
+        fRotationListener = listener;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This accessor returns the directory of the flight log.
+     *
+     * @return The directory of the flight log
+     */
+    public File getDirectory() {
+        return fDirectory;
+    }
+
+    /**
+     * This accessor returns the last error that happened while writing. It returns {@code null}
+     * if there was no error.
+     *
+     * @return The last error of the writer
+     */
+    public synchronized IOException getFailure() {
+        return fFailure;
+    }
+
+    /**
+     * This accessor returns the number of records written in the flight log.
+     *
+     * @return The number of records
+     */
+    public synchronized long getRecordCount() {
+        return fSequence;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class contains a mapped segment of the flight log.
+     */
+    private static class Segment {
+        private final int fIndex;
+        private final File fFile;
+        private final RandomAccessFile fAccess;
+        private final MappedByteBuffer fBuffer;
+
+        private Segment(int index, File file, RandomAccessFile access, MappedByteBuffer buffer) {
+            fIndex = index;
+            fFile = file;
+            fAccess = access;
+            fBuffer = buffer;
+        }
+
+        /**
+         * This method flushes the segment and truncates the unused space at its end.
+         *
+         * @throws IOException If the segment cannot be truncated
+         */
+        private void finish() throws IOException {
+            try {
+                fBuffer.force();
+                fAccess.setLength(fBuffer.position());
+            } finally {
+                fAccess.close();
+            }
+        }
+
+        /**
+         * This method removes a segment that was never written.
+         */
+        private void discard() {
+            try {
+                fAccess.close();
+            } catch (IOException exception) {
+                /* The file is removed anyway */
+            }
+
+            fFile.delete();
+        }
+    }
+
+}
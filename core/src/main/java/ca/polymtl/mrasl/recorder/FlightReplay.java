@@ -0,0 +1,313 @@
+package ca.polymtl.mrasl.recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import ca.polymtl.mrasl.mission.MissionStateChangedListener;
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.payload.IPayload;
+import ca.polymtl.mrasl.payload.PayloadCommand;
+import ca.polymtl.mrasl.payload.PayloadGPS;
+import ca.polymtl.mrasl.payload.PayloadManager;
+import ca.polymtl.mrasl.payload.PayloadSensors;
+
+/**
+ * This class replays a flight log into a {@link PayloadManager}. The telemetry samples are decoded
+ * into new payloads, like the telemetry modules do, and each recorded uplink frame is replaced by
+ * the frame that the payload manager and the encoder produce now. Comparing both frames tells if
+ * the scheduling or the encoding changed since the flight.
+ * <p/>
+ * The replay is deterministic: it follows the order of the sequence numbers and doesn't depend on
+ * the pace. It can run in real time, accelerated, or as fast as possible with
+ * {@link #SPEED_UNLIMITED}. The flight log tool runs it with its {@code replay} command.
+ */
+public class FlightReplay implements Runnable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Speed that replays the flight log without waiting between the records
+     */
+    public static final double SPEED_UNLIMITED = 0.0;
+
+    /**
+     * Speed that replays the flight log in real time
+     */
+    public static final double SPEED_REAL_TIME = 1.0;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final File fDirectory;
+    private final PayloadManager fPayloadManager;
+    private final double fSpeed;
+
+    private volatile boolean fStopped;
+    private MissionStateChangedListener fListener;
+    private IOException fFailure;
+    private long fRecords;
+    private long fSamples;
+    private long fFrames;
+    private long fMismatches;
+    private long fElapsedTime;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a replay.
+     *
+     * @param directory The directory of the flight log to replay
+     * @param manager   The payload manager that receives the payloads
+     * @param speed     The speed factor of the replay, or {@link #SPEED_UNLIMITED}
+     */
+    public FlightReplay(File directory, PayloadManager manager, double speed) {
+        fDirectory = directory;
+        fPayloadManager = manager;
+        fSpeed = speed;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method stops the replay. It returns before the replay thread is done.
+     */
+    public void stop() {
+        fStopped = true;
+    }
+
+    /**
+     * This method replays a single record.
+     *
+     * @param reader The reader positioned on the record
+     */
+    private void replay(FlightLogReader reader) {
+        RecordType type = reader.getType();
+
+        /* Skip the records that are unknown to this version */
+        if (type == null) {
+            return;
+        }
+
+        switch (type) {
+            case GPS:
+                fPayloadManager.setPayload(PayloadGPS.fromPayload(reader.getData()));
+                fSamples++;
+                break;
+            case SENSORS:
+                fPayloadManager.setPayload(PayloadSensors.fromPayload(reader.getData()));
+                fSamples++;
+                break;
+            case UPLINK:
+                encodeFrame(reader);
+                break;
+            case MISSION_STATE:
+                changeState(reader.getData()[0]);
+                break;
+            case DOWNLINK:
+            case LINK_ERROR:
+            case COMMAND_TRACE:
+                /* Nothing is sent back to the drone */
+                break;
+        }
+    }
+
+    /**
+     * This method asks the payload manager for the next frame at the moment the recorded frame was
+     * sent, and compares both frames.
+     *
+     * @param reader The reader positioned on the uplink record
+     */
+    private void encodeFrame(FlightLogReader reader) {
+        IPayload payload = fPayloadManager.getNext();
+        byte[] recorded = Arrays.copyOf(reader.getData(), reader.getLength());
+
+        /* Run the encoder like the radio link does */
+        byte[] frame = (payload != null) ? payload.getPayload() : null;
+        fFrames++;
+
+        if (!Arrays.equals(frame, recorded)) {
+            fMismatches++;
+        }
+    }
+
+    /**
+     * This method queues the command that caused a recorded change of state and tells the
+     * listener.
+     *
+     * @param number The recorded ordinal of the state
+     */
+    private void changeState(int number) {
+        State[] states = State.values();
+
+        /* Skip the states that are unknown to this version */
+        if (number < 0 || number >= states.length) {
+            return;
+        }
+
+        State state = states[number];
+        switch (state) {
+            case START_MISSION:
+                setCommand(PayloadCommand.CommandType.START_MISSION);
+                break;
+            case ABORT_LANDING:
+                setCommand(PayloadCommand.CommandType.ABORT_LANDING);
+                break;
+            case ABORT_MISSION:
+                setCommand(PayloadCommand.CommandType.ABORT_MISSION);
+                break;
+        }
+
+        /* Call the listener */
+        if (fListener != null) {
+            fListener.onStateChanged(state);
+        }
+    }
+
+    /**
+     * This method queues a command into the payload manager.
+     *
+     * @param command The type of command
+     */
+    private void setCommand(PayloadCommand.CommandType command) {
+        fPayloadManager.setPayload(new PayloadCommand(command));
+    }
+
+    /**
+     * This method waits until the moment a record should be replayed.
+     *
+     * @param start  The monotonic time when the replay started
+     * @param offset The time of the record since the first record
+     *
+     * @throws InterruptedException If the thread is interrupted
+     */
+    private void waitFor(long start, long offset) throws InterruptedException {
+        /* There is nothing to wait for when going as fast as possible */
+        if (fSpeed <= SPEED_UNLIMITED) {
+            return;
+        }
+
+        long target = start + (long) (offset / fSpeed);
+        long delay = target - System.nanoTime();
+        if (delay > 0) {
+            Thread.sleep(delay / NANOS_PER_MILLI, (int) (delay % NANOS_PER_MILLI));
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void run() {
+        FlightLogReader reader = new FlightLogReader(fDirectory);
+        long start = System.nanoTime();
+        long first = -1;
+
+        try {
+            while (!fStopped && reader.next()) {
+                /* The first record is the origin of the replay */
+                if (first < 0) {
+                    first = reader.getTimestamp();
+                }
+
+                /* Keep the pace of the flight */
+                waitFor(start, reader.getTimestamp() - first);
+
+                replay(reader);
+                fRecords++;
+            }
+        } catch (IOException exception) {
+            fFailure = exception;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            reader.dispose();
+            fElapsedTime = System.nanoTime() - start;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator changes the listener that is called for each recorded change of state of the
+     * mission. To remove the listener, simply set the listener to {@code null}.
+     *
+     * @param listener The new listener
+     */
+    public void setMissionStateChangedListener(MissionStateChangedListener listener) {
+        fListener = listener;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This accessor returns the number of records that were replayed.
+     *
+     * @return The number of replayed records
+     */
+    public long getRecordCount() {
+        return fRecords;
+    }
+
+    /**
+     * This accessor returns the number of telemetry samples given to the payload manager.
+     *
+     * @return The number of telemetry samples
+     */
+    public long getSampleCount() {
+        return fSamples;
+    }
+
+    /**
+     * This accessor returns the number of frames that were encoded again.
+     *
+     * @return The number of encoded frames
+     */
+    public long getFrameCount() {
+        return fFrames;
+    }
+
+    /**
+     * This accessor returns the number of encoded frames that differ from the recorded ones. It
+     * should be zero unless the payload manager or the encoder changed.
+     *
+     * @return The number of different frames
+     */
+    public long getMismatchCount() {
+        return fMismatches;
+    }
+
+    /**
+     * This accessor returns the duration of the replay in nanoseconds.
+     *
+     * @return The duration of the replay
+     */
+    public long getElapsedTime() {
+        return fElapsedTime;
+    }
+
+    /**
+     * This accessor returns the error that stopped the replay. It returns {@code null} if there
+     * was no error.
+     *
+     * @return The error of the replay
+     */
+    public IOException getFailure() {
+        return fFailure;
+    }
+
+}
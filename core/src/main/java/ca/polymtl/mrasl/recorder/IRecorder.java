@@ -0,0 +1,47 @@
+package ca.polymtl.mrasl.recorder;
+
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.trace.CommandTrace;
+
+/**
+ * This interface defines what the core records about a flight. The application writes it into
+ * its flight log, while a headless run may ignore it.
+ */
+public interface IRecorder {
+
+    /**
+     * This method records an encoded frame that is sent to the drone.
+     *
+     * @param frame The bytes of the frame
+     */
+    void recordUplink(byte[] frame);
+
+    /**
+     * This method records a frame received from the drone.
+     *
+     * @param frame The bytes of the frame
+     */
+    void recordDownlink(byte[] frame);
+
+    /**
+     * This method records a change in the state of the mission.
+     *
+     * @param state The new state of the mission
+     */
+    void recordState(State state);
+
+    /**
+     * This method records an error of the radio link.
+     *
+     * @param description The description of the error
+     */
+    void recordLinkError(String description);
+
+    /**
+     * This method records the trace of a command that ended.
+     *
+     * @param trace The trace of the command
+     */
+    void recordCommandTrace(CommandTrace trace);
+
+}
@@ -0,0 +1,114 @@
+package ca.polymtl.mrasl.recorder;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * This class defines the binary format of a flight log. A flight log is a directory that contains
+ * numbered segments. Every segment starts with the following header:
+ * <p/>
+ * [  0 -  3 ] The magic number of a segment
+ * [  4 -  5 ] The version of the format
+ * [  6 -  7 ] Reserved
+ * [  8 - 11 ] The index of the segment in the flight log
+ * [ 12 - 19 ] The wall clock time when the flight log was created in milliseconds
+ * [ 20 - 27 ] The monotonic time when the flight log was created in nanoseconds
+ * [ 28 - 31 ] Reserved
+ * <p/>
+ * The header is followed by the records, which are formatted as follows:
+ * <p/>
+ * [  0 -  3 ] The CRC32 of the bytes 4 to the end of the record
+ * [  4 -  7 ] The length of the data
+ * [  8      ] The magic number of the record type
+ * [  9 - 16 ] The sequence number of the record
+ * [ 17 - 24 ] The monotonic timestamp of the record in nanoseconds
+ * [ 25 - ...] The data of the record
+ * <p/>
+ * The CRC is always written last, so a record that was torn by a crash has an invalid CRC. The
+ * segments are preallocated with zeros, so a null length marks the end of the written records.
+ * Every value is written in big endian, like the payloads.
+ */
+public final class LogFormat {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    public static final int MAGIC_NUMBER = 0x4D52464C;
+    public static final short VERSION = 1;
+    public static final String SEGMENT_EXTENSION = ".seg";
+
+    public static final int HEADER_SIZE = 32;
+    public static final int POS_HEADER_MAGIC = 0;
+    public static final int POS_HEADER_VERSION = 4;
+    public static final int POS_HEADER_INDEX = 8;
+    public static final int POS_HEADER_WALL_TIME = 12;
+    public static final int POS_HEADER_MONO_TIME = 20;
+
+    public static final int RECORD_HEADER_SIZE = 25;
+    public static final int POS_RECORD_CRC = 0;
+    public static final int POS_RECORD_LENGTH = 4;
+    public static final int POS_RECORD_TYPE = 8;
+    public static final int POS_RECORD_SEQUENCE = 9;
+    public static final int POS_RECORD_TIMESTAMP = 17;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    private LogFormat() {
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Util method that returns the name of the segment file for a specific index.
+     *
+     * @param index The index of the segment
+     *
+     * @return The name of the segment file
+     */
+    public static String getSegmentName(int index) {
+        return String.format(Locale.US, "%08d", index) + SEGMENT_EXTENSION;
+    }
+
+    /**
+     * Util method that lists the segments of a flight log ordered by their index.
+     *
+     * @param directory The directory of the flight log
+     *
+     * @return The ordered segment files
+     */
+    public static File[] listSegments(File directory) {
+        File[] segments = directory.listFiles(new SegmentFilter());
+
+        /* The directory might not exist */
+        if (segments == null) {
+            return new File[0];
+        }
+
+        /* The names are zero padded, so the natural order is the index order */
+        Arrays.sort(segments);
+
+        return segments;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class only accepts the segment files of a flight log.
+     */
+    private static class SegmentFilter implements FileFilter {
+        @Override
+        public boolean accept(File file) {
+            return file.isFile() && file.getName().endsWith(SEGMENT_EXTENSION);
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package ca.polymtl.mrasl.recorder;
+
+/**
+ * This enumeration defines the type of the records that can be written in a flight log. The magic
+ * number of each type is written in the log, so the existing numbers must never be changed.
+ */
+public enum RecordType {
+
+    /**
+     * Record containing a GPS telemetry sample
+     */
+    GPS((byte) 0x1),
+    /**
+     * Record containing a sensors telemetry sample
+     */
+    SENSORS((byte) 0x2),
+    /**
+     * Record containing an encoded frame sent to the drone
+     */
+    UPLINK((byte) 0x3),
+    /**
+     * Record containing a frame received from the drone
+     */
+    DOWNLINK((byte) 0x4),
+    /**
+     * Record containing a change in the state of the mission
+     */
+    MISSION_STATE((byte) 0x5),
+    /**
+     * Record containing the description of an error of the radio link
+     */
+    LINK_ERROR((byte) 0x6),
+    /**
+     * Record containing the trace of a command from its trigger to the drone
+     */
+    COMMAND_TRACE((byte) 0x7);
+
+    /* Lookup table from a magic number to its type */
+    private static final RecordType[] LOOKUP = new RecordType[256];
+
+    static {
+        for (RecordType type : values()) {
+            LOOKUP[type.fMagicNumber & 0xFF] = type;
+        }
+    }
+
+    /* Contains the actual magic number */
+    private final byte fMagicNumber;
+
+    /**
+     * Constructor.
+     *
+     * @param number The magic number of the record type
+     */
+    RecordType(byte number) {
+        fMagicNumber = number;
+    }
+
+    /**
+     * This method finds the record type tied to a magic number. It returns {@code null} if the
+     * number is unknown, which happens when reading a log written by a newer version.
+     *
+     * @param number The magic number read from the log
+     *
+     * @return The record type of the number
+     */
+    public static RecordType fromMagicNumber(byte number) {
+        return LOOKUP[number & 0xFF];
+    }
+
+    /**
+     * Accessor that returns the magic number written in the log for this type.
+     *
+     * @return The magic number of the type
+     */
+    public byte getMagicNumber() {
+        return fMagicNumber;
+    }
+
+}
@@ -0,0 +1,149 @@
+package ca.polymtl.mrasl.ros;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import java.util.List;
+
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.tag.TagImage;
+import geometry_msgs.Point32;
+import sensor_msgs.CompressedImage;
+
+/**
+ * This class contains a compressed frame shared by the tags that were detected in it. The region
+ * that covers every tag is decoded once, by the first worker that needs it, and each tag is then
+ * cropped out of that region.
+ */
+public class CompressedFrame {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = CompressedFrame.class.getName();
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final CompressedImage fImage;
+    private final IImageDecoder fDecoder;
+    private final int fLeft;
+    private final int fTop;
+    private final int fRight;
+    private final int fBottom;
+
+    private TagImage fRegion;
+    private boolean fDecoded;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a frame. Nothing is decoded until a tag is cropped.
+     *
+     * @param image   The compressed image message
+     * @param decoder The decoder of the compressed images
+     * @param tags    The corners of every tag of the frame
+     */
+    public CompressedFrame(CompressedImage image, IImageDecoder decoder,
+                           List<List<Point32>> tags) {
+        fImage = image;
+        fDecoder = decoder;
+
+        /* The region is the union of the bounding boxes of the tags */
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (List<Point32> corners : tags) {
+            if (corners.size() != 4) {
+                continue;
+            }
+
+            int[] box = ImageCropper.getBoundingBox(corners);
+            left = Math.min(left, box[0]);
+            top = Math.min(top, box[1]);
+            right = Math.max(right, box[2]);
+            bottom = Math.max(bottom, box[3]);
+        }
+
+        /* The decoders clamp the region to the image */
+        fLeft = Math.max(0, left);
+        fTop = Math.max(0, top);
+        fRight = right;
+        fBottom = bottom;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method crops a tag out of the frame. It can be called from any thread.
+     *
+     * @param corners The points used for cropping
+     *
+     * @return The cropped image, or {@code null} if the frame can't be decoded
+     */
+    public TagImage crop(List<Point32> corners) {
+        TagImage region = getRegion();
+        if (region == null) {
+            return null;
+        }
+
+        return ImageCropper.crop(region, fLeft, fTop, corners);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of compressed bytes of the frame.
+     *
+     * @return The number of bytes
+     */
+    public int getByteCount() {
+        return fImage.getData().readableBytes();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method decodes the region of the tags the first time it is needed.
+     *
+     * @return The decoded region, or {@code null} if it can't be decoded
+     */
+    private synchronized TagImage getRegion() {
+        if (fDecoded) {
+            return fRegion;
+        }
+        fDecoded = true;
+
+        /* The decoders need an array, the compressed bytes are only copied when there is none */
+        ChannelBuffer buffer = fImage.getData();
+        int length = buffer.readableBytes();
+        byte[] data;
+        int offset;
+        if (buffer.hasArray()) {
+            data = buffer.array();
+            offset = buffer.arrayOffset() + buffer.readerIndex();
+        } else {
+            data = new byte[length];
+            offset = 0;
+            buffer.getBytes(buffer.readerIndex(), data, 0, length);
+        }
+
+        fRegion = fDecoder.decodeRegion(data, offset, length, fLeft, fTop, fRight, fBottom);
+        if (fRegion == null) {
+            Log.e(TAG, "Unable to decode the " + fImage.getFormat() + " image");
+        }
+
+        return fRegion;
+    }
+
+}
@@ -0,0 +1,29 @@
+package ca.polymtl.mrasl.ros;
+
+import ca.polymtl.mrasl.tag.TagImage;
+
+/**
+ * This interface decodes a region of a compressed image, like a JPEG or a PNG. Only the region is
+ * decoded when the platform allows it, so a tag costs the size of its crop and not of the frame.
+ */
+public interface IImageDecoder {
+
+    /**
+     * This method decodes a region of a compressed image into ARGB8888 pixels. The region is
+     * clamped to the size of the image, so it starts at the left and top when they aren't
+     * negative.
+     *
+     * @param data   The buffer that contains the compressed image
+     * @param offset The index of the first byte of the image
+     * @param length The number of bytes of the image
+     * @param left   The first column of the region
+     * @param top    The first row of the region
+     * @param right  The column after the region
+     * @param bottom The row after the region
+     *
+     * @return The region of the image, or {@code null} if it can't be decoded
+     */
+    TagImage decodeRegion(byte[] data, int offset, int length, int left, int top, int right,
+                          int bottom);
+
+}
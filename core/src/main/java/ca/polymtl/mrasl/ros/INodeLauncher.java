@@ -0,0 +1,25 @@
+package ca.polymtl.mrasl.ros;
+
+import org.ros.node.NodeMain;
+
+/**
+ * This interface defines what launches the ROS nodes of the core and connects them to the master
+ * node.
+ */
+public interface INodeLauncher {
+
+    /**
+     * This method launches a ROS node and connects it to the master node.
+     *
+     * @param node The node to launch
+     */
+    void launchNode(NodeMain node);
+
+    /**
+     * This method shutdown an individual node.
+     *
+     * @param node The node to shutdown
+     */
+    void shutdownNode(NodeMain node);
+
+}
@@ -0,0 +1,209 @@
+package ca.polymtl.mrasl.ros;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import java.util.List;
+
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.tag.TagImage;
+import geometry_msgs.Point32;
+import sensor_msgs.Image;
+
+/**
+ * This class crops the region of a tag out of a ROS image. Only the rows of the bounding box are
+ * read from the buffer of the message, one at a time, through a row buffer that is kept between
+ * the crops. The rest of the frame is never touched, so the cost of a crop depends on the size of
+ * the tag and not on the resolution of the camera. The rows are converted by the encoding of the
+ * image, and its step is honored. The tags of a compressed image are cropped out of the region
+ * that was decoded for the whole frame.
+ * <p/>
+ * A cropper isn't thread-safe, each worker of a subscriber has its own.
+ */
+public class ImageCropper {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = ImageCropper.class.getName();
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private byte[] fRow = new byte[0];
+    private byte[] fNext = new byte[0];
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method crops a ROS image into a tag image. It converts the image from its encoding into
+     * ARGB8888.
+     *
+     * @param image   The ROS image message
+     * @param corners The points used for cropping
+     *
+     * @return The cropped image, or {@code null} if there is nothing to crop
+     */
+    public TagImage crop(Image image, List<Point32> corners) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        /* The image cannot be empty */
+        if (width == 0 || height == 0) {
+            return null;
+        }
+
+        /* Make sure we can convert the image */
+        ImageEncoding encoding = ImageEncoding.fromName(image.getEncoding());
+        if (encoding == null) {
+            Log.e(TAG, "The received image has an unsupported encoding " + image.getEncoding());
+            return null;
+        }
+
+        /* We need 4 points to crop the image */
+        if (corners.size() != 4) {
+            Log.e(TAG, "The received image doesn't have 4 corners.");
+            return null;
+        }
+
+        /* Find the bounding box of the corners, inside the image */
+        int[] box = getBoundingBox(corners);
+        int left = clamp(box[0], width);
+        int top = clamp(box[1], height);
+        int right = clamp(box[2], width);
+        int bottom = clamp(box[3], height);
+
+        /* The bayer encodings are cropped on whole cells */
+        int cell = encoding.getRowsPerPass();
+        if (cell > 1) {
+            left -= left % cell;
+            top -= top % cell;
+            right = Math.min(right + (cell - right % cell) % cell, width - width % cell);
+            bottom = Math.min(bottom + (cell - bottom % cell) % cell, height - height % cell);
+        }
+
+        int w = right - left;
+        int h = bottom - top;
+        if (w <= 0 || h <= 0) {
+            return null;
+        }
+
+        /* The step is the length of a row in bytes, which may be padded */
+        ChannelBuffer buffer = image.getData();
+        int step = image.getStep();
+        int base = buffer.readerIndex();
+        int bytes = encoding.getBytesPerPixel();
+        int length = w * bytes;
+        int needed = (bottom - 1) * step + right * bytes;
+        if (step < width * bytes || buffer.readableBytes() < needed) {
+            Log.e(TAG, "The received image is smaller than " + width + "x" + height);
+            return null;
+        }
+
+        /* The row buffer only grows, the crops of a mission are about the same size */
+        if (fRow.length < length) {
+            fRow = new byte[length];
+        }
+        if (cell > 1 && fNext.length < length) {
+            fNext = new byte[length];
+        }
+
+        /* Read the rows of the box and convert them to ARGB8888 */
+        int[] pixels = new int[w * h];
+        for (int y = 0; y < h; y += cell) {
+            int index = base + (top + y) * step + left * bytes;
+            buffer.getBytes(index, fRow, 0, length);
+            if (cell > 1) {
+                buffer.getBytes(index + step, fNext, 0, length);
+            }
+
+            encoding.convert(fRow, fNext, pixels, y * w, w);
+        }
+
+        /* Create the image */
+        return new TagImage(w, h, pixels);
+    }
+
+    /**
+     * This method crops a tag out of a region that was already decoded, like the region of a
+     * compressed image that contains every tag of a frame.
+     *
+     * @param region  The decoded region of the frame
+     * @param x       The column of the frame where the region starts
+     * @param y       The row of the frame where the region starts
+     * @param corners The points used for cropping, in the coordinates of the frame
+     *
+     * @return The cropped image, or {@code null} if the tag is outside of the region
+     */
+    public static TagImage crop(TagImage region, int x, int y, List<Point32> corners) {
+        /* We need 4 points to crop the image */
+        if (corners.size() != 4) {
+            Log.e(TAG, "The received image doesn't have 4 corners.");
+            return null;
+        }
+
+        /* Find the bounding box of the corners, inside the region */
+        int[] box = getBoundingBox(corners);
+        int left = clamp(box[0] - x, region.getWidth());
+        int top = clamp(box[1] - y, region.getHeight());
+        int right = clamp(box[2] - x, region.getWidth());
+        int bottom = clamp(box[3] - y, region.getHeight());
+        int w = right - left;
+        int h = bottom - top;
+        if (w <= 0 || h <= 0) {
+            return null;
+        }
+
+        /* Copy the rows of the box */
+        int[] source = region.getPixels();
+        int[] pixels = new int[w * h];
+        for (int row = 0; row < h; row++) {
+            System.arraycopy(source, (top + row) * region.getWidth() + left, pixels, row * w, w);
+        }
+
+        return new TagImage(w, h, pixels);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method finds the bounding box of the corners of a tag.
+     *
+     * @param corners The corners of the tag
+     *
+     * @return The left, top, right and bottom of the box, the right and bottom excluded
+     */
+    static int[] getBoundingBox(List<Point32> corners) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (Point32 point : corners) {
+            minX = Math.min(minX, point.getX());
+            minY = Math.min(minY, point.getY());
+            maxX = Math.max(maxX, point.getX());
+            maxY = Math.max(maxY, point.getY());
+        }
+
+        return new int[]{(int) Math.floor(minX), (int) Math.floor(minY), (int) Math.ceil(maxX),
+                (int) Math.ceil(maxY)};
+    }
+
+    /**
+     * This util method keeps a coordinate inside the image.
+     *
+     * @param value The coordinate
+     * @param limit The size of the image along the coordinate
+     *
+     * @return The coordinate between zero and the size of the image
+     */
+    private static int clamp(int value, int limit) {
+        return Math.max(0, Math.min(value, limit));
+    }
+
+}
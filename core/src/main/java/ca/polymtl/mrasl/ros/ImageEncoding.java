@@ -0,0 +1,231 @@
+package ca.polymtl.mrasl.ros;
+
+import java.util.Locale;
+
+/**
+ * This enumeration defines the encodings of the ROS images that can be converted into the
+ * ARGB8888 pixels of a tag image. Each encoding has its own conversion loop, so the cameras can
+ * send their native format instead of a converted one.
+ * <p/>
+ * The bayer encodings are demosaiced by cells of 2x2 pixels, which is enough for the thumbnail of
+ * a tag. They convert two rows at a time, the others convert one.
+ */
+public enum ImageEncoding {
+
+    /**
+     * Encoding with a red, a green and a blue byte per pixel
+     */
+    RGB8("rgb8", 3, 1) {
+        @Override
+        public void convert(byte[] row, byte[] next, int[] pixels, int offset, int width) {
+            for (int i = 0, j = offset, end = offset + width; j < end; i += 3, j++) {
+                pixels[j] = 0xFF000000
+                        | (row[i] & 0xFF) << 16
+                        | (row[i + 1] & 0xFF) << 8
+                        | (row[i + 2] & 0xFF);
+            }
+        }
+    },
+    /**
+     * Encoding with a blue, a green and a red byte per pixel
+     */
+    BGR8("bgr8", 3, 1) {
+        @Override
+        public void convert(byte[] row, byte[] next, int[] pixels, int offset, int width) {
+            for (int i = 0, j = offset, end = offset + width; j < end; i += 3, j++) {
+                pixels[j] = 0xFF000000
+                        | (row[i + 2] & 0xFF) << 16
+                        | (row[i + 1] & 0xFF) << 8
+                        | (row[i] & 0xFF);
+            }
+        }
+    },
+    /**
+     * Encoding with a red, a green, a blue and an alpha byte per pixel
+     */
+    RGBA8("rgba8", 4, 1) {
+        @Override
+        public void convert(byte[] row, byte[] next, int[] pixels, int offset, int width) {
+            for (int i = 0, j = offset, end = offset + width; j < end; i += 4, j++) {
+                pixels[j] = (row[i + 3] & 0xFF) << 24
+                        | (row[i] & 0xFF) << 16
+                        | (row[i + 1] & 0xFF) << 8
+                        | (row[i + 2] & 0xFF);
+            }
+        }
+    },
+    /**
+     * Encoding with a blue, a green, a red and an alpha byte per pixel
+     */
+    BGRA8("bgra8", 4, 1) {
+        @Override
+        public void convert(byte[] row, byte[] next, int[] pixels, int offset, int width) {
+            for (int i = 0, j = offset, end = offset + width; j < end; i += 4, j++) {
+                pixels[j] = (row[i + 3] & 0xFF) << 24
+                        | (row[i + 2] & 0xFF) << 16
+                        | (row[i + 1] & 0xFF) << 8
+                        | (row[i] & 0xFF);
+            }
+        }
+    },
+    /**
+     * Encoding with a gray byte per pixel
+     */
+    MONO8("mono8", 1, 1) {
+        @Override
+        public void convert(byte[] row, byte[] next, int[] pixels, int offset, int width) {
+            for (int i = 0, j = offset, end = offset + width; j < end; i++, j++) {
+                pixels[j] = 0xFF000000 | (row[i] & 0xFF) * 0x010101;
+            }
+        }
+    },
+    /**
+     * Bayer encoding with red and green on the even rows, green and blue on the odd ones
+     */
+    BAYER_RGGB8("bayer_rggb8", 1, 2) {
+        @Override
+        public void convert(byte[] row, byte[] next, int[] pixels, int offset, int width) {
+            bayer(row, next, pixels, offset, width, 0, 3);
+        }
+    },
+    /**
+     * Bayer encoding with blue and green on the even rows, green and red on the odd ones
+     */
+    BAYER_BGGR8("bayer_bggr8", 1, 2) {
+        @Override
+        public void convert(byte[] row, byte[] next, int[] pixels, int offset, int width) {
+            bayer(row, next, pixels, offset, width, 3, 0);
+        }
+    },
+    /**
+     * Bayer encoding with green and blue on the even rows, red and green on the odd ones
+     */
+    BAYER_GBRG8("bayer_gbrg8", 1, 2) {
+        @Override
+        public void convert(byte[] row, byte[] next, int[] pixels, int offset, int width) {
+            bayer(row, next, pixels, offset, width, 2, 1);
+        }
+    },
+    /**
+     * Bayer encoding with green and red on the even rows, blue and green on the odd ones
+     */
+    BAYER_GRBG8("bayer_grbg8", 1, 2) {
+        @Override
+        public void convert(byte[] row, byte[] next, int[] pixels, int offset, int width) {
+            bayer(row, next, pixels, offset, width, 1, 2);
+        }
+    };
+
+    /* Contains the name of the encoding in the ROS messages */
+    private final String fName;
+
+    /* Contains the number of bytes of a pixel */
+    private final int fBytesPerPixel;
+
+    /* Contains the number of rows converted at a time */
+    private final int fRowsPerPass;
+
+    /**
+     * Constructor.
+     *
+     * @param name          The name of the encoding in the ROS messages
+     * @param bytesPerPixel The number of bytes of a pixel
+     * @param rowsPerPass   The number of rows converted at a time
+     */
+    ImageEncoding(String name, int bytesPerPixel, int rowsPerPass) {
+        fName = name;
+        fBytesPerPixel = bytesPerPixel;
+        fRowsPerPass = rowsPerPass;
+    }
+
+    /**
+     * This method finds the encoding of a ROS image. An image without encoding is considered RGB,
+     * like the cameras used to send.
+     *
+     * @param name The encoding of the image message
+     *
+     * @return The encoding, or {@code null} if it isn't supported
+     */
+    public static ImageEncoding fromName(String name) {
+        if (name == null || name.isEmpty()) {
+            return RGB8;
+        }
+
+        String lower = name.toLowerCase(Locale.US);
+        for (ImageEncoding encoding : values()) {
+            if (encoding.fName.equals(lower)) {
+                return encoding;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * This method converts rows of the image into ARGB8888 pixels. The encodings that convert
+     * two rows at a time write the second one right after the first.
+     *
+     * @param row    The bytes of the row, starting at the first pixel to convert
+     * @param next   The bytes of the next row, only used by the bayer encodings
+     * @param pixels The pixels of the tag image
+     * @param offset The index of the first pixel to write
+     * @param width  The number of pixels in a row, even for the bayer encodings
+     */
+    public abstract void convert(byte[] row, byte[] next, int[] pixels, int offset, int width);
+
+    /**
+     * Accessor that returns the number of bytes of a pixel.
+     *
+     * @return The number of bytes of a pixel
+     */
+    public int getBytesPerPixel() {
+        return fBytesPerPixel;
+    }
+
+    /**
+     * Accessor that returns the number of rows converted at a time. The crops of these encodings
+     * must be aligned on that number of rows and columns.
+     *
+     * @return The number of rows converted at a time
+     */
+    public int getRowsPerPass() {
+        return fRowsPerPass;
+    }
+
+    /**
+     * This method demosaics a pair of bayer rows by cells of 2x2 pixels. The cell gives its red
+     * and blue to its four pixels, with the mean of its two greens. The greens are on the other
+     * diagonal of the cell, so the row and column of each color are found once per pair of rows.
+     *
+     * @param row    The bytes of the even row, starting on a cell
+     * @param next   The bytes of the odd row, starting on a cell
+     * @param pixels The pixels of the tag image
+     * @param offset The index of the first pixel of the even row
+     * @param width  The even number of pixels in a row
+     * @param red    The position of the red in the cell, from 0 to 3 in reading order
+     * @param blue   The position of the blue in the cell, from 0 to 3 in reading order
+     */
+    private static void bayer(byte[] row, byte[] next, int[] pixels, int offset, int width,
+                              int red, int blue) {
+        /* Find where each color is in the cell, the rows hold one green each */
+        byte[] redRow = (red < 2) ? row : next;
+        byte[] blueRow = (blue < 2) ? row : next;
+        int redColumn = red & 1;
+        int blueColumn = blue & 1;
+        int evenGreen = 1 - (((red < 2) ? red : blue) & 1);
+        int oddGreen = 1 - (((red < 2) ? blue : red) & 1);
+
+        for (int i = 0, j = offset; i < width; i += 2, j += 2) {
+            int r = redRow[i + redColumn] & 0xFF;
+            int b = blueRow[i + blueColumn] & 0xFF;
+            int g = ((row[i + evenGreen] & 0xFF) + (next[i + oddGreen] & 0xFF)) >> 1;
+            int pixel = 0xFF000000 | r << 16 | g << 8 | b;
+
+            pixels[j] = pixel;
+            pixels[j + 1] = pixel;
+            pixels[j + width] = pixel;
+            pixels[j + width + 1] = pixel;
+        }
+    }
+
+}
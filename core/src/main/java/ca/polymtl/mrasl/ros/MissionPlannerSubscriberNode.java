@@ -1,41 +1,34 @@
 package ca.polymtl.mrasl.ros;
 
-import android.util.Log;
-
 import org.ros.message.MessageListener;
 import org.ros.namespace.GraphName;
 import org.ros.node.AbstractNodeMain;
 import org.ros.node.ConnectedNode;
 import org.ros.node.topic.Subscriber;
 
-import apriltags.Survivor;
-import ca.polymtl.mrasl.mission.Mission;
+import ca.polymtl.mrasl.mission.PlannerFeed;
 
 /**
- * This class creates a ROS node that is subscribed to the mission planner states.
+ * This class creates a ROS node that is subscribed to the mission planner states. The states are
+ * handed to a feed, which applies them to the mission.
  *
  * @author Gabriel-Andrew Pollo-Guilbert
  */
-public class MissionPlannerSubscriberNode extends AbstractNodeMain implements MessageListener<Survivor> {
-
-    /**
-     * TODO: use the proper ROS message
-     */
+public class MissionPlannerSubscriberNode extends AbstractNodeMain implements MessageListener<std_msgs.String> {
 
     // ---------------------------------------------------------------------------------------------
     // Constants
     // ---------------------------------------------------------------------------------------------
 
-    private static final String TAG = MissionPlannerSubscriberNode.class.getName();
     private static final String DEFAULT_NODE_NAME = "android_mission_planner_subscriber";
 
     // ---------------------------------------------------------------------------------------------
     // Attributes
     // ---------------------------------------------------------------------------------------------
 
-    private final Mission fMission;
+    private final PlannerFeed fFeed;
 
-    private Subscriber<Survivor> fSubscriber;
+    private Subscriber<std_msgs.String> fSubscriber;
 
     // ---------------------------------------------------------------------------------------------
     // Constructors
@@ -44,10 +37,10 @@ public class MissionPlannerSubscriberNode extends AbstractNodeMain implements Me
     /**
      * Constructor.
      *
-     * @param mission The mission to send the states
+     * @param feed The feed that receives the states
      */
-    public MissionPlannerSubscriberNode(Mission mission) {
-        fMission = mission;
+    public MissionPlannerSubscriberNode(PlannerFeed feed) {
+        fFeed = feed;
     }
 
     // ---------------------------------------------------------------------------------------------
@@ -61,13 +54,13 @@ public class MissionPlannerSubscriberNode extends AbstractNodeMain implements Me
 
     @Override
     public void onStart(ConnectedNode connected) {
-        fSubscriber = connected.newSubscriber("~/state", Survivor._TYPE);
+        fSubscriber = connected.newSubscriber("~/state", std_msgs.String._TYPE);
         fSubscriber.addMessageListener(this);
     }
 
     @Override
-    public void onNewMessage(Survivor survivor) {
-        Log.d(TAG, "Received message");
+    public void onNewMessage(std_msgs.String message) {
+        fFeed.onMessage(message.getData());
     }
 
 }
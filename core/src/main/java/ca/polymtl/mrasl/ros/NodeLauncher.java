@@ -0,0 +1,196 @@
+package ca.polymtl.mrasl.ros;
+
+import org.ros.node.DefaultNodeMainExecutor;
+import org.ros.node.NodeConfiguration;
+import org.ros.node.NodeMain;
+import org.ros.node.NodeMainExecutor;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.log.Log;
+
+/**
+ * This class launches the ROS nodes and connects them to a master node. The nodes are launched
+ * and shutdown on the thread of a scheduler, so the callers never wait on the network.
+ */
+public class NodeLauncher implements INodeLauncher {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = NodeLauncher.class.getName();
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final IScheduler fScheduler;
+    private final List<NodeMain> fNodes = new ArrayList<>();
+
+    private NodeMainExecutor fExecutor;
+    private volatile URI fMasterURI;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a launcher connected to a master node.
+     *
+     * @param scheduler The scheduler that launches the nodes
+     * @param master    The URI of the master node
+     */
+    public NodeLauncher(IScheduler scheduler, URI master) {
+        fScheduler = scheduler;
+        fMasterURI = master;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method shutdown all the nodes. It must be called before exiting the application or the
+     * master node will have zombie nodes.
+     */
+    public void shutdown() {
+        fScheduler.post(new Shutdown());
+    }
+
+    /**
+     * This method restarts all the node launched by this launcher. It should be used when the port
+     * or the address to the master node is changed.
+     */
+    public void restart() {
+        fScheduler.post(new Restart());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void launchNode(NodeMain node) {
+        fScheduler.post(new LaunchNode(node));
+    }
+
+    @Override
+    public void shutdownNode(NodeMain node) {
+        fScheduler.post(new ShutdownNode(node));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator changes the master node and restarts the nodes to connect them to it.
+     *
+     * @param master The URI of the new master node
+     */
+    public void setMasterURI(URI master) {
+        fMasterURI = master;
+        restart();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the URI of the master node.
+     *
+     * @return The URI of the master node
+     */
+    public URI getMasterURI() {
+        return fMasterURI;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    private class LaunchNode implements Runnable {
+        private final NodeMain fNode;
+
+        public LaunchNode(NodeMain node) {
+            fNode = node;
+        }
+
+        @Override
+        public void run() {
+            if (fExecutor == null) {
+                fExecutor = DefaultNodeMainExecutor.newDefault();
+            }
+
+            /* Create the configuration to connect to the master node */
+            NodeConfiguration config = NodeConfiguration.newPrivate(fMasterURI);
+
+            /* Start the node */
+            Log.d(TAG, "Launching " + fNode.getDefaultNodeName() + " on " + fMasterURI);
+            fExecutor.execute(fNode, config);
+
+            /* Keep a reference to the node */
+            if (!fNodes.contains(fNode)) {
+                fNodes.add(fNode);
+            }
+        }
+    }
+
+    private class Shutdown implements Runnable {
+        @Override
+        public void run() {
+            /* Shutdown all the node */
+            if (fExecutor != null) {
+                fExecutor.shutdown();
+                fExecutor = null;
+            }
+
+            /* Clear the node list */
+            fNodes.clear();
+        }
+    }
+
+    private class ShutdownNode implements Runnable {
+        private final NodeMain fNode;
+
+        public ShutdownNode(NodeMain node) {
+            fNode = node;
+        }
+
+        @Override
+        public void run() {
+            /* Make sure our node is in the list */
+            if (!fNodes.contains(fNode)) {
+                return;
+            }
+
+            /* Shutdown the node */
+            fExecutor.shutdownNodeMain(fNode);
+
+            /* Remove the node from the list */
+            fNodes.remove(fNode);
+        }
+    }
+
+    private class Restart implements Runnable {
+        @Override
+        public void run() {
+            /* Shutdown all the node */
+            if (fExecutor != null) {
+                fExecutor.shutdown();
+                fExecutor = null;
+            }
+
+            /* Restart all the node */
+            for (NodeMain node : fNodes) {
+                launchNode(node);
+            }
+        }
+    }
+
+}
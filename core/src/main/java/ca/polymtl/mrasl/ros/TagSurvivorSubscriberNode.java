@@ -0,0 +1,388 @@
+package ca.polymtl.mrasl.ros;
+
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.shared.KeyedWorkerPool;
+import ca.polymtl.mrasl.shared.OverflowPolicy;
+import ca.polymtl.mrasl.tag.Tag;
+import ca.polymtl.mrasl.tag.TagImage;
+import ca.polymtl.mrasl.tag.TagList;
+
+import org.ros.message.MessageListener;
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.topic.Subscriber;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import sensor_msgs.CompressedImage;
+import sensor_msgs.Image;
+import apriltags.AprilTagDetectionAndroid;
+import apriltags.Survivor;
+import geometry_msgs.Point32;
+
+/**
+ * This class implements a ROS node that is subscribed to the survivor detection message.
+ * <p/>
+ * A survivor either carries its raw image, or comes with an empty image and a compressed image
+ * published on the {@code compressed} sub-topic with the same header stamp, like the image
+ * transport of ROS. The compressed images are only received when the platform can decode them,
+ * and the raw images are always accepted as a fallback.
+ * <p/>
+ * Every detection of a survivor is a sighting of its own tag, which the list fuses into the tag
+ * when it was already seen. The images are cropped by a bounded pool of workers, never on the
+ * thread of ROS. The detections of a tag always go to the same worker, so they are added in the
+ * order they were received, and the tags of a frame are cropped in parallel.
+ */
+public class TagSurvivorSubscriberNode extends AbstractNodeMain implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = TagSurvivorSubscriberNode.class.getName();
+    private static final String DEFAULT_NODE_NAME = "android_tag_subscriber";
+    private static final int MAX_WAITING = 8;
+    private static final int DEFAULT_WORKERS = 2;
+    private static final int DEFAULT_CAPACITY = 4;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /**
+     * The standard deviation in meters of the position of a sighting, the survivor message has no
+     * covariance
+     */
+    private static final double SIGHTING_UNCERTAINTY = 5.0;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final TagList fList;
+    private final IImageDecoder fDecoder = Platform.getInstance().getImageDecoder();
+    private final KeyedWorkerPool fPool;
+    private final ImageCropper[] fCroppers;
+    private final Map<Long, Survivor> fWaitingSurvivors = new LinkedHashMap<>();
+    private final Map<Long, CompressedImage> fWaitingImages = new LinkedHashMap<>();
+
+    private Subscriber<Survivor> fSubscriber;
+    private Subscriber<CompressedImage> fCompressedSubscriber;
+    private long fRawCount;
+    private long fRawBytes;
+    private long fCompressedCount;
+    private long fCompressedBytes;
+    private long fDroppedCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    public TagSurvivorSubscriberNode(TagList list) {
+        this(list, DEFAULT_WORKERS, DEFAULT_CAPACITY, OverflowPolicy.MERGE);
+    }
+
+    /**
+     * Constructor for a subscriber with its own pool of workers. A newer detection of a tag that
+     * is still waiting replaces it with the merge policy.
+     *
+     * @param list     The list that receives the tags
+     * @param workers  The number of workers that crop the images
+     * @param capacity The number of survivors a worker can have waiting
+     * @param policy   The policy when the queue of a worker is full
+     */
+    public TagSurvivorSubscriberNode(TagList list, int workers, int capacity,
+                                     OverflowPolicy policy) {
+        fList = list;
+        fPool = new KeyedWorkerPool("survivors", workers, capacity, policy);
+
+        /* The croppers aren't thread-safe, so each worker has its own */
+        fCroppers = new ImageCropper[workers];
+        for (int i = 0; i < workers; i++) {
+            fCroppers[i] = new ImageCropper();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public GraphName getDefaultNodeName() {
+        return GraphName.of(DEFAULT_NODE_NAME);
+    }
+
+    @Override
+    public void onStart(ConnectedNode connected) {
+        /* Create a subscriber to the survivors */
+        fSubscriber = connected.newSubscriber("~/confirmed_survivors", Survivor._TYPE);
+        fSubscriber.addMessageListener(new SurvivorListener());
+
+        /* Create a subscriber to their compressed images, if we can decode them */
+        if (fDecoder != null) {
+            fCompressedSubscriber = connected.newSubscriber("~/confirmed_survivors/compressed",
+                    CompressedImage._TYPE);
+            fCompressedSubscriber.addMessageListener(new CompressedImageListener());
+        }
+    }
+
+    @Override
+    public void dispose() {
+        fPool.dispose();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "raw %d tags (%d B/tag), compressed %d tags (%d B/tag), %d unpaired; workers %s",
+                fRawCount, (fRawCount > 0) ? fRawBytes / fRawCount : 0,
+                fCompressedCount, (fCompressedCount > 0) ? fCompressedBytes / fCompressedCount : 0,
+                fDroppedCount, fPool);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of tags received with a raw image. A frame counts once per
+     * tag it contains.
+     *
+     * @return The number of raw tags
+     */
+    public synchronized long getRawCount() {
+        return fRawCount;
+    }
+
+    /**
+     * Accessor that returns the number of image bytes received for the raw tags. A frame counts
+     * once, whatever the number of tags it contains.
+     *
+     * @return The number of bytes
+     */
+    public synchronized long getRawBytes() {
+        return fRawBytes;
+    }
+
+    /**
+     * Accessor that returns the number of tags received with a compressed image.
+     *
+     * @return The number of compressed tags
+     */
+    public synchronized long getCompressedCount() {
+        return fCompressedCount;
+    }
+
+    /**
+     * Accessor that returns the number of image bytes received for the compressed tags. A frame
+     * counts once, whatever the number of tags it contains.
+     *
+     * @return The number of bytes
+     */
+    public synchronized long getCompressedBytes() {
+        return fCompressedBytes;
+    }
+
+    /**
+     * Accessor that returns the pool of workers that crop the images, with its queue depth, its
+     * latency and its drops.
+     *
+     * @return The pool of workers
+     */
+    public KeyedWorkerPool getWorkerPool() {
+        return fPool;
+    }
+
+    /**
+     * Accessor that returns the number of survivors or compressed images that never found their
+     * other half.
+     *
+     * @return The number of dropped messages
+     */
+    public synchronized long getDroppedCount() {
+        return fDroppedCount;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    private class SurvivorListener implements MessageListener<Survivor> {
+        @Override
+        public void onNewMessage(Survivor survivor) {
+            Log.d(TAG, "Received a survivor from ROS network");
+
+            /* Make sure the survivor has a tag */
+            if (survivor.getDetections().getDetections().isEmpty()) {
+                Log.w(TAG, "Dropping a survivor without detection");
+                return;
+            }
+
+            /* The raw image is always accepted */
+            Image image = survivor.getImage();
+            if (image != null && image.getWidth() > 0 && image.getData().readableBytes() > 0) {
+                submit(survivor, null);
+                return;
+            }
+
+            /* Make sure an image will be received */
+            if (fDecoder == null) {
+                Log.w(TAG, "Dropping a survivor without image");
+                return;
+            }
+
+            /* Wait for the compressed image if it isn't there yet */
+            long stamp = survivor.getHeader().getStamp().totalNsecs();
+            CompressedImage compressed = pair(fWaitingImages, fWaitingSurvivors, stamp, survivor);
+            if (compressed != null) {
+                submit(survivor, compressed);
+            }
+        }
+    }
+
+    private class CompressedImageListener implements MessageListener<CompressedImage> {
+        @Override
+        public void onNewMessage(CompressedImage image) {
+            Log.d(TAG, "Received a compressed survivor image from ROS network");
+
+            /* Wait for the survivor if it isn't there yet */
+            long stamp = image.getHeader().getStamp().totalNsecs();
+            Survivor survivor = pair(fWaitingSurvivors, fWaitingImages, stamp, image);
+            if (survivor != null) {
+                submit(survivor, image);
+            }
+        }
+    }
+
+    /**
+     * This class crops a detection of a survivor and adds its sighting, on the worker of its tag.
+     */
+    private class ProcessDetection implements Runnable {
+        private final Survivor fSurvivor;
+        private final AprilTagDetectionAndroid fDetection;
+        private final CompressedFrame fFrame;
+
+        public ProcessDetection(Survivor survivor, AprilTagDetectionAndroid detection,
+                                CompressedFrame frame) {
+            fSurvivor = survivor;
+            fDetection = detection;
+            fFrame = frame;
+        }
+
+        @Override
+        public void run() {
+            List<Point32> corners = fDetection.getCorners2d();
+
+            /* The raw frame is shared, each worker reads its rows with its own cropper */
+            TagImage cropped;
+            if (fFrame == null) {
+                ImageCropper cropper = fCroppers[fPool.getLane(fDetection.getId())];
+                cropped = cropper.crop(fSurvivor.getImage(), corners);
+            } else {
+                cropped = fFrame.crop(corners);
+            }
+
+            synchronized (TagSurvivorSubscriberNode.this) {
+                if (fFrame == null) {
+                    fRawCount++;
+                } else {
+                    fCompressedCount++;
+                }
+            }
+
+            /* Create the sighting of the tag */
+            int ID = fDetection.getId();
+            double latitude = fSurvivor.getLatitude();
+            double longitude = fSurvivor.getLongitude();
+            long time = fSurvivor.getHeader().getStamp().totalNsecs() / NANOS_PER_MILLI;
+            if (time == 0) {
+                time = Platform.getInstance().getClock().currentTimeMillis();
+            }
+            Tag sighting = new Tag(ID, latitude, longitude, SIGHTING_UNCERTAINTY, time, cropped);
+
+            /* Fuse the sighting into the tag list */
+            fList.addSighting(sighting);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method submits every detection of a survivor to the worker of its tag. The
+     * detections share the image of the survivor, so a frame with many tags is cropped by many
+     * workers at once, and a compressed frame is decoded only once.
+     *
+     * @param survivor   The survivor message
+     * @param compressed The compressed image of the survivor, or {@code null} if it is raw
+     */
+    private void submit(Survivor survivor, CompressedImage compressed) {
+        List<AprilTagDetectionAndroid> detections = survivor.getDetections().getDetections();
+
+        /* Share the compressed frame between the detections */
+        CompressedFrame frame = null;
+        if (compressed != null) {
+            List<List<Point32>> tags = new ArrayList<>(detections.size());
+            for (AprilTagDetectionAndroid detection : detections) {
+                tags.add(detection.getCorners2d());
+            }
+            frame = new CompressedFrame(compressed, fDecoder, tags);
+        }
+
+        /* The bytes of the frame are counted once for all its tags */
+        synchronized (this) {
+            if (frame == null) {
+                fRawBytes += survivor.getImage().getData().readableBytes();
+            } else {
+                fCompressedBytes += frame.getByteCount();
+            }
+        }
+
+        for (AprilTagDetectionAndroid detection : detections) {
+            int ID = detection.getId();
+            if (!fPool.submit(ID, new ProcessDetection(survivor, detection, frame))) {
+                Log.w(TAG, "Dropping a survivor of tag " + ID + ", the workers are full");
+            }
+        }
+    }
+
+    /**
+     * This util method pairs a message with its other half, or keeps it until its other half is
+     * received. The oldest message is dropped when too many are waiting.
+     *
+     * @param others  The other halves waiting for their message
+     * @param waiting The messages waiting for their other half
+     * @param stamp   The stamp of the message
+     * @param message The message
+     * @param <T>     The type of the message
+     * @param <U>     The type of the other half
+     *
+     * @return The other half, or {@code null} if the message is kept
+     */
+    private synchronized <T, U> U pair(Map<Long, U> others, Map<Long, T> waiting, long stamp,
+                                       T message) {
+        U other = others.remove(stamp);
+        if (other != null) {
+            return other;
+        }
+
+        waiting.put(stamp, message);
+        if (waiting.size() > MAX_WAITING) {
+            Iterator<Long> iterator = waiting.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+
+            fDroppedCount++;
+            Log.w(TAG, "Dropping a survivor message that was never paired");
+        }
+
+        return null;
+    }
+
+}
@@ -0,0 +1,200 @@
+package ca.polymtl.mrasl.shared;
+
+/**
+ * This class implements a histogram of positive durations with a fixed number of log-linear
+ * buckets. Each power of two is split into {@link #SUB_BUCKETS} linear buckets, so the relative
+ * error of a percentile is bounded by about 6% while the memory used doesn't depend on the number
+ * of values. The mean and the standard deviation are computed exactly.
+ */
+public class Histogram {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final long[] fBuckets = new long[BUCKETS];
+
+    private long fCount;
+    private long fMin = Long.MAX_VALUE;
+    private long fMax = Long.MIN_VALUE;
+    private double fMean;
+    private double fSquares;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for an empty histogram.
+     */
+    public Histogram() {
+    }
+
+    /**
+     * Copy constructor, used to read a histogram that is still being filled by another thread.
+     *
+     * @param other The histogram to copy
+     */
+    public Histogram(Histogram other) {
+        System.arraycopy(other.fBuckets, 0, fBuckets, 0, BUCKETS);
+        fCount = other.fCount;
+        fMin = other.fMin;
+        fMax = other.fMax;
+        fMean = other.fMean;
+        fSquares = other.fSquares;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method adds a value to the histogram. Negative values are counted as zero.
+     *
+     * @param value The value to add
+     */
+    public void add(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        fBuckets[getBucket(value)]++;
+        fCount++;
+        fMin = Math.min(fMin, value);
+        fMax = Math.max(fMax, value);
+
+        /* Update the mean and the variance in a single pass */
+        double delta = value - fMean;
+        fMean += delta / fCount;
+        fSquares += delta * (value - fMean);
+    }
+
+    /**
+     * This method returns the value under which a given fraction of the values are. The returned
+     * value is the middle of the bucket that contains the percentile.
+     *
+     * @param fraction The fraction, between 0 and 1
+     *
+     * @return The percentile, or 0 if the histogram is empty
+     */
+    public long getPercentile(double fraction) {
+        if (fCount == 0) {
+            return 0;
+        }
+
+        /* Find the bucket that contains the rank */
+        long rank = (long) Math.ceil(fraction * fCount);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += fBuckets[i];
+            if (seen >= rank && fBuckets[i] > 0) {
+                long middle = getLowerBound(i) + (getLowerBound(i + 1) - getLowerBound(i)) / 2;
+                return Math.max(fMin, Math.min(fMax, middle));
+            }
+        }
+
+        return fMax;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of values in the histogram.
+     *
+     * @return The number of values
+     */
+    public long getCount() {
+        return fCount;
+    }
+
+    /**
+     * Accessor that returns the smallest value.
+     *
+     * @return The smallest value, or 0 if the histogram is empty
+     */
+    public long getMin() {
+        return (fCount > 0) ? fMin : 0;
+    }
+
+    /**
+     * Accessor that returns the largest value.
+     *
+     * @return The largest value, or 0 if the histogram is empty
+     */
+    public long getMax() {
+        return (fCount > 0) ? fMax : 0;
+    }
+
+    /**
+     * Accessor that returns the mean of the values.
+     *
+     * @return The mean
+     */
+    public double getMean() {
+        return fMean;
+    }
+
+    /**
+     * Accessor that returns the standard deviation of the values.
+     *
+     * @return The standard deviation
+     */
+    public double getStandardDeviation() {
+        return (fCount > 1) ? Math.sqrt(fSquares / (fCount - 1)) : 0.0;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method finds the bucket of a value. The small values have a bucket each, then every
+     * power of two is split into the same number of buckets.
+     *
+     * @param value The positive value
+     *
+     * @return The index of the bucket
+     */
+    private static int getBucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * This method returns the smallest value of a bucket.
+     *
+     * @param bucket The index of the bucket
+     *
+     * @return The smallest value of the bucket
+     */
+    private static long getLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        if (bucket >= BUCKETS) {
+            return Long.MAX_VALUE;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+
+        return (1L << exponent) + (sub << (exponent - SUB_BUCKET_BITS));
+    }
+
+}
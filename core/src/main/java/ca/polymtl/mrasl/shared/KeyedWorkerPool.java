@@ -0,0 +1,341 @@
+package ca.polymtl.mrasl.shared;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.platform.Platform;
+
+/**
+ * This class runs tasks on a fixed number of workers with bounded queues. Every task has a key,
+ * and the tasks of a key always run on the same worker, so they run in the order they were
+ * submitted. When the queue of a worker is full, the overflow policy decides which task is lost,
+ * so a burst never grows the memory nor stalls the thread that submits.
+ * <p/>
+ * The pool measures the depth of its queues, the latency of its tasks, from their submission to
+ * the end of their run, and the number of tasks it dropped or merged. A task that throws is logged
+ * and doesn't stop its worker.
+ */
+public class KeyedWorkerPool implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = KeyedWorkerPool.class.getName();
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final IScheduler[] fSchedulers;
+    private final ArrayDeque<Job>[] fQueues;
+    private final Runnable[] fRunners;
+    private final int fCapacity;
+    private final OverflowPolicy fPolicy;
+    private final IClock fClock;
+    private final Histogram fLatency = new Histogram();
+
+    private int fDepth;
+    private int fMaxDepth;
+    private long fSubmittedCount;
+    private long fDroppedCount;
+    private long fMergedCount;
+    private boolean fDisposed;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a pool. The workers are schedulers of the platform, so they run in virtual
+     * time during a simulation.
+     *
+     * @param name     The name of the threads of the workers
+     * @param workers  The number of workers
+     * @param capacity The number of tasks a worker can have waiting
+     * @param policy   The policy when the queue of a worker is full
+     */
+    public KeyedWorkerPool(String name, int workers, int capacity, OverflowPolicy policy) {
+        if (workers < 1 || capacity < 1) {
+            throw new IllegalArgumentException("A pool needs a worker and a queue");
+        }
+
+        fCapacity = capacity;
+        fPolicy = policy;
+        fSchedulers = new IScheduler[workers];
+        fQueues = newQueues(workers);
+        fRunners = new Runnable[workers];
+
+        for (int i = 0; i < workers; i++) {
+            fSchedulers[i] = Platform.getInstance().createScheduler(name + "-" + i);
+            fQueues[i] = new ArrayDeque<>(capacity);
+            fRunners[i] = new RunNext(i);
+        }
+        fClock = fSchedulers[0].getClock();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method submits a task to the worker of its key.
+     *
+     * @param key  The key of the task
+     * @param task The task to run
+     *
+     * @return {@code true} if the task was queued, else {@code false} if it was dropped
+     */
+    public boolean submit(int key, Runnable task) {
+        int lane = getLane(key);
+        Job job = new Job(key, task, fClock.nanoTime());
+
+        synchronized (this) {
+            if (fDisposed) {
+                return false;
+            }
+            fSubmittedCount++;
+
+            /* Make room for the task, or merge it into the pending one of its key */
+            ArrayDeque<Job> queue = fQueues[lane];
+            if (queue.size() >= fCapacity) {
+                switch (fPolicy) {
+                    case DROP_NEWEST:
+                        fDroppedCount++;
+                        return false;
+                    case MERGE:
+                        if (merge(queue, job)) {
+                            return true;
+                        }
+
+                        /* Without a pending task of the same key, the oldest one is lost */
+                        dropOldest(queue);
+                        break;
+                    case DROP_OLDEST:
+                        dropOldest(queue);
+                        break;
+                }
+            }
+
+            queue.addLast(job);
+            fDepth++;
+            fMaxDepth = Math.max(fMaxDepth, fDepth);
+        }
+
+        fSchedulers[lane].post(fRunners[lane]);
+        return true;
+    }
+
+    /**
+     * This method returns the worker of a key. The worker doesn't change for the life of the
+     * pool, so the state of a key can be kept per worker.
+     *
+     * @param key The key of a task
+     *
+     * @return The index of the worker
+     */
+    public int getLane(int key) {
+        return (key & Integer.MAX_VALUE) % fSchedulers.length;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            fDisposed = true;
+            for (ArrayDeque<Job> queue : fQueues) {
+                queue.clear();
+            }
+            fDepth = 0;
+        }
+
+        for (IScheduler scheduler : fSchedulers) {
+            if (scheduler instanceof IDisposable) {
+                ((IDisposable) scheduler).dispose();
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "depth %d (max %d), %d submitted, %d dropped, %d merged, latency p50 %.3f ms, " +
+                        "p99 %.3f ms",
+                fDepth, fMaxDepth, fSubmittedCount, fDroppedCount, fMergedCount,
+                fLatency.getPercentile(0.50) / 1e6, fLatency.getPercentile(0.99) / 1e6);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of tasks waiting in the queues.
+     *
+     * @return The depth of the queues
+     */
+    public synchronized int getDepth() {
+        return fDepth;
+    }
+
+    /**
+     * Accessor that returns the highest number of tasks that waited in the queues at once.
+     *
+     * @return The maximum depth of the queues
+     */
+    public synchronized int getMaxDepth() {
+        return fMaxDepth;
+    }
+
+    /**
+     * Accessor that returns the number of tasks submitted to the pool.
+     *
+     * @return The number of submitted tasks
+     */
+    public synchronized long getSubmittedCount() {
+        return fSubmittedCount;
+    }
+
+    /**
+     * Accessor that returns the number of tasks lost because a queue was full.
+     *
+     * @return The number of dropped tasks
+     */
+    public synchronized long getDroppedCount() {
+        return fDroppedCount;
+    }
+
+    /**
+     * Accessor that returns the number of tasks replaced by a newer task of the same key.
+     *
+     * @return The number of merged tasks
+     */
+    public synchronized long getMergedCount() {
+        return fMergedCount;
+    }
+
+    /**
+     * Accessor that returns a copy of the latencies of the tasks, from their submission to the end
+     * of their run.
+     *
+     * @return The latencies in nanoseconds
+     */
+    public synchronized Histogram getLatencyHistogram() {
+        return new Histogram(fLatency);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class is a task waiting in a queue.
+     */
+    private static class Job {
+        private final int fKey;
+        private final long fSubmitted;
+        private Runnable fTask;
+
+        public Job(int key, Runnable task, long submitted) {
+            fKey = key;
+            fTask = task;
+            fSubmitted = submitted;
+        }
+    }
+
+    /**
+     * This class runs the next task of a worker. It is posted once per queued task, so it finds
+     * nothing to run when a task was dropped or merged. A task that throws is logged, so the
+     * worker goes on with the next one.
+     */
+    private class RunNext implements Runnable {
+        private final int fLane;
+
+        public RunNext(int lane) {
+            fLane = lane;
+        }
+
+        @Override
+        public void run() {
+            Job job;
+            synchronized (KeyedWorkerPool.this) {
+                job = fQueues[fLane].pollFirst();
+                if (job == null) {
+                    return;
+                }
+                fDepth--;
+            }
+
+            try {
+                job.fTask.run();
+            } catch (RuntimeException exception) {
+                Log.e(TAG, "A task of the key " + job.fKey + " failed", exception);
+            } finally {
+                long latency = fClock.nanoTime() - job.fSubmitted;
+                synchronized (KeyedWorkerPool.this) {
+                    fLatency.add(latency);
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method replaces the pending task of the same key by a new one. The task keeps its
+     * place in the queue and its submission time, so the order of the keys doesn't change and the
+     * latency counts from the first submission.
+     *
+     * @param queue The queue of the worker
+     * @param job   The new task
+     *
+     * @return {@code true} if a task was replaced, else {@code false}
+     */
+    private boolean merge(ArrayDeque<Job> queue, Job job) {
+        Iterator<Job> iterator = queue.descendingIterator();
+        while (iterator.hasNext()) {
+            Job pending = iterator.next();
+            if (pending.fKey == job.fKey) {
+                pending.fTask = job.fTask;
+                fMergedCount++;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * This util method drops the oldest task of a queue to make room for a new one.
+     *
+     * @param queue The full queue of a worker
+     */
+    private void dropOldest(ArrayDeque<Job> queue) {
+        queue.pollFirst();
+        fDroppedCount++;
+        fDepth--;
+    }
+
+    /**
+     * This util method creates the queues of the workers. The array can't be created with its
+     * type argument, but it only ever holds queues of jobs.
+     *
+     * @param count The number of workers
+     *
+     * @return The array of queues, still empty
+     */
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<Job>[] newQueues(int count) {
+        return (ArrayDeque<Job>[]) new ArrayDeque<?>[count];
+    }
+
+}
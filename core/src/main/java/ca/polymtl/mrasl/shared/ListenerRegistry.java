@@ -0,0 +1,174 @@
+package ca.polymtl.mrasl.shared;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class contains listeners that may be added and removed by any thread while they are being
+ * called. The listeners are kept in an array that is copied on every change and swapped with a
+ * compare-and-set, so the callers iterate over a snapshot without locking or allocating.
+ * <p/>
+ * The listeners are changed rarely and called often, which is why the copy is done on the change.
+ *
+ * @param <L> The type of listener it contains
+ */
+public class ListenerRegistry<L> implements IListenerCaller<L> {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final L[] fEmpty;
+    private final AtomicReference<L[]> fListeners;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for an empty registry.
+     *
+     * @param type The class of the listeners, used to create the arrays
+     */
+    @SuppressWarnings("unchecked")
+    public ListenerRegistry(Class<L> type) {
+        fEmpty = (L[]) Array.newInstance(type, 0);
+        fListeners = new AtomicReference<>(fEmpty);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method adds a listener to the registry if it isn't already there.
+     *
+     * @param listener The listener to add
+     *
+     * @return {@code true} if the listener was added, or {@code false} if already there
+     */
+    public boolean add(L listener) {
+        L[] current;
+        L[] next;
+        do {
+            current = fListeners.get();
+
+            /* Make sure the listener isn't already connected */
+            if (indexOf(current, listener) >= 0) {
+                return false;
+            }
+
+            /* Copy the listeners with the new one at the end */
+            next = newArray(current, current.length + 1);
+            System.arraycopy(current, 0, next, 0, current.length);
+            next[current.length] = listener;
+        } while (!fListeners.compareAndSet(current, next));
+
+        return true;
+    }
+
+    /**
+     * This method removes a listener from the registry.
+     *
+     * @param listener The listener to remove
+     *
+     * @return {@code true} if the listener was removed, or {@code false} if it wasn't there
+     */
+    public boolean remove(L listener) {
+        L[] current;
+        L[] next;
+        do {
+            current = fListeners.get();
+
+            /* Make sure the listener is connected */
+            int index = indexOf(current, listener);
+            if (index < 0) {
+                return false;
+            }
+
+            /* Copy the listeners without the removed one */
+            next = newArray(current, current.length - 1);
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        } while (!fListeners.compareAndSet(current, next));
+
+        return true;
+    }
+
+    /**
+     * This method removes every listener from the registry.
+     */
+    public void clear() {
+        fListeners.set(fEmpty);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void addListener(L listener) {
+        add(listener);
+    }
+
+    @Override
+    public void removeListener(L listener) {
+        remove(listener);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns a snapshot of the listeners. The snapshot isn't affected by the later
+     * changes of the registry and must not be modified.
+     *
+     * @return The listeners at the time of the call
+     */
+    public L[] getListeners() {
+        return fListeners.get();
+    }
+
+    /**
+     * Accessor that returns the number of listeners in the registry.
+     *
+     * @return The number of listeners
+     */
+    public int size() {
+        return fListeners.get().length;
+    }
+
+    /**
+     * Accessor that returns whether the registry has no listener.
+     *
+     * @return {@code true} if the registry is empty, else {@code false}
+     */
+    public boolean isEmpty() {
+        return fListeners.get().length == 0;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private static <L> int indexOf(L[] listeners, L listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i].equals(listener)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private L[] newArray(L[] listeners, int length) {
+        if (length == 0) {
+            return fEmpty;
+        }
+
+        return (L[]) Array.newInstance(listeners.getClass().getComponentType(), length);
+    }
+
+}
@@ -0,0 +1,22 @@
+package ca.polymtl.mrasl.shared;
+
+/**
+ * This enumeration defines what a worker pool does with a task when its queue is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Policy that drops the new task
+     */
+    DROP_NEWEST,
+    /**
+     * Policy that drops the oldest task of the queue to make room for the new one
+     */
+    DROP_OLDEST,
+    /**
+     * Policy that replaces the pending task of the same key by the new one, or drops the oldest
+     * task of the queue if there is none
+     */
+    MERGE;
+
+}
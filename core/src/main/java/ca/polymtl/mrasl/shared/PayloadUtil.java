@@ -60,4 +60,24 @@ public class PayloadUtil {
         }
     }
 
+    /**
+     * Util method that converts bytes of a buffer into a float. It is the inverse of
+     * {@link #putFloatToBytes(byte[], int, float)}.
+     *
+     * @param buffer The buffer that contains the converted float
+     * @param pos    The position of the converted float
+     *
+     * @return The float
+     */
+    public static float getFloatFromBytes(byte[] buffer, int pos) {
+        int value = 0;
+
+        /* Rebuild the integer representation from the array of bytes */
+        for (int i = pos; i < pos + FLOAT_SIZE; i++) {
+            value = (value << BITS_IN_BYTE) | (buffer[i] & 0xFF);
+        }
+
+        return Float.intBitsToFloat(value);
+    }
+
 }
@@ -0,0 +1,109 @@
+package ca.polymtl.mrasl.tag;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import ca.polymtl.mrasl.log.Log;
+
+/**
+ * This class compresses the images of the tags without loss with the deflate algorithm of the
+ * standard library. It is the codec of the platforms that have no image format of their own.
+ * <p/>
+ * The bytes start with the width and the height of the image, followed by its deflated pixels.
+ */
+public class DeflateTagImageCodec implements ITagImageCodec {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = DeflateTagImageCodec.class.getName();
+    private static final int HEADER_SIZE = 8;
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public byte[] encode(TagImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        /* Write the pixels row by row, without the padding of the array */
+        ByteBuffer raw = ByteBuffer.allocate(width * height * 4);
+        raw.asIntBuffer().put(image.getPixels(), 0, width * height);
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw.array());
+            deflater.finish();
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(raw.capacity() / 4);
+            output.write(ByteBuffer.allocate(HEADER_SIZE).putInt(width).putInt(height).array(), 0,
+                    HEADER_SIZE);
+
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                output.write(chunk, 0, length);
+            }
+
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public TagImage decode(byte[] data, int sampleSize) {
+        if (data.length < HEADER_SIZE) {
+            return null;
+        }
+
+        ByteBuffer header = ByteBuffer.wrap(data, 0, HEADER_SIZE);
+        int width = header.getInt();
+        int height = header.getInt();
+        byte[] raw = new byte[width * height * 4];
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, HEADER_SIZE, data.length - HEADER_SIZE);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int read = inflater.inflate(raw, length, raw.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+
+            if (length < raw.length) {
+                Log.e(TAG, "A tag image is truncated");
+                return null;
+            }
+        } catch (DataFormatException exception) {
+            Log.e(TAG, "Unable to decompress a tag image", exception);
+            return null;
+        } finally {
+            inflater.end();
+        }
+
+        /* Keep one pixel every sample in both directions */
+        int sample = Math.max(1, sampleSize);
+        int w = (width + sample - 1) / sample;
+        int h = (height + sample - 1) / sample;
+        int[] pixels = new int[w * h];
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                pixels[y * w + x] = buffer.getInt(((y * sample) * width + x * sample) * 4);
+            }
+        }
+
+        return new TagImage(w, h, pixels);
+    }
+
+}
@@ -0,0 +1,29 @@
+package ca.polymtl.mrasl.tag;
+
+/**
+ * This interface compresses the images of the tags, so the mission keeps their bytes instead of
+ * their pixels. The platform chooses the format, like WebP on Android.
+ */
+public interface ITagImageCodec {
+
+    /**
+     * This method compresses an image.
+     *
+     * @param image The image to compress
+     *
+     * @return The compressed bytes, or {@code null} if the image can't be compressed
+     */
+    byte[] encode(TagImage image);
+
+    /**
+     * This method decompresses an image, keeping one pixel every given number of pixels in both
+     * directions, so a large crop is decoded at the size it is shown.
+     *
+     * @param data       The compressed bytes
+     * @param sampleSize The power of two by which the image is downsampled
+     *
+     * @return The image, or {@code null} if it can't be decompressed
+     */
+    TagImage decode(byte[] data, int sampleSize);
+
+}
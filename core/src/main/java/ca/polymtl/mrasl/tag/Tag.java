@@ -0,0 +1,247 @@
+package ca.polymtl.mrasl.tag;
+
+/**
+ * This class contains a tag that has been found. A tag is usually seen many times during a
+ * mission, so every sighting of the same survivor is fused into it: its position is the mean of
+ * the sightings weighted by their uncertainty, and its image is the largest crop seen so far.
+ * <p/>
+ * A tag only holds its image until its list moves it into the {@link TagImageStore}, which keeps
+ * it compressed. Only the size of the image stays in the tag, to compare it with the next ones.
+ * <p/>
+ * A tag is updated in place by its list, so the accessors are thread-safe.
+ */
+public class Tag {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The uncertainty of a tag when it isn't known, like the tags recovered after a restart
+     */
+    public static final double DEFAULT_UNCERTAINTY = 5.0;
+
+    private static final double EARTH_RADIUS = 6371000.0;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final int fID;
+
+    private double fLatitude;
+    private double fLongitude;
+    private double fWeight;
+    private int fSightingCount;
+    private long fFirstSeen;
+    private long fLastSeen;
+    private TagImage fImage;
+    private long fImageArea;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    public Tag(int id, double latitude, double longitude, TagImage image) {
+        this(id, latitude, longitude, DEFAULT_UNCERTAINTY, 0L, image);
+    }
+
+    /**
+     * Constructor for a tag seen once.
+     *
+     * @param id          The ID of the tag
+     * @param latitude    The latitude of the sighting
+     * @param longitude   The longitude of the sighting
+     * @param uncertainty The standard deviation of the position of the sighting in meters
+     * @param time        The time of the sighting in milliseconds since the epoch, or zero
+     * @param image       The image of the tag, or {@code null} if it has none
+     */
+    public Tag(int id, double latitude, double longitude, double uncertainty, long time,
+               TagImage image) {
+        this(id, latitude, longitude, uncertainty, 1, time, time);
+        fImage = image;
+        fImageArea = (image != null) ? getArea(image) : 0;
+    }
+
+    /**
+     * Constructor for a tag recovered from the storage, without its image.
+     *
+     * @param id            The ID of the tag
+     * @param latitude      The fused latitude of the tag
+     * @param longitude     The fused longitude of the tag
+     * @param uncertainty   The standard deviation of the fused position in meters
+     * @param sightingCount The number of sightings of the tag
+     * @param firstSeen     The time of the first sighting in milliseconds since the epoch
+     * @param lastSeen      The time of the last sighting in milliseconds since the epoch
+     */
+    public Tag(int id, double latitude, double longitude, double uncertainty, int sightingCount,
+               long firstSeen, long lastSeen) {
+        fID = id;
+        fLatitude = latitude;
+        fLongitude = longitude;
+        fWeight = 1.0 / (uncertainty * uncertainty);
+        fSightingCount = sightingCount;
+        fFirstSeen = firstSeen;
+        fLastSeen = lastSeen;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method fuses a sighting of the same survivor into the tag. The position is weighted by
+     * the inverse of the variance of each sighting, and the largest image is kept.
+     *
+     * @param sighting The new sighting of the tag
+     */
+    synchronized void fuse(Tag sighting) {
+        double latitude;
+        double longitude;
+        double weight;
+        int count;
+        long first;
+        long last;
+        TagImage image;
+        synchronized (sighting) {
+            latitude = sighting.fLatitude;
+            longitude = sighting.fLongitude;
+            weight = sighting.fWeight;
+            count = sighting.fSightingCount;
+            first = sighting.fFirstSeen;
+            last = sighting.fLastSeen;
+            image = sighting.fImage;
+        }
+
+        /* Update the weighted mean of the position */
+        double total = fWeight + weight;
+        fLatitude += (latitude - fLatitude) * weight / total;
+        fLongitude += (longitude - fLongitude) * weight / total;
+        fWeight = total;
+        fSightingCount += count;
+
+        /* The sightings may come out of order, a zero time is unknown */
+        if (first != 0 && (fFirstSeen == 0 || first < fFirstSeen)) {
+            fFirstSeen = first;
+        }
+        fLastSeen = Math.max(fLastSeen, last);
+
+        /* Keep the crop with the most pixels, it is the closest view of the tag */
+        if (image != null && getArea(image) > fImageArea) {
+            fImage = image;
+            fImageArea = getArea(image);
+        }
+    }
+
+    /**
+     * This method takes the image that the tag received since it was last taken, so its list can
+     * store it. The tag doesn't hold it anymore afterward.
+     *
+     * @return The new image of the tag, or {@code null} if there is none
+     */
+    synchronized TagImage takeImage() {
+        TagImage image = fImage;
+        fImage = null;
+        return image;
+    }
+
+    /**
+     * This method returns the distance between the tag and a position, which is precise enough
+     * for the area of a mission.
+     *
+     * @param latitude  The latitude of the position
+     * @param longitude The longitude of the position
+     *
+     * @return The distance in meters
+     */
+    public synchronized double distanceTo(double latitude, double longitude) {
+        double x = Math.toRadians(longitude - fLongitude)
+                * Math.cos(Math.toRadians((latitude + fLatitude) / 2.0));
+        double y = Math.toRadians(latitude - fLatitude);
+        return Math.sqrt(x * x + y * y) * EARTH_RADIUS;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This accessor returns the ID of the tag.
+     *
+     * @return The ID of the tag
+     */
+    public int getID() {
+        return fID;
+    }
+
+    /**
+     * This accessor returns the latitude of the tag.
+     *
+     * @return The latitude of the tag
+     */
+    public synchronized double getLatitude() {
+        return fLatitude;
+    }
+
+    /**
+     * This accessor returns the longitude of the tag.
+     *
+     * @return The longitude of the tag
+     */
+    public synchronized double getLongitude() {
+        return fLongitude;
+    }
+
+    /**
+     * This accessor returns the standard deviation of the position of the tag, which shrinks with
+     * the sightings.
+     *
+     * @return The uncertainty in meters
+     */
+    public synchronized double getUncertainty() {
+        return 1.0 / Math.sqrt(fWeight);
+    }
+
+    /**
+     * This accessor returns the number of times the tag was seen.
+     *
+     * @return The number of sightings
+     */
+    public synchronized int getSightingCount() {
+        return fSightingCount;
+    }
+
+    /**
+     * This accessor returns the time of the first sighting of the tag.
+     *
+     * @return The time in milliseconds since the epoch, or zero if it isn't known
+     */
+    public synchronized long getFirstSeen() {
+        return fFirstSeen;
+    }
+
+    /**
+     * This accessor returns the time of the last sighting of the tag.
+     *
+     * @return The time in milliseconds since the epoch, or zero if it isn't known
+     */
+    public synchronized long getLastSeen() {
+        return fLastSeen;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method returns the number of pixels of an image.
+     *
+     * @param image The image
+     *
+     * @return The number of pixels
+     */
+    private static long getArea(TagImage image) {
+        return (long) image.getWidth() * image.getHeight();
+    }
+
+}
@@ -0,0 +1,70 @@
+package ca.polymtl.mrasl.tag;
+
+/**
+ * This class contains the image of a tag, with its pixels in the ARGB8888 format. It is the same
+ * layout as an Android bitmap, so the application can show it without converting the pixels.
+ */
+public class TagImage {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final int fWidth;
+    private final int fHeight;
+    private final int[] fPixels;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for an image. The pixels are kept as is and must not be modified afterward.
+     *
+     * @param width  The width of the image
+     * @param height The height of the image
+     * @param pixels The pixels of the image in ARGB8888, row by row
+     */
+    public TagImage(int width, int height, int[] pixels) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("The image needs " + width * height + " pixels");
+        }
+
+        fWidth = width;
+        fHeight = height;
+        fPixels = pixels;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the width of the image.
+     *
+     * @return The width in pixels
+     */
+    public int getWidth() {
+        return fWidth;
+    }
+
+    /**
+     * Accessor that returns the height of the image.
+     *
+     * @return The height in pixels
+     */
+    public int getHeight() {
+        return fHeight;
+    }
+
+    /**
+     * Accessor that returns the pixels of the image in ARGB8888, row by row. The array must not
+     * be modified.
+     *
+     * @return The pixels of the image
+     */
+    public int[] getPixels() {
+        return fPixels;
+    }
+
+}
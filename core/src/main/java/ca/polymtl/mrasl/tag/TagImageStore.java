@@ -0,0 +1,712 @@
+package ca.polymtl.mrasl.tag;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.shared.IDisposable;
+
+/**
+ * This class keeps the images of the tags of a mission. An image is compressed by the codec of the
+ * platform when it's stored, so a tag costs its compressed bytes instead of its pixels. The images
+ * are decoded at the size they are shown, through a cache of the last decoded images bounded in
+ * bytes.
+ * <p/>
+ * When the compressed images exceed their own budget, the least recently used are spilled to the
+ * storage of the application and read back the next time they are shown. The files are written
+ * outside of the lock, so a slow storage doesn't stall the readers. The memory of the store can
+ * also be released when the platform runs low. An image can also refer to compressed bytes
+ * that are already in a file, like the images of the tags recovered after a restart, which are
+ * only read when they are shown. The methods can be called from any thread.
+ */
+public class TagImageStore implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = TagImageStore.class.getName();
+
+    /**
+     * Default budget of the decoded images in bytes
+     */
+    public static final long DEFAULT_CACHE_BUDGET = 4 * 1024 * 1024;
+
+    /**
+     * Default budget of the compressed images kept in memory in bytes
+     */
+    public static final long DEFAULT_RESIDENT_BUDGET = 2 * 1024 * 1024;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final ITagImageCodec fCodec;
+    private final File fSpillDirectory;
+    private final long fCacheBudget;
+    private final long fResidentBudget;
+
+    /* The entries and the decoded images are kept from the least to the most recently used. An
+     * entry is only moved when its image is stored or shown, not when it is read for the storage */
+    private final Map<Tag, Entry> fEntries = new LinkedHashMap<>();
+    private final Map<Key, TagImage> fCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long fCacheBytes;
+    private long fResidentBytes;
+    private long fSpilledBytes;
+    private long fHitCount;
+    private long fMissCount;
+    private long fReloadCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a store with the default budgets.
+     *
+     * @param codec          The codec of the images
+     * @param spillDirectory The directory of the spilled images, or {@code null} to keep them all
+     *                       in memory
+     */
+    public TagImageStore(ITagImageCodec codec, File spillDirectory) {
+        this(codec, spillDirectory, DEFAULT_CACHE_BUDGET, DEFAULT_RESIDENT_BUDGET);
+    }
+
+    /**
+     * Constructor for a store.
+     *
+     * @param codec          The codec of the images
+     * @param spillDirectory The directory of the spilled images, or {@code null} to keep them all
+     *                       in memory
+     * @param cacheBudget    The bytes of the decoded images kept in the cache
+     * @param residentBudget The bytes of the compressed images kept in memory
+     */
+    public TagImageStore(ITagImageCodec codec, File spillDirectory, long cacheBudget,
+                         long residentBudget) {
+        fCodec = codec;
+        fSpillDirectory = spillDirectory;
+        fCacheBudget = cacheBudget;
+        fResidentBudget = residentBudget;
+
+        if (spillDirectory != null && !spillDirectory.isDirectory() && !spillDirectory.mkdirs()) {
+            Log.e(TAG, "Unable to create the directory " + spillDirectory);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method stores the image of a tag. An image that isn't larger than the stored one is
+     * ignored, so a tag keeps its closest view.
+     *
+     * @param tag   The tag of the image
+     * @param image The image of the tag
+     *
+     * @return {@code true} if the image was stored, else {@code false}
+     */
+    public boolean put(Tag tag, TagImage image) {
+        long area = (long) image.getWidth() * image.getHeight();
+        synchronized (this) {
+            Entry entry = fEntries.get(tag);
+            if (entry != null && entry.getArea() >= area) {
+                return false;
+            }
+        }
+
+        /* Compress outside of the lock, the readers don't wait for it */
+        byte[] data = fCodec.encode(image);
+        if (data == null) {
+            Log.e(TAG, "Unable to compress the image of tag " + tag.getID());
+            return false;
+        }
+
+        List<Entry> spilled;
+        synchronized (this) {
+            Entry previous = fEntries.get(tag);
+            if (previous != null) {
+                if (previous.getArea() >= area) {
+                    return false;
+                }
+                remove(tag, previous);
+            }
+
+            Entry entry = new Entry(image.getWidth(), image.getHeight());
+            entry.fData = data;
+            fEntries.put(tag, entry);
+            fResidentBytes += data.length;
+
+            spilled = spill(fResidentBudget);
+        }
+
+        write(spilled);
+        return true;
+    }
+
+    /**
+     * This method stores the image of a tag as a reference to compressed bytes in a file. The
+     * bytes are only read when the image is shown, and the file is never deleted by the store.
+     *
+     * @param tag    The tag of the image
+     * @param file   The file that contains the compressed bytes
+     * @param offset The position of the bytes in the file
+     * @param length The number of bytes
+     * @param width  The width of the image
+     * @param height The height of the image
+     */
+    public synchronized void putReference(Tag tag, File file, long offset, int length, int width,
+                                          int height) {
+        Entry previous = fEntries.get(tag);
+        if (previous != null) {
+            if (previous.getArea() >= (long) width * height) {
+                return;
+            }
+            remove(tag, previous);
+        }
+
+        Entry entry = new Entry(width, height);
+        entry.fFile = file;
+        entry.fOffset = offset;
+        entry.fLength = length;
+        entry.fShared = true;
+        fEntries.put(tag, entry);
+    }
+
+    /**
+     * This method returns the compressed image of a tag, like to write it in the storage. It
+     * doesn't count as a use of the image, and a spilled image is read from its file without
+     * being kept in memory.
+     *
+     * @param tag The tag of the image
+     *
+     * @return The compressed image, or {@code null} if the tag has none
+     */
+    public Encoded getEncoded(Tag tag) {
+        Entry entry;
+        File file;
+        long offset;
+        int length;
+        synchronized (this) {
+            entry = fEntries.get(tag);
+            if (entry == null) {
+                return null;
+            }
+
+            if (entry.fData != null) {
+                return new Encoded(entry.fWidth, entry.fHeight, entry.fData);
+            }
+
+            file = entry.fFile;
+            offset = entry.fOffset;
+            length = entry.fLength;
+        }
+
+        /* Read the file outside of the lock, the image stays cold */
+        byte[] data = read(file, offset, length);
+        return (data != null) ? new Encoded(entry.fWidth, entry.fHeight, data) : null;
+    }
+
+    /**
+     * This method returns the image of a tag, decoded at the size it is shown. The image is only
+     * downsampled by powers of two while it stays larger than the size.
+     *
+     * @param tag       The tag of the image
+     * @param maxWidth  The width at which the image is shown
+     * @param maxHeight The height at which the image is shown
+     *
+     * @return The image, or {@code null} if the tag has none
+     */
+    public TagImage getImage(Tag tag, int maxWidth, int maxHeight) {
+        Entry entry;
+        byte[] data;
+        Key key;
+        List<Entry> spilled;
+        synchronized (this) {
+            entry = fEntries.remove(tag);
+            if (entry == null) {
+                return null;
+            }
+
+            /* Showing the image makes it the most recently used */
+            fEntries.put(tag, entry);
+
+            /* Halve the image while it stays larger than its view */
+            int sample = 1;
+            while (entry.fWidth / (sample * 2) >= maxWidth
+                    && entry.fHeight / (sample * 2) >= maxHeight) {
+                sample *= 2;
+            }
+
+            key = new Key(tag, sample);
+            TagImage cached = fCache.get(key);
+            if (cached != null) {
+                fHitCount++;
+                return cached;
+            }
+
+            fMissCount++;
+            data = load(entry);
+            if (data == null) {
+                return null;
+            }
+
+            spilled = spill(fResidentBudget);
+        }
+
+        write(spilled);
+
+        /* Decode outside of the lock, a large image doesn't stall the workers */
+        TagImage image = fCodec.decode(data, key.fSample);
+        if (image == null) {
+            Log.e(TAG, "Unable to decompress the image of tag " + tag.getID());
+            return null;
+        }
+
+        synchronized (this) {
+            /* The image may have been replaced while it was decoded */
+            if (fEntries.get(tag) != entry) {
+                return image;
+            }
+
+            if (fCache.put(key, image) == null) {
+                fCacheBytes += getBytes(image);
+            }
+            trim(fCacheBudget);
+        }
+
+        return image;
+    }
+
+    /**
+     * This method releases the decoded images, which are decoded again when they are shown. It is
+     * called when the platform needs memory.
+     */
+    public synchronized void trimCache() {
+        trim(0);
+    }
+
+    /**
+     * This method releases the decoded images and spills every compressed image to the storage,
+     * if the store has a directory. It is called when the platform is about to kill the
+     * application.
+     */
+    public void trimAll() {
+        List<Entry> spilled;
+        synchronized (this) {
+            trim(0);
+            spilled = spill(0);
+        }
+
+        write(spilled);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public synchronized void dispose() {
+        for (Entry entry : fEntries.values()) {
+            entry.fRemoved = true;
+            if (entry.fFile != null && !entry.fShared && !entry.fFile.delete()) {
+                Log.w(TAG, "Unable to delete " + entry.fFile);
+            }
+        }
+
+        fEntries.clear();
+        fCache.clear();
+        fCacheBytes = 0;
+        fResidentBytes = 0;
+        fSpilledBytes = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "%d images, hit rate %.1f %%, %d B decoded, %d B resident, %d B spilled, " +
+                        "%d reloads",
+                fEntries.size(), getHitRate() * 100.0, fCacheBytes, fResidentBytes,
+                fSpilledBytes, fReloadCount);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of pixels of the image of a tag, which grows when a closer
+     * view is stored.
+     *
+     * @param tag The tag of the image
+     *
+     * @return The area of the image, or zero if the tag has none
+     */
+    public synchronized long getImageArea(Tag tag) {
+        Entry entry = fEntries.get(tag);
+        return (entry != null) ? entry.getArea() : 0;
+    }
+
+    /**
+     * Accessor that returns the ratio of the images shown from the cache.
+     *
+     * @return The hit rate between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        long total = fHitCount + fMissCount;
+        return (total > 0) ? (double) fHitCount / total : 0.0;
+    }
+
+    /**
+     * Accessor that returns the bytes of the decoded images in the cache.
+     *
+     * @return The bytes of the decoded images
+     */
+    public synchronized long getCacheBytes() {
+        return fCacheBytes;
+    }
+
+    /**
+     * Accessor that returns the bytes of the compressed images kept in memory.
+     *
+     * @return The bytes of the resident images
+     */
+    public synchronized long getResidentBytes() {
+        return fResidentBytes;
+    }
+
+    /**
+     * Accessor that returns the bytes of the compressed images spilled to the storage.
+     *
+     * @return The bytes of the spilled images
+     */
+    public synchronized long getSpilledBytes() {
+        return fSpilledBytes;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class is the compressed image of a tag with its size.
+     */
+    public static class Encoded {
+        private final int fWidth;
+        private final int fHeight;
+        private final byte[] fData;
+
+        public Encoded(int width, int height, byte[] data) {
+            fWidth = width;
+            fHeight = height;
+            fData = data;
+        }
+
+        public int getWidth() {
+            return fWidth;
+        }
+
+        public int getHeight() {
+            return fHeight;
+        }
+
+        public byte[] getData() {
+            return fData;
+        }
+    }
+
+    /**
+     * This class is the compressed image of a tag, in memory or in a file.
+     */
+    private static class Entry {
+        private final int fWidth;
+        private final int fHeight;
+        private byte[] fData;
+        private File fFile;
+        private long fOffset;
+        private int fLength;
+        private boolean fShared;
+        private boolean fSpilling;
+        private boolean fRemoved;
+
+        public Entry(int width, int height) {
+            fWidth = width;
+            fHeight = height;
+        }
+
+        public long getArea() {
+            return (long) fWidth * fHeight;
+        }
+    }
+
+    /**
+     * This class is the key of a decoded image, the tag and its sample.
+     */
+    private static class Key {
+        private final Tag fTag;
+        private final int fSample;
+
+        public Key(Tag tag, int sample) {
+            fTag = tag;
+            fSample = sample;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) object;
+            return fTag == other.fTag && fSample == other.fSample;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(fTag) * 31 + fSample;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method returns the compressed bytes of an entry, reading them back from their
+     * file if they were spilled. The lock of the store must be held.
+     *
+     * @param entry The entry of the image
+     *
+     * @return The compressed bytes, or {@code null} if the file can't be read
+     */
+    private byte[] load(Entry entry) {
+        if (entry.fData != null) {
+            return entry.fData;
+        }
+
+        byte[] data = read(entry.fFile, entry.fOffset, entry.fLength);
+        if (data == null) {
+            return null;
+        }
+
+        /* The image is hot again, the file is kept in case it is spilled again */
+        entry.fData = data;
+        fResidentBytes += data.length;
+        fReloadCount++;
+
+        return data;
+    }
+
+    /**
+     * This util method picks the least recently used images to spill until the resident images
+     * fit in a budget. The images that already have a file are released right away, the others
+     * must be given to {@link #write(List)} once the lock is released. Nothing is spilled without
+     * a directory. The lock of the store must be held.
+     *
+     * @param budget The bytes of the compressed images to keep in memory
+     *
+     * @return The images to write to the storage
+     */
+    private List<Entry> spill(long budget) {
+        List<Entry> spilled = Collections.emptyList();
+        long pending = 0;
+
+        Iterator<Entry> iterator = fEntries.values().iterator();
+        while (fResidentBytes - pending > budget && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.fData == null || (entry.fFile == null && fSpillDirectory == null)) {
+                continue;
+            }
+
+            /* An image read back from its file doesn't need to be written again */
+            if (entry.fFile != null) {
+                fResidentBytes -= entry.fData.length;
+                entry.fData = null;
+                continue;
+            }
+
+            /* An image being written by another thread is released by it */
+            pending += entry.fData.length;
+            if (entry.fSpilling) {
+                continue;
+            }
+
+            if (spilled.isEmpty()) {
+                spilled = new ArrayList<>();
+            }
+            entry.fSpilling = true;
+            spilled.add(entry);
+        }
+
+        return spilled;
+    }
+
+    /**
+     * This util method writes the images picked by {@link #spill(long)} to the storage and
+     * releases their memory. The lock of the store must not be held.
+     *
+     * @param spilled The images to write
+     */
+    private void write(List<Entry> spilled) {
+        for (Entry entry : spilled) {
+            /* The bytes of an entry never change, only the reference is released */
+            byte[] data;
+            synchronized (this) {
+                data = entry.fData;
+            }
+
+            File file = null;
+            FileOutputStream output = null;
+            try {
+                file = File.createTempFile("tag", ".img", fSpillDirectory);
+                output = new FileOutputStream(file);
+                output.write(data);
+            } catch (IOException exception) {
+                Log.e(TAG, "Unable to spill an image to " + fSpillDirectory, exception);
+                close(output);
+                delete(file);
+                file = null;
+            }
+            close(output);
+
+            synchronized (this) {
+                entry.fSpilling = false;
+
+                /* The image may have been replaced while it was written */
+                if (file == null || entry.fRemoved) {
+                    delete(file);
+                    continue;
+                }
+
+                entry.fFile = file;
+                entry.fLength = data.length;
+                fSpilledBytes += data.length;
+                if (entry.fData != null) {
+                    fResidentBytes -= data.length;
+                    entry.fData = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * This util method releases the least recently used decoded images until the cache fits in a
+     * budget. The lock of the store must be held.
+     *
+     * @param budget The bytes of the decoded images to keep
+     */
+    private void trim(long budget) {
+        Iterator<Map.Entry<Key, TagImage>> iterator = fCache.entrySet().iterator();
+        while (fCacheBytes > budget && iterator.hasNext()) {
+            fCacheBytes -= getBytes(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * This util method removes the image of a tag, with its file and its decoded images. The lock
+     * of the store must be held.
+     *
+     * @param tag   The tag of the image
+     * @param entry The entry of the image
+     */
+    private void remove(Tag tag, Entry entry) {
+        fEntries.remove(tag);
+        entry.fRemoved = true;
+        if (entry.fData != null) {
+            fResidentBytes -= entry.fData.length;
+        }
+        if (entry.fFile != null && !entry.fShared) {
+            fSpilledBytes -= entry.fLength;
+            if (!entry.fFile.delete()) {
+                Log.w(TAG, "Unable to delete " + entry.fFile);
+            }
+        }
+
+        Iterator<Map.Entry<Key, TagImage>> iterator = fCache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, TagImage> cached = iterator.next();
+            if (cached.getKey().fTag == tag) {
+                fCacheBytes -= getBytes(cached.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * This util method reads compressed bytes from a file.
+     *
+     * @param file   The file that contains the bytes
+     * @param offset The position of the bytes in the file
+     * @param length The number of bytes
+     *
+     * @return The bytes, or {@code null} if the file can't be read
+     */
+    private static byte[] read(File file, long offset, int length) {
+        byte[] data = new byte[length];
+        RandomAccessFile input = null;
+        try {
+            input = new RandomAccessFile(file, "r");
+            input.seek(offset);
+            input.readFully(data);
+        } catch (IOException exception) {
+            Log.e(TAG, "Unable to read an image from " + file, exception);
+            return null;
+        } finally {
+            close(input);
+        }
+
+        return data;
+    }
+
+    /**
+     * This util method deletes a file that the store wrote.
+     *
+     * @param file The file to delete, or {@code null}
+     */
+    private static void delete(File file) {
+        if (file != null && !file.delete()) {
+            Log.w(TAG, "Unable to delete " + file);
+        }
+    }
+
+    /**
+     * This util method returns the memory used by the pixels of an image.
+     *
+     * @param image The image
+     *
+     * @return The bytes of the pixels
+     */
+    private static long getBytes(TagImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    /**
+     * This util method closes a stream, ignoring its error.
+     *
+     * @param stream The stream to close, or {@code null}
+     */
+    private static void close(Closeable stream) {
+        if (stream == null) {
+            return;
+        }
+
+        try {
+            stream.close();
+        } catch (IOException exception) {
+            Log.w(TAG, "Unable to close a stream");
+        }
+    }
+
+}
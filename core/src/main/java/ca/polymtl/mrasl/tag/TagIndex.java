@@ -0,0 +1,402 @@
+package ca.polymtl.mrasl.tag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * This class indexes tags by their position. The surface is split into a grid of cells, like a
+ * geohash, and only the cells that contain a tag are kept in a map. A query only visits the cells
+ * around its point or its box, so its cost depends on the number of tags nearby and not on the
+ * number of tags of the mission.
+ * <p/>
+ * The cells are squares in degrees, so they get narrower in meters far from the equator. The grid
+ * doesn't wrap around the antimeridian, which no mission crosses. The index isn't thread-safe, the
+ * list of tags keeps it under its lock.
+ */
+public class TagIndex {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Default height of a cell in meters
+     */
+    public static final double DEFAULT_CELL_SIZE = 50.0;
+
+    private static final double METERS_PER_DEGREE = 6371000.0 * Math.PI / 180.0;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final double fCellDegrees;
+    private final Map<Long, List<Tag>> fCells = new HashMap<>();
+    private final Map<Tag, Long> fKeys = new IdentityHashMap<>();
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    public TagIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructor for an index with cells of a given size. The cells should be about the size of
+     * the queries, a bigger cell holds more tags and a smaller one makes more cells to visit.
+     *
+     * @param cellSize The height of a cell in meters
+     */
+    public TagIndex(double cellSize) {
+        if (cellSize <= 0.0) {
+            throw new IllegalArgumentException("The cells of an index need a size");
+        }
+
+        fCellDegrees = cellSize / METERS_PER_DEGREE;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method adds a tag to the cell of its position.
+     *
+     * @param tag The tag to add
+     */
+    public void add(Tag tag) {
+        long key = getKey(tag.getLatitude(), tag.getLongitude());
+        fKeys.put(tag, key);
+        getCell(key).add(tag);
+    }
+
+    /**
+     * This method moves a tag to the cell of its new position, like after a sighting was fused
+     * into it. A tag that isn't indexed is added.
+     *
+     * @param tag The tag that moved
+     */
+    public void update(Tag tag) {
+        Long previous = fKeys.get(tag);
+        if (previous == null) {
+            add(tag);
+            return;
+        }
+
+        /* Most sightings don't move the tag out of its cell */
+        long key = getKey(tag.getLatitude(), tag.getLongitude());
+        if (key == previous) {
+            return;
+        }
+
+        List<Tag> cell = fCells.get(previous);
+        cell.remove(tag);
+        if (cell.isEmpty()) {
+            fCells.remove(previous);
+        }
+
+        fKeys.put(tag, key);
+        getCell(key).add(tag);
+    }
+
+    /**
+     * This method finds the tags inside a box.
+     *
+     * @param south The latitude of the bottom of the box
+     * @param west  The longitude of the left of the box
+     * @param north The latitude of the top of the box
+     * @param east  The longitude of the right of the box
+     *
+     * @return The tags inside the box, in no particular order
+     */
+    public List<Tag> getInBox(double south, double west, double north, double east) {
+        List<Tag> tags = new ArrayList<>();
+        for (List<Tag> cell : getCells(south, west, north, east)) {
+            for (Tag tag : cell) {
+                double latitude = tag.getLatitude();
+                double longitude = tag.getLongitude();
+                if (latitude >= south && latitude <= north && longitude >= west
+                        && longitude <= east) {
+                    tags.add(tag);
+                }
+            }
+        }
+
+        return tags;
+    }
+
+    /**
+     * This method finds the tags within a distance of a point.
+     *
+     * @param latitude  The latitude of the point
+     * @param longitude The longitude of the point
+     * @param radius    The distance in meters
+     *
+     * @return The tags within the distance, from the closest to the farthest
+     */
+    public List<Tag> getWithin(double latitude, double longitude, double radius) {
+        /* Visit the cells of the box around the circle */
+        double height = radius / METERS_PER_DEGREE;
+        double width = height / Math.max(Math.cos(Math.toRadians(latitude)), 1e-6);
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (List<Tag> cell : getCells(latitude - height, longitude - width, latitude + height,
+                longitude + width)) {
+            for (Tag tag : cell) {
+                double distance = tag.distanceTo(latitude, longitude);
+                if (distance <= radius) {
+                    candidates.add(new Candidate(tag, distance));
+                }
+            }
+        }
+
+        Collections.sort(candidates, NEAREST_FIRST);
+        return getTags(candidates);
+    }
+
+    /**
+     * This method finds the tags closest to a point. The rings of cells around the point are
+     * visited until no unvisited cell can be closer than the farthest tag found, so only the
+     * cells near the point are read.
+     *
+     * @param latitude  The latitude of the point
+     * @param longitude The longitude of the point
+     * @param count     The number of tags to find
+     *
+     * @return The closest tags, from the closest to the farthest
+     */
+    public List<Tag> getNearest(double latitude, double longitude, int count) {
+        if (count <= 0 || fKeys.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        /* Keep the closest tags found, the farthest on top */
+        PriorityQueue<Candidate> closest = new PriorityQueue<>(count,
+                Collections.reverseOrder(NEAREST_FIRST));
+
+        /* A ring of cells is at least this far from the point */
+        double cos = Math.max(Math.cos(Math.toRadians(latitude)), 1e-6);
+        double step = fCellDegrees * METERS_PER_DEGREE * Math.min(cos, 1.0);
+
+        int row = getIndex(latitude);
+        int column = getIndex(longitude);
+        int visited = 0;
+        for (int ring = 0; visited < fKeys.size(); ring++) {
+            /* A far away tag would need many empty rings, reading every cell is cheaper then */
+            long side = 2L * ring + 1;
+            if (side * side > 4L * fCells.size()) {
+                closest.clear();
+                for (List<Tag> cell : fCells.values()) {
+                    offer(closest, cell, latitude, longitude, count);
+                }
+                break;
+            }
+
+            visited += visitRing(closest, row, column, ring, latitude, longitude, count);
+
+            /* The next ring can't hold a closer tag than the farthest one found */
+            if (closest.size() == count && closest.peek().fDistance <= ring * step) {
+                break;
+            }
+        }
+
+        List<Candidate> candidates = new ArrayList<>(closest);
+        Collections.sort(candidates, NEAREST_FIRST);
+        return getTags(candidates);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of tags in the index.
+     *
+     * @return The number of tags
+     */
+    public int getCount() {
+        return fKeys.size();
+    }
+
+    /**
+     * Accessor that returns the number of cells that contain a tag.
+     *
+     * @return The number of cells
+     */
+    public int getCellCount() {
+        return fCells.size();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class is a tag found by a query, with its distance to the point of the query.
+     */
+    private static class Candidate {
+        private final Tag fTag;
+        private final double fDistance;
+
+        public Candidate(Tag tag, double distance) {
+            fTag = tag;
+            fDistance = distance;
+        }
+    }
+
+    private static final Comparator<Candidate> NEAREST_FIRST = new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate first, Candidate second) {
+            return Double.compare(first.fDistance, second.fDistance);
+        }
+    };
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method visits the cells on the border of a square ring around a cell.
+     *
+     * @param closest   The closest tags found
+     * @param row       The row of the cell of the point
+     * @param column    The column of the cell of the point
+     * @param ring      The distance of the ring from the cell, in cells
+     * @param latitude  The latitude of the point
+     * @param longitude The longitude of the point
+     * @param count     The number of tags to find
+     *
+     * @return The number of tags visited
+     */
+    private int visitRing(PriorityQueue<Candidate> closest, int row, int column, int ring,
+                          double latitude, double longitude, int count) {
+        int visited = 0;
+        for (int y = row - ring; y <= row + ring; y++) {
+            /* The rows inside the ring only have their two ends on the border */
+            boolean border = (y == row - ring || y == row + ring);
+            int stride = (border || ring == 0) ? 1 : 2 * ring;
+            for (int x = column - ring; x <= column + ring; x += stride) {
+                List<Tag> cell = fCells.get(getKey(y, x));
+                if (cell != null) {
+                    offer(closest, cell, latitude, longitude, count);
+                    visited += cell.size();
+                }
+            }
+        }
+
+        return visited;
+    }
+
+    /**
+     * This util method keeps the tags of a cell that are closer than the farthest tag found.
+     *
+     * @param closest   The closest tags found
+     * @param cell      The tags of the cell
+     * @param latitude  The latitude of the point
+     * @param longitude The longitude of the point
+     * @param count     The number of tags to find
+     */
+    private static void offer(PriorityQueue<Candidate> closest, List<Tag> cell, double latitude,
+                              double longitude, int count) {
+        for (Tag tag : cell) {
+            double distance = tag.distanceTo(latitude, longitude);
+            if (closest.size() < count) {
+                closest.add(new Candidate(tag, distance));
+            } else if (distance < closest.peek().fDistance) {
+                closest.poll();
+                closest.add(new Candidate(tag, distance));
+            }
+        }
+    }
+
+    /**
+     * This util method returns the cells that overlap a box. A box that covers more cells than
+     * the index has returns every cell instead.
+     *
+     * @param south The latitude of the bottom of the box
+     * @param west  The longitude of the left of the box
+     * @param north The latitude of the top of the box
+     * @param east  The longitude of the right of the box
+     *
+     * @return The cells that may contain a tag of the box
+     */
+    private List<List<Tag>> getCells(double south, double west, double north, double east) {
+        int bottom = getIndex(south);
+        int top = getIndex(north);
+        int left = getIndex(west);
+        int right = getIndex(east);
+
+        if (top < bottom || right < left) {
+            return new ArrayList<>();
+        }
+        if ((long) (top - bottom + 1) * (right - left + 1) > fCells.size()) {
+            return new ArrayList<>(fCells.values());
+        }
+
+        List<List<Tag>> cells = new ArrayList<>();
+        for (int y = bottom; y <= top; y++) {
+            for (int x = left; x <= right; x++) {
+                List<Tag> cell = fCells.get(getKey(y, x));
+                if (cell != null) {
+                    cells.add(cell);
+                }
+            }
+        }
+
+        return cells;
+    }
+
+    /**
+     * This util method returns the cell of a key, creating it if it's empty.
+     */
+    private List<Tag> getCell(long key) {
+        List<Tag> cell = fCells.get(key);
+        if (cell == null) {
+            cell = new ArrayList<>(2);
+            fCells.put(key, cell);
+        }
+
+        return cell;
+    }
+
+    /**
+     * This util method returns the index of the cell along an axis.
+     */
+    private int getIndex(double degrees) {
+        return (int) Math.floor(degrees / fCellDegrees);
+    }
+
+    /**
+     * This util method returns the key of the cell of a position.
+     */
+    private long getKey(double latitude, double longitude) {
+        return getKey(getIndex(latitude), getIndex(longitude));
+    }
+
+    /**
+     * This util method returns the key of a cell from its row and its column.
+     */
+    private static long getKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * This util method returns the tags of the candidates, in the same order.
+     */
+    private static List<Tag> getTags(List<Candidate> candidates) {
+        List<Tag> tags = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            tags.add(candidate.fTag);
+        }
+
+        return tags;
+    }
+
+}
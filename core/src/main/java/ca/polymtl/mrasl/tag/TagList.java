@@ -0,0 +1,396 @@
+package ca.polymtl.mrasl.tag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.ros.INodeLauncher;
+import ca.polymtl.mrasl.ros.TagSurvivorSubscriberNode;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.shared.IListenerCaller;
+import ca.polymtl.mrasl.shared.ListenerRegistry;
+
+/**
+ * This class contains the list of detected tags in the mission. A survivor is seen many times, so
+ * a sighting of a tag that is close enough to a tag of the same ID is fused into it instead of
+ * being added. The added listeners are only called for new tags, the updated listeners for the
+ * tags that were seen again, and the restored listeners for the tags that were already detected
+ * before the list was created.
+ * <p/>
+ * The tags are indexed by their position as they arrive, so the tags near a point or inside the
+ * view of a map, and the tags a sighting can be fused into, are found without reading the whole
+ * list.
+ * <p/>
+ * The list only appends, to its tags and to its log of changes, and publishes a new
+ * {@link TagSnapshot} after every change. The readers take the last snapshot without locking nor
+ * copying, so the workers that add the sightings never block them.
+ * <p/>
+ * The images of the tags are moved into a {@link TagImageStore}, which keeps them compressed and
+ * decodes them when they are shown.
+ */
+public class TagList implements IDisposable, IListenerCaller<TagAddedListener> {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The smallest distance in meters between a sighting and the tag it is fused into
+     */
+    private static final double MIN_GATE = 20.0;
+
+    /**
+     * The number of standard deviations between a sighting and the tag it is fused into
+     */
+    private static final double GATE_SIGMAS = 3.0;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final Object fLock = new Object();
+    private final TagIndex fIndex = new TagIndex();
+    private final Map<Tag, Integer> fPositions = new IdentityHashMap<>();
+    private final TagSurvivorSubscriberNode fSubscriber = new TagSurvivorSubscriberNode(this);
+    private final INodeLauncher fLauncher = Platform.getInstance().getNodeLauncher();
+    private final TagImageStore fImages = new TagImageStore(
+            Platform.getInstance().getTagImageCodec(),
+            Platform.getInstance().getTagImageDirectory());
+    private final ListenerRegistry<TagAddedListener> fListeners =
+            new ListenerRegistry<>(TagAddedListener.class);
+    private final ListenerRegistry<TagUpdatedListener> fUpdateListeners =
+            new ListenerRegistry<>(TagUpdatedListener.class);
+    private final ListenerRegistry<TagsRestoredListener> fRestoreListeners =
+            new ListenerRegistry<>(TagsRestoredListener.class);
+
+    private Tag[] fTags = new Tag[INITIAL_CAPACITY];
+    private int[] fChanges = new int[INITIAL_CAPACITY];
+    private volatile TagSnapshot fSnapshot = new TagSnapshot(fTags, 0, fChanges, 0);
+    private double fMaxUncertainty;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    public TagList() {
+        /* Start the subscriber node */
+        fLauncher.launchNode(fSubscriber);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method adds a sighting of a tag to the list. The sighting is fused into the closest tag
+     * of the same ID within the gate, else it is added as a new tag. It can be called from any
+     * thread, the listeners are called on the thread of the caller.
+     *
+     * @param sighting The new sighting of a tag
+     *
+     * @return The tag that contains the sighting
+     */
+    public Tag addSighting(Tag sighting) {
+        Tag tag = null;
+        TagImage image;
+
+        /* The workers of the subscriber add their sightings concurrently */
+        synchronized (fLock) {
+            int index = findMatch(sighting);
+            if (index < 0) {
+                append(sighting);
+            } else {
+                tag = fTags[index];
+                tag.fuse(sighting);
+                fIndex.update(tag);
+                publish(index);
+            }
+            image = (tag != null) ? tag.takeImage() : sighting.takeImage();
+        }
+
+        /* Compress the new image outside of the lock, before the listeners show it */
+        if (image != null) {
+            fImages.put((tag != null) ? tag : sighting, image);
+        }
+
+        /* Call each listener for a new or an updated tag */
+        if (tag == null) {
+            for (TagAddedListener listener : fListeners.getListeners()) {
+                listener.onNewTag(sighting);
+            }
+            return sighting;
+        }
+
+        for (TagUpdatedListener listener : fUpdateListeners.getListeners()) {
+            listener.onTagUpdated(tag);
+        }
+        return tag;
+    }
+
+    /**
+     * This method restores tags that were already detected, like the tags recovered after a
+     * restart of the application. The tags are read once from the given list, without copying
+     * it, and the tags already in the list are skipped. The restored listeners are called on the
+     * thread of the caller.
+     *
+     * @param tags The tags that were already detected
+     */
+    public void restore(List<Tag> tags) {
+        List<Tag> restored = new ArrayList<>();
+        synchronized (fLock) {
+            for (int i = 0; i < tags.size(); i++) {
+                Tag tag = tags.get(i);
+                if (!fPositions.containsKey(tag)) {
+                    append(tag);
+                    restored.add(tag);
+                }
+            }
+        }
+
+        if (restored.isEmpty()) {
+            return;
+        }
+
+        for (TagsRestoredListener listener : fRestoreListeners.getListeners()) {
+            listener.onTagsRestored(restored);
+        }
+    }
+
+    /**
+     * This method adds a listener called when a tag is seen again.
+     *
+     * @param listener The listener to add
+     */
+    public void addUpdateListener(TagUpdatedListener listener) {
+        /* The registry ignores a listener that is already connected */
+        fUpdateListeners.add(listener);
+    }
+
+    /**
+     * This method removes a listener called when a tag is seen again.
+     *
+     * @param listener The listener to remove
+     */
+    public void removeUpdateListener(TagUpdatedListener listener) {
+        /* Remove the listener from the registry */
+        fUpdateListeners.remove(listener);
+    }
+
+    /**
+     * This method adds a listener called when tags that were already detected are restored.
+     *
+     * @param listener The listener to add
+     */
+    public void addRestoreListener(TagsRestoredListener listener) {
+        /* The registry ignores a listener that is already connected */
+        fRestoreListeners.add(listener);
+    }
+
+    /**
+     * This method removes a listener called when tags that were already detected are restored.
+     *
+     * @param listener The listener to remove
+     */
+    public void removeRestoreListener(TagsRestoredListener listener) {
+        /* Remove the listener from the registry */
+        fRestoreListeners.remove(listener);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        /* Shutdown the subscriber node */
+        fLauncher.shutdownNode(fSubscriber);
+        fSubscriber.dispose();
+
+        /* Delete the spilled images */
+        fImages.dispose();
+    }
+
+    @Override
+    public void addListener(TagAddedListener listener) {
+        /* The registry ignores a listener that is already connected */
+        fListeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(TagAddedListener listener) {
+        /* Remove the listener from the registry */
+        fListeners.remove(listener);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns an immutable list of detected tag. The list is a view of the last
+     * snapshot, nothing is copied.
+     *
+     * @return The list of detected tag
+     */
+    public List<Tag> getList() {
+        return fSnapshot.getTags();
+    }
+
+    /**
+     * Accessor that returns the last snapshot of the list. It never blocks, even while a sighting
+     * is being added.
+     *
+     * @return The snapshot of the list
+     */
+    public TagSnapshot getSnapshot() {
+        return fSnapshot;
+    }
+
+    /**
+     * Accessor that returns the store of the images of the tags.
+     *
+     * @return The store of the tag images
+     */
+    public TagImageStore getImageStore() {
+        return fImages;
+    }
+
+    /**
+     * Accessor that returns the tags closest to a point, like the survivors closest to the drone.
+     *
+     * @param latitude  The latitude of the point
+     * @param longitude The longitude of the point
+     * @param count     The number of tags to return
+     *
+     * @return The closest tags, from the closest to the farthest
+     */
+    public List<Tag> getNearest(double latitude, double longitude, int count) {
+        synchronized (fLock) {
+            return Collections.unmodifiableList(fIndex.getNearest(latitude, longitude, count));
+        }
+    }
+
+    /**
+     * Accessor that returns the tags within a distance of a point.
+     *
+     * @param latitude  The latitude of the point
+     * @param longitude The longitude of the point
+     * @param radius    The distance in meters
+     *
+     * @return The tags within the distance, from the closest to the farthest
+     */
+    public List<Tag> getWithin(double latitude, double longitude, double radius) {
+        synchronized (fLock) {
+            return Collections.unmodifiableList(fIndex.getWithin(latitude, longitude, radius));
+        }
+    }
+
+    /**
+     * Accessor that returns the tags inside a box, like the view of a map.
+     *
+     * @param south The latitude of the bottom of the box
+     * @param west  The longitude of the left of the box
+     * @param north The latitude of the top of the box
+     * @param east  The longitude of the right of the box
+     *
+     * @return The tags inside the box, in no particular order
+     */
+    public List<Tag> getInBox(double south, double west, double north, double east) {
+        synchronized (fLock) {
+            return Collections.unmodifiableList(fIndex.getInBox(south, west, north, east));
+        }
+    }
+
+    /**
+     * Accessor that returns the subscriber node of the survivors, with the statistics of the
+     * images it received.
+     *
+     * @return The subscriber node of the survivors
+     */
+    public TagSurvivorSubscriberNode getSubscriber() {
+        return fSubscriber;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method finds the closest tag of the same ID as a sighting. The gate grows with the
+     * uncertainty of both, so two survivors wearing the same ID far apart stay two tags. Only the
+     * tags within the widest gate, with the most uncertain tag, are read from the index. The lock
+     * of the list must be held.
+     *
+     * @param sighting The sighting of a tag
+     *
+     * @return The index of the closest tag in the gate, or -1 if there is none
+     */
+    private int findMatch(Tag sighting) {
+        double latitude = sighting.getLatitude();
+        double longitude = sighting.getLongitude();
+        double uncertainty = sighting.getUncertainty();
+
+        /* The candidates come from the closest to the farthest, the first in its gate wins */
+        double radius = Math.max(MIN_GATE, GATE_SIGMAS * Math.hypot(fMaxUncertainty, uncertainty));
+        for (Tag tag : fIndex.getWithin(latitude, longitude, radius)) {
+            if (tag.getID() != sighting.getID()) {
+                continue;
+            }
+
+            double sigma = Math.hypot(tag.getUncertainty(), uncertainty);
+            double gate = Math.max(MIN_GATE, GATE_SIGMAS * sigma);
+            if (tag.distanceTo(latitude, longitude) <= gate) {
+                return fPositions.get(tag);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * This util method appends a new tag to the list and publishes it. The arrays grow by copy, so
+     * the snapshots that share the old ones stay valid. The lock of the list must be held.
+     *
+     * @param tag The new tag
+     */
+    private void append(Tag tag) {
+        int count = fSnapshot.getCount();
+        if (count == fTags.length) {
+            fTags = Arrays.copyOf(fTags, count * 2);
+        }
+
+        fTags[count] = tag;
+        fIndex.add(tag);
+        fPositions.put(tag, count);
+
+        /* The fusions only shrink the uncertainty, so the widest gate stays an upper bound */
+        fMaxUncertainty = Math.max(fMaxUncertainty, tag.getUncertainty());
+        publish(count);
+    }
+
+    /**
+     * This util method logs a change of a tag and publishes a new snapshot. The slots are written
+     * before the volatile snapshot that covers them, so a reader never sees a slot half written.
+     * The lock of the list must be held.
+     *
+     * @param index The index of the changed tag
+     */
+    private void publish(int index) {
+        TagSnapshot snapshot = fSnapshot;
+        int version = snapshot.getVersion();
+        if (version == fChanges.length) {
+            fChanges = Arrays.copyOf(fChanges, version * 2);
+        }
+
+        fChanges[version] = index;
+        int count = Math.max(snapshot.getCount(), index + 1);
+        fSnapshot = new TagSnapshot(fTags, count, fChanges, version + 1);
+    }
+
+}
@@ -0,0 +1,141 @@
+package ca.polymtl.mrasl.tag;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is a consistent view of a list of tags at one version. The list only appends, to its
+ * tags and to its log of changes, so a snapshot shares the arrays of the list and only remembers
+ * how far they were filled. Taking a snapshot never copies nor locks.
+ * <p/>
+ * The version counts the changes of the list, every new tag and every sighting fused into a tag.
+ * A reader that kept the version of its last snapshot gets the tags that changed since, instead of
+ * reading the whole list again. The tags themselves are still updated in place, so a snapshot
+ * fixes which tags exist, not their position.
+ */
+public class TagSnapshot {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final Tag[] fTags;
+    private final int fCount;
+    private final int[] fChanges;
+    private final int fVersion;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a snapshot. The arrays are shared with the list, which never writes below
+     * the count and the version.
+     *
+     * @param tags    The tags of the list
+     * @param count   The number of tags in the snapshot
+     * @param changes The index of the tag of every change of the list
+     * @param version The number of changes in the snapshot
+     */
+    TagSnapshot(Tag[] tags, int count, int[] changes, int version) {
+        fTags = tags;
+        fCount = count;
+        fChanges = changes;
+        fVersion = version;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method returns the tags that were added or updated after a version, in the order of
+     * their first change. A tag that changed many times is only returned once.
+     *
+     * @param version The version of the last snapshot of the reader
+     *
+     * @return The changed tags, which are all the tags for the version zero
+     */
+    public List<Tag> getChangedSince(int version) {
+        if (version < 0 || version > fVersion) {
+            throw new IllegalArgumentException("The version " + version + " isn't between 0 and " +
+                    fVersion);
+        }
+
+        /* Every tag changed since the start */
+        if (version == 0) {
+            return getTags();
+        }
+
+        boolean[] seen = new boolean[fCount];
+        List<Tag> tags = new ArrayList<>();
+        for (int i = version; i < fVersion; i++) {
+            int index = fChanges[i];
+            if (!seen[index]) {
+                seen[index] = true;
+                tags.add(fTags[index]);
+            }
+        }
+
+        return tags;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the version of the snapshot.
+     *
+     * @return The number of changes of the list
+     */
+    public int getVersion() {
+        return fVersion;
+    }
+
+    /**
+     * Accessor that returns the number of tags in the snapshot.
+     *
+     * @return The number of tags
+     */
+    public int getCount() {
+        return fCount;
+    }
+
+    /**
+     * Accessor that returns a tag of the snapshot, in the order they were detected.
+     *
+     * @param index The index of the tag
+     *
+     * @return The tag
+     */
+    public Tag get(int index) {
+        if (index < 0 || index >= fCount) {
+            throw new IndexOutOfBoundsException("Tag " + index + " of " + fCount);
+        }
+
+        return fTags[index];
+    }
+
+    /**
+     * Accessor that returns the tags of the snapshot as an immutable list. The list reads the
+     * array of the snapshot, nothing is copied.
+     *
+     * @return The tags, in the order they were detected
+     */
+    public List<Tag> getTags() {
+        return new AbstractList<Tag>() {
+            @Override
+            public Tag get(int index) {
+                return TagSnapshot.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return fCount;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,16 @@
+package ca.polymtl.mrasl.tag;
+
+/**
+ * This interface defines a callback when a tag of a list of tag is seen again.
+ */
+public interface TagUpdatedListener {
+
+    /**
+     * This method is called when a new sighting was fused into a tag of a list of tag. The
+     * position and the image of the tag may have changed.
+     *
+     * @param tag The updated tag
+     */
+    void onTagUpdated(Tag tag);
+
+}
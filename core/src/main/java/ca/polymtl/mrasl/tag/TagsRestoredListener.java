@@ -0,0 +1,18 @@
+package ca.polymtl.mrasl.tag;
+
+import java.util.List;
+
+/**
+ * This interface defines a callback when tags that were already detected are restored in a list
+ * of tag, like the tags recovered after a restart of the application.
+ */
+public interface TagsRestoredListener {
+
+    /**
+     * This method is called when tags were restored in a list of tag.
+     *
+     * @param tags The restored tags
+     */
+    void onTagsRestored(List<Tag> tags);
+
+}
@@ -0,0 +1,93 @@
+package ca.polymtl.mrasl.telemetry;
+
+/**
+ * This class contains the minimum, the maximum and the mean of the samples of a channel over a
+ * window of time.
+ */
+public class Aggregate {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private float fMin = Float.POSITIVE_INFINITY;
+    private float fMax = Float.NEGATIVE_INFINITY;
+    private double fSum;
+    private long fCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator adds a single sample to the aggregate.
+     *
+     * @param value The value of the sample
+     */
+    void add(float value) {
+        fMin = Math.min(fMin, value);
+        fMax = Math.max(fMax, value);
+        fSum += value;
+        fCount++;
+    }
+
+    /**
+     * This mutator adds a group of samples that were already aggregated.
+     *
+     * @param min   The smallest value of the group
+     * @param max   The largest value of the group
+     * @param sum   The sum of the values of the group
+     * @param count The number of samples of the group
+     */
+    void add(float min, float max, double sum, long count) {
+        if (count == 0) {
+            return;
+        }
+
+        fMin = Math.min(fMin, min);
+        fMax = Math.max(fMax, max);
+        fSum += sum;
+        fCount += count;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the smallest value of the window.
+     *
+     * @return The smallest value, or {@code NaN} if the window is empty
+     */
+    public float getMin() {
+        return (fCount > 0) ? fMin : Float.NaN;
+    }
+
+    /**
+     * Accessor that returns the largest value of the window.
+     *
+     * @return The largest value, or {@code NaN} if the window is empty
+     */
+    public float getMax() {
+        return (fCount > 0) ? fMax : Float.NaN;
+    }
+
+    /**
+     * Accessor that returns the mean of the values of the window.
+     *
+     * @return The mean, or {@code NaN} if the window is empty
+     */
+    public double getMean() {
+        return (fCount > 0) ? fSum / fCount : Double.NaN;
+    }
+
+    /**
+     * Accessor that returns the number of samples in the window.
+     *
+     * @return The number of samples
+     */
+    public long getCount() {
+        return fCount;
+    }
+
+}
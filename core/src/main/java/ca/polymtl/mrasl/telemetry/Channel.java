@@ -0,0 +1,62 @@
+package ca.polymtl.mrasl.telemetry;
+
+/**
+ * This enumeration defines the channels of the telemetry history. Each channel is a single field
+ * of a telemetry payload.
+ */
+public enum Channel {
+
+    /**
+     * Channel of the latitude of the GPS
+     */
+    GPS_LATITUDE,
+    /**
+     * Channel of the longitude of the GPS
+     */
+    GPS_LONGITUDE,
+    /**
+     * Channel of the altitude of the GPS
+     */
+    GPS_ALTITUDE,
+    /**
+     * Channel of the bearing of the GPS
+     */
+    GPS_BEARING,
+    /**
+     * Channel of the accuracy of the GPS
+     */
+    GPS_ACCURACY,
+    /**
+     * Channel of the speed of the GPS
+     */
+    GPS_SPEED,
+    /**
+     * Channel of the X axis of the accelerometer
+     */
+    SENSORS_ACC_X,
+    /**
+     * Channel of the Y axis of the accelerometer
+     */
+    SENSORS_ACC_Y,
+    /**
+     * Channel of the Z axis of the accelerometer
+     */
+    SENSORS_ACC_Z,
+    /**
+     * Channel of the first component of the rotation vector
+     */
+    SENSORS_ROT_1,
+    /**
+     * Channel of the second component of the rotation vector
+     */
+    SENSORS_ROT_2,
+    /**
+     * Channel of the third component of the rotation vector
+     */
+    SENSORS_ROT_3,
+    /**
+     * Channel of the fourth component of the rotation vector
+     */
+    SENSORS_ROT_4;
+
+}
@@ -0,0 +1,256 @@
+package ca.polymtl.mrasl.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a level of the downsampling pyramid of a time series. The time is split
+ * into buckets of a fixed width since the first sample, and each bucket keeps the minimum, the
+ * maximum, the sum and the number of its samples. Only the buckets that have samples are stored,
+ * in the order of the time, so a gap in the telemetry doesn't use memory.
+ * <p/>
+ * A level keeps at most {@link #MAX_BUCKETS} buckets. When it is full, its oldest buckets are
+ * forgotten, so its memory is bounded and the coarser levels still cover the older telemetry.
+ */
+class DownsamplingLevel {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Maximum number of buckets kept by a level
+     */
+    static final int MAX_BUCKETS = 1024;
+
+    private static final int INITIAL_BUCKETS = 64;
+    private static final int EVICTED_BUCKETS = MAX_BUCKETS / 4;
+    private static final int BUCKET_SIZE = 4 + 4 + 4 + 8 + 4;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final long fOrigin;
+    private final long fWidth;
+
+    private int[] fIndex = new int[INITIAL_BUCKETS];
+    private float[] fMin = new float[INITIAL_BUCKETS];
+    private float[] fMax = new float[INITIAL_BUCKETS];
+    private double[] fSum = new double[INITIAL_BUCKETS];
+    private int[] fCount = new int[INITIAL_BUCKETS];
+    private int fBuckets;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a level of the pyramid.
+     *
+     * @param origin The timestamp where the first bucket starts
+     * @param width  The width of the buckets
+     */
+    DownsamplingLevel(long origin, long width) {
+        fOrigin = origin;
+        fWidth = width;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method adds a sample to its bucket. The samples before the origin are added to the
+     * first bucket.
+     *
+     * @param timestamp The timestamp of the sample
+     * @param value     The value of the sample
+     *
+     * @return {@code true} if the level grew to make room for a new bucket
+     */
+    boolean add(long timestamp, float value) {
+        int bucket = (int) Math.max(0, (timestamp - fOrigin) / fWidth);
+        int length = fIndex.length;
+
+        /* The samples usually fall into the last bucket or a new one */
+        int position = fBuckets - 1;
+        if (position < 0 || fIndex[position] != bucket) {
+            position = find(bucket);
+            if (position == fBuckets || fIndex[position] != bucket) {
+                position = insert(position, bucket);
+            }
+        }
+
+        /* The bucket of a very late sample was already forgotten */
+        if (position < 0) {
+            return false;
+        }
+
+        if (fCount[position] == 0) {
+            fMin[position] = value;
+            fMax[position] = value;
+        } else {
+            fMin[position] = Math.min(fMin[position], value);
+            fMax[position] = Math.max(fMax[position], value);
+        }
+        fSum[position] += value;
+        fCount[position]++;
+
+        return fIndex.length != length;
+    }
+
+    /**
+     * This method adds a range of buckets to an aggregate.
+     *
+     * @param first  The index of the first bucket
+     * @param last   The index after the last bucket
+     * @param result The aggregate
+     */
+    void aggregate(int first, int last, Aggregate result) {
+        for (int i = find(first); i < fBuckets && fIndex[i] < last; i++) {
+            result.add(fMin[i], fMax[i], fSum[i], fCount[i]);
+        }
+    }
+
+    /**
+     * This method finds the position of the first stored bucket at or after a bucket.
+     *
+     * @param bucket The index of the bucket
+     *
+     * @return The position of the stored bucket, or the number of stored buckets if none
+     */
+    private int find(int bucket) {
+        int low = 0;
+        int high = fBuckets;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (fIndex[middle] < bucket) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * This method inserts an empty bucket at a position. A full level forgets its oldest buckets
+     * to make room.
+     *
+     * @param position The position of the new bucket
+     * @param bucket   The index of the bucket
+     *
+     * @return The position of the new bucket, or -1 if it is older than every bucket kept
+     */
+    private int insert(int position, int bucket) {
+        /* Make room for the bucket */
+        if (fBuckets == fIndex.length && fIndex.length < MAX_BUCKETS) {
+            int length = Math.min(fIndex.length * 2, MAX_BUCKETS);
+            fIndex = Arrays.copyOf(fIndex, length);
+            fMin = Arrays.copyOf(fMin, length);
+            fMax = Arrays.copyOf(fMax, length);
+            fSum = Arrays.copyOf(fSum, length);
+            fCount = Arrays.copyOf(fCount, length);
+        } else if (fBuckets == fIndex.length) {
+            int evicted = Math.min(position, EVICTED_BUCKETS);
+            if (evicted == 0) {
+                return -1;
+            }
+
+            evict(evicted);
+            position -= evicted;
+        }
+
+        /* Only a late sample is inserted before the last bucket */
+        int moved = fBuckets - position;
+        if (moved > 0) {
+            System.arraycopy(fIndex, position, fIndex, position + 1, moved);
+            System.arraycopy(fMin, position, fMin, position + 1, moved);
+            System.arraycopy(fMax, position, fMax, position + 1, moved);
+            System.arraycopy(fSum, position, fSum, position + 1, moved);
+            System.arraycopy(fCount, position, fCount, position + 1, moved);
+        }
+
+        fIndex[position] = bucket;
+        fSum[position] = 0;
+        fCount[position] = 0;
+        fBuckets++;
+
+        return position;
+    }
+
+    /**
+     * This method forgets the oldest buckets. They are removed in batches, so the copy is only
+     * done once every {@link #EVICTED_BUCKETS} new buckets.
+     *
+     * @param count The number of buckets to forget
+     */
+    private void evict(int count) {
+        int kept = fBuckets - count;
+        System.arraycopy(fIndex, count, fIndex, 0, kept);
+        System.arraycopy(fMin, count, fMin, 0, kept);
+        System.arraycopy(fMax, count, fMax, 0, kept);
+        System.arraycopy(fSum, count, fSum, 0, kept);
+        System.arraycopy(fCount, count, fCount, 0, kept);
+        fBuckets = kept;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the index of the oldest bucket kept by the level. The buckets before
+     * it were forgotten and can't be aggregated anymore.
+     *
+     * @return The index of the oldest bucket, or 0 if the level is empty
+     */
+    int getFirstBucket() {
+        return (fBuckets == 0) ? 0 : fIndex[0];
+    }
+
+    /**
+     * Accessor that returns the index of the bucket that starts at or after a timestamp.
+     *
+     * @param timestamp The timestamp
+     *
+     * @return The index of the bucket
+     */
+    int getBucketAfter(long timestamp) {
+        return (int) ((timestamp - fOrigin + fWidth - 1) / fWidth);
+    }
+
+    /**
+     * Accessor that returns the index of the bucket that contains a timestamp.
+     *
+     * @param timestamp The timestamp
+     *
+     * @return The index of the bucket
+     */
+    int getBucket(long timestamp) {
+        return (int) ((timestamp - fOrigin) / fWidth);
+    }
+
+    /**
+     * Accessor that returns the timestamp where a bucket starts.
+     *
+     * @param bucket The index of the bucket
+     *
+     * @return The start of the bucket
+     */
+    long getStartTime(int bucket) {
+        return fOrigin + bucket * fWidth;
+    }
+
+    /**
+     * Accessor that returns the memory used by the level in bytes.
+     *
+     * @return The memory used by the level
+     */
+    long getSize() {
+        return (long) fIndex.length * BUCKET_SIZE;
+    }
+
+}
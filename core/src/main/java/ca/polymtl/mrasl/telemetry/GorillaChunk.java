@@ -0,0 +1,360 @@
+package ca.polymtl.mrasl.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a chunk of samples compressed like the Gorilla time series database. The
+ * timestamps are encoded by the difference between two consecutive deltas and the values by the
+ * XOR with the previous value, so a regular and slowly changing signal only takes a few bits per
+ * sample. The format of each sample is defined in the following graph:
+ * <p/>
+ * Timestamp, from the delta-of-delta:
+ * [ 0                ] The delta didn't change
+ * [ 10   +  7 bits   ] The delta-of-delta is between -63 and 64
+ * [ 110  +  9 bits   ] The delta-of-delta is between -255 and 256
+ * [ 1110 + 12 bits   ] The delta-of-delta is between -2047 and 2048
+ * [ 1111 + 64 bits   ] Any other delta-of-delta
+ * <p/>
+ * Value, from the XOR with the previous value:
+ * [ 0                ] The value didn't change
+ * [ 10 + bits        ] The meaningful bits fit in the window of the previous value
+ * [ 11 + 5 + 5 + bits] The number of leading zeros, the number of meaningful bits minus one and
+ * the meaningful bits
+ * <p/>
+ * The first sample is stored with its full timestamp and value.
+ */
+class GorillaChunk {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Number of samples in a full chunk
+     */
+    static final int CAPACITY = 1024;
+
+    private static final int INITIAL_WORDS = 16;
+    private static final int OVERHEAD = 96;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private long[] fWords = new long[INITIAL_WORDS];
+    private long fBits;
+    private int fCount;
+    private long fStartTime;
+    private long fEndTime;
+
+    /* State of the encoder */
+    private long fDelta;
+    private int fValue;
+    private int fLeading = -1;
+    private int fTrailing;
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method appends a sample to the chunk.
+     *
+     * @param timestamp The timestamp of the sample
+     * @param value     The value of the sample
+     *
+     * @return {@code true} if the sample was added, or {@code false} if the chunk is full
+     */
+    boolean append(long timestamp, float value) {
+        if (fCount == CAPACITY) {
+            return false;
+        }
+
+        int bits = Float.floatToRawIntBits(value);
+
+        /* The first sample is stored as is */
+        if (fCount == 0) {
+            writeBits(timestamp, 64);
+            writeBits(bits, 32);
+            fStartTime = timestamp;
+        } else {
+            long delta = timestamp - fEndTime;
+            writeTimestamp(delta - fDelta);
+            writeValue(bits ^ fValue);
+            fDelta = delta;
+        }
+
+        fEndTime = timestamp;
+        fValue = bits;
+        fCount++;
+
+        return true;
+    }
+
+    /**
+     * This method releases the unused part of the buffer once the chunk is full.
+     */
+    void seal() {
+        fWords = Arrays.copyOf(fWords, (int) ((fBits + 63) >>> 6));
+    }
+
+    /**
+     * This method encodes the delta-of-delta of a timestamp.
+     *
+     * @param delta The difference between the current and the previous delta
+     */
+    private void writeTimestamp(long delta) {
+        if (delta == 0) {
+            writeBits(0x0, 1);
+        } else if (delta >= -63 && delta <= 64) {
+            writeBits(0x2, 2);
+            writeBits(delta + 63, 7);
+        } else if (delta >= -255 && delta <= 256) {
+            writeBits(0x6, 3);
+            writeBits(delta + 255, 9);
+        } else if (delta >= -2047 && delta <= 2048) {
+            writeBits(0xE, 4);
+            writeBits(delta + 2047, 12);
+        } else {
+            writeBits(0xF, 4);
+            writeBits(delta, 64);
+        }
+    }
+
+    /**
+     * This method encodes the XOR between a value and the previous value.
+     *
+     * @param xor The XOR of both values
+     */
+    private void writeValue(int xor) {
+        if (xor == 0) {
+            writeBits(0x0, 1);
+            return;
+        }
+
+        int leading = Integer.numberOfLeadingZeros(xor);
+        int trailing = Integer.numberOfTrailingZeros(xor);
+
+        /* Reuse the window of the previous value if the meaningful bits fit in it */
+        if (fLeading >= 0 && leading >= fLeading && trailing >= fTrailing) {
+            writeBits(0x2, 2);
+            writeBits(xor >>> fTrailing, Integer.SIZE - fLeading - fTrailing);
+            return;
+        }
+
+        int meaningful = Integer.SIZE - leading - trailing;
+        writeBits(0x3, 2);
+        writeBits(leading, 5);
+        writeBits(meaningful - 1, 5);
+        writeBits(xor >>> trailing, meaningful);
+
+        fLeading = leading;
+        fTrailing = trailing;
+    }
+
+    /**
+     * This method appends the lowest bits of a value to the buffer, most significant bit first.
+     *
+     * @param value The value to append
+     * @param count The number of bits to append, from 1 to 64
+     */
+    private void writeBits(long value, int count) {
+        /* Grow the buffer if needed */
+        if (fBits + count > (long) fWords.length * Long.SIZE) {
+            fWords = Arrays.copyOf(fWords, fWords.length * 2);
+        }
+
+        if (count < Long.SIZE) {
+            value &= (1L << count) - 1;
+        }
+
+        int index = (int) (fBits >>> 6);
+        int free = Long.SIZE - (int) (fBits & 63);
+
+        /* Split the bits between two words if needed */
+        if (count <= free) {
+            fWords[index] |= value << (free - count);
+        } else {
+            fWords[index] |= value >>> (count - free);
+            fWords[index + 1] |= value << (Long.SIZE - (count - free));
+        }
+
+        fBits += count;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns a new cursor on the first sample of the chunk.
+     *
+     * @return The cursor
+     */
+    Cursor getCursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Accessor that returns the number of samples in the chunk.
+     *
+     * @return The number of samples
+     */
+    int getCount() {
+        return fCount;
+    }
+
+    /**
+     * Accessor that returns the timestamp of the first sample.
+     *
+     * @return The timestamp of the first sample
+     */
+    long getStartTime() {
+        return fStartTime;
+    }
+
+    /**
+     * Accessor that returns the timestamp of the last sample.
+     *
+     * @return The timestamp of the last sample
+     */
+    long getEndTime() {
+        return fEndTime;
+    }
+
+    /**
+     * Accessor that returns the memory used by the chunk in bytes.
+     *
+     * @return The memory used by the chunk
+     */
+    long getSize() {
+        return (long) fWords.length * 8 + OVERHEAD;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class decodes the samples of the chunk in order. The samples appended after the cursor
+     * was created are also decoded.
+     */
+    class Cursor {
+        private long fPosition;
+        private int fIndex;
+        private long fTimestamp;
+        private long fCursorDelta;
+        private int fBitsValue;
+        private int fCursorLeading;
+        private int fCursorTrailing;
+
+        /**
+         * This method decodes the next sample.
+         *
+         * @return {@code true} if there is a sample, or {@code false} at the end of the chunk
+         */
+        boolean next() {
+            if (fIndex >= fCount) {
+                return false;
+            }
+
+            if (fIndex == 0) {
+                fTimestamp = readBits(64);
+                fBitsValue = (int) readBits(32);
+            } else {
+                fCursorDelta += readTimestamp();
+                fTimestamp += fCursorDelta;
+                fBitsValue ^= readValue();
+            }
+
+            fIndex++;
+            return true;
+        }
+
+        /**
+         * This method decodes the delta-of-delta of a timestamp.
+         *
+         * @return The delta-of-delta
+         */
+        private long readTimestamp() {
+            if (readBits(1) == 0) {
+                return 0;
+            }
+            if (readBits(1) == 0) {
+                return readBits(7) - 63;
+            }
+            if (readBits(1) == 0) {
+                return readBits(9) - 255;
+            }
+            if (readBits(1) == 0) {
+                return readBits(12) - 2047;
+            }
+
+            return readBits(64);
+        }
+
+        /**
+         * This method decodes the XOR with the previous value.
+         *
+         * @return The XOR of both values
+         */
+        private int readValue() {
+            if (readBits(1) == 0) {
+                return 0;
+            }
+
+            /* Read a new window if needed */
+            if (readBits(1) == 1) {
+                fCursorLeading = (int) readBits(5);
+                int meaningful = (int) readBits(5) + 1;
+                fCursorTrailing = Integer.SIZE - fCursorLeading - meaningful;
+            }
+
+            int meaningful = Integer.SIZE - fCursorLeading - fCursorTrailing;
+            return (int) readBits(meaningful) << fCursorTrailing;
+        }
+
+        /**
+         * This method reads bits from the buffer, most significant bit first.
+         *
+         * @param count The number of bits to read, from 1 to 64
+         *
+         * @return The bits in the lowest bits of the result
+         */
+        private long readBits(int count) {
+            int index = (int) (fPosition >>> 6);
+            int free = Long.SIZE - (int) (fPosition & 63);
+            long value;
+
+            /* Join the bits of two words if needed */
+            if (count <= free) {
+                value = fWords[index] >>> (free - count);
+            } else {
+                value = (fWords[index] << (count - free)) |
+                        (fWords[index + 1] >>> (Long.SIZE - (count - free)));
+            }
+
+            fPosition += count;
+            return (count < Long.SIZE) ? value & ((1L << count) - 1) : value;
+        }
+
+        /**
+         * Accessor that returns the timestamp of the current sample.
+         *
+         * @return The timestamp
+         */
+        long getTimestamp() {
+            return fTimestamp;
+        }
+
+        /**
+         * Accessor that returns the value of the current sample.
+         *
+         * @return The value
+         */
+        float getValue() {
+            return Float.intBitsToFloat(fBitsValue);
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package ca.polymtl.mrasl.telemetry;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import ca.polymtl.mrasl.mission.State;
+
+/**
+ * This class defines the rates of the telemetry for a state of the mission. The drone only needs
+ * the full rate while it is flying, so the sensors, the GPS and the radio link slow down while
+ * the mission is on the ground to save the battery of the tablet.
+ */
+public class RateProfile {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Sampling period of the sensors for the fastest rate, in microseconds
+     */
+    public static final int SENSOR_PERIOD_FASTEST = 0;
+
+    /**
+     * Radio frequency that uses the frequency of the preferences
+     */
+    public static final int RADIO_FREQUENCY_PREFERENCE = 0;
+
+    /* Profile while the drone waits on the ground */
+    private static final RateProfile GROUND = new RateProfile(200000, 2000, 2);
+
+    /* Profile while the drone flies, including the aborts */
+    private static final RateProfile FLIGHT = new RateProfile(
+            SENSOR_PERIOD_FASTEST, 0, RADIO_FREQUENCY_PREFERENCE);
+
+    /* Profile once the drone landed with its motors off */
+    private static final RateProfile IDLE = new RateProfile(1000000, 10000, 1);
+
+    private static final Map<State, RateProfile> PROFILES = new EnumMap<>(State.class);
+
+    static {
+        PROFILES.put(State.READY, GROUND);
+        PROFILES.put(State.START_MISSION, FLIGHT);
+        PROFILES.put(State.ABORT_LANDING, FLIGHT);
+        PROFILES.put(State.ABORT_MISSION, FLIGHT);
+        PROFILES.put(State.FINISHED, IDLE);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final int fSensorPeriod;
+    private final long fGPSInterval;
+    private final int fRadioFrequency;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a rate profile.
+     *
+     * @param sensorPeriod   The sampling period of the sensors in microseconds
+     * @param gpsInterval    The minimum time between the location updates in milliseconds
+     * @param radioFrequency The maximum frequency of the radio link in hertz, or
+     *                       {@link #RADIO_FREQUENCY_PREFERENCE}
+     */
+    public RateProfile(int sensorPeriod, long gpsInterval, int radioFrequency) {
+        fSensorPeriod = sensorPeriod;
+        fGPSInterval = gpsInterval;
+        fRadioFrequency = radioFrequency;
+    }
+
+    /**
+     * Factory constructor that returns the profile of a state of the mission.
+     *
+     * @param state The state of the mission
+     *
+     * @return The rate profile of the state
+     */
+    public static RateProfile forState(State state) {
+        return PROFILES.get(state);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the sampling period of the sensors in microseconds.
+     *
+     * @return The sampling period of the sensors
+     */
+    public int getSensorPeriod() {
+        return fSensorPeriod;
+    }
+
+    /**
+     * Accessor that returns the minimum time between two location updates in milliseconds.
+     *
+     * @return The interval of the GPS
+     */
+    public long getGPSInterval() {
+        return fGPSInterval;
+    }
+
+    /**
+     * Accessor that returns the minimum delay between two frames of the radio link in
+     * milliseconds. It returns zero if the frequency of the preferences must be used.
+     *
+     * @return The minimum delay of the radio link
+     */
+    public int getRadioDelay() {
+        return (fRadioFrequency > 0) ? 1000 / fRadioFrequency : 0;
+    }
+
+}
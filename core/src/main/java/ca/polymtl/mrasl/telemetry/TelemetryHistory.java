@@ -0,0 +1,244 @@
+package ca.polymtl.mrasl.telemetry;
+
+import ca.polymtl.mrasl.payload.PayloadGPS;
+import ca.polymtl.mrasl.payload.PayloadSensors;
+
+/**
+ * This class keeps the history of the telemetry of the mission. Each field of the payloads is a
+ * {@link Channel} stored in compressed columns, with a downsampling pyramid that answers the
+ * aggregate queries without decoding the whole window.
+ * <p/>
+ * The memory used is limited by a cap. When it's reached, the oldest samples of all the channels
+ * are evicted first. Each level of the pyramid only keeps a fixed number of buckets, so it is
+ * bounded as well, and the coarsest level still covers days of telemetry. The methods can be
+ * called from any thread.
+ */
+public class TelemetryHistory {
+
+    private static TelemetryHistory Instance;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Default memory cap of the history in bytes
+     */
+    public static final long DEFAULT_MEMORY_CAP = 16 * 1024 * 1024;
+
+    private static final int ACCELEROMETER_AXES = 3;
+    private static final int ROTATION_COMPONENTS = 4;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final TimeSeries[] fSeries = new TimeSeries[Channel.values().length];
+
+    private long fMemoryCap;
+    private long fEvicted;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    public static synchronized TelemetryHistory getInstance() {
+        /* Setup the singleton instance */
+        if (Instance == null) {
+            Instance = new TelemetryHistory(DEFAULT_MEMORY_CAP);
+        }
+
+        return Instance;
+    }
+
+    /**
+     * Constructor for a telemetry history.
+     *
+     * @param memoryCap The memory cap of the history in bytes
+     */
+    public TelemetryHistory(long memoryCap) {
+        fMemoryCap = memoryCap;
+
+        for (int i = 0; i < fSeries.length; i++) {
+            fSeries[i] = new TimeSeries();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method appends a GPS payload to the history.
+     *
+     * @param timestamp The timestamp of the payload in milliseconds
+     * @param payload   The GPS payload
+     */
+    public synchronized void recordGPS(long timestamp, PayloadGPS payload) {
+        boolean grown = fSeries[Channel.GPS_LATITUDE.ordinal()]
+                .append(timestamp, payload.getLatitude());
+        grown |= fSeries[Channel.GPS_LONGITUDE.ordinal()]
+                .append(timestamp, payload.getLongitude());
+        grown |= fSeries[Channel.GPS_ALTITUDE.ordinal()]
+                .append(timestamp, payload.getAltitude());
+        grown |= fSeries[Channel.GPS_BEARING.ordinal()]
+                .append(timestamp, payload.getBearing());
+        grown |= fSeries[Channel.GPS_ACCURACY.ordinal()]
+                .append(timestamp, payload.getAccuracy());
+        grown |= fSeries[Channel.GPS_SPEED.ordinal()]
+                .append(timestamp, payload.getSpeed());
+
+        /* The memory only grows significantly when a chunk is full or the pyramid grows */
+        if (grown) {
+            enforceMemoryCap();
+        }
+    }
+
+    /**
+     * This method appends a sensors payload to the history.
+     *
+     * @param timestamp The timestamp of the payload in milliseconds
+     * @param payload   The sensors payload
+     */
+    public synchronized void recordSensors(long timestamp, PayloadSensors payload) {
+        float[] accelerometer = payload.getAccelerometer();
+        float[] rotation = payload.getRotation();
+        boolean grown = false;
+
+        for (int i = 0; i < Math.min(accelerometer.length, ACCELEROMETER_AXES); i++) {
+            grown |= fSeries[Channel.SENSORS_ACC_X.ordinal() + i]
+                    .append(timestamp, accelerometer[i]);
+        }
+
+        /* The rotation vector can have a fifth value, its accuracy, which isn't kept */
+        for (int i = 0; i < Math.min(rotation.length, ROTATION_COMPONENTS); i++) {
+            grown |= fSeries[Channel.SENSORS_ROT_1.ordinal() + i]
+                    .append(timestamp, rotation[i]);
+        }
+
+        /* The memory only grows significantly when a chunk is full or the pyramid grows */
+        if (grown) {
+            enforceMemoryCap();
+        }
+    }
+
+    /**
+     * This method copies the samples of a channel over a window of time.
+     *
+     * @param channel    The channel
+     * @param from       The start of the window in milliseconds, inclusive
+     * @param to         The end of the window in milliseconds, exclusive
+     * @param timestamps The array that receives the timestamps
+     * @param values     The array that receives the values
+     *
+     * @return The number of samples copied, which is limited by the size of the arrays
+     */
+    public synchronized int getRange(Channel channel, long from, long to, long[] timestamps,
+                                     float[] values) {
+        return fSeries[channel.ordinal()].getRange(from, to, timestamps, values);
+    }
+
+    /**
+     * This method computes the minimum, the maximum and the mean of a channel over a window of
+     * time. If the samples at the edges of the window were evicted, the edges are rounded to a
+     * second.
+     *
+     * @param channel The channel
+     * @param from    The start of the window in milliseconds, inclusive
+     * @param to      The end of the window in milliseconds, exclusive
+     *
+     * @return The aggregate of the window
+     */
+    public synchronized Aggregate getAggregate(Channel channel, long from, long to) {
+        return fSeries[channel.ordinal()].getAggregate(from, to);
+    }
+
+    /**
+     * This method evicts the oldest chunks until the history fits under the memory cap.
+     */
+    private void enforceMemoryCap() {
+        long size = getMemoryUsage();
+
+        while (size > fMemoryCap) {
+            /* Find the channel with the oldest samples */
+            TimeSeries oldest = null;
+            for (TimeSeries series : fSeries) {
+                if (oldest == null || series.getOldestTime() < oldest.getOldestTime()) {
+                    oldest = series;
+                }
+            }
+
+            long freed = oldest.evictOldest();
+            if (freed == 0) {
+                break;
+            }
+
+            size -= freed;
+            fEvicted++;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator changes the memory cap of the history. The oldest samples are evicted right
+     * away if the history is larger than the new cap.
+     *
+     * @param memoryCap The memory cap in bytes
+     */
+    public synchronized void setMemoryCap(long memoryCap) {
+        fMemoryCap = memoryCap;
+        enforceMemoryCap();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the memory used by the history in bytes.
+     *
+     * @return The memory used
+     */
+    public synchronized long getMemoryUsage() {
+        long size = 0;
+        for (TimeSeries series : fSeries) {
+            size += series.getSize();
+        }
+
+        return size;
+    }
+
+    /**
+     * Accessor that returns the memory cap of the history in bytes.
+     *
+     * @return The memory cap
+     */
+    public synchronized long getMemoryCap() {
+        return fMemoryCap;
+    }
+
+    /**
+     * Accessor that returns the number of samples recorded in a channel, including the evicted
+     * ones.
+     *
+     * @param channel The channel
+     *
+     * @return The number of samples
+     */
+    public synchronized long getCount(Channel channel) {
+        return fSeries[channel.ordinal()].getCount();
+    }
+
+    /**
+     * Accessor that returns the number of chunks that were evicted to respect the memory cap.
+     *
+     * @return The number of evicted chunks
+     */
+    public synchronized long getEvictedChunks() {
+        return fEvicted;
+    }
+
+}
@@ -0,0 +1,296 @@
+package ca.polymtl.mrasl.telemetry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class contains the history of a single telemetry channel. The samples are kept in
+ * compressed chunks of {@link GorillaChunk#CAPACITY} samples and summarized by a downsampling
+ * pyramid. The oldest chunks can be evicted to save memory, while the pyramid keeps the aggregates
+ * of the evicted samples. Each level only keeps its last {@link DownsamplingLevel#MAX_BUCKETS}
+ * buckets, so the edges of a very old window are only as precise as the buckets that are left.
+ * <p/>
+ * The timestamps are in milliseconds and are expected to never go backward. This class is not
+ * thread-safe.
+ */
+class TimeSeries {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Width of the buckets of each level of the pyramid, in milliseconds
+     */
+    static final long[] LEVEL_WIDTHS = {1000L, 8000L, 64000L, 512000L};
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    /* The last chunk is the one being filled */
+    private final List<GorillaChunk> fChunks = new ArrayList<>();
+    private final DownsamplingLevel[] fLevels = new DownsamplingLevel[LEVEL_WIDTHS.length];
+
+    private long fSealedSize;
+    private long fFirstTime;
+    private long fLastTime;
+    private long fCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method appends a sample to the history.
+     *
+     * @param timestamp The timestamp of the sample
+     * @param value     The value of the sample
+     *
+     * @return {@code true} if a chunk was filled or a level of the pyramid grew, which changes
+     *         the memory usage significantly
+     */
+    boolean append(long timestamp, float value) {
+        /* The first sample is the origin of the pyramid */
+        if (fCount == 0) {
+            fFirstTime = timestamp;
+            for (int i = 0; i < LEVEL_WIDTHS.length; i++) {
+                fLevels[i] = new DownsamplingLevel(timestamp, LEVEL_WIDTHS[i]);
+            }
+            fChunks.add(new GorillaChunk());
+        }
+
+        boolean grown = false;
+        for (DownsamplingLevel level : fLevels) {
+            grown |= level.add(timestamp, value);
+        }
+        fLastTime = Math.max(fLastTime, timestamp);
+        fCount++;
+
+        /* Seal the current chunk if it's full */
+        GorillaChunk active = fChunks.get(fChunks.size() - 1);
+        if (active.append(timestamp, value)) {
+            return grown;
+        }
+
+        active.seal();
+        fSealedSize += active.getSize();
+
+        GorillaChunk chunk = new GorillaChunk();
+        chunk.append(timestamp, value);
+        fChunks.add(chunk);
+
+        return true;
+    }
+
+    /**
+     * This method evicts the oldest full chunk. The chunk being filled is never evicted.
+     *
+     * @return The number of bytes freed
+     */
+    long evictOldest() {
+        if (fChunks.size() < 2) {
+            return 0;
+        }
+
+        GorillaChunk chunk = fChunks.remove(0);
+        fSealedSize -= chunk.getSize();
+
+        return chunk.getSize();
+    }
+
+    /**
+     * This method copies the samples of a window of time.
+     *
+     * @param from       The start of the window, inclusive
+     * @param to         The end of the window, exclusive
+     * @param timestamps The array that receives the timestamps
+     * @param values     The array that receives the values
+     *
+     * @return The number of samples copied, which is limited by the size of the arrays
+     */
+    int getRange(long from, long to, long[] timestamps, float[] values) {
+        int capacity = Math.min(timestamps.length, values.length);
+        int count = 0;
+
+        for (int i = findChunk(from); i < fChunks.size() && count < capacity; i++) {
+            GorillaChunk chunk = fChunks.get(i);
+            if (chunk.getStartTime() >= to) {
+                break;
+            }
+
+            GorillaChunk.Cursor cursor = chunk.getCursor();
+            while (count < capacity && cursor.next()) {
+                long timestamp = cursor.getTimestamp();
+                if (timestamp >= from && timestamp < to) {
+                    timestamps[count] = timestamp;
+                    values[count] = cursor.getValue();
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * This method computes the minimum, the maximum and the mean of a window of time. The largest
+     * buckets of the pyramid that fit in the window are used, and only the edges of the window
+     * are computed from the samples.
+     *
+     * @param from The start of the window, inclusive
+     * @param to   The end of the window, exclusive
+     *
+     * @return The aggregate of the window
+     */
+    Aggregate getAggregate(long from, long to) {
+        Aggregate result = new Aggregate();
+
+        if (fCount > 0) {
+            aggregate(fLevels.length - 1, Math.max(from, fFirstTime), Math.min(to, fLastTime + 1),
+                    result);
+        }
+
+        return result;
+    }
+
+    /**
+     * This method aggregates a window with a level of the pyramid, and its edges with the finer
+     * levels.
+     *
+     * @param level  The level of the pyramid, or -1 for the samples
+     * @param from   The start of the window, inclusive
+     * @param to     The end of the window, exclusive
+     * @param result The aggregate
+     */
+    private void aggregate(int level, long from, long to, Aggregate result) {
+        if (from >= to) {
+            return;
+        }
+
+        if (level < 0) {
+            aggregateSamples(from, to, result);
+            return;
+        }
+
+        /* Find the buckets that are entirely in the window and weren't forgotten */
+        DownsamplingLevel buckets = fLevels[level];
+        int first = Math.max(buckets.getBucketAfter(from), buckets.getFirstBucket());
+        int last = buckets.getBucket(to);
+
+        if (first >= last) {
+            aggregate(level - 1, from, to, result);
+            return;
+        }
+
+        aggregate(level - 1, from, buckets.getStartTime(first), result);
+        buckets.aggregate(first, last, result);
+        aggregate(level - 1, buckets.getStartTime(last), to, result);
+    }
+
+    /**
+     * This method aggregates a window from the samples. If the samples were evicted, the finest
+     * buckets of the pyramid that overlap the window are used instead.
+     *
+     * @param from   The start of the window, inclusive
+     * @param to     The end of the window, exclusive
+     * @param result The aggregate
+     */
+    private void aggregateSamples(long from, long to, Aggregate result) {
+        long start = fChunks.get(0).getStartTime();
+
+        /* Approximate the part that was evicted */
+        if (from < start) {
+            DownsamplingLevel buckets = fLevels[0];
+            long end = Math.min(to, start);
+
+            buckets.aggregate(buckets.getBucket(from),
+                    Math.min(buckets.getBucketAfter(end), buckets.getBucket(start)), result);
+            from = end;
+        }
+
+        for (int i = findChunk(from); i < fChunks.size(); i++) {
+            GorillaChunk chunk = fChunks.get(i);
+            if (chunk.getStartTime() >= to) {
+                break;
+            }
+
+            GorillaChunk.Cursor cursor = chunk.getCursor();
+            while (cursor.next()) {
+                long timestamp = cursor.getTimestamp();
+                if (timestamp >= to) {
+                    break;
+                }
+                if (timestamp >= from) {
+                    result.add(cursor.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * This method finds the first chunk that ends at or after a timestamp.
+     *
+     * @param timestamp The timestamp
+     *
+     * @return The index of the chunk
+     */
+    private int findChunk(long timestamp) {
+        int low = 0;
+        int high = fChunks.size() - 1;
+
+        /* Binary search on the end of the chunks */
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (fChunks.get(middle).getEndTime() < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the timestamp of the oldest chunk that can be evicted.
+     *
+     * @return The timestamp, or {@link Long#MAX_VALUE} if no chunk can be evicted
+     */
+    long getOldestTime() {
+        return (fChunks.size() < 2) ? Long.MAX_VALUE : fChunks.get(0).getStartTime();
+    }
+
+    /**
+     * Accessor that returns the number of samples appended to the history, including the
+     * evicted ones.
+     *
+     * @return The number of samples
+     */
+    long getCount() {
+        return fCount;
+    }
+
+    /**
+     * Accessor that returns the memory used by the history in bytes.
+     *
+     * @return The memory used
+     */
+    long getSize() {
+        long size = fSealedSize;
+
+        if (fCount > 0) {
+            size += fChunks.get(fChunks.size() - 1).getSize();
+            for (DownsamplingLevel level : fLevels) {
+                size += level.getSize();
+            }
+        }
+
+        return size;
+    }
+
+}
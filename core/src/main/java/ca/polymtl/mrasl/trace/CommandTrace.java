@@ -0,0 +1,315 @@
+package ca.polymtl.mrasl.trace;
+
+import java.nio.ByteBuffer;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.payload.PayloadCommand.CommandType;
+import ca.polymtl.mrasl.platform.Platform;
+
+/**
+ * This class follows a single command from its trigger to the completion of its transmission. Each
+ * component on the path of the command stamps the {@link Stage} it reached with the monotonic time
+ * of the clock of the trace, and the trace ends with an {@link Outcome}.
+ * <p/>
+ * A finished trace is written in the flight log with the following format:
+ * <p/>
+ * [  0      ] The ordinal of the trigger source
+ * [  1      ] The ordinal of the command type, or -1 if unknown
+ * [  2      ] The ordinal of the outcome
+ * [  3 - 18 ] The time of each stage after the trigger in microseconds, or -1 if not reached
+ */
+public class CommandTrace {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    public static final int RECORD_SIZE = 3 + 4 * (Stage.values().length - 1);
+    private static final int POS_SOURCE = 0;
+    private static final int POS_COMMAND = 1;
+    private static final int POS_OUTCOME = 2;
+    private static final int POS_STAGES = 3;
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Enumerations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This enumeration defines how a trace ended. The ordinal of each outcome is written in the
+     * flight log, so the existing outcomes must never be reordered.
+     */
+    public enum Outcome {
+        /**
+         * The transmission of the command was completed by the DJI SDK
+         */
+        ACKED,
+        /**
+         * The transmission of the command failed
+         */
+        FAILED,
+        /**
+         * The command was replaced or discarded before being sent
+         */
+        DROPPED,
+        /**
+         * The transition of the command wasn't allowed by the mission
+         */
+        REJECTED,
+        /**
+         * The mission followed the state reported by the drone, so no command was sent
+         */
+        FOLLOWED
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final TriggerSource fSource;
+    private final IClock fClock;
+    private final long[] fStamps = new long[Stage.values().length];
+    private final boolean[] fReached = new boolean[Stage.values().length];
+
+    private CommandType fCommand;
+    private Outcome fOutcome;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a trace that starts now, on the clock of the platform.
+     *
+     * @param source The source of the command
+     */
+    public CommandTrace(TriggerSource source) {
+        this(source, Platform.getInstance().getClock());
+    }
+
+    /**
+     * Constructor for a trace that starts now.
+     *
+     * @param source The source of the command
+     * @param clock  The clock that stamps the stages
+     */
+    public CommandTrace(TriggerSource source, IClock clock) {
+        fSource = source;
+        fClock = clock;
+        stamp(Stage.TRIGGER);
+    }
+
+    /**
+     * Factory constructor that reads a trace from a record of the flight log. The stages are
+     * relative to the trigger, which is at zero.
+     *
+     * @param record The data of the record
+     *
+     * @return The trace of the record
+     */
+    public static CommandTrace fromRecord(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+
+        CommandTrace trace = new CommandTrace(TriggerSource.values()[buffer.get(POS_SOURCE)]);
+        byte command = buffer.get(POS_COMMAND);
+        trace.fCommand = (command >= 0) ? CommandType.values()[command] : null;
+        trace.fOutcome = Outcome.values()[buffer.get(POS_OUTCOME)];
+        trace.fStamps[Stage.TRIGGER.ordinal()] = 0L;
+
+        /* Read the time of the stages after the trigger */
+        buffer.position(POS_STAGES);
+        for (int i = 1; i < trace.fStamps.length; i++) {
+            int micros = buffer.getInt();
+            trace.fReached[i] = micros >= 0;
+            trace.fStamps[i] = trace.fReached[i] ? micros * NANOS_PER_MICRO : 0L;
+        }
+
+        return trace;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method stamps the time at which the command reached a stage. A trace that already ended
+     * isn't stamped anymore, like when a late acknowledgement arrives after the command was
+     * dropped.
+     *
+     * @param stage The stage reached by the command
+     */
+    public synchronized void stamp(Stage stage) {
+        if (fOutcome != null) {
+            return;
+        }
+
+        fStamps[stage.ordinal()] = fClock.nanoTime();
+        fReached[stage.ordinal()] = true;
+    }
+
+    /**
+     * This method encodes the trace into a record of the flight log.
+     *
+     * @return The data of the record
+     */
+    public synchronized byte[] toRecord() {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+
+        buffer.put((byte) fSource.ordinal());
+        buffer.put((byte) ((fCommand != null) ? fCommand.ordinal() : -1));
+        buffer.put((byte) ((fOutcome != null) ? fOutcome : Outcome.DROPPED).ordinal());
+
+        /* Write the time of the stages after the trigger */
+        long trigger = fStamps[Stage.TRIGGER.ordinal()];
+        for (int i = 1; i < fStamps.length; i++) {
+            long micros = (fStamps[i] - trigger) / NANOS_PER_MICRO;
+            buffer.putInt(fReached[i] ? (int) Math.min(micros, Integer.MAX_VALUE) : -1);
+        }
+
+        return buffer.array();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(fSource).append(' ').append(fCommand).append(' ').append(fOutcome);
+
+        /* Show the latency of each stage that was reached */
+        for (Stage stage : Stage.values()) {
+            long latency = getLatency(stage);
+            if (latency >= 0) {
+                builder.append(", ").append(stage).append(' ')
+                        .append(latency / NANOS_PER_MICRO).append(" us");
+            }
+        }
+
+        return builder.toString();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator sets the command of the trace, which is only known once the transition is
+     * applied.
+     *
+     * @param command The type of command
+     */
+    public synchronized void setCommand(CommandType command) {
+        fCommand = command;
+    }
+
+    /**
+     * This mutator ends the trace. A trace only ends once, the first outcome is kept.
+     *
+     * @param outcome How the trace ended
+     *
+     * @return {@code true} if the trace ended, or {@code false} if it had already ended
+     */
+    public synchronized boolean setOutcome(Outcome outcome) {
+        if (fOutcome != null) {
+            return false;
+        }
+
+        fOutcome = outcome;
+        return true;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the source of the command.
+     *
+     * @return The source of the command
+     */
+    public TriggerSource getSource() {
+        return fSource;
+    }
+
+    /**
+     * Accessor that returns the type of command, or {@code null} if the transition wasn't applied.
+     *
+     * @return The type of command
+     */
+    public synchronized CommandType getCommand() {
+        return fCommand;
+    }
+
+    /**
+     * Accessor that returns how the trace ended, or {@code null} if it didn't end.
+     *
+     * @return The outcome of the trace
+     */
+    public synchronized Outcome getOutcome() {
+        return fOutcome;
+    }
+
+    /**
+     * Accessor that returns whether the command reached a stage.
+     *
+     * @param stage The stage
+     *
+     * @return {@code true} if the stage was reached, else {@code false}
+     */
+    public synchronized boolean hasReached(Stage stage) {
+        return fReached[stage.ordinal()];
+    }
+
+    /**
+     * Accessor that returns the time between the trigger and a stage, in nanoseconds.
+     *
+     * @param stage The stage
+     *
+     * @return The time of the stage after the trigger, or -1 if the stage wasn't reached
+     */
+    public synchronized long getElapsed(Stage stage) {
+        int index = stage.ordinal();
+        return fReached[index] ? fStamps[index] - fStamps[Stage.TRIGGER.ordinal()] : -1L;
+    }
+
+    /**
+     * Accessor that returns the time spent to reach a stage from the previous stage that was
+     * reached, in nanoseconds.
+     *
+     * @param stage The stage
+     *
+     * @return The latency of the stage, or -1 if the stage wasn't reached
+     */
+    public synchronized long getLatency(Stage stage) {
+        int index = stage.ordinal();
+        if (!fReached[index] || index == 0) {
+            return -1L;
+        }
+
+        /* Find the previous stage that was reached, the trigger always is */
+        int previous = index - 1;
+        while (!fReached[previous]) {
+            previous--;
+        }
+
+        return fStamps[index] - fStamps[previous];
+    }
+
+    /**
+     * Accessor that returns the time between the trigger and the last stage that was reached, in
+     * nanoseconds.
+     *
+     * @return The total latency of the trace
+     */
+    public synchronized long getTotalLatency() {
+        int last = fStamps.length - 1;
+        while (!fReached[last]) {
+            last--;
+        }
+
+        return fStamps[last] - fStamps[Stage.TRIGGER.ordinal()];
+    }
+
+}
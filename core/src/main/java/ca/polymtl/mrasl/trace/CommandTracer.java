@@ -0,0 +1,126 @@
+package ca.polymtl.mrasl.trace;
+
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.shared.Histogram;
+import ca.polymtl.mrasl.trace.CommandTrace.Outcome;
+
+/**
+ * This class collects the traces of the commands once they ended. It keeps a histogram of the
+ * latency of each stage and of the whole path for the debug view, and writes every trace in the
+ * flight log.
+ */
+public class CommandTracer {
+
+    private static CommandTracer Instance;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = CommandTracer.class.getName();
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final Histogram[] fStages = new Histogram[Stage.values().length];
+    private final Histogram fTotal = new Histogram();
+    private final long[] fOutcomes = new long[Outcome.values().length];
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    public static synchronized CommandTracer getInstance() {
+        /* Setup the singleton instance */
+        if (Instance == null) {
+            Instance = new CommandTracer();
+        }
+
+        return Instance;
+    }
+
+    CommandTracer() {
+        for (int i = 0; i < fStages.length; i++) {
+            fStages[i] = new Histogram();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method ends a trace. Only the commands that were acknowledged are added to the
+     * histograms, but every trace is written in the flight log. A trace that already ended, like a
+     * dropped command whose acknowledgement arrives late, is ignored.
+     *
+     * @param trace   The trace of the command, may be {@code null} if the command isn't traced
+     * @param outcome How the trace ended
+     */
+    public void finish(CommandTrace trace, Outcome outcome) {
+        /* A command is only counted once */
+        if (trace == null || !trace.setOutcome(outcome)) {
+            return;
+        }
+
+        synchronized (this) {
+            fOutcomes[outcome.ordinal()]++;
+
+            /* Add the latencies of the command */
+            if (outcome == Outcome.ACKED) {
+                for (Stage stage : Stage.values()) {
+                    long latency = trace.getLatency(stage);
+                    if (latency >= 0) {
+                        fStages[stage.ordinal()].add(latency);
+                    }
+                }
+                fTotal.add(trace.getTotalLatency());
+            }
+        }
+
+        Log.d(TAG, trace.toString());
+
+        /* Record the trace in the flight log */
+        Platform.getInstance().getRecorder().recordCommandTrace(trace);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns a copy of the histogram of the latency of a stage, from the previous
+     * stage reached by the commands, in nanoseconds.
+     *
+     * @param stage The stage
+     *
+     * @return The histogram of the stage
+     */
+    public synchronized Histogram getHistogram(Stage stage) {
+        return new Histogram(fStages[stage.ordinal()]);
+    }
+
+    /**
+     * Accessor that returns a copy of the histogram of the latency from the trigger to the
+     * acknowledgement of the commands, in nanoseconds.
+     *
+     * @return The histogram of the whole path
+     */
+    public synchronized Histogram getTotalHistogram() {
+        return new Histogram(fTotal);
+    }
+
+    /**
+     * Accessor that returns the number of traces that ended with an outcome.
+     *
+     * @param outcome The outcome
+     *
+     * @return The number of traces
+     */
+    public synchronized long getCount(Outcome outcome) {
+        return fOutcomes[outcome.ordinal()];
+    }
+
+}
@@ -0,0 +1,30 @@
+package ca.polymtl.mrasl.trace;
+
+/**
+ * This enumeration defines the stages that a command goes through, from the operator to the
+ * drone. The stages are in the order of the path of a command.
+ */
+public enum Stage {
+
+    /**
+     * Stage when the command is requested by the operator, the Ford console or ROS
+     */
+    TRIGGER,
+    /**
+     * Stage when the mission applied the transition of the command
+     */
+    TRANSITION,
+    /**
+     * Stage when the command is given to the payload manager
+     */
+    ENQUEUE,
+    /**
+     * Stage when the radio link sends the command to the drone
+     */
+    SEND,
+    /**
+     * Stage when the DJI SDK completed the transmission of the command
+     */
+    ACK;
+
+}
@@ -0,0 +1,22 @@
+package ca.polymtl.mrasl.trace;
+
+/**
+ * This enumeration defines where a command comes from. The ordinal of each source is written in
+ * the flight log, so the existing sources must never be reordered.
+ */
+public enum TriggerSource {
+
+    /**
+     * Command requested by the operator in the user interface
+     */
+    UI,
+    /**
+     * Command requested by the Ford console
+     */
+    FORD,
+    /**
+     * State reported by the mission planner of the drone over ROS
+     */
+    ROS;
+
+}
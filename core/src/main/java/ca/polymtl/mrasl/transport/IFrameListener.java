@@ -0,0 +1,15 @@
+package ca.polymtl.mrasl.transport;
+
+/**
+ * This interface defines a callback when a frame is received from the drone.
+ */
+public interface IFrameListener {
+
+    /**
+     * This method is called when a frame is received.
+     *
+     * @param frame The bytes of the frame
+     */
+    void onFrame(byte[] frame);
+
+}
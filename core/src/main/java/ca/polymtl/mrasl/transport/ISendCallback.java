@@ -0,0 +1,15 @@
+package ca.polymtl.mrasl.transport;
+
+/**
+ * This interface defines a callback when the transmission of a frame ends.
+ */
+public interface ISendCallback {
+
+    /**
+     * This method is called when the transmission of a frame ends.
+     *
+     * @param error The description of the error, or {@code null} if the frame was sent
+     */
+    void onSent(String error);
+
+}
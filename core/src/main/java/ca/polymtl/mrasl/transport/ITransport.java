@@ -0,0 +1,26 @@
+package ca.polymtl.mrasl.transport;
+
+/**
+ * This interface defines the link that carries the frames between the ground station and the
+ * drone, like the DJI radio link or a loopback for the tests.
+ */
+public interface ITransport {
+
+    /**
+     * This method sends a frame to the drone. The callback is called once the transmission
+     * completed or failed, on any thread.
+     *
+     * @param frame    The bytes of the frame
+     * @param callback The callback of the transmission
+     */
+    void send(byte[] frame, ISendCallback callback);
+
+    /**
+     * This method sets the listener of the frames received from the drone. To remove the listener,
+     * simply set the listener to {@code null}.
+     *
+     * @param listener The new listener
+     */
+    void setFrameListener(IFrameListener listener);
+
+}
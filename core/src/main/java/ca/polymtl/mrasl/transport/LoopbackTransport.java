@@ -0,0 +1,203 @@
+package ca.polymtl.mrasl.transport;
+
+import ca.polymtl.mrasl.clock.IScheduler;
+
+/**
+ * This class is a transport that stays in the process. Every frame is completed after a fixed
+ * latency on the thread of a scheduler, and the frames sent by the drone are injected by the
+ * caller. The failures of the link are injected too, so the same run always fails the same way.
+ * <p/>
+ * The side of the drone sees the frames sent by the ground station through the uplink listener.
+ */
+public class LoopbackTransport implements ITransport {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final IScheduler fScheduler;
+    private final long fLatency;
+
+    private volatile IFrameListener fFrameListener;
+    private volatile IFrameListener fUplinkListener;
+    private int fFailuresLeft;
+    private int fFailurePeriod;
+    private long fSentCount;
+    private long fFailedCount;
+    private long fReceivedCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a loopback.
+     *
+     * @param scheduler The scheduler that completes the frames
+     * @param latency   The time to complete a frame in milliseconds
+     */
+    public LoopbackTransport(IScheduler scheduler, long latency) {
+        fScheduler = scheduler;
+        fLatency = latency;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method injects a frame sent by the drone. The frame listener receives it on the thread
+     * of the scheduler.
+     *
+     * @param frame The bytes of the frame
+     */
+    public void receive(byte[] frame) {
+        fScheduler.post(new Deliver(frame));
+    }
+
+    /**
+     * This method makes the next transmissions fail, like a link that is lost for a while.
+     *
+     * @param count The number of transmissions that fail
+     */
+    public synchronized void failNext(int count) {
+        fFailuresLeft += count;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void send(byte[] frame, ISendCallback callback) {
+        /* Decide now whether the transmission fails, so the order is the one of the calls */
+        boolean failed;
+        synchronized (this) {
+            long index = fSentCount + fFailedCount + 1;
+            failed = fFailuresLeft > 0 || (fFailurePeriod > 0 && index % fFailurePeriod == 0);
+            if (fFailuresLeft > 0) {
+                fFailuresLeft--;
+            }
+
+            if (failed) {
+                fFailedCount++;
+            } else {
+                fSentCount++;
+            }
+        }
+
+        /* The drone only sees the frames that went through */
+        IFrameListener uplink = fUplinkListener;
+        if (!failed && uplink != null) {
+            uplink.onFrame(frame);
+        }
+
+        fScheduler.postDelayed(new Complete(callback, failed ? "Loopback failure" : null),
+                fLatency);
+    }
+
+    @Override
+    public void setFrameListener(IFrameListener listener) {
+        fFrameListener = listener;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator sets the listener of the frames sent by the ground station, which is the side
+     * of the drone.
+     *
+     * @param listener The new listener, or {@code null}
+     */
+    public void setUplinkListener(IFrameListener listener) {
+        fUplinkListener = listener;
+    }
+
+    /**
+     * This mutator makes one transmission out of a period fail.
+     *
+     * @param period The period of the failures, or zero for no periodic failure
+     */
+    public synchronized void setFailurePeriod(int period) {
+        fFailurePeriod = period;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of frames that were sent.
+     *
+     * @return The number of frames sent
+     */
+    public synchronized long getSentCount() {
+        return fSentCount;
+    }
+
+    /**
+     * Accessor that returns the number of transmissions that failed.
+     *
+     * @return The number of failures
+     */
+    public synchronized long getFailedCount() {
+        return fFailedCount;
+    }
+
+    /**
+     * Accessor that returns the number of frames received from the drone.
+     *
+     * @return The number of frames received
+     */
+    public synchronized long getReceivedCount() {
+        return fReceivedCount;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class completes a transmission.
+     */
+    private static class Complete implements Runnable {
+        private final ISendCallback fCallback;
+        private final String fError;
+
+        public Complete(ISendCallback callback, String error) {
+            fCallback = callback;
+            fError = error;
+        }
+
+        @Override
+        public void run() {
+            fCallback.onSent(fError);
+        }
+    }
+
+    /**
+     * This class delivers a frame from the drone.
+     */
+    private class Deliver implements Runnable {
+        private final byte[] fFrame;
+
+        public Deliver(byte[] frame) {
+            fFrame = frame;
+        }
+
+        @Override
+        public void run() {
+            synchronized (LoopbackTransport.this) {
+                fReceivedCount++;
+            }
+
+            IFrameListener listener = fFrameListener;
+            if (listener != null) {
+                listener.onFrame(fFrame);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,290 @@
+package ca.polymtl.mrasl.transport;
+
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.mission.Mission;
+import ca.polymtl.mrasl.mission.MissionStateChangedListener;
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.payload.IPayload;
+import ca.polymtl.mrasl.payload.PayloadCommand;
+import ca.polymtl.mrasl.payload.PayloadCommand.CommandType;
+import ca.polymtl.mrasl.payload.PayloadManager;
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.recorder.IRecorder;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.telemetry.RateProfile;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.trace.CommandTrace.Outcome;
+import ca.polymtl.mrasl.trace.CommandTracer;
+import ca.polymtl.mrasl.trace.Stage;
+
+/**
+ * This class sends the payloads of a payload manager to the drone over a transport, at the rate
+ * of the link. A failed transmission stops the link until the payload manager is ready again, and
+ * a frame received from the drone finishes the mission.
+ * <p/>
+ * Everything runs on the thread of the scheduler, including the callbacks of the transport.
+ */
+public class Uplink implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = Uplink.class.getName();
+    private static final int RESTART_DELAY = 2000;
+    private static final int DEFAULT_DELAY = 50;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final IScheduler fScheduler;
+    private final ITransport fTransport;
+    private final Mission fMission;
+    private final PayloadManager fPayloadManager;
+    private final IRecorder fRecorder = Platform.getInstance().getRecorder();
+    private final MissionStateChangedListener fStateListener = new StateListener();
+
+    private Runnable fSender;
+    private volatile int fDelay = DEFAULT_DELAY;
+    private volatile int fProfileDelay;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for an uplink. It starts sending once the payload manager is ready.
+     *
+     * @param transport The transport to the drone
+     * @param mission   The mission that sends its commands
+     * @param scheduler The scheduler of the link
+     */
+    public Uplink(ITransport transport, Mission mission, IScheduler scheduler) {
+        fTransport = transport;
+        fMission = mission;
+        fScheduler = scheduler;
+        fPayloadManager = new PayloadManager(scheduler);
+
+        /* Set the ready listener of the payload manager */
+        fPayloadManager.setReadyListener(new PayloadManagerReadyListener());
+
+        /* Receive the frames of the drone */
+        fTransport.setFrameListener(new FrameListener());
+
+        /* Follow the rate profile of the mission */
+        fMission.addMissionStateChangedListener(fStateListener);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        /* Remove our listeners */
+        fPayloadManager.setReadyListener(null);
+        fTransport.setFrameListener(null);
+        fMission.removeMissionStateChangedListener(fStateListener);
+
+        /* Stop sending payload */
+        fScheduler.post(new Stop());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Mutators
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This mutator changes the delay between two frames when the rate profile doesn't slow the
+     * link down.
+     *
+     * @param delay The delay in milliseconds
+     */
+    public void setDelay(int delay) {
+        fDelay = delay;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This accessor returns the payload manager of the link.
+     *
+     * @return The payload manager of the link
+     */
+    public PayloadManager getPayloadManager() {
+        return fPayloadManager;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class is fired when the payload manager is ready to send payloads.
+     */
+    private class PayloadManagerReadyListener implements Runnable {
+        @Override
+        public void run() {
+            fMission.getTimeline().recordLinkUp();
+
+            /* Start sending payloads */
+            fSender = new PayloadSender();
+            fScheduler.post(fSender);
+        }
+    }
+
+    /**
+     * This class sends a payload to the drone and continue the transmission.
+     */
+    private class PayloadSender implements Runnable {
+        @Override
+        public void run() {
+            /* Make sure we are the current sender */
+            if (fSender != this) {
+                return;
+            }
+
+            /* Get the payload to send */
+            IPayload payload = fPayloadManager.getNext();
+            if (payload == null) {
+                return;
+            }
+
+            /* Send the payload, a command is followed until its completion */
+            byte[] bytes = payload.getPayload();
+            CommandType command = null;
+            CommandTrace trace = null;
+            if (payload instanceof PayloadCommand) {
+                command = ((PayloadCommand) payload).getCommand();
+                trace = ((PayloadCommand) payload).getTrace();
+                fMission.getTimeline().recordCommandSent(command);
+            }
+            if (trace != null) {
+                trace.stamp(Stage.SEND);
+            }
+            fTransport.send(bytes, new Completion(command, trace));
+
+            /* Record the frame in the flight log */
+            fRecorder.recordUplink(bytes);
+
+            /* Continue the transmission later, at most at the rate of the profile */
+            fScheduler.postDelayed(this, Math.max(fDelay, fProfileDelay));
+        }
+    }
+
+    /**
+     * This class receives the end of a transmission and handles it on the thread of the link.
+     */
+    private class Completion implements ISendCallback {
+        private final CommandType fCommand;
+        private final CommandTrace fTrace;
+
+        public Completion(CommandType command, CommandTrace trace) {
+            fCommand = command;
+            fTrace = trace;
+        }
+
+        @Override
+        public void onSent(String error) {
+            /* Add the acknowledgement to the timeline of the mission */
+            if (fCommand != null && error == null) {
+                fMission.getTimeline().recordCommandAcked(fCommand);
+            }
+
+            /* Stamp the completion before moving to the thread of the link */
+            if (fTrace != null) {
+                if (error == null) {
+                    fTrace.stamp(Stage.ACK);
+                    CommandTracer.getInstance().finish(fTrace, Outcome.ACKED);
+                } else {
+                    CommandTracer.getInstance().finish(fTrace, Outcome.FAILED);
+                }
+            }
+
+            if (error != null) {
+                fScheduler.post(new HandleError(error));
+            }
+        }
+    }
+
+    /**
+     * This class stops the link after an error and restarts it later.
+     */
+    private class HandleError implements Runnable {
+        private final String fError;
+
+        public HandleError(String error) {
+            fError = error;
+        }
+
+        @Override
+        public void run() {
+            Log.e(TAG, fError);
+
+            /* Record the error in the flight log */
+            fRecorder.recordLinkError(fError);
+
+            /* Stop sending payload, only the first error of a burst restarts the link */
+            if (fSender == null) {
+                return;
+            }
+            fSender = null;
+            fMission.getTimeline().recordLinkDown();
+
+            /* Restart the link */
+            fScheduler.postDelayed(new PayloadManagerRestart(), RESTART_DELAY);
+        }
+    }
+
+    /**
+     * This class receives the frames of the drone.
+     */
+    private class FrameListener implements IFrameListener {
+        @Override
+        public void onFrame(byte[] frame) {
+            Log.d(TAG, "Received data from onboard SDK");
+
+            /* Record the frame in the flight log */
+            fRecorder.recordDownlink(frame);
+
+            /* We only use the callback for finishing the mission */
+            fMission.finishMission();
+        }
+    }
+
+    /**
+     * This class changes the rate of the link with the state of the mission.
+     */
+    private class StateListener implements MissionStateChangedListener {
+        @Override
+        public void onStateChanged(State state) {
+            fProfileDelay = RateProfile.forState(state).getRadioDelay();
+        }
+    }
+
+    /**
+     * This class restarts the link.
+     */
+    private class PayloadManagerRestart implements Runnable {
+        @Override
+        public void run() {
+            /* Request the restart to the payload manager */
+            fPayloadManager.requestReady();
+        }
+    }
+
+    /**
+     * This class stops sending payloads.
+     */
+    private class Stop implements Runnable {
+        @Override
+        public void run() {
+            fSender = null;
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package ca.polymtl.mrasl.checkpoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import ca.polymtl.mrasl.mission.State;
+
+/**
+ * This class tests that the journal of the mission recovers the last state written before a crash,
+ * and cuts the entry that was being written.
+ */
+public class MissionJournalTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    @Rule
+    public final TemporaryFolder fFolder = new TemporaryFolder();
+
+    private File fFile;
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @Before
+    public void setUp() {
+        fFile = new File(fFolder.getRoot(), "mission.journal");
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The last state appended is the one recovered when the journal is opened again.
+     */
+    @Test
+    public void testLastStateIsRecovered() throws Exception {
+        MissionJournal journal = new MissionJournal(fFile);
+        assertFalse(journal.getCheckpoint().hasState());
+        journal.appendState(State.START_MISSION, 1L, 1000L, 0L);
+        journal.appendState(State.ABORT_MISSION, 2L, 1000L, 0L);
+        journal.appendState(State.FINISHED, 3L, 1000L, 5000L);
+        journal.dispose();
+
+        journal = new MissionJournal(fFile);
+        assertCheckpoint(journal.getCheckpoint(), State.FINISHED, 3L, 1000L, 5000L);
+        assertEquals(0, journal.getTornBytes());
+        journal.dispose();
+    }
+
+    /**
+     * An entry torn by a crash is cut when the journal is opened, and the next entries follow the
+     * last valid one.
+     */
+    @Test
+    public void testTornTailIsCut() throws Exception {
+        MissionJournal journal = new MissionJournal(fFile);
+        journal.appendState(State.START_MISSION, 1L, 1000L, 0L);
+        journal.dispose();
+        long length = fFile.length();
+
+        /* Only the start of the next entry reached the storage */
+        append(fFile, new byte[]{0x12, 0x34, 0x56, 0x78, 0x0, 0x0});
+
+        journal = new MissionJournal(fFile);
+        assertCheckpoint(journal.getCheckpoint(), State.START_MISSION, 1L, 1000L, 0L);
+        assertEquals(6, journal.getTornBytes());
+        assertEquals(length, fFile.length());
+        journal.appendState(State.ABORT_LANDING, 2L, 1000L, 0L);
+        journal.dispose();
+
+        journal = new MissionJournal(fFile);
+        assertCheckpoint(journal.getCheckpoint(), State.ABORT_LANDING, 2L, 1000L, 0L);
+        assertEquals(0, journal.getTornBytes());
+        journal.dispose();
+    }
+
+    /**
+     * A journal that was reset has no mission to recover.
+     */
+    @Test
+    public void testResetForgetsTheMission() throws Exception {
+        MissionJournal journal = new MissionJournal(fFile);
+        journal.appendState(State.START_MISSION, 1L, 1000L, 0L);
+        journal.reset();
+        journal.dispose();
+
+        journal = new MissionJournal(fFile);
+        assertFalse(journal.getCheckpoint().hasState());
+        journal.dispose();
+    }
+
+    /**
+     * A file that isn't a journal is started over instead of being read.
+     */
+    @Test
+    public void testOtherFileIsStartedOver() throws Exception {
+        append(fFile, "This isn't a journal".getBytes("UTF-8"));
+
+        MissionJournal journal = new MissionJournal(fFile);
+        assertFalse(journal.getCheckpoint().hasState());
+        journal.appendState(State.START_MISSION, 1L, 1000L, 0L);
+        journal.dispose();
+
+        journal = new MissionJournal(fFile);
+        assertTrue(journal.getCheckpoint().hasState());
+        journal.dispose();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private static void assertCheckpoint(Checkpoint checkpoint, State state, long version,
+                                         long startTime, long stopTime) {
+        assertTrue(checkpoint.hasState());
+        assertEquals(state, checkpoint.getState());
+        assertEquals(version, checkpoint.getVersion());
+        assertEquals(startTime, checkpoint.getStartTime());
+        assertEquals(stopTime, checkpoint.getStopTime());
+    }
+
+    private static void append(File file, byte[] data) throws IOException {
+        FileOutputStream stream = new FileOutputStream(file, true);
+        try {
+            stream.write(data);
+        } finally {
+            stream.close();
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package ca.polymtl.mrasl.checkpoint;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import ca.polymtl.mrasl.tag.Tag;
+import ca.polymtl.mrasl.tag.TagImageStore;
+
+/**
+ * This class tests the records of the tag log, as they are read back after a restart.
+ */
+public class TagLogTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    @Rule
+    public final TemporaryFolder fFolder = new TemporaryFolder();
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The last record of every slot is recovered when the log is opened again.
+     */
+    @Test
+    public void testLastRecordIsRecovered() throws Exception {
+        TagLog log = open();
+        log.append(0, new Tag(7, 45.5, -73.6, 5.0, 1, 1000L, 1000L), null);
+        log.append(1, new Tag(8, 45.6, -73.7, 5.0, 1, 2000L, 2000L), null);
+        log.append(0, new Tag(7, 45.51, -73.61, 3.0, 2, 1000L, 3000L), null);
+        log.dispose();
+
+        log = open();
+        assertEquals(2, log.getRecoveredCount());
+        Tag tag = log.getRecoveredTag(0);
+        assertEquals(7, tag.getID());
+        assertEquals(45.51, tag.getLatitude(), 0.0);
+        assertEquals(2, tag.getSightingCount());
+        assertEquals(3000L, tag.getLastSeen());
+        assertEquals(8, log.getRecoveredTag(1).getID());
+        assertEquals(0, log.getTornBytes());
+        log.dispose();
+    }
+
+    /**
+     * The size of an image is kept whole, even past the range of a short.
+     */
+    @Test
+    public void testLargeImageSize() throws Exception {
+        TagLog log = open();
+        log.append(0, new Tag(7, 45.5, -73.6, 5.0, 1, 1000L, 1000L),
+                new TagImageStore.Encoded(40000, 70000, new byte[16]));
+        log.dispose();
+
+        log = open();
+        assertEquals(40000L * 70000L, log.getImageArea(0));
+        log.dispose();
+    }
+
+    /**
+     * A slot past the next one is refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSkippedSlotIsRefused() throws Exception {
+        TagLog log = open();
+        try {
+            log.append(1, new Tag(7, 45.5, -73.6, 5.0, 1, 1000L, 1000L), null);
+        } finally {
+            log.dispose();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private TagLog open() throws Exception {
+        File root = fFolder.getRoot();
+        return new TagLog(new File(root, "mission.tags"), new File(root, "mission.images"));
+    }
+
+}
@@ -0,0 +1,161 @@
+package ca.polymtl.mrasl.clock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class tests the scheduler that runs its tasks on a thread in the real time.
+ */
+public class ThreadSchedulerTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final ThreadScheduler fScheduler = new ThreadScheduler("test");
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @After
+    public void tearDown() {
+        fScheduler.dispose();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The posted tasks run one at a time on the thread of the scheduler, in the order they were
+     * posted.
+     */
+    @Test
+    public void testTasksRunInOrderOnOneThread() throws Exception {
+        final int count = 100;
+        final List<Integer> order = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(count);
+
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            fScheduler.post(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (order) {
+                        order.add(index);
+                        threads.add(Thread.currentThread());
+                    }
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        synchronized (order) {
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, (int) order.get(i));
+                assertEquals(threads.get(0), threads.get(i));
+            }
+        }
+        assertEquals("test", threads.get(0).getName());
+    }
+
+    /**
+     * A delayed task doesn't run before its delay, and the clock of the scheduler is the real one.
+     */
+    @Test
+    public void testDelay() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        final long[] elapsed = new long[1];
+
+        fScheduler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                elapsed[0] = System.nanoTime() - start;
+                done.countDown();
+            }
+        }, 50L);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(elapsed[0] >= TimeUnit.MILLISECONDS.toNanos(50L));
+        assertTrue(fScheduler.getClock() instanceof RealClock);
+    }
+
+    /**
+     * Removing a task cancels all its pending runs.
+     */
+    @Test
+    public void testRemoveCallbacks() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+
+        fScheduler.postDelayed(task, 100L);
+        fScheduler.postDelayed(task, 150L);
+        fScheduler.removeCallbacks(task);
+
+        assertTrue(runAfter(fScheduler, 300L));
+        assertEquals(0, runs.get());
+    }
+
+    /**
+     * The delayed tasks are dropped once the scheduler is disposed, and nothing can be posted
+     * anymore.
+     */
+    @Test
+    public void testDisposeDropsTasks() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+
+        fScheduler.postDelayed(task, 100L);
+        fScheduler.dispose();
+        fScheduler.post(task);
+
+        Thread.sleep(200L);
+        assertEquals(0, runs.get());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method waits for a marker task posted after a delay, so every task posted before
+     * with a shorter delay had the time to run.
+     *
+     * @return {@code true} if the marker ran
+     */
+    private static boolean runAfter(IScheduler scheduler, long delay) throws InterruptedException {
+        final CountDownLatch marker = new CountDownLatch(1);
+        scheduler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                marker.countDown();
+            }
+        }, delay);
+
+        return marker.await(delay + 1000L, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,177 @@
+package ca.polymtl.mrasl.clock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class tests the virtual time of the clock and its schedulers.
+ */
+public class VirtualClockTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final long EPOCH = 1000000L;
+    private static final long HOUR = 3600000L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The time only moves when the clock is advanced.
+     */
+    @Test
+    public void testTimeOnlyMovesWhenAdvanced() {
+        VirtualClock clock = new VirtualClock(EPOCH);
+        assertEquals(EPOCH, clock.currentTimeMillis());
+        assertEquals(0L, clock.nanoTime());
+
+        clock.advance(250L);
+        assertEquals(EPOCH + 250L, clock.currentTimeMillis());
+        assertEquals(250L * 1000000L, clock.nanoTime());
+        assertEquals(250L, clock.getElapsed());
+    }
+
+    /**
+     * The tasks run in the order of their time, then in the order they were posted, whatever
+     * their scheduler.
+     */
+    @Test
+    public void testTasksRunInOrder() {
+        VirtualClock clock = new VirtualClock(EPOCH);
+        IScheduler first = clock.createScheduler();
+        IScheduler second = clock.createScheduler();
+        List<String> order = new ArrayList<>();
+
+        first.postDelayed(new Append(order, "c"), 20L);
+        second.postDelayed(new Append(order, "a"), 10L);
+        first.post(new Append(order, "0"));
+        second.postDelayed(new Append(order, "b"), 10L);
+
+        assertEquals(4, clock.advance(20L));
+        assertEquals(Arrays.asList("0", "a", "b", "c"), order);
+    }
+
+    /**
+     * A task reads the time it was due, and the tasks it posts run in the same advance if they
+     * are due before its end.
+     */
+    @Test
+    public void testTasksSeeTheirTime() {
+        final VirtualClock clock = new VirtualClock(EPOCH);
+        final IScheduler scheduler = clock.createScheduler();
+        final List<Long> times = new ArrayList<>();
+
+        scheduler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                times.add(clock.getElapsed());
+                scheduler.postDelayed(new Runnable() {
+                    @Override
+                    public void run() {
+                        times.add(clock.getElapsed());
+                    }
+                }, 30L);
+            }
+        }, 50L);
+
+        assertEquals(2, clock.advance(100L));
+        assertEquals(Arrays.asList(50L, 80L), times);
+        assertEquals(100L, clock.getElapsed());
+    }
+
+    /**
+     * Removing a task only removes the pending runs of its own scheduler.
+     */
+    @Test
+    public void testRemoveCallbacks() {
+        VirtualClock clock = new VirtualClock(EPOCH);
+        IScheduler first = clock.createScheduler();
+        IScheduler second = clock.createScheduler();
+        List<String> order = new ArrayList<>();
+        Runnable task = new Append(order, "x");
+
+        first.postDelayed(task, 10L);
+        first.postDelayed(task, 20L);
+        second.postDelayed(task, 30L);
+        first.removeCallbacks(task);
+
+        assertEquals(1, clock.getPendingCount());
+        assertTrue(clock.runNext());
+        assertEquals(30L, clock.getElapsed());
+        assertFalse(clock.runNext());
+        assertEquals(Arrays.asList("x"), order);
+    }
+
+    /**
+     * Hours of periodic timers run in virtual time, without waiting.
+     */
+    @Test(timeout = 10000L)
+    public void testHoursOfTimers() {
+        VirtualClock clock = new VirtualClock(EPOCH);
+        IScheduler scheduler = clock.createScheduler();
+        Periodic fast = new Periodic(scheduler, 20L);
+        Periodic slow = new Periodic(scheduler, 1000L);
+        scheduler.postDelayed(fast, 20L);
+        scheduler.postDelayed(slow, 1000L);
+
+        clock.advance(6 * HOUR);
+
+        assertEquals(6 * HOUR / 20L, fast.fCount);
+        assertEquals(6 * HOUR / 1000L, slow.fCount);
+        assertEquals(fast.fCount + slow.fCount, clock.getRunCount());
+        assertEquals(2, clock.getPendingCount());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class appends a name to a list when it runs.
+     */
+    private static class Append implements Runnable {
+        private final List<String> fOrder;
+        private final String fName;
+
+        public Append(List<String> order, String name) {
+            fOrder = order;
+            fName = name;
+        }
+
+        @Override
+        public void run() {
+            fOrder.add(fName);
+        }
+    }
+
+    /**
+     * This class posts itself again after each run, like a timer.
+     */
+    private static class Periodic implements Runnable {
+        private final IScheduler fScheduler;
+        private final long fPeriod;
+        private long fCount;
+
+        public Periodic(IScheduler scheduler, long period) {
+            fScheduler = scheduler;
+            fPeriod = period;
+        }
+
+        @Override
+        public void run() {
+            fCount++;
+            fScheduler.postDelayed(this, fPeriod);
+        }
+    }
+
+}
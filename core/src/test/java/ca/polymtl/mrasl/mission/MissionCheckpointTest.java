@@ -0,0 +1,296 @@
+package ca.polymtl.mrasl.mission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ca.polymtl.mrasl.clock.RealClock;
+import ca.polymtl.mrasl.clock.ThreadScheduler;
+import ca.polymtl.mrasl.clock.VirtualClock;
+import ca.polymtl.mrasl.tag.Tag;
+
+/**
+ * This class tests the tags kept by the checkpoint of the mission.
+ */
+public class MissionCheckpointTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final int THREADS = 8;
+    private static final int TAGS_PER_THREAD = 50;
+
+    /* The size of the header of the tag log */
+    private static final long HEADER_SIZE = 8L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    @Rule
+    public final TemporaryFolder fFolder = new TemporaryFolder();
+
+    private final ThreadScheduler fScheduler = new ThreadScheduler("checkpoint");
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @After
+    public void tearDown() {
+        fScheduler.dispose();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The tags detected by many workers at once are all written, and recovered after a restart.
+     */
+    @Test
+    public void testConcurrentTagsAreRecovered() throws Exception {
+        File journal = new File(fFolder.getRoot(), "mission.journal");
+        final MissionCheckpoint checkpoint = new MissionCheckpoint(journal, fScheduler);
+        checkpoint.recordState(new MissionSnapshot(State.START_MISSION, 1L, 1000L, 0L));
+
+        final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int worker = t;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await();
+                    } catch (Exception exception) {
+                        throw new IllegalStateException(exception);
+                    }
+
+                    for (int i = 0; i < TAGS_PER_THREAD; i++) {
+                        checkpoint.recordTag(new Tag(worker * TAGS_PER_THREAD + i, 45.5,
+                                -73.6, null), null);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        checkpoint.dispose();
+        drain();
+
+        MissionCheckpoint recovered = new MissionCheckpoint(journal, fScheduler);
+        assertEquals(THREADS * TAGS_PER_THREAD, recover(recovered).size());
+        recovered.dispose();
+        drain();
+    }
+
+    /**
+     * The journal is opened on the thread of the scheduler, never by the creator of the
+     * checkpoint, and the recovered mission is only given once it is read.
+     */
+    @Test
+    public void testJournalIsOpenedOnScheduler() throws Exception {
+        File journal = new File(fFolder.getRoot(), "mission.journal");
+        MissionCheckpoint checkpoint = new MissionCheckpoint(journal, fScheduler);
+        checkpoint.recordState(new MissionSnapshot(State.START_MISSION, 1L, 1000L, 0L));
+        checkpoint.recordTag(new Tag(1, 45.5, -73.6, null), null);
+        checkpoint.dispose();
+        drain();
+
+        VirtualClock clock = new VirtualClock(0L);
+        MissionCheckpoint recovered = new MissionCheckpoint(journal, clock.createScheduler());
+        assertNull(recovered.getSnapshot());
+
+        final AtomicReference<MissionSnapshot> snapshot = new AtomicReference<>();
+        recovered.recover(null, new MissionRecoveredListener() {
+            @Override
+            public void onMissionRecovered(MissionSnapshot recoveredSnapshot, List<Tag> tags) {
+                snapshot.set(recoveredSnapshot);
+            }
+        });
+        assertNull(snapshot.get());
+
+        clock.advance(0L);
+        assertEquals(State.START_MISSION, snapshot.get().getState());
+        assertEquals(1L, snapshot.get().getVersion());
+        recovered.dispose();
+        clock.advance(0L);
+    }
+
+    /**
+     * A recovered tag seen again keeps its slot, and the new tags follow the recovered ones.
+     */
+    @Test
+    public void testRecoveredTagsKeepTheirSlot() throws Exception {
+        File journal = new File(fFolder.getRoot(), "mission.journal");
+        MissionCheckpoint checkpoint = new MissionCheckpoint(journal, fScheduler);
+        checkpoint.recordState(new MissionSnapshot(State.START_MISSION, 1L, 1000L, 0L));
+        for (int i = 0; i < 3; i++) {
+            checkpoint.recordTag(new Tag(i, 45.5, -73.6, null), null);
+        }
+        checkpoint.dispose();
+        drain();
+
+        /* Update a recovered tag and add a new one, before and after the recovery */
+        checkpoint = new MissionCheckpoint(journal, fScheduler);
+        checkpoint.recordTag(new Tag(7, 45.5, -73.6, null), null);
+        List<Tag> tags = recover(checkpoint);
+        assertEquals(4, tags.size());
+        assertEquals(7, tags.get(3).getID());
+        checkpoint.recordTag(tags.get(1), null);
+        checkpoint.recordTag(new Tag(8, 45.5, -73.6, null), null);
+        checkpoint.dispose();
+        drain();
+
+        checkpoint = new MissionCheckpoint(journal, fScheduler);
+        tags = recover(checkpoint);
+        assertEquals(5, tags.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, tags.get(i).getID());
+        }
+        assertEquals(7, tags.get(3).getID());
+        assertEquals(8, tags.get(4).getID());
+        checkpoint.dispose();
+        drain();
+    }
+
+    /**
+     * A new mission continues the recovered state and restores the recovered tags once the
+     * checkpoint is read.
+     */
+    @Test
+    public void testMissionContinuesRecoveredMission() throws Exception {
+        File journal = new File(fFolder.getRoot(), "mission.journal");
+        MissionCheckpoint checkpoint = new MissionCheckpoint(journal, fScheduler);
+        checkpoint.recordState(new MissionSnapshot(State.START_MISSION, 1L, 1000L, 0L));
+        for (int i = 0; i < 3; i++) {
+            checkpoint.recordTag(new Tag(i, 45.5 + i * 0.01, -73.6, null), null);
+        }
+        checkpoint.dispose();
+        drain();
+
+        checkpoint = new MissionCheckpoint(journal, fScheduler);
+        Mission mission = new Mission(RealClock.getInstance(), checkpoint);
+        List<Tag> tags = recover(checkpoint);
+
+        assertEquals(State.START_MISSION, mission.getState());
+        assertEquals(1L, mission.getSnapshot().getVersion());
+        assertEquals(3, mission.getTagList().getSnapshot().getCount());
+        assertSame(tags.get(0), mission.getTagList().getList().get(0));
+        MissionTimeline timeline = mission.getTimeline();
+        assertEquals(3, timeline.getTagCount(timeline.getCount() - 1));
+
+        /* The next transition follows the recovered version */
+        assertTrue(mission.followPlanner(State.ABORT_MISSION, null));
+        assertEquals(2L, mission.getSnapshot().getVersion());
+        mission.dispose();
+        checkpoint.dispose();
+        drain();
+    }
+
+    /**
+     * A mission that changed before the checkpoint was read drops the recovered one.
+     */
+    @Test
+    public void testChangedMissionDropsRecoveredMission() throws Exception {
+        File journal = new File(fFolder.getRoot(), "mission.journal");
+        MissionCheckpoint checkpoint = new MissionCheckpoint(journal, fScheduler);
+        checkpoint.recordState(new MissionSnapshot(State.ABORT_MISSION, 4L, 1000L, 0L));
+        checkpoint.recordTag(new Tag(1, 45.5, -73.6, null), null);
+        checkpoint.dispose();
+        drain();
+
+        VirtualClock clock = new VirtualClock(0L);
+        checkpoint = new MissionCheckpoint(journal, clock.createScheduler());
+        Mission mission = new Mission(RealClock.getInstance(), checkpoint);
+        assertTrue(mission.followPlanner(State.START_MISSION, null));
+        clock.advance(0L);
+
+        assertEquals(State.START_MISSION, mission.getState());
+        assertEquals(0, mission.getTagList().getSnapshot().getCount());
+        mission.dispose();
+        checkpoint.dispose();
+        clock.advance(0L);
+
+        /* The checkpoint started over from the changed mission */
+        checkpoint = new MissionCheckpoint(journal, fScheduler);
+        List<Tag> tags = recover(checkpoint);
+        assertEquals(State.START_MISSION, checkpoint.getSnapshot().getState());
+        assertFalse(tags.iterator().hasNext());
+        checkpoint.dispose();
+        drain();
+    }
+
+    /**
+     * The tags are removed by a reset even when the journal can't be opened.
+     */
+    @Test
+    public void testResetWithoutJournal() throws Exception {
+        /* A directory can't be opened as a journal */
+        File journal = fFolder.newFolder("mission.journal");
+        MissionCheckpoint checkpoint = new MissionCheckpoint(journal, fScheduler);
+        for (int i = 0; i < 3; i++) {
+            checkpoint.recordTag(new Tag(i, 45.5, -73.6, null), null);
+        }
+        drain();
+
+        File tags = new File(journal.getPath() + ".tags");
+        long record = (tags.length() - HEADER_SIZE) / 3;
+
+        checkpoint.reset();
+        checkpoint.recordTag(new Tag(9, 45.5, -73.6, null), null);
+        checkpoint.dispose();
+        drain();
+
+        assertEquals(HEADER_SIZE + record, tags.length());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private List<Tag> recover(MissionCheckpoint checkpoint) throws InterruptedException {
+        final List<Tag> recovered = new ArrayList<>();
+        checkpoint.recover(null, new MissionRecoveredListener() {
+            @Override
+            public void onMissionRecovered(MissionSnapshot snapshot, List<Tag> tags) {
+                recovered.addAll(tags);
+            }
+        });
+        drain();
+        return recovered;
+    }
+
+    private void drain() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        fScheduler.post(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+}
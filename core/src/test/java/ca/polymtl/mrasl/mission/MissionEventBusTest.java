@@ -0,0 +1,92 @@
+package ca.polymtl.mrasl.mission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class tests the delivery of the events of the mission to the listeners.
+ */
+public class MissionEventBusTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final MissionEventBus fBus = new MissionEventBus();
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @After
+    public void tearDown() {
+        fBus.dispose();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * A listener that throws keeps receiving the next events.
+     */
+    @Test
+    public void testFailingListenerReceivesNextEvents() throws Exception {
+        final CountDownLatch delivered = new CountDownLatch(3);
+        final AtomicInteger calls = new AtomicInteger();
+
+        fBus.subscribe(new MissionStateChangedListener() {
+            @Override
+            public void onStateChanged(State state) {
+                calls.incrementAndGet();
+                delivered.countDown();
+                if (state == State.START_MISSION) {
+                    throw new IllegalStateException("The listener failed");
+                }
+            }
+        });
+
+        fBus.publish(State.READY);
+        fBus.publish(State.START_MISSION);
+        fBus.publish(State.ABORT_MISSION);
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(3, calls.get());
+    }
+
+    /**
+     * The events of a listener are delivered in the order they were published.
+     */
+    @Test
+    public void testEventsAreOrdered() throws Exception {
+        final CountDownLatch delivered = new CountDownLatch(State.values().length);
+        final StringBuilder order = new StringBuilder();
+
+        fBus.subscribe(new MissionStateChangedListener() {
+            @Override
+            public void onStateChanged(State state) {
+                synchronized (order) {
+                    order.append(state.ordinal());
+                }
+                delivered.countDown();
+            }
+        });
+
+        for (State state : State.values()) {
+            fBus.publish(state);
+        }
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        synchronized (order) {
+            assertEquals("01234", order.toString());
+        }
+    }
+
+}
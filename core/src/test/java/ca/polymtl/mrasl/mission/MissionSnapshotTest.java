@@ -0,0 +1,70 @@
+package ca.polymtl.mrasl.mission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * This class tests the snapshots published by the transitions of the mission. Each transition
+ * must give the next version, and only be allowed from the states of its table.
+ */
+public class MissionSnapshotTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Each transition increases the version by one, and the start and stop times are set by the
+     * transitions that start and finish the mission.
+     */
+    @Test
+    public void testTransitionsIncreaseTheVersion() {
+        MissionSnapshot snapshot = new MissionSnapshot(State.READY, 0L, 0L, 0L);
+
+        snapshot = snapshot.apply(Transition.START, 1000L);
+        assertSnapshot(snapshot, State.START_MISSION, 1L, 1000L, 0L);
+
+        snapshot = snapshot.apply(Transition.ABORT_LANDING, 2000L);
+        assertSnapshot(snapshot, State.ABORT_LANDING, 2L, 1000L, 0L);
+
+        snapshot = snapshot.apply(Transition.FINISH, 3000L);
+        assertSnapshot(snapshot, State.FINISHED, 3L, 1000L, 3000L);
+    }
+
+    /**
+     * A transition is only allowed from the states it leaves, so a finished mission accepts no
+     * transition at all.
+     */
+    @Test
+    public void testTransitionsFollowTheTable() {
+        assertTrue(Transition.START.isAllowedFrom(State.READY));
+        assertFalse(Transition.START.isAllowedFrom(State.START_MISSION));
+
+        assertFalse(Transition.ABORT_MISSION.isAllowedFrom(State.READY));
+        assertTrue(Transition.ABORT_MISSION.isAllowedFrom(State.START_MISSION));
+        assertFalse(Transition.ABORT_MISSION.isAllowedFrom(State.ABORT_LANDING));
+
+        assertFalse(Transition.FINISH.isAllowedFrom(State.READY));
+        assertTrue(Transition.FINISH.isAllowedFrom(State.ABORT_MISSION));
+
+        for (Transition transition : Transition.values()) {
+            assertFalse(transition.name(), transition.isAllowedFrom(State.FINISHED));
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private static void assertSnapshot(MissionSnapshot snapshot, State state, long version,
+                                       long startTime, long stopTime) {
+        assertEquals(state, snapshot.getState());
+        assertEquals(version, snapshot.getVersion());
+        assertEquals(startTime, snapshot.getStartTime());
+        assertEquals(stopTime, snapshot.getStopTime());
+    }
+
+}
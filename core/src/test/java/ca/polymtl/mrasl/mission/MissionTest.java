@@ -0,0 +1,376 @@
+package ca.polymtl.mrasl.mission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ca.polymtl.mrasl.clock.RealClock;
+import ca.polymtl.mrasl.payload.IPayload;
+import ca.polymtl.mrasl.payload.PayloadCommand;
+import ca.polymtl.mrasl.payload.PayloadCommand.CommandType;
+import ca.polymtl.mrasl.payload.PayloadManager;
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.recorder.IRecorder;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.trace.TriggerSource;
+
+/**
+ * This class stresses the transitions of the mission from many threads. Each transition must be
+ * applied once, with the next version, and the command queued for the drone must be the one of the
+ * last transition.
+ */
+public class MissionTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final int ITERATIONS = 500;
+    private static final int THREADS = 8;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final StateRecorder fRecorder = new StateRecorder();
+
+    private IRecorder fPreviousRecorder;
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @Before
+    public void setUp() {
+        fPreviousRecorder = Platform.getInstance().getRecorder();
+        Platform.getInstance().setRecorder(fRecorder);
+    }
+
+    @After
+    public void tearDown() {
+        Platform.getInstance().setRecorder(fPreviousRecorder);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Many threads abort the mission at the same time, only one of them must apply its abort.
+     */
+    @Test
+    public void testConcurrentAbortsApplyOnce() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            final Mission mission = new Mission(RealClock.getInstance(), null);
+            PayloadManager manager = new PayloadManager(DIRECT);
+            mission.setPayloadManager(manager);
+            assertTrue(mission.startMission(null));
+
+            final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            final AtomicInteger applied = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final boolean landing = (t % 2 == 0);
+                threads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        await(barrier);
+                        boolean result = landing ? mission.abortLanding(null)
+                                : mission.abortMission(null);
+                        if (result) {
+                            applied.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            run(threads);
+
+            /* A single abort went through, right after the start */
+            assertEquals(1, applied.get());
+            assertEquals(2L, mission.getSnapshot().getVersion());
+            assertEquals(commandOf(mission.getState()), nextCommand(manager));
+
+            mission.dispose();
+        }
+    }
+
+    /**
+     * A thread starts the mission while another one aborts it as soon as it can. The start is slow
+     * to queue its command, but the abort is the last transition, so its command must not be
+     * replaced by the one of the start.
+     */
+    @Test
+    public void testCommandFollowsLastTransition() throws Exception {
+        for (int i = 0; i < ITERATIONS / 5; i++) {
+            final Mission mission = new Mission(RealClock.getInstance(), null);
+            PayloadManager manager = new SlowStartManager();
+            mission.setPayloadManager(manager);
+            fRecorder.clear();
+
+            final CyclicBarrier barrier = new CyclicBarrier(2);
+            List<Thread> threads = new ArrayList<>();
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(barrier);
+                    mission.startMission(new CommandTrace(TriggerSource.UI));
+                }
+            }));
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(barrier);
+                    while (!mission.abortLanding(new CommandTrace(TriggerSource.UI))) {
+                        Thread.yield();
+                    }
+                }
+            }));
+            run(threads);
+
+            assertEquals(State.ABORT_LANDING, mission.getState());
+            assertEquals(2L, mission.getSnapshot().getVersion());
+            assertEquals(CommandType.ABORT_LANDING, nextCommand(manager));
+
+            /* The flight log has the states in the order of the versions */
+            List<State> states = fRecorder.getStates();
+            assertEquals(2, states.size());
+            assertEquals(State.START_MISSION, states.get(0));
+            assertEquals(State.ABORT_LANDING, states.get(1));
+
+            mission.dispose();
+        }
+    }
+
+    /**
+     * The versions published to a listener only go forward, even when the transitions race.
+     */
+    @Test
+    public void testListenerSeesIncreasingStates() throws Exception {
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            final Mission mission = new Mission(RealClock.getInstance(), null);
+            mission.setPayloadManager(new PayloadManager(DIRECT));
+
+            final List<State> states = new ArrayList<>();
+            mission.addMissionStateChangedListener(new MissionStateChangedListener() {
+                @Override
+                public void onStateChanged(State state) {
+                    synchronized (states) {
+                        states.add(state);
+                    }
+                }
+            }, DIRECT, false);
+
+            final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                threads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        await(barrier);
+                        mission.startMission(null);
+                        mission.abortMission(null);
+                        mission.finishMission();
+                    }
+                }));
+            }
+            run(threads);
+
+            synchronized (states) {
+                assertEquals(State.FINISHED, states.get(states.size() - 1));
+                for (int s = 1; s < states.size(); s++) {
+                    assertTrue(states.get(s).ordinal() > states.get(s - 1).ordinal());
+                }
+            }
+
+            mission.dispose();
+        }
+    }
+
+    /**
+     * The drone and the flight log fail on every other call while many threads race on the
+     * transitions. Each transition must still be published, so no thread waits forever for the
+     * version of a failed one.
+     */
+    @Test
+    public void testFailingSinksDontBlockTransitions() throws Exception {
+        Platform.getInstance().setRecorder(new FailingRecorder());
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            final Mission mission = new Mission(RealClock.getInstance(), null);
+            mission.setPayloadManager(new FailingManager());
+
+            final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                threads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        await(barrier);
+                        mission.startMission(null);
+                        mission.abortLanding(null);
+                        mission.finishMission();
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join(5000);
+                assertFalse("A transition is still waiting", thread.isAlive());
+            }
+
+            assertEquals(State.FINISHED, mission.getState());
+            assertEquals(3L, mission.getSnapshot().getVersion());
+
+            mission.dispose();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * This class queues the start command late, like a thread preempted right after its
+     * transition.
+     */
+    private static class SlowStartManager extends PayloadManager {
+        public SlowStartManager() {
+            super(DIRECT);
+        }
+
+        @Override
+        public void setPayload(PayloadCommand payload) {
+            if (payload.getCommand() == CommandType.START_MISSION) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            super.setPayload(payload);
+        }
+    }
+
+    /**
+     * This class fails to queue every other command, like a link that was torn down.
+     */
+    private static class FailingManager extends PayloadManager {
+        private final AtomicInteger fCalls = new AtomicInteger();
+
+        public FailingManager() {
+            super(DIRECT);
+        }
+
+        @Override
+        public void setPayload(PayloadCommand payload) {
+            if (fCalls.getAndIncrement() % 2 == 0) {
+                throw new IllegalStateException("The link is closed");
+            }
+
+            super.setPayload(payload);
+        }
+    }
+
+    /**
+     * This class fails to write every other state, like a flight log on a full storage.
+     */
+    private static class FailingRecorder extends StateRecorder {
+        private final AtomicInteger fCalls = new AtomicInteger();
+
+        @Override
+        public synchronized void recordState(State state) {
+            if (fCalls.getAndIncrement() % 2 == 0) {
+                throw new IllegalStateException("The storage is full");
+            }
+
+            super.recordState(state);
+        }
+    }
+
+    /**
+     * This class keeps the states written in the flight log.
+     */
+    private static class StateRecorder implements IRecorder {
+        private final List<State> fStates = new ArrayList<>();
+
+        public synchronized void clear() {
+            fStates.clear();
+        }
+
+        public synchronized List<State> getStates() {
+            return new ArrayList<>(fStates);
+        }
+
+        @Override
+        public synchronized void recordState(State state) {
+            fStates.add(state);
+        }
+
+        @Override
+        public void recordUplink(byte[] frame) {
+        }
+
+        @Override
+        public void recordDownlink(byte[] frame) {
+        }
+
+        @Override
+        public void recordLinkError(String description) {
+        }
+
+        @Override
+        public void recordCommandTrace(CommandTrace trace) {
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static void run(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static CommandType nextCommand(PayloadManager manager) {
+        IPayload payload = manager.getNext();
+        return (payload instanceof PayloadCommand) ? ((PayloadCommand) payload).getCommand() : null;
+    }
+
+    private static CommandType commandOf(State state) {
+        return (state == State.ABORT_LANDING) ? CommandType.ABORT_LANDING
+                : CommandType.ABORT_MISSION;
+    }
+
+}
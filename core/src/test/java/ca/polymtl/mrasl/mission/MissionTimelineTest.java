@@ -0,0 +1,199 @@
+package ca.polymtl.mrasl.mission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import ca.polymtl.mrasl.clock.IClock;
+import ca.polymtl.mrasl.clock.VirtualClock;
+import ca.polymtl.mrasl.payload.PayloadCommand.CommandType;
+
+/**
+ * This class tests what the timeline of a mission tells was happening after each event and at a
+ * given time.
+ */
+public class MissionTimelineTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final long EPOCH = 1500000000000L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final VirtualClock fClock = new VirtualClock(EPOCH);
+    private final MissionTimeline fTimeline = new MissionTimeline(fClock);
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Each event carries on the state, the link, the number of tags and the pending command of
+     * the event before it, and only changes its own column.
+     */
+    @Test
+    public void testEventsCarryWhatWasHappening() {
+        fTimeline.recordLinkUp();
+        fClock.advance(100);
+        fTimeline.recordCommandSent(CommandType.START_MISSION);
+        fClock.advance(100);
+        fTimeline.recordCommandAcked(CommandType.START_MISSION);
+        fTimeline.recordState(State.START_MISSION);
+        fClock.advance(1000);
+        fTimeline.recordTag(7);
+        fTimeline.recordTag(8);
+        fClock.advance(1000);
+        fTimeline.recordLinkDown();
+        fTimeline.recordCommandSent(CommandType.ABORT_MISSION);
+        fClock.advance(100);
+        fTimeline.recordCommandAcked(CommandType.ABORT_LANDING);
+        fTimeline.recordTag(9);
+
+        assertEquals(10, fTimeline.getCount());
+        assertEvent(0, EPOCH, TimelineEvent.LINK_UP, 0, State.READY, true, 0, null);
+        assertEvent(1, EPOCH + 100, TimelineEvent.COMMAND_SENT,
+                CommandType.START_MISSION.ordinal(), State.READY, true, 0,
+                CommandType.START_MISSION);
+        assertEvent(2, EPOCH + 200, TimelineEvent.COMMAND_ACKED,
+                CommandType.START_MISSION.ordinal(), State.READY, true, 0, null);
+        assertEvent(3, EPOCH + 200, TimelineEvent.STATE, State.START_MISSION.ordinal(),
+                State.START_MISSION, true, 0, null);
+        assertEvent(4, EPOCH + 1200, TimelineEvent.TAG, 7, State.START_MISSION, true, 1, null);
+        assertEvent(5, EPOCH + 1200, TimelineEvent.TAG, 8, State.START_MISSION, true, 2, null);
+        assertEvent(6, EPOCH + 2200, TimelineEvent.LINK_DOWN, 0, State.START_MISSION, false, 2,
+                null);
+        assertEvent(7, EPOCH + 2200, TimelineEvent.COMMAND_SENT,
+                CommandType.ABORT_MISSION.ordinal(), State.START_MISSION, false, 2,
+                CommandType.ABORT_MISSION);
+
+        /* The acknowledgement of another command leaves the pending one */
+        assertEvent(8, EPOCH + 2300, TimelineEvent.COMMAND_ACKED,
+                CommandType.ABORT_LANDING.ordinal(), State.START_MISSION, false, 2,
+                CommandType.ABORT_MISSION);
+        assertEvent(9, EPOCH + 2300, TimelineEvent.TAG, 9, State.START_MISSION, false, 3,
+                CommandType.ABORT_MISSION);
+    }
+
+    /**
+     * The events at or around a time are found by the binary searches exactly like a scan of
+     * the events, with many events at the same time and more events than the initial capacity.
+     */
+    @Test
+    public void testSearchesMatchScan() {
+        Random random = new Random(39);
+        State[] states = State.values();
+        int count = 1000;
+
+        for (int i = 0; i < count; i++) {
+            /* A third of the events happen at the time of the previous one */
+            if (random.nextInt(3) != 0) {
+                fClock.advance(1 + random.nextInt(500));
+            }
+            fTimeline.recordState(states[random.nextInt(states.length)]);
+        }
+        assertEquals(count, fTimeline.getCount());
+
+        long first = fTimeline.getTime(0);
+        long last = fTimeline.getTime(count - 1);
+        for (int i = 0; i < 2000; i++) {
+            long time = first - 10 + (long) (random.nextDouble() * (last - first + 20));
+            if (i % 4 == 0) {
+                time = fTimeline.getTime(random.nextInt(count));
+            }
+
+            int at = -1;
+            int from = count;
+            for (int j = 0; j < count; j++) {
+                if (fTimeline.getTime(j) <= time) {
+                    at = j;
+                }
+                if (fTimeline.getTime(j) >= time && from == count) {
+                    from = j;
+                }
+            }
+
+            assertEquals(at, fTimeline.indexAt(time));
+            assertEquals(from, fTimeline.indexFrom(time));
+            assertEquals((at >= 0) ? fTimeline.getState(at) : null, fTimeline.getStateAt(time));
+        }
+    }
+
+    /**
+     * An empty timeline has nothing at any time.
+     */
+    @Test
+    public void testEmptyTimeline() {
+        assertEquals(-1, fTimeline.indexAt(EPOCH));
+        assertEquals(0, fTimeline.indexFrom(EPOCH));
+        assertNull(fTimeline.getStateAt(EPOCH));
+    }
+
+    /**
+     * An event past the end of the timeline can't be read, even if the arrays are larger.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexPastTheEnd() {
+        fTimeline.recordLinkUp();
+        fTimeline.getState(1);
+    }
+
+    /**
+     * The times of the events never go backward, even if the clock is adjusted, so the searches
+     * still work.
+     */
+    @Test
+    public void testClockGoingBackward() {
+        final long[] time = {EPOCH};
+        MissionTimeline timeline = new MissionTimeline(new IClock() {
+            @Override
+            public long currentTimeMillis() {
+                return time[0];
+            }
+
+            @Override
+            public long nanoTime() {
+                return time[0] * 1000000L;
+            }
+        });
+
+        timeline.recordLinkUp();
+        time[0] = EPOCH + 1000;
+        timeline.recordState(State.START_MISSION);
+        time[0] = EPOCH + 500;
+        timeline.recordTag(7);
+        time[0] = EPOCH + 1500;
+        timeline.recordLinkDown();
+
+        assertEquals(EPOCH + 1000, timeline.getTime(2));
+        assertEquals(EPOCH + 1500, timeline.getTime(3));
+        assertEquals(2, timeline.indexAt(EPOCH + 1200));
+        assertEquals(1, timeline.indexFrom(EPOCH + 1000));
+        assertEquals(State.READY, timeline.getStateAt(EPOCH + 999));
+        assertFalse(timeline.isLinkUp(timeline.indexAt(EPOCH + 2000)));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private void assertEvent(int index, long time, TimelineEvent type, int value, State state,
+                             boolean linkUp, int tags, CommandType pending) {
+        String event = "event " + index;
+        assertEquals(event, time, fTimeline.getTime(index));
+        assertEquals(event, type, fTimeline.getType(index));
+        assertEquals(event, value, fTimeline.getValue(index));
+        assertEquals(event, state, fTimeline.getState(index));
+        assertEquals(event, linkUp, fTimeline.isLinkUp(index));
+        assertEquals(event, tags, fTimeline.getTagCount(index));
+        assertEquals(event, pending, fTimeline.getPendingCommand(index));
+    }
+
+}
@@ -0,0 +1,202 @@
+package ca.polymtl.mrasl.mission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import ca.polymtl.mrasl.clock.VirtualClock;
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.trace.CommandTrace.Outcome;
+import ca.polymtl.mrasl.trace.CommandTracer;
+
+/**
+ * This class replays the burst recorded from the mission planner against a mission, in virtual
+ * time. The states of a burst must be coalesced into a single change of the mission per frame,
+ * and the mission must be in the states expected by the recording.
+ */
+public class PlannerFeedTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /* The recording of the ground station, on the class path of the tests */
+    private static final String RECORDING = "/planner_burst.csv";
+    private static final String EXPECT = "# expect ";
+
+    private static final long EPOCH = 1466000000000L;
+    private static final long FRAME_DELAY = 16;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final VirtualClock fClock = new VirtualClock(EPOCH);
+
+    private Mission fMission;
+    private long fTime;
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @Before
+    public void setUp() {
+        Platform.getInstance().setVirtualClock(fClock);
+        fMission = new Mission(fClock, null);
+    }
+
+    @After
+    public void tearDown() {
+        fMission.dispose();
+        Platform.getInstance().setVirtualClock(null);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The recording changes the mission once per burst, a frame after the first state of the
+     * burst, and only with the states that can be reached. Each state is traced from its message.
+     */
+    @Test
+    public void testBurstIsCoalesced() throws Exception {
+        CommandTracer tracer = CommandTracer.getInstance();
+        long followed = tracer.getCount(Outcome.FOLLOWED);
+        long rejected = tracer.getCount(Outcome.REJECTED);
+        long dropped = tracer.getCount(Outcome.DROPPED);
+
+        List<String> failures = replay();
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        PlannerFeed feed = fMission.getPlannerFeed();
+        assertEquals(10, feed.getMessageCount());
+        assertEquals(1, feed.getInvalidCount());
+        assertEquals(3, feed.getCoalescedCount());
+        assertEquals(3, feed.getAppliedCount());
+        assertEquals(1, feed.getRejectedCount());
+        assertEquals(State.FINISHED, feed.getLastState());
+
+        /* Every valid message ended its trace, the replaced ones as dropped */
+        assertEquals(3, tracer.getCount(Outcome.FOLLOWED) - followed);
+        assertEquals(1, tracer.getCount(Outcome.REJECTED) - rejected);
+        assertEquals(9, tracer.getCount(Outcome.FOLLOWED) - followed
+                + tracer.getCount(Outcome.REJECTED) - rejected
+                + tracer.getCount(Outcome.DROPPED) - dropped);
+
+        /* The mission changed once per burst, at the end of the frame */
+        MissionTimeline timeline = fMission.getTimeline();
+        List<String> changes = new ArrayList<>();
+        for (int i = 0; i < timeline.getCount(); i++) {
+            if (timeline.getType(i) == TimelineEvent.STATE) {
+                changes.add((timeline.getTime(i) - EPOCH) + " " + timeline.getState(i));
+            }
+        }
+
+        List<String> expected = new ArrayList<>();
+        expected.add("0 READY");
+        expected.add((1000 + FRAME_DELAY) + " START_MISSION");
+        expected.add((2000 + FRAME_DELAY) + " ABORT_LANDING");
+        expected.add((6000 + FRAME_DELAY) + " FINISHED");
+        assertEquals(expected, changes);
+    }
+
+    /**
+     * The planner is stale once it stops talking for longer than the delay, and is back with its
+     * next message.
+     */
+    @Test
+    public void testQuietPlannerIsStale() {
+        PlannerFeed feed = fMission.getPlannerFeed();
+        assertFalse(feed.isStale());
+
+        /* Nothing was received yet, so the planner isn't stale */
+        advanceTo(5000);
+        assertFalse(feed.isStale());
+
+        /* The watchdog sees the silence on its next period after the delay */
+        feed.onMessage("READY");
+        advanceTo(7900);
+        assertFalse(feed.isStale());
+        advanceTo(8100);
+        assertTrue(feed.isStale());
+        assertEquals(3100, feed.getStaleness());
+
+        feed.onMessage("start_mission");
+        advanceTo(9000);
+        assertFalse(feed.isStale());
+        assertEquals(State.START_MISSION, fMission.getState());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method replays the recording the way the ground station does. The messages are
+     * delivered at their time, relative to the first one, and the expectations are checked at
+     * theirs.
+     *
+     * @return The expectations that weren't met
+     */
+    private List<String> replay() throws Exception {
+        InputStream stream = PlannerFeedTest.class.getResourceAsStream(RECORDING);
+        assertNotNull(RECORDING, stream);
+
+        List<String> failures = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+        try {
+            long first = -1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+
+                if (line.startsWith(EXPECT)) {
+                    String[] fields = line.substring(EXPECT.length()).trim().split("\\s+");
+                    advanceTo(Long.parseLong(fields[0]));
+
+                    State expected = State.valueOf(fields[1].toUpperCase(Locale.US));
+                    if (fMission.getState() != expected) {
+                        failures.add(fTime + " ms: " + fMission.getState() + " instead of "
+                                + expected);
+                    }
+                } else if (!line.isEmpty() && !line.startsWith("#") && !line.startsWith("%")) {
+                    int comma = line.indexOf(',');
+                    long nanos = Long.parseLong(line.substring(0, comma));
+                    if (first < 0) {
+                        first = nanos;
+                    }
+
+                    advanceTo((nanos - first) / NANOS_PER_MILLI);
+                    fMission.getPlannerFeed().onMessage(line.substring(comma + 1));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        /* Let the last state be applied */
+        advanceTo(fTime + 1000);
+        return failures;
+    }
+
+    private void advanceTo(long time) {
+        fClock.advance(time - fTime);
+        fTime = time;
+    }
+
+}
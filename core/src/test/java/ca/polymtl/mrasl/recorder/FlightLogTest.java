@@ -0,0 +1,357 @@
+package ca.polymtl.mrasl.recorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class tests that the records of a flight log are read back in order across the rotation
+ * of its segments, and that a segment torn by a crash is read and recovered up to its last valid
+ * record.
+ */
+public class FlightLogTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /* Small enough for the log to span many segments */
+    private static final int SEGMENT_SIZE = 1024;
+
+    private static final int RECORDS = 300;
+    private static final int MAX_LENGTH = 120;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    @Rule
+    public final TemporaryFolder fFolder = new TemporaryFolder();
+
+    private final Random fRandom = new Random(26);
+    private final List<RecordType> fTypes = new ArrayList<>();
+    private final List<byte[]> fData = new ArrayList<>();
+
+    private File fDirectory;
+    private int fRotations;
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @Before
+    public void setUp() {
+        fDirectory = new File(fFolder.getRoot(), "flight");
+
+        /* The first record is never empty so its data can be torn */
+        RecordType[] types = RecordType.values();
+        for (int i = 0; i < RECORDS; i++) {
+            byte[] data = new byte[(i == 0) ? MAX_LENGTH : fRandom.nextInt(MAX_LENGTH + 1)];
+            fRandom.nextBytes(data);
+            fTypes.add(types[i % types.length]);
+            fData.add(data);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The records are read back in order across the segments, whether the next segment was
+     * prepared ahead of time or mapped by the rotation, and the finished segments are truncated.
+     */
+    @Test
+    public void testRecordsSpanSegments() throws Exception {
+        FlightLogWriter writer = new FlightLogWriter(fDirectory, SEGMENT_SIZE);
+        long start = System.currentTimeMillis();
+        write(writer, RECORDS);
+        writer.dispose();
+
+        assertNull(writer.getFailure());
+        assertEquals(RECORDS, writer.getRecordCount());
+
+        File[] segments = LogFormat.listSegments(fDirectory);
+        assertEquals(fRotations + 1, segments.length);
+        assertTrue(segments.length > 2);
+        for (File segment : segments) {
+            assertTrue(segment.length() <= SEGMENT_SIZE);
+        }
+
+        FlightLogReader reader = new FlightLogReader(fDirectory);
+        try {
+            long timestamp = Long.MIN_VALUE;
+            for (int i = 0; i < RECORDS; i++) {
+                assertTrue(reader.next());
+                assertRecord(reader, i);
+                assertTrue(reader.getTimestamp() >= timestamp);
+                assertTrue(reader.getWallTime() >= start - 1000);
+                timestamp = reader.getTimestamp();
+            }
+            assertFalse(reader.next());
+            assertEquals(0, reader.getTornSegments());
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * A record larger than a segment is refused without using a sequence number, and a segment
+     * prepared but never used is removed.
+     */
+    @Test
+    public void testOversizedRecordAndUnusedSegment() throws Exception {
+        FlightLogWriter writer = new FlightLogWriter(fDirectory, SEGMENT_SIZE);
+        assertEquals(-1, writer.append(RecordType.UPLINK, new byte[SEGMENT_SIZE]));
+        assertEquals(0, writer.append(RecordType.UPLINK, new byte[]{0x1}));
+        writer.prepareNextSegment();
+        writer.dispose();
+
+        assertEquals(-1, writer.append(RecordType.UPLINK, new byte[]{0x2}));
+        assertEquals(1, LogFormat.listSegments(fDirectory).length);
+    }
+
+    /**
+     * The segments of a log that was never closed, as they are on the storage after a crash of
+     * the application, end at their first empty record and are truncated by the recovery.
+     */
+    @Test
+    public void testCrashedLogIsRecovered() throws Exception {
+        FlightLogWriter writer = new FlightLogWriter(fDirectory, SEGMENT_SIZE);
+        File crashed = new File(fFolder.getRoot(), "crashed");
+        try {
+            write(writer, RECORDS);
+            writer.flush();
+            copy(fDirectory, crashed);
+        } finally {
+            writer.dispose();
+        }
+
+        /* The segment being written is still preallocated */
+        File[] segments = LogFormat.listSegments(crashed);
+        assertEquals(SEGMENT_SIZE, segments[fRotations].length());
+        assertEquals(RECORDS, readAll(crashed, 0));
+
+        /* The recovered segments are the ones of a closed log, except the prepared one */
+        long kept = 0;
+        for (File segment : segments) {
+            kept += FlightLogReader.recover(segment);
+
+            File closed = new File(fDirectory, segment.getName());
+            assertEquals(closed.exists() ? closed.length() : LogFormat.HEADER_SIZE,
+                    segment.length());
+        }
+        assertEquals(RECORDS, kept);
+        assertEquals(RECORDS, readAll(crashed, 0));
+    }
+
+    /**
+     * A record whose checksum wasn't written yet ends its segment, and the recovery removes it
+     * along with the preallocated space after it.
+     */
+    @Test
+    public void testTornTailIsRecovered() throws Exception {
+        FlightLogWriter writer = new FlightLogWriter(fDirectory, SEGMENT_SIZE);
+        write(writer, RECORDS);
+        writer.dispose();
+
+        File[] segments = LogFormat.listSegments(fDirectory);
+        File last = segments[segments.length - 1];
+        long length = last.length();
+
+        /* Append a record that was copied but not committed, then the preallocated space */
+        ByteBuffer record = ByteBuffer.allocate(Math.max(SEGMENT_SIZE - (int) length,
+                LogFormat.RECORD_HEADER_SIZE + 16));
+        record.putInt(LogFormat.POS_RECORD_LENGTH, 16);
+        record.put(LogFormat.POS_RECORD_TYPE, RecordType.UPLINK.getMagicNumber());
+        record.putLong(LogFormat.POS_RECORD_SEQUENCE, RECORDS);
+        for (int i = 0; i < 16; i++) {
+            record.put(LogFormat.RECORD_HEADER_SIZE + i, (byte) 0x5A);
+        }
+        append(last, record.array());
+
+        assertEquals(RECORDS, readAll(fDirectory, 1));
+
+        FlightLogReader.recover(last);
+        assertEquals(length, last.length());
+        assertEquals(RECORDS, readAll(fDirectory, 0));
+    }
+
+    /**
+     * A torn record in the middle of the log only ends its own segment, the next segments are
+     * still read.
+     */
+    @Test
+    public void testTornSegmentIsSkipped() throws Exception {
+        FlightLogWriter writer = new FlightLogWriter(fDirectory, SEGMENT_SIZE);
+        write(writer, RECORDS);
+        writer.dispose();
+
+        /* Tear the data of the first record */
+        File first = LogFormat.listSegments(fDirectory)[0];
+        RandomAccessFile access = new RandomAccessFile(first, "rw");
+        try {
+            int position = LogFormat.HEADER_SIZE + LogFormat.RECORD_HEADER_SIZE;
+            access.seek(position);
+            int value = access.read();
+            access.seek(position);
+            access.write(value ^ 0x1);
+        } finally {
+            access.close();
+        }
+
+        int skipped = getFirstSegmentCount();
+        FlightLogReader reader = new FlightLogReader(fDirectory);
+        try {
+            for (int i = skipped; i < RECORDS; i++) {
+                assertTrue(reader.next());
+                assertRecord(reader, i);
+            }
+            assertFalse(reader.next());
+            assertEquals(1, reader.getTornSegments());
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * A segment whose header was never completely written is skipped.
+     */
+    @Test
+    public void testTornHeaderIsSkipped() throws Exception {
+        FlightLogWriter writer = new FlightLogWriter(fDirectory, SEGMENT_SIZE);
+        write(writer, RECORDS);
+        writer.dispose();
+
+        int count = LogFormat.listSegments(fDirectory).length;
+        append(new File(fDirectory, LogFormat.getSegmentName(count)), new byte[10]);
+        append(new File(fDirectory, LogFormat.getSegmentName(count + 1)),
+                new byte[LogFormat.HEADER_SIZE + 10]);
+
+        assertEquals(RECORDS, readAll(fDirectory, 2));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method writes the records the way the recorder does. The next segment is prepared
+     * after every other rotation, so both ways of changing segment are used, and the retired
+     * segments are finished right away.
+     *
+     * @param writer The writer of the flight log
+     * @param count  The number of records to write
+     */
+    private void write(final FlightLogWriter writer, int count) throws IOException {
+        writer.setRotationListener(new Runnable() {
+            @Override
+            public void run() {
+                fRotations++;
+            }
+        });
+
+        int rotations = 0;
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, writer.append(fTypes.get(i), fData.get(i)));
+
+            if (fRotations != rotations) {
+                rotations = fRotations;
+                writer.finishRetiredSegments();
+                if (rotations % 2 == 0) {
+                    writer.prepareNextSegment();
+                }
+            }
+        }
+    }
+
+    /**
+     * This util method reads every record of a flight log and checks them.
+     *
+     * @param directory The directory of the flight log
+     * @param torn      The number of torn segments expected
+     *
+     * @return The number of records read
+     */
+    private int readAll(File directory, int torn) throws IOException {
+        FlightLogReader reader = new FlightLogReader(directory);
+        int count = 0;
+        try {
+            while (reader.next()) {
+                assertRecord(reader, count++);
+            }
+            assertEquals(torn, reader.getTornSegments());
+        } finally {
+            reader.dispose();
+        }
+
+        return count;
+    }
+
+    private void assertRecord(FlightLogReader reader, int index) {
+        byte[] data = new byte[reader.getLength()];
+        System.arraycopy(reader.getData(), 0, data, 0, data.length);
+
+        assertEquals(index, reader.getSequence());
+        assertEquals(fTypes.get(index), reader.getType());
+        assertArrayEquals(fData.get(index), data);
+    }
+
+    /**
+     * This util method computes the number of records that fit in the first segment, the way the
+     * writer fills it.
+     *
+     * @return The number of records of the first segment
+     */
+    private int getFirstSegmentCount() {
+        int position = LogFormat.HEADER_SIZE;
+        int count = 0;
+        while (position + LogFormat.RECORD_HEADER_SIZE + fData.get(count).length
+                <= SEGMENT_SIZE) {
+            position += LogFormat.RECORD_HEADER_SIZE + fData.get(count).length;
+            count++;
+        }
+
+        return count;
+    }
+
+    private static void append(File file, byte[] data) throws IOException {
+        FileOutputStream stream = new FileOutputStream(file, true);
+        try {
+            stream.write(data);
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static void copy(File source, File destination) throws IOException {
+        assertTrue(destination.mkdirs());
+        for (File file : LogFormat.listSegments(source)) {
+            RandomAccessFile access = new RandomAccessFile(file, "r");
+            try {
+                byte[] data = new byte[(int) access.length()];
+                access.readFully(data);
+                append(new File(destination, file.getName()), data);
+            } finally {
+                access.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,213 @@
+package ca.polymtl.mrasl.recorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import ca.polymtl.mrasl.mission.MissionStateChangedListener;
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.payload.PayloadCommand;
+import ca.polymtl.mrasl.payload.PayloadCommand.CommandType;
+import ca.polymtl.mrasl.payload.PayloadGPS;
+import ca.polymtl.mrasl.payload.PayloadManager;
+import ca.polymtl.mrasl.payload.PayloadSensors;
+
+/**
+ * This class tests the replay of a recorded flight through the payload manager.
+ */
+public class FlightReplayTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /* Small enough for the flight to span many segments */
+    private static final int SEGMENT_SIZE = 1024;
+
+    private static final int TICKS = 200;
+    private static final int GPS_PERIOD = 5;
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    @Rule
+    public final TemporaryFolder fFolder = new TemporaryFolder();
+
+    private final List<byte[]> fFrames = new ArrayList<>();
+    private int fSamples;
+    private int fOthers;
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * A replay of a flight encodes the same frames as the ones sent during the flight, and tells
+     * the recorded changes of state in order.
+     */
+    @Test
+    public void testReplayEncodesTheRecordedFrames() throws Exception {
+        File directory = record(-1);
+
+        PayloadManager manager = new PayloadManager(DIRECT);
+        FlightReplay replay = new FlightReplay(directory, manager, FlightReplay.SPEED_UNLIMITED);
+        final List<State> states = new ArrayList<>();
+        replay.setMissionStateChangedListener(new MissionStateChangedListener() {
+            @Override
+            public void onStateChanged(State state) {
+                states.add(state);
+            }
+        });
+        replay.run();
+
+        assertNull(replay.getFailure());
+        assertEquals(fFrames.size(), replay.getFrameCount());
+        assertEquals(fSamples, replay.getSampleCount());
+        assertEquals(fFrames.size() + fSamples + fOthers, replay.getRecordCount());
+        assertEquals(0, replay.getMismatchCount());
+
+        List<State> expected = new ArrayList<>();
+        expected.add(State.START_MISSION);
+        expected.add(State.ABORT_MISSION);
+        expected.add(State.FINISHED);
+        assertEquals(expected, states);
+    }
+
+    /**
+     * A frame that the payload manager doesn't encode anymore is counted as a mismatch.
+     */
+    @Test
+    public void testReplayFindsChangedFrames() throws Exception {
+        File directory = record(TICKS / 2);
+
+        FlightReplay replay = new FlightReplay(directory, new PayloadManager(DIRECT),
+                FlightReplay.SPEED_UNLIMITED);
+        replay.run();
+
+        assertNull(replay.getFailure());
+        assertEquals(fFrames.size(), replay.getFrameCount());
+        assertEquals(1, replay.getMismatchCount());
+    }
+
+    /**
+     * The recorded frames are the ones of the flight, whatever segment they fell in, so the
+     * replay compares against what was sent.
+     */
+    @Test
+    public void testRecordedFramesAreRead() throws Exception {
+        File directory = record(-1);
+        assertTrue(directory.listFiles().length > 1);
+
+        List<byte[]> frames = new ArrayList<>();
+        FlightLogReader reader = new FlightLogReader(directory);
+        try {
+            while (reader.next()) {
+                if (reader.getType() == RecordType.UPLINK) {
+                    byte[] frame = new byte[reader.getLength()];
+                    System.arraycopy(reader.getData(), 0, frame, 0, frame.length);
+                    frames.add(frame);
+                }
+            }
+        } finally {
+            reader.dispose();
+        }
+
+        assertEquals(fFrames.size(), frames.size());
+        for (int i = 0; i < frames.size(); i++) {
+            assertArrayEquals(fFrames.get(i), frames.get(i));
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method records a flight the way the tablet does: the telemetry modules give
+     * their samples to a payload manager, the mission queues its commands before recording its
+     * state, and the radio link records every frame it sends.
+     *
+     * @param corrupted The tick whose frame is recorded with a wrong byte, or -1 for none
+     *
+     * @return The directory of the flight log
+     */
+    private File record(int corrupted) throws Exception {
+        File directory = new File(fFolder.getRoot(), "flight");
+        FlightLogWriter writer = new FlightLogWriter(directory, SEGMENT_SIZE);
+        PayloadManager manager = new PayloadManager(DIRECT);
+
+        try {
+            for (int tick = 0; tick < TICKS; tick++) {
+                if (tick % GPS_PERIOD == 0) {
+                    PayloadGPS gps = new PayloadGPS(45.5f + tick * 1e-5f, -73.6f,
+                            30.0f + tick, 90.0f, 2.5f, 4.0f);
+                    manager.setPayload(gps);
+                    writer.append(RecordType.GPS, gps.getPayload());
+                    fSamples++;
+                }
+
+                PayloadSensors sensors = new PayloadSensors(
+                        new float[]{0.1f * tick, 0.0f, 9.81f},
+                        new float[]{1.0f, 0.0f, 0.0f, tick});
+                manager.setPayload(sensors);
+                writer.append(RecordType.SENSORS, sensors.getPayload());
+                fSamples++;
+
+                /* The mission queues the command, then records its state */
+                if (tick == 20) {
+                    changeState(writer, manager, CommandType.START_MISSION, State.START_MISSION);
+                } else if (tick == 120) {
+                    changeState(writer, manager, CommandType.ABORT_MISSION, State.ABORT_MISSION);
+                } else if (tick == 180) {
+                    writer.append(RecordType.MISSION_STATE,
+                            new byte[]{(byte) State.FINISHED.ordinal()});
+                    fOthers++;
+                }
+
+                /* Nothing goes back to the drone from the downlink */
+                if (tick % 10 == 0) {
+                    writer.append(RecordType.DOWNLINK, new byte[]{0x1, 0x2});
+                    fOthers++;
+                }
+
+                byte[] frame = manager.getNext().getPayload();
+                fFrames.add(frame);
+                byte[] recorded = frame.clone();
+                if (tick == corrupted) {
+                    recorded[0] ^= 0x1;
+                }
+                writer.append(RecordType.UPLINK, recorded);
+            }
+        } finally {
+            writer.dispose();
+        }
+
+        return directory;
+    }
+
+    private void changeState(FlightLogWriter writer, PayloadManager manager, CommandType command,
+                             State state) {
+        manager.setPayload(new PayloadCommand(command));
+        writer.append(RecordType.MISSION_STATE, new byte[]{(byte) state.ordinal()});
+        fOthers++;
+    }
+
+}
@@ -0,0 +1,228 @@
+package ca.polymtl.mrasl.ros;
+
+import static ca.polymtl.mrasl.ros.MessageFixture.newMessage;
+import static ca.polymtl.mrasl.ros.MessageFixture.newPoint;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import ca.polymtl.mrasl.tag.TagImage;
+import geometry_msgs.Point32;
+import sensor_msgs.Image;
+
+/**
+ * This class crops tags out of a corpus of frames, one per encoding. The frames have a padded step
+ * and start after the reader index of their buffer, like the messages of the cameras. Each cell of
+ * 2x2 pixels has a single color, so the demosaiced bayer frames can be compared exactly.
+ */
+public class ImageCropperTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+    private static final int PADDING = 7;
+    private static final int READER_INDEX = 5;
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * A tag is cropped out of a frame of every encoding, on whole cells for the bayer ones.
+     */
+    @Test
+    public void testCropEveryEncoding() {
+        for (ImageEncoding encoding : ImageEncoding.values()) {
+            Image image = newFrame(encoding, WIDTH, HEIGHT);
+            TagImage tag = new ImageCropper().crop(image, corners(9.5f, 7.2f, 21.0f, 18.0f));
+
+            /* The box is widened to whole cells for the bayer encodings */
+            boolean bayer = encoding.getRowsPerPass() > 1;
+            assertCrop(encoding, tag, bayer ? 8 : 9, bayer ? 6 : 7, bayer ? 22 : 21, 18);
+        }
+    }
+
+    /**
+     * A tag on the edge of the frame is cropped up to the edge.
+     */
+    @Test
+    public void testCropIsClamped() {
+        Image image = newFrame(ImageEncoding.BGR8, WIDTH, HEIGHT);
+        TagImage tag = new ImageCropper().crop(image, corners(-4.0f, 25.0f, 12.0f, 41.0f));
+
+        assertCrop(ImageEncoding.BGR8, tag, 0, 25, 12, HEIGHT);
+    }
+
+    /**
+     * The cropper reuses its rows between crops of different sizes.
+     */
+    @Test
+    public void testCropperIsReused() {
+        ImageCropper cropper = new ImageCropper();
+        Image image = newFrame(ImageEncoding.BAYER_GBRG8, WIDTH, HEIGHT);
+
+        assertCrop(ImageEncoding.BAYER_GBRG8,
+                cropper.crop(image, corners(2.0f, 2.0f, 6.0f, 4.0f)), 2, 2, 6, 4);
+        assertCrop(ImageEncoding.BAYER_GBRG8,
+                cropper.crop(image, corners(0.0f, 10.0f, 40.0f, 30.0f)), 0, 10, 40, 30);
+        assertCrop(ImageEncoding.BAYER_GBRG8,
+                cropper.crop(image, corners(30.0f, 0.0f, 34.0f, 2.0f)), 30, 0, 34, 2);
+    }
+
+    /**
+     * A frame shorter than its size, or a tag without 4 corners, gives no image.
+     */
+    @Test
+    public void testInvalidFrames() {
+        Image image = newFrame(ImageEncoding.RGB8, WIDTH, HEIGHT);
+        image.setHeight(HEIGHT + 1);
+        assertNull(new ImageCropper().crop(image, corners(0.0f, 0.0f, 10.0f, HEIGHT + 1)));
+
+        image = newFrame(ImageEncoding.RGB8, WIDTH, HEIGHT);
+        assertNull(new ImageCropper().crop(image, corners(0.0f, 0.0f, 10.0f, 10.0f)
+                .subList(0, 3)));
+
+        image.setEncoding("yuv422");
+        assertNull(new ImageCropper().crop(image, corners(0.0f, 0.0f, 10.0f, 10.0f)));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private static List<Point32> corners(float left, float top, float right, float bottom) {
+        List<Point32> corners = new ArrayList<>();
+        corners.add(newPoint(left, top));
+        corners.add(newPoint(right, top));
+        corners.add(newPoint(right, bottom));
+        corners.add(newPoint(left, bottom));
+        return corners;
+    }
+
+    /**
+     * This util method returns the color of a pixel of the corpus, the same for the four pixels
+     * of a cell. The channels go above 127 to catch the signed bytes.
+     */
+    private static int colorOf(int x, int y) {
+        int red = (x / 2 * 37 + 200) & 0xFF;
+        int green = (y / 2 * 53 + 130) & 0xFF;
+        int blue = ((x / 2 + y / 2) * 29 + 90) & 0xFF;
+        return red << 16 | green << 8 | blue;
+    }
+
+    private static int alphaOf(int x, int y) {
+        return (x * y * 7 + 128) & 0xFF;
+    }
+
+    /**
+     * This util method returns the pixel that the conversion must give for the corpus.
+     */
+    private static int expectedOf(ImageEncoding encoding, int x, int y) {
+        int color = colorOf(x, y);
+        switch (encoding) {
+            case RGBA8:
+            case BGRA8:
+                return alphaOf(x, y) << 24 | color;
+            case MONO8:
+                return 0xFF000000 | (color >> 16) * 0x010101;
+            default:
+                return 0xFF000000 | color;
+        }
+    }
+
+    /**
+     * This util method encodes the bytes of a pixel of the corpus.
+     */
+    private static byte[] encode(ImageEncoding encoding, int x, int y) {
+        int color = colorOf(x, y);
+        byte red = (byte) (color >> 16);
+        byte green = (byte) (color >> 8);
+        byte blue = (byte) color;
+        byte alpha = (byte) alphaOf(x, y);
+
+        /* The bayer layouts keep a single channel of the pixel, by its place in the cell */
+        String layout;
+        switch (encoding) {
+            case RGB8:
+                return new byte[]{red, green, blue};
+            case BGR8:
+                return new byte[]{blue, green, red};
+            case RGBA8:
+                return new byte[]{red, green, blue, alpha};
+            case BGRA8:
+                return new byte[]{blue, green, red, alpha};
+            case MONO8:
+                return new byte[]{red};
+            case BAYER_RGGB8:
+                layout = "rggb";
+                break;
+            case BAYER_BGGR8:
+                layout = "bggr";
+                break;
+            case BAYER_GBRG8:
+                layout = "gbrg";
+                break;
+            default:
+                layout = "grbg";
+                break;
+        }
+
+        char channel = layout.charAt((y & 1) * 2 + (x & 1));
+        return new byte[]{(channel == 'r') ? red : (channel == 'b') ? blue : green};
+    }
+
+    /**
+     * This util method creates a frame of the corpus. The rows are padded and the frame starts
+     * after some bytes that were already read.
+     */
+    private static Image newFrame(ImageEncoding encoding, int width, int height) {
+        int step = width * encoding.getBytesPerPixel() + PADDING;
+        byte[] data = new byte[READER_INDEX + step * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                byte[] pixel = encode(encoding, x, y);
+                int index = READER_INDEX + y * step + x * pixel.length;
+                System.arraycopy(pixel, 0, data, index, pixel.length);
+            }
+        }
+
+        ChannelBuffer buffer = ChannelBuffers.wrappedBuffer(data);
+        buffer.readerIndex(READER_INDEX);
+
+        Image image = newMessage(Image.class);
+        image.setWidth(width);
+        image.setHeight(height);
+        image.setStep(step);
+        image.setEncoding(encoding.name().toLowerCase(Locale.US));
+        image.setData(buffer);
+        return image;
+    }
+
+    private static void assertCrop(ImageEncoding encoding, TagImage tag, int left, int top,
+                                   int right, int bottom) {
+        assertNotNull(encoding.name(), tag);
+        assertEquals(encoding.name(), right - left, tag.getWidth());
+        assertEquals(encoding.name(), bottom - top, tag.getHeight());
+
+        int[] pixels = tag.getPixels();
+        for (int y = top; y < bottom; y++) {
+            for (int x = left; x < right; x++) {
+                int index = (y - top) * tag.getWidth() + x - left;
+                assertEquals(encoding + " at " + x + "," + y, expectedOf(encoding, x, y),
+                        pixels[index]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package ca.polymtl.mrasl.ros;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * This class tests the conversion of the encodings of the ROS images into ARGB8888 pixels.
+ */
+public class ImageEncodingTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The encodings are found by their name in any case, and an image without one is RGB.
+     */
+    @Test
+    public void testFromName() {
+        assertEquals(ImageEncoding.RGB8, ImageEncoding.fromName(null));
+        assertEquals(ImageEncoding.RGB8, ImageEncoding.fromName(""));
+        assertEquals(ImageEncoding.BGR8, ImageEncoding.fromName("BGR8"));
+        assertEquals(ImageEncoding.BAYER_GRBG8, ImageEncoding.fromName("bayer_grbg8"));
+        assertNull(ImageEncoding.fromName("yuv422"));
+    }
+
+    /**
+     * The color encodings keep the bytes above 127 and put the channels in their place.
+     */
+    @Test
+    public void testColorEncodings() {
+        byte[] bytes = {(byte) 0xF1, (byte) 0x82, (byte) 0x13, (byte) 0xA4};
+
+        assertEquals(0xFFF18213, convert(ImageEncoding.RGB8, bytes));
+        assertEquals(0xFF1382F1, convert(ImageEncoding.BGR8, bytes));
+        assertEquals(0xA4F18213, convert(ImageEncoding.RGBA8, bytes));
+        assertEquals(0xA41382F1, convert(ImageEncoding.BGRA8, bytes));
+        assertEquals(0xFFF1F1F1, convert(ImageEncoding.MONO8, bytes));
+    }
+
+    /**
+     * Each bayer layout takes its red and blue from their place in the cell, and the mean of the
+     * two greens, for the four pixels of the cell.
+     */
+    @Test
+    public void testBayerLayouts() {
+        assertBayer(ImageEncoding.BAYER_RGGB8, "rggb");
+        assertBayer(ImageEncoding.BAYER_BGGR8, "bggr");
+        assertBayer(ImageEncoding.BAYER_GBRG8, "gbrg");
+        assertBayer(ImageEncoding.BAYER_GRBG8, "grbg");
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private static int convert(ImageEncoding encoding, byte[] bytes) {
+        int[] pixels = new int[1];
+        encoding.convert(bytes, null, pixels, 0, 1);
+        return pixels[0];
+    }
+
+    private static void assertBayer(ImageEncoding encoding, String layout) {
+        /* Two cells, the greens differ so their mean is checked */
+        int[][] cells = {{0xF0, 0x90, 0x70, 0x0A}, {0x11, 0xFE, 0x40, 0xC3}};
+        byte[] row = new byte[4];
+        byte[] next = new byte[4];
+        int[] expected = new int[2];
+        for (int c = 0; c < cells.length; c++) {
+            int red = cells[c][0];
+            int blue = cells[c][3];
+            int[] greens = {cells[c][1], cells[c][2]};
+            int green = 0;
+            for (int p = 0; p < 4; p++) {
+                int value;
+                switch (layout.charAt(p)) {
+                    case 'r':
+                        value = red;
+                        break;
+                    case 'b':
+                        value = blue;
+                        break;
+                    default:
+                        value = greens[green++];
+                        break;
+                }
+
+                byte[] target = (p < 2) ? row : next;
+                target[2 * c + (p & 1)] = (byte) value;
+            }
+
+            expected[c] = 0xFF000000 | red << 16 | ((greens[0] + greens[1]) >> 1) << 8 | blue;
+        }
+
+        /* The pixels are written after an offset, the second row right after the first */
+        int[] pixels = new int[1 + 2 * 4];
+        encoding.convert(row, next, pixels, 1, 4);
+
+        assertEquals(layout, 0, pixels[0]);
+        for (int x = 0; x < 4; x++) {
+            assertEquals(layout, expected[x / 2], pixels[1 + x]);
+            assertEquals(layout, expected[x / 2], pixels[1 + 4 + x]);
+        }
+    }
+
+}
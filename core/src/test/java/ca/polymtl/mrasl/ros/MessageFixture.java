@@ -0,0 +1,81 @@
+package ca.polymtl.mrasl.ros;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import geometry_msgs.Point32;
+
+/**
+ * This class creates ROS messages for the tests and the benchmarks. The messages are proxies that
+ * keep their fields in a map, so they don't need the message runtime of ROS.
+ */
+public final class MessageFixture {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    private MessageFixture() {
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method creates a message backed by a map of its fields.
+     *
+     * @param type The interface of the message
+     *
+     * @return The new message
+     */
+    public static <T> T newMessage(Class<T> type) {
+        Object message = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new MessageHandler());
+        return type.cast(message);
+    }
+
+    /**
+     * This method creates a point in the plane of an image.
+     *
+     * @param x The column of the point
+     * @param y The row of the point
+     *
+     * @return The new point
+     */
+    public static Point32 newPoint(float x, float y) {
+        Point32 point = newMessage(Point32.class);
+        point.setX(x);
+        point.setY(y);
+        point.setZ(0.0f);
+        return point;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class keeps the fields of a message set through its mutators.
+     */
+    private static class MessageHandler implements InvocationHandler {
+        private final Map<String, Object> fFields = new HashMap<>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.startsWith("set")) {
+                fFields.put(name.substring(3), args[0]);
+                return null;
+            } else if (name.startsWith("get")) {
+                return fFields.get(name.substring(3));
+            }
+
+            throw new UnsupportedOperationException(name);
+        }
+    }
+
+}
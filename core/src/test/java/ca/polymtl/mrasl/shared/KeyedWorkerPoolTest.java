@@ -0,0 +1,122 @@
+package ca.polymtl.mrasl.shared;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import ca.polymtl.mrasl.clock.VirtualClock;
+import ca.polymtl.mrasl.platform.Platform;
+
+/**
+ * This class tests the workers of the pool.
+ */
+public class KeyedWorkerPoolTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private KeyedWorkerPool fPool;
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @After
+    public void tearDown() {
+        if (fPool != null) {
+            fPool.dispose();
+        }
+        Platform.getInstance().setVirtualClock(null);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * A task that throws doesn't stop its worker, the next tasks of its key still run and every
+     * task has its latency.
+     */
+    @Test
+    public void testFailingTaskKeepsWorker() throws Exception {
+        fPool = new KeyedWorkerPool("test", 2, 16, OverflowPolicy.DROP_NEWEST);
+        final CountDownLatch done = new CountDownLatch(2);
+
+        assertTrue(fPool.submit(1, new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("The task failed");
+            }
+        }));
+        for (int i = 0; i < 2; i++) {
+            assertTrue(fPool.submit(1, new Runnable() {
+                @Override
+                public void run() {
+                    done.countDown();
+                }
+            }));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, fPool.getDepth());
+
+        /* The latency is recorded after the task returns */
+        long deadline = System.currentTimeMillis() + 5000;
+        while (fPool.getLatencyHistogram().getCount() < 3
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(3, fPool.getLatencyHistogram().getCount());
+    }
+
+    /**
+     * A full queue merges a task into the pending one of its key, or else drops the oldest task.
+     */
+    @Test
+    public void testMergeOrDropOldest() {
+        VirtualClock clock = new VirtualClock(0L);
+        Platform.getInstance().setVirtualClock(clock);
+        fPool = new KeyedWorkerPool("test", 1, 2, OverflowPolicy.MERGE);
+        StringBuilder order = new StringBuilder();
+
+        assertTrue(fPool.submit(1, new Append(order, "a")));
+        assertTrue(fPool.submit(2, new Append(order, "b")));
+        assertTrue(fPool.submit(1, new Append(order, "c")));
+        assertTrue(fPool.submit(3, new Append(order, "d")));
+        clock.advance(0L);
+
+        assertEquals("bd", order.toString());
+        assertEquals(1L, fPool.getMergedCount());
+        assertEquals(1L, fPool.getDroppedCount());
+        assertEquals(0, fPool.getDepth());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class appends a name to the order of the tasks.
+     */
+    private static class Append implements Runnable {
+        private final StringBuilder fOrder;
+        private final String fName;
+
+        public Append(StringBuilder order, String name) {
+            fOrder = order;
+            fName = name;
+        }
+
+        @Override
+        public void run() {
+            fOrder.append(fName);
+        }
+    }
+
+}
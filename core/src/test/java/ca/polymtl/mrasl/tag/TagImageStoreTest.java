@@ -0,0 +1,182 @@
+package ca.polymtl.mrasl.tag;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * This class tests which images of the store are spilled to the storage, and that reading an
+ * image for the storage leaves the store as it was.
+ */
+public class TagImageStoreTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    /* Each image is compressed to as many bytes as its width */
+    private static final int SIZE = 100;
+    private static final long RESIDENT_BUDGET = 2 * SIZE + SIZE / 2;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    @Rule
+    public final TemporaryFolder fFolder = new TemporaryFolder();
+
+    private final Tag fFirst = new Tag(1, 45.5, -73.6, 5.0, 1, 1000L, 1000L);
+    private final Tag fSecond = new Tag(2, 45.5, -73.6, 5.0, 1, 1000L, 1000L);
+    private final Tag fThird = new Tag(3, 45.5, -73.6, 5.0, 1, 1000L, 1000L);
+
+    private File fDirectory;
+    private TagImageStore fStore;
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @Before
+    public void setUp() {
+        fDirectory = new File(fFolder.getRoot(), "images");
+        fStore = new TagImageStore(new Codec(), fDirectory, Long.MAX_VALUE, RESIDENT_BUDGET);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Reading an image for the storage doesn't make it recently used, so it is still the first
+     * one spilled.
+     */
+    @Test
+    public void testReadForStorageIsNotAUse() throws Exception {
+        fStore.put(fFirst, image(SIZE, 1));
+        fStore.put(fSecond, image(SIZE, 2));
+        assertEquals((long) SIZE * SIZE, fStore.getImageArea(fFirst));
+        assertNotNull(fStore.getEncoded(fFirst));
+
+        fStore.put(fThird, image(SIZE, 3));
+        assertSpilled(1);
+        assertEquals(2 * SIZE, fStore.getResidentBytes());
+    }
+
+    /**
+     * Showing an image makes it recently used, so the next one is spilled instead.
+     */
+    @Test
+    public void testShownImageIsKept() throws Exception {
+        fStore.put(fFirst, image(SIZE, 1));
+        fStore.put(fSecond, image(SIZE, 2));
+        assertNotNull(fStore.getImage(fFirst, SIZE, SIZE));
+
+        fStore.put(fThird, image(SIZE, 3));
+        assertSpilled(2);
+    }
+
+    /**
+     * A spilled image read for the storage is read from its file, but it isn't kept in memory
+     * and nothing else is spilled for it.
+     */
+    @Test
+    public void testSpilledImageIsNotReloaded() throws Exception {
+        fStore.put(fFirst, image(SIZE, 1));
+        fStore.put(fSecond, image(SIZE, 2));
+        fStore.put(fThird, image(SIZE, 3));
+        assertSpilled(1);
+
+        TagImageStore.Encoded encoded = fStore.getEncoded(fFirst);
+        assertEquals(SIZE, encoded.getWidth());
+        assertArrayEquals(new Codec().encode(image(SIZE, 1)), encoded.getData());
+        assertEquals(2 * SIZE, fStore.getResidentBytes());
+        assertEquals(SIZE, fStore.getSpilledBytes());
+        assertSpilled(1);
+
+        /* Showing it reloads it, and the least recently used image is spilled in turn */
+        assertNotNull(fStore.getImage(fFirst, SIZE, SIZE));
+        assertEquals(2 * SIZE, fStore.getResidentBytes());
+        assertSpilled(1, 2);
+    }
+
+    /**
+     * Every image is spilled when the platform is about to kill the application, and a replaced
+     * image removes its file.
+     */
+    @Test
+    public void testTrimAllSpillsEveryImage() throws Exception {
+        fStore.put(fFirst, image(SIZE, 1));
+        fStore.put(fSecond, image(SIZE, 2));
+        fStore.trimAll();
+        assertEquals(0, fStore.getResidentBytes());
+        assertSpilled(1, 2);
+
+        /* The closer view fits in memory, so only the other image stays spilled */
+        fStore.put(fFirst, image(2 * SIZE, 4));
+        assertSpilled(2);
+        assertEquals(2 * SIZE, fStore.getResidentBytes());
+        fStore.dispose();
+        assertSpilled();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private static TagImage image(int width, int value) {
+        int[] pixels = new int[width * SIZE];
+        pixels[0] = value;
+        return new TagImage(width, SIZE, pixels);
+    }
+
+    /**
+     * This util method checks which images are in the spill directory, from the first pixel that
+     * the codec writes first.
+     *
+     * @param values The first pixels of the spilled images
+     */
+    private void assertSpilled(int... values) throws Exception {
+        File[] files = fDirectory.listFiles();
+        int[] spilled = new int[files.length];
+        for (int i = 0; i < files.length; i++) {
+            RandomAccessFile input = new RandomAccessFile(files[i], "r");
+            try {
+                spilled[i] = input.read();
+            } finally {
+                input.close();
+            }
+        }
+
+        Arrays.sort(spilled);
+        assertArrayEquals(values, spilled);
+    }
+
+    /**
+     * This class compresses an image to its first pixel followed by zeros, one byte per column.
+     */
+    private static class Codec implements ITagImageCodec {
+        @Override
+        public byte[] encode(TagImage image) {
+            byte[] data = new byte[image.getWidth()];
+            data[0] = (byte) image.getPixels()[0];
+            return data;
+        }
+
+        @Override
+        public TagImage decode(byte[] data, int sampleSize) {
+            int[] pixels = new int[data.length * SIZE];
+            pixels[0] = data[0];
+            return new TagImage(data.length, SIZE, pixels);
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package ca.polymtl.mrasl.tag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * This class tests the fusion of the sightings into the tags of the list.
+ */
+public class TagListTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final double LATITUDE = 45.5;
+    private static final double LONGITUDE = -73.6;
+    private static final double DEGREES_PER_METER = 180.0 / (6371000.0 * Math.PI);
+    private static final double UNCERTAINTY = 2.0;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final TagList fList = new TagList();
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @After
+    public void tearDown() {
+        fList.dispose();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * A sighting is fused into the closest tag of its ID, the tags of other IDs are ignored.
+     */
+    @Test
+    public void testSightingFusedIntoClosest() {
+        fList.addSighting(sighting(7, 0.0, UNCERTAINTY));
+        Tag far = fList.addSighting(sighting(7, 30.0, UNCERTAINTY));
+        fList.addSighting(sighting(8, 20.0, UNCERTAINTY));
+
+        Tag tag = fList.addSighting(sighting(7, 18.0, UNCERTAINTY));
+
+        assertSame(far, tag);
+        assertEquals(2, tag.getSightingCount());
+        assertEquals(3, fList.getSnapshot().getCount());
+    }
+
+    /**
+     * A sighting outside the gate of every tag of its ID is a new tag.
+     */
+    @Test
+    public void testFarSightingIsNewTag() {
+        Tag first = fList.addSighting(sighting(7, 0.0, UNCERTAINTY));
+        Tag second = fList.addSighting(sighting(7, 100.0, UNCERTAINTY));
+
+        assertEquals(2, fList.getSnapshot().getCount());
+        assertEquals(1, first.getSightingCount());
+        assertEquals(1, second.getSightingCount());
+    }
+
+    /**
+     * The gate of an uncertain tag reaches past the cells around the sighting.
+     */
+    @Test
+    public void testUncertainTagWidensGate() {
+        Tag uncertain = fList.addSighting(sighting(7, 0.0, 50.0));
+        fList.addSighting(sighting(9, 0.0, UNCERTAINTY));
+
+        Tag tag = fList.addSighting(sighting(7, 120.0, UNCERTAINTY));
+
+        assertSame(uncertain, tag);
+        assertEquals(2, fList.getSnapshot().getCount());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private static Tag sighting(int id, double north, double uncertainty) {
+        return new Tag(id, LATITUDE + north * DEGREES_PER_METER, LONGITUDE, uncertainty, 0L, null);
+    }
+
+}
@@ -0,0 +1,166 @@
+package ca.polymtl.mrasl.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * This class tests that the samples of a compressed chunk are decoded exactly as they were
+ * appended, whatever the spacing of the timestamps and the bits of the values.
+ */
+public class GorillaChunkTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The special values of a float keep their exact bits, so NaN stays NaN and the sign of a
+     * zero isn't lost.
+     */
+    @Test
+    public void testSpecialValues() {
+        float[] values = {
+                0.0f, -0.0f, 0.0f, Float.NaN, Float.intBitsToFloat(0x7FC00001), -0.0f,
+                Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.MIN_VALUE,
+                -Float.MIN_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, 1.0f, 1.0f, Float.NaN
+        };
+        long[] timestamps = new long[values.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = 1000L + 100L * i;
+        }
+
+        assertRoundTrip(timestamps, values);
+    }
+
+    /**
+     * Equal timestamps, a constant rate and the limits of every bucket of the delta-of-delta
+     * encoding are decoded exactly.
+     */
+    @Test
+    public void testDeltaOfDeltaBuckets() {
+        long[] deltas = {
+                0, 0, 0, 10, 10, 10, 0, 0,
+                10 + 64, 10, 10 - 63, 10,
+                10 + 65, 10, 10 - 64, 10,
+                10 + 256, 10, 10 - 255, 10,
+                10 + 257, 10, 10 - 256, 10,
+                10 + 2048, 10, 10 - 2047, 10,
+                10 + 2049, 10, 10 - 2048, 10
+        };
+        long[] timestamps = new long[deltas.length + 1];
+        float[] values = new float[timestamps.length];
+        timestamps[0] = 1234567L;
+        for (int i = 0; i < deltas.length; i++) {
+            timestamps[i + 1] = timestamps[i] + deltas[i];
+            values[i + 1] = i;
+        }
+
+        assertRoundTrip(timestamps, values);
+    }
+
+    /**
+     * Gaps too large for the short encodings, like a day or years without telemetry, are decoded
+     * exactly, as well as timestamps before the epoch.
+     */
+    @Test
+    public void testLargeGaps() {
+        long[] timestamps = {
+                -5000L, -4000L, 0L, 86400000L, 86400001L, 86400002L,
+                1L << 40, (1L << 40) + 1, Long.MAX_VALUE / 2, Long.MAX_VALUE / 2
+        };
+        float[] values = new float[timestamps.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = -i * 0.5f;
+        }
+
+        assertRoundTrip(timestamps, values);
+    }
+
+    /**
+     * Random values with a jittered rate fill the chunk exactly to its capacity, and are still
+     * decoded exactly once the chunk is sealed.
+     */
+    @Test
+    public void testFullChunk() {
+        Random random = new Random(29);
+        long[] timestamps = new long[GorillaChunk.CAPACITY];
+        float[] values = new float[GorillaChunk.CAPACITY];
+        long timestamp = 1500000000000L;
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamp += 20 + random.nextInt(5);
+            timestamps[i] = timestamp;
+            values[i] = (i % 3 == 0) ? random.nextFloat() * 100.0f : (float) random.nextGaussian();
+        }
+
+        GorillaChunk chunk = new GorillaChunk();
+        for (int i = 0; i < timestamps.length; i++) {
+            assertTrue(chunk.append(timestamps[i], values[i]));
+        }
+        assertFalse(chunk.append(timestamp + 20, 0.0f));
+        assertEquals(GorillaChunk.CAPACITY, chunk.getCount());
+
+        long size = chunk.getSize();
+        chunk.seal();
+        assertTrue(chunk.getSize() <= size);
+
+        assertDecoded(chunk, timestamps, values, timestamps.length);
+        assertEquals(timestamps[0], chunk.getStartTime());
+        assertEquals(timestamps[timestamps.length - 1], chunk.getEndTime());
+    }
+
+    /**
+     * A cursor created before the samples are appended decodes them as they arrive.
+     */
+    @Test
+    public void testCursorFollowsAppends() {
+        GorillaChunk chunk = new GorillaChunk();
+        GorillaChunk.Cursor cursor = chunk.getCursor();
+        assertFalse(cursor.next());
+
+        for (int i = 0; i < 100; i++) {
+            chunk.append(100L * i, i * 0.25f);
+            assertTrue(cursor.next());
+            assertEquals(100L * i, cursor.getTimestamp());
+            assertEquals(i * 0.25f, cursor.getValue(), 0.0f);
+            assertFalse(cursor.next());
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method appends samples to a new chunk and checks that they are decoded with the
+     * same bits.
+     *
+     * @param timestamps The timestamps of the samples
+     * @param values     The values of the samples
+     */
+    private static void assertRoundTrip(long[] timestamps, float[] values) {
+        GorillaChunk chunk = new GorillaChunk();
+        for (int i = 0; i < timestamps.length; i++) {
+            assertTrue(chunk.append(timestamps[i], values[i]));
+        }
+
+        assertDecoded(chunk, timestamps, values, timestamps.length);
+    }
+
+    private static void assertDecoded(GorillaChunk chunk, long[] timestamps, float[] values,
+                                      int count) {
+        GorillaChunk.Cursor cursor = chunk.getCursor();
+        for (int i = 0; i < count; i++) {
+            assertTrue(cursor.next());
+            assertEquals("timestamp " + i, timestamps[i], cursor.getTimestamp());
+            assertEquals("value " + i, Float.floatToRawIntBits(values[i]),
+                    Float.floatToRawIntBits(cursor.getValue()));
+        }
+        assertFalse(cursor.next());
+    }
+
+}
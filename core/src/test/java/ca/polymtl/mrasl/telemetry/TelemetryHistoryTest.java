@@ -0,0 +1,168 @@
+package ca.polymtl.mrasl.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import ca.polymtl.mrasl.payload.PayloadGPS;
+import ca.polymtl.mrasl.payload.PayloadSensors;
+
+/**
+ * This class tests the memory cap of the telemetry history, and the channels that the payloads
+ * are split into.
+ */
+public class TelemetryHistoryTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final long ORIGIN = 1500000000000L;
+
+    /* A sensors payload every 50 ms and a GPS payload every second */
+    private static final int SENSORS_PERIOD = 50;
+    private static final int GPS_RATIO = 20;
+
+    private static final int SAMPLES = 50000;
+    private static final long MEMORY_CAP = 512 * 1024;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final Random fRandom = new Random(29);
+
+    private final long[] fTimestamps = new long[SAMPLES];
+    private final float[] fValues = new float[SAMPLES];
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The history stays under its cap every time a chunk is filled, by evicting the oldest
+     * samples, while the recent samples are still aggregated exactly.
+     */
+    @Test
+    public void testMemoryCapIsKept() {
+        TelemetryHistory history = new TelemetryHistory(MEMORY_CAP);
+        for (int i = 0; i < SAMPLES; i++) {
+            record(history, i);
+
+            /* Every channel of the sensors fills its chunk with the same sample */
+            if (i > 0 && i % GorillaChunk.CAPACITY == 0) {
+                assertTrue(history.getMemoryUsage() <= MEMORY_CAP);
+            }
+        }
+
+        assertTrue(history.getEvictedChunks() > 0);
+        assertEquals(SAMPLES, history.getCount(Channel.SENSORS_ACC_X));
+        assertEquals(SAMPLES / GPS_RATIO, history.getCount(Channel.GPS_ALTITUDE));
+
+        /* The oldest samples were evicted */
+        long[] timestamps = new long[1];
+        float[] values = new float[1];
+        assertEquals(1, history.getRange(Channel.SENSORS_ACC_X, ORIGIN, Long.MAX_VALUE,
+                timestamps, values));
+        assertTrue(timestamps[0] > ORIGIN);
+        int first = (int) ((timestamps[0] - ORIGIN) / SENSORS_PERIOD);
+
+        /* The kept samples are aggregated exactly */
+        for (int i = 0; i < 100; i++) {
+            int from = first + fRandom.nextInt(SAMPLES - first);
+            int to = Math.min(SAMPLES, from + fRandom.nextInt(5000));
+
+            Aggregate aggregate = history.getAggregate(Channel.SENSORS_ACC_X, fTimestamps[from],
+                    fTimestamps[to - 1] + 1);
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            double sum = 0;
+            for (int j = from; j < to; j++) {
+                min = Math.min(min, fValues[j]);
+                max = Math.max(max, fValues[j]);
+                sum += fValues[j];
+            }
+
+            assertEquals(to - from, aggregate.getCount());
+            assertEquals(min, aggregate.getMin(), 0.0f);
+            assertEquals(max, aggregate.getMax(), 0.0f);
+            assertEquals(sum / (to - from), aggregate.getMean(), 1e-6);
+        }
+    }
+
+    /**
+     * A lower cap evicts the oldest samples right away.
+     */
+    @Test
+    public void testLowerCapEvictsRightAway() {
+        TelemetryHistory history = new TelemetryHistory(TelemetryHistory.DEFAULT_MEMORY_CAP);
+        for (int i = 0; i < 30000; i++) {
+            record(history, i);
+        }
+        assertEquals(0, history.getEvictedChunks());
+        assertTrue(history.getMemoryUsage() > MEMORY_CAP);
+
+        history.setMemoryCap(MEMORY_CAP);
+        assertEquals(MEMORY_CAP, history.getMemoryCap());
+        assertTrue(history.getEvictedChunks() > 0);
+        assertTrue(history.getMemoryUsage() <= MEMORY_CAP);
+    }
+
+    /**
+     * Each field of the payloads is kept in its own channel, and the accuracy that can follow the
+     * rotation vector isn't kept.
+     */
+    @Test
+    public void testPayloadsAreSplitInChannels() {
+        TelemetryHistory history = new TelemetryHistory(MEMORY_CAP);
+        history.recordGPS(ORIGIN, new PayloadGPS(45.5f, -73.6f, 30.0f, 90.0f, 2.5f, 4.0f));
+        history.recordSensors(ORIGIN, new PayloadSensors(new float[]{1.0f, 2.0f, 3.0f},
+                new float[]{4.0f, 5.0f, 6.0f, 7.0f, 8.0f}));
+
+        float[] expected = {45.5f, -73.6f, 30.0f, 90.0f, 2.5f, 4.0f,
+                1.0f, 2.0f, 3.0f, 4.0f, 5.0f, 6.0f, 7.0f};
+        for (Channel channel : Channel.values()) {
+            long[] timestamps = new long[2];
+            float[] values = new float[2];
+            assertEquals(channel.name(), 1, history.getRange(channel, ORIGIN, ORIGIN + 1,
+                    timestamps, values));
+            assertEquals(channel.name(), expected[channel.ordinal()], values[0], 0.0f);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method records a sensors payload with noisy values, and a GPS payload once in a
+     * while. The values of the X axis of the accelerometer are kept for the scans.
+     *
+     * @param history The history
+     * @param index   The index of the sensors payload
+     */
+    private void record(TelemetryHistory history, int index) {
+        long timestamp = ORIGIN + (long) index * SENSORS_PERIOD;
+        float[] accelerometer = new float[3];
+        float[] rotation = new float[4];
+        for (int i = 0; i < accelerometer.length; i++) {
+            accelerometer[i] = (float) fRandom.nextGaussian();
+        }
+        for (int i = 0; i < rotation.length; i++) {
+            rotation[i] = fRandom.nextFloat();
+        }
+
+        fTimestamps[index] = timestamp;
+        fValues[index] = accelerometer[0];
+        history.recordSensors(timestamp, new PayloadSensors(accelerometer, rotation));
+
+        if (index % GPS_RATIO == 0) {
+            history.recordGPS(timestamp, new PayloadGPS(45.5f, -73.6f, 30.0f + index * 0.01f,
+                    90.0f, 2.5f, 4.0f));
+        }
+    }
+
+}
@@ -0,0 +1,278 @@
+package ca.polymtl.mrasl.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * This class tests the queries of a time series against a scan of every sample that was
+ * appended, across the chunks, the levels of the pyramid and the evictions.
+ */
+public class TimeSeriesTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final long ORIGIN = 1500000000000L;
+    private static final int WINDOWS = 200;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final Random fRandom = new Random(29);
+    private final TimeSeries fSeries = new TimeSeries();
+
+    private long[] fTimestamps;
+    private float[] fValues;
+    private int fCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * A sample that fills a chunk starts the next one, and the samples of a window that spans
+     * many chunks are copied in order, even when equal timestamps straddle two chunks.
+     */
+    @Test
+    public void testRangeAcrossChunks() {
+        int samples = GorillaChunk.CAPACITY * 3 + GorillaChunk.CAPACITY / 2;
+        fTimestamps = new long[samples];
+        fValues = new float[samples];
+
+        long timestamp = ORIGIN;
+        for (int i = 0; i < samples; i++) {
+            /* Keep the same timestamp around the first chunk boundary */
+            if (Math.abs(i - GorillaChunk.CAPACITY) > 2) {
+                timestamp += fRandom.nextInt(40);
+            }
+            boolean grown = append(timestamp, fRandom.nextFloat());
+            assertTrue(grown || i == 0 || i % GorillaChunk.CAPACITY != 0);
+        }
+        assertEquals(samples, fSeries.getCount());
+
+        for (int i = 0; i < WINDOWS; i++) {
+            long from = randomTime();
+            long to = from + fRandom.nextInt(60000);
+            assertRange(from, to, fCount);
+        }
+
+        /* The boundary of the first chunk, and arrays smaller than the window */
+        long boundary = fTimestamps[GorillaChunk.CAPACITY];
+        assertRange(boundary, boundary + 1, fCount);
+        assertRange(ORIGIN, fTimestamps[fCount - 1] + 1, 100);
+        assertRange(boundary, fTimestamps[fCount - 1] + 1, GorillaChunk.CAPACITY + 7);
+    }
+
+    /**
+     * The minimum, the maximum and the mean of random windows, including empty windows and
+     * windows past the ends of the series, match a scan of the samples. The series is longer
+     * than the finest level of the pyramid, so the edges of the oldest windows are taken from the
+     * samples.
+     */
+    @Test
+    public void testAggregateMatchesScan() {
+        appendSamples(20000, 50, 10);
+
+        for (int i = 0; i < WINDOWS; i++) {
+            long from = randomTime();
+            long to = from + fRandom.nextInt(200000);
+            assertAggregate(from, to);
+        }
+
+        /* The whole series, the windows past its ends and an empty window */
+        long last = fTimestamps[fCount - 1];
+        assertAggregate(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2);
+        assertAggregate(ORIGIN - 10000, ORIGIN + 1);
+        assertAggregate(last, last + 10000);
+        assertAggregate(last + 1, last + 10000);
+        assertAggregate(ORIGIN + 5000, ORIGIN + 5000);
+
+        Aggregate empty = fSeries.getAggregate(ORIGIN - 10000, ORIGIN);
+        assertEquals(0, empty.getCount());
+        assertTrue(Float.isNaN(empty.getMin()));
+        assertTrue(Double.isNaN(empty.getMean()));
+    }
+
+    /**
+     * An empty series has no samples to copy or aggregate.
+     */
+    @Test
+    public void testEmptySeries() {
+        assertEquals(0, fSeries.getRange(0, Long.MAX_VALUE, new long[8], new float[8]));
+        assertEquals(0, fSeries.getAggregate(0, Long.MAX_VALUE).getCount());
+        assertEquals(0, fSeries.evictOldest());
+        assertEquals(Long.MAX_VALUE, fSeries.getOldestTime());
+        assertEquals(0, fSeries.getSize());
+    }
+
+    /**
+     * The evicted chunks free their memory and their samples can't be copied anymore, but the
+     * pyramid still aggregates the windows that are aligned on its buckets exactly. The chunk
+     * being filled is never evicted.
+     */
+    @Test
+    public void testEviction() {
+        appendSamples(GorillaChunk.CAPACITY * 9 + 100, 100, 0);
+
+        long size = fSeries.getSize();
+        long freed = 0;
+        for (int i = 0; i < 6; i++) {
+            freed += fSeries.evictOldest();
+        }
+        assertEquals(size - freed, fSeries.getSize());
+        assertEquals(fTimestamps[6 * GorillaChunk.CAPACITY], fSeries.getOldestTime());
+
+        /* Only the kept samples are copied */
+        long last = fTimestamps[fCount - 1];
+        long[] timestamps = new long[fCount];
+        float[] values = new float[fCount];
+        int count = fSeries.getRange(ORIGIN, last + 1, timestamps, values);
+        assertEquals(fCount - 6 * GorillaChunk.CAPACITY, count);
+        assertEquals(fSeries.getOldestTime(), timestamps[0]);
+
+        /* The windows of kept samples are exact */
+        for (int i = 0; i < WINDOWS; i++) {
+            long from = fSeries.getOldestTime() + fRandom.nextInt((int) (last - ORIGIN) / 4);
+            assertAggregate(from, from + fRandom.nextInt(100000));
+        }
+
+        /* The windows aligned on the seconds are exact even where the samples were evicted */
+        for (int i = 0; i < WINDOWS; i++) {
+            long from = ORIGIN + 1000L * fRandom.nextInt((int) (last - ORIGIN) / 1000);
+            assertAggregate(from, from + 1000L * fRandom.nextInt(200));
+        }
+
+        /* The chunk being filled stays */
+        for (int i = 0; i < 3; i++) {
+            assertTrue(fSeries.evictOldest() > 0);
+        }
+        assertEquals(0, fSeries.evictOldest());
+        assertEquals(Long.MAX_VALUE, fSeries.getOldestTime());
+        assertEquals(fCount, fSeries.getCount());
+    }
+
+    /**
+     * Once the finest level of the pyramid forgot its oldest buckets, the coarser levels still
+     * aggregate the windows aligned on their buckets exactly.
+     */
+    @Test
+    public void testPyramidCoversForgottenBuckets() {
+        /* A sample every 100 ms for twice the span of the finest level */
+        int samples = (int) (2 * DownsamplingLevel.MAX_BUCKETS * TimeSeries.LEVEL_WIDTHS[0] / 100);
+        appendSamples(samples, 100, 0);
+
+        long size = fSeries.getSize();
+        while (fSeries.evictOldest() > 0) {
+            /* Evict every chunk that can be */
+        }
+        assertTrue(fSeries.getSize() < size);
+
+        long width = TimeSeries.LEVEL_WIDTHS[1];
+        long last = fTimestamps[fCount - 1];
+        for (int i = 0; i < WINDOWS; i++) {
+            long from = ORIGIN + width * fRandom.nextInt((int) ((last - ORIGIN) / width));
+            assertAggregate(from, from + width * (1 + fRandom.nextInt(100)));
+        }
+        assertAggregate(ORIGIN, ORIGIN + width * ((last - ORIGIN) / width));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This util method appends random samples at a jittered rate.
+     *
+     * @param samples The number of samples
+     * @param period  The period between the samples in milliseconds
+     * @param jitter  The largest jitter added to the period in milliseconds
+     */
+    private void appendSamples(int samples, int period, int jitter) {
+        fTimestamps = new long[samples];
+        fValues = new float[samples];
+
+        long timestamp = ORIGIN;
+        for (int i = 0; i < samples; i++) {
+            append(timestamp, (float) (Math.sin(i / 50.0) * 100.0 + fRandom.nextGaussian()));
+            timestamp += period + ((jitter > 0) ? fRandom.nextInt(jitter) : 0);
+        }
+    }
+
+    private boolean append(long timestamp, float value) {
+        fTimestamps[fCount] = timestamp;
+        fValues[fCount] = value;
+        fCount++;
+
+        return fSeries.append(timestamp, value);
+    }
+
+    private long randomTime() {
+        long span = fTimestamps[fCount - 1] - ORIGIN;
+        return ORIGIN - 1000 + (long) (fRandom.nextDouble() * (span + 2000));
+    }
+
+    /**
+     * This util method checks the samples copied from a window against a scan.
+     *
+     * @param from     The start of the window, inclusive
+     * @param to       The end of the window, exclusive
+     * @param capacity The size of the arrays that receive the samples
+     */
+    private void assertRange(long from, long to, int capacity) {
+        long[] timestamps = new long[capacity];
+        float[] values = new float[capacity];
+        int count = fSeries.getRange(from, to, timestamps, values);
+
+        int expected = 0;
+        for (int i = 0; i < fCount && expected < capacity; i++) {
+            if (fTimestamps[i] >= from && fTimestamps[i] < to) {
+                assertEquals(fTimestamps[i], timestamps[expected]);
+                assertEquals(fValues[i], values[expected], 0.0f);
+                expected++;
+            }
+        }
+
+        assertEquals(expected, count);
+    }
+
+    /**
+     * This util method checks the aggregate of a window against a scan.
+     *
+     * @param from The start of the window, inclusive
+     * @param to   The end of the window, exclusive
+     */
+    private void assertAggregate(long from, long to) {
+        Aggregate aggregate = fSeries.getAggregate(from, to);
+
+        float min = Float.NaN;
+        float max = Float.NaN;
+        double sum = 0;
+        long count = 0;
+        for (int i = 0; i < fCount; i++) {
+            if (fTimestamps[i] >= from && fTimestamps[i] < to) {
+                min = (count == 0) ? fValues[i] : Math.min(min, fValues[i]);
+                max = (count == 0) ? fValues[i] : Math.max(max, fValues[i]);
+                sum += fValues[i];
+                count++;
+            }
+        }
+
+        String window = "[" + from + ", " + to + ")";
+        assertEquals(window, count, aggregate.getCount());
+        if (count == 0) {
+            assertTrue(window, Float.isNaN(aggregate.getMin()));
+            return;
+        }
+
+        assertEquals(window, min, aggregate.getMin(), 0.0f);
+        assertEquals(window, max, aggregate.getMax(), 0.0f);
+        assertEquals(window, sum / count, aggregate.getMean(), 1e-6 * (1 + Math.abs(sum / count)));
+    }
+
+}
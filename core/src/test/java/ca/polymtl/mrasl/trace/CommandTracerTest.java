@@ -0,0 +1,61 @@
+package ca.polymtl.mrasl.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ca.polymtl.mrasl.clock.VirtualClock;
+import ca.polymtl.mrasl.trace.CommandTrace.Outcome;
+
+/**
+ * This class tests the end of the traces of the commands.
+ */
+public class CommandTracerTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * A late acknowledgement doesn't end a command that was already dropped.
+     */
+    @Test
+    public void testLateAckIsIgnored() {
+        CommandTracer tracer = CommandTracer.getInstance();
+        long dropped = tracer.getCount(Outcome.DROPPED);
+        long acked = tracer.getCount(Outcome.ACKED);
+
+        CommandTrace trace = new CommandTrace(TriggerSource.UI);
+        tracer.finish(trace, Outcome.DROPPED);
+        trace.stamp(Stage.ACK);
+        tracer.finish(trace, Outcome.ACKED);
+
+        assertEquals(Outcome.DROPPED, trace.getOutcome());
+        assertFalse(trace.hasReached(Stage.ACK));
+        assertEquals(dropped + 1, tracer.getCount(Outcome.DROPPED));
+        assertEquals(acked, tracer.getCount(Outcome.ACKED));
+    }
+
+    /**
+     * The stages are stamped with the clock of the trace, so a command in virtual time has the
+     * latency of the virtual time.
+     */
+    @Test
+    public void testStagesFollowTheClock() {
+        VirtualClock clock = new VirtualClock(0L);
+        CommandTrace trace = new CommandTrace(TriggerSource.UI, clock);
+
+        clock.advance(5);
+        trace.stamp(Stage.TRANSITION);
+        clock.advance(250);
+        trace.stamp(Stage.ACK);
+
+        assertEquals(5000000L, trace.getLatency(Stage.TRANSITION));
+        assertEquals(250000000L, trace.getLatency(Stage.ACK));
+        assertEquals(255000000L, trace.getTotalLatency());
+        assertTrue(trace.setOutcome(Outcome.ACKED));
+    }
+
+}
@@ -0,0 +1,156 @@
+package ca.polymtl.mrasl.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.clock.VirtualClock;
+import ca.polymtl.mrasl.mission.Mission;
+import ca.polymtl.mrasl.mission.MissionTimeline;
+import ca.polymtl.mrasl.mission.TimelineEvent;
+import ca.polymtl.mrasl.payload.PayloadSensors;
+import ca.polymtl.mrasl.platform.Platform;
+
+/**
+ * This class flies the radio link for hours in virtual time, with outages of the link. The link
+ * must go down on each outage and come back once the outage ends.
+ */
+public class UplinkTest {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final long HOUR = 3600000L;
+    private static final long FLIGHT = 3 * HOUR;
+    private static final long OUTAGE_PERIOD = 20 * 60000L;
+    private static final long OUTAGE_LENGTH = 30000L;
+    private static final long SENSORS_PERIOD = 100L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final VirtualClock fClock = new VirtualClock(0L);
+
+    // ---------------------------------------------------------------------------------------------
+    // Setup
+    // ---------------------------------------------------------------------------------------------
+
+    @Before
+    public void setUp() {
+        Platform.getInstance().setVirtualClock(fClock);
+    }
+
+    @After
+    public void tearDown() {
+        Platform.getInstance().setVirtualClock(null);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tests
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Hours of flight with an outage every twenty minutes run in a few seconds, and the link
+     * restarts after every outage.
+     */
+    @Test(timeout = 30000L)
+    public void testLinkRestartsAfterOutages() {
+        IScheduler scheduler = fClock.createScheduler();
+        Mission mission = new Mission(fClock, null);
+        FlakyTransport transport = new FlakyTransport();
+        Uplink uplink = new Uplink(transport, mission, scheduler);
+
+        /* The sensors make the payload manager ready, like the telemetry of the phone */
+        scheduler.post(new SensorsFeed(uplink, scheduler));
+
+        long end = 0L;
+        int outages = 0;
+        while (fClock.getElapsed() < FLIGHT) {
+            fClock.advance(OUTAGE_PERIOD);
+            long sent = transport.fSent;
+
+            /* Cut the link for a while */
+            transport.fFailing = true;
+            fClock.advance(OUTAGE_LENGTH);
+            transport.fFailing = false;
+            outages++;
+
+            /* The frames come back once the link restarted */
+            fClock.advance(OUTAGE_LENGTH);
+            assertTrue(transport.fSent > sent);
+            end = fClock.getElapsed();
+        }
+
+        /* Every outage took the link down, and it is up after the last one */
+        MissionTimeline timeline = mission.getTimeline();
+        int downs = 0;
+        TimelineEvent last = null;
+        for (int i = 0; i < timeline.getCount(); i++) {
+            TimelineEvent type = timeline.getType(i);
+            if (type == TimelineEvent.LINK_DOWN) {
+                downs++;
+            }
+            if (type == TimelineEvent.LINK_DOWN || type == TimelineEvent.LINK_UP) {
+                last = type;
+            }
+        }
+        assertTrue(downs >= outages);
+        assertEquals(TimelineEvent.LINK_UP, last);
+        assertTrue(end >= FLIGHT);
+
+        uplink.dispose();
+        mission.dispose();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class is a transport that fails every frame during an outage.
+     */
+    private static class FlakyTransport implements ITransport {
+        private volatile boolean fFailing;
+        private long fSent;
+
+        @Override
+        public void send(byte[] frame, ISendCallback callback) {
+            if (fFailing) {
+                callback.onSent("The link is down");
+            } else {
+                fSent++;
+                callback.onSent(null);
+            }
+        }
+
+        @Override
+        public void setFrameListener(IFrameListener listener) {
+        }
+    }
+
+    /**
+     * This class feeds the payload manager with sensors samples periodically.
+     */
+    private static class SensorsFeed implements Runnable {
+        private final Uplink fUplink;
+        private final IScheduler fScheduler;
+
+        public SensorsFeed(Uplink uplink, IScheduler scheduler) {
+            fUplink = uplink;
+            fScheduler = scheduler;
+        }
+
+        @Override
+        public void run() {
+            fUplink.getPayloadManager().setPayload(new PayloadSensors());
+            fScheduler.postDelayed(this, SENSORS_PERIOD);
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+package ca.polymtl.mrasl.flightlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+import ca.polymtl.mrasl.flightlog.export.ColumnarExporter;
+import ca.polymtl.mrasl.flightlog.export.CsvExporter;
+import ca.polymtl.mrasl.flightlog.export.IRecordExporter;
+import ca.polymtl.mrasl.payload.PayloadManager;
+import ca.polymtl.mrasl.recorder.FlightLogReader;
+import ca.polymtl.mrasl.recorder.FlightReplay;
+
+/**
+ * This class is the entry point of the command line tool that analyzes the flight logs pulled
+ * from the tablet. Every command streams through the flight log once, so the memory used doesn't
+ * depend on the size of the log.
+ */
+public class FlightLogTool {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String USAGE =
+            "Usage: flightlog stats <flight-dir> [burst-gap-ms] [outage-gap-ms]\n" +
+            "       flightlog export <flight-dir> <out-dir> [csv|columnar]\n" +
+            "       flightlog replay <flight-dir> [speed]";
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /* The radio link restarts 2 seconds after an error */
+    private static final long DEFAULT_BURST_GAP = 3000;
+    private static final long DEFAULT_OUTAGE_GAP = 1000;
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        try {
+            if (args[0].equals("stats")) {
+                long burstGap = (args.length > 2) ? Long.parseLong(args[2]) : DEFAULT_BURST_GAP;
+                long outageGap = (args.length > 3) ? Long.parseLong(args[3]) : DEFAULT_OUTAGE_GAP;
+                stats(new File(args[1]), burstGap * NANOS_PER_MILLI, outageGap * NANOS_PER_MILLI);
+            } else if (args[0].equals("export") && args.length >= 3) {
+                String format = (args.length > 3) ? args[3] : "csv";
+                export(new File(args[1]), new File(args[2]), format);
+            } else if (args[0].equals("replay")) {
+                double speed = (args.length > 2) ? Double.parseDouble(args[2])
+                        : FlightReplay.SPEED_UNLIMITED;
+                if (!replay(new File(args[1]), speed)) {
+                    System.exit(1);
+                }
+            } else {
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+        } catch (IOException | IllegalArgumentException exception) {
+            System.err.println("flightlog: " + exception.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * This method prints the statistics of a flight log.
+     *
+     * @param directory The directory of the flight log
+     * @param burstGap  The largest time between two link errors of the same burst
+     * @param outageGap The smallest time without uplink frames that is an outage
+     *
+     * @throws IOException If the flight log cannot be read
+     */
+    private static void stats(File directory, long burstGap, long outageGap) throws IOException {
+        FlightStatistics statistics = new FlightStatistics(burstGap, outageGap);
+        FlightLogReader reader = open(directory);
+
+        try {
+            while (reader.next()) {
+                statistics.add(reader);
+            }
+
+            statistics.print(System.out, reader.getTornSegments());
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * This method exports a flight log into another format.
+     *
+     * @param directory The directory of the flight log
+     * @param output    The directory of the exported files
+     * @param format    The name of the format
+     *
+     * @throws IOException If the flight log cannot be read or exported
+     */
+    private static void export(File directory, File output, String format) throws IOException {
+        if (!output.isDirectory() && !output.mkdirs()) {
+            throw new IOException("Unable to create " + output);
+        }
+
+        /* Find the exporter of the format */
+        IRecordExporter exporter;
+        if (format.equals("csv")) {
+            exporter = new CsvExporter(output);
+        } else if (format.equals("columnar")) {
+            exporter = new ColumnarExporter(output);
+        } else {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+
+        FlightLogReader reader = open(directory);
+        long count = 0;
+
+        try {
+            while (reader.next()) {
+                exporter.export(reader);
+                count++;
+            }
+        } finally {
+            reader.dispose();
+            exporter.finish();
+        }
+
+        System.out.println("Exported " + count + " records into " + output);
+    }
+
+    /**
+     * This method replays a flight log through a new payload manager and compares the frames it
+     * encodes with the recorded ones.
+     *
+     * @param directory The directory of the flight log
+     * @param speed     The speed factor of the replay, or {@link FlightReplay#SPEED_UNLIMITED}
+     *
+     * @return {@code true} if every frame is the same as the recorded one, else {@code false}
+     *
+     * @throws IOException If the flight log cannot be read
+     */
+    private static boolean replay(File directory, double speed) throws IOException {
+        if (!directory.isDirectory()) {
+            throw new IOException(directory + " is not a directory");
+        }
+
+        /* The replay runs on this thread, so does the readiness listener */
+        PayloadManager manager = new PayloadManager(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        FlightReplay replay = new FlightReplay(directory, manager, speed);
+        replay.run();
+
+        if (replay.getFailure() != null) {
+            throw replay.getFailure();
+        }
+
+        System.out.println(String.format(Locale.US,
+                "Replayed %d records, %d samples and %d frames in %.1f ms",
+                replay.getRecordCount(), replay.getSampleCount(), replay.getFrameCount(),
+                replay.getElapsedTime() / (double) NANOS_PER_MILLI));
+        System.out.println("Frames different from the flight: " + replay.getMismatchCount());
+
+        return replay.getMismatchCount() == 0;
+    }
+
+    /**
+     * This method opens the reader of a flight log.
+     *
+     * @param directory The directory of the flight log
+     *
+     * @return The reader of the flight log
+     *
+     * @throws IOException If the directory is not a flight log
+     */
+    private static FlightLogReader open(File directory) throws IOException {
+        if (!directory.isDirectory()) {
+            throw new IOException(directory + " is not a directory");
+        }
+
+        return new FlightLogReader(directory);
+    }
+
+}
@@ -0,0 +1,480 @@
+package ca.polymtl.mrasl.flightlog;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Locale;
+
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.payload.PayloadCommand;
+import ca.polymtl.mrasl.payload.PayloadGPS;
+import ca.polymtl.mrasl.payload.PayloadSensors;
+import ca.polymtl.mrasl.recorder.FlightLogReader;
+import ca.polymtl.mrasl.recorder.RecordType;
+import ca.polymtl.mrasl.shared.Histogram;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.trace.CommandTrace.Outcome;
+import ca.polymtl.mrasl.trace.Stage;
+
+/**
+ * This class computes the statistics of a flight log in a single pass. The records are given one
+ * at a time and only fixed-size counters, histograms and a small window of recent samples are
+ * kept, so a log of any size can be analyzed.
+ * <p/>
+ * The sensor-to-send latency is the age of a telemetry sample when it was sent. Each uplink frame
+ * is matched with the most recent sample that has the same bytes.
+ */
+public class FlightStatistics {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final int RECENT_SAMPLES = 64;
+
+    private static final int KIND_GPS = 0;
+    private static final int KIND_SENSORS = 1;
+    private static final int KIND_COMMAND = 2;
+    private static final int KIND_UNKNOWN = 3;
+    private static final String[] KIND_NAMES = {"GPS", "SENSORS", "COMMAND", "UNKNOWN"};
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final long fBurstGap;
+    private final long fOutageGap;
+
+    /* Rates */
+    private final long[] fTypeCounts = new long[RecordType.values().length];
+    private final long[] fTypeBytes = new long[RecordType.values().length];
+    private final long[] fKindCounts = new long[KIND_NAMES.length];
+    private long fRecords;
+    private long fUnknownRecords;
+    private long fFirstTimestamp = -1;
+    private long fLastTimestamp;
+    private long fLastSequence = -1;
+    private long fSequenceGaps;
+
+    /* Inter-frame jitter and outages */
+    private final Histogram fFrameIntervals = new Histogram();
+    private long fLastFrame = -1;
+    private long fOutages;
+    private long fLongestOutage;
+
+    /* Sensor-to-send latency */
+    private final Histogram fGPSLatency = new Histogram();
+    private final Histogram fSensorsLatency = new Histogram();
+    private final byte[][] fRecentData = new byte[RECENT_SAMPLES][];
+    private final long[] fRecentTimestamps = new long[RECENT_SAMPLES];
+    private final int[] fRecentKinds = new int[RECENT_SAMPLES];
+    private int fRecentCount;
+    private int fRecentHead;
+    private long fUnmatchedFrames;
+
+    /* Link errors */
+    private long fLinkErrors;
+    private long fBursts;
+    private long fBurstStart;
+    private long fBurstSize;
+    private long fLargestBurst;
+    private long fLongestBurst;
+    private long fLastError = -1;
+
+    /* Command latency */
+    private final Histogram[] fCommandStages = new Histogram[Stage.values().length];
+    private final Histogram fCommandTotal = new Histogram();
+    private final long[] fCommandOutcomes = new long[Outcome.values().length];
+
+    /* Mission phases */
+    private final long[] fPhaseDurations = new long[State.values().length];
+    private final long[] fPhaseEntries = new long[State.values().length];
+    private State fPhase = State.READY;
+    private long fPhaseStart = -1;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for the statistics of a flight log.
+     *
+     * @param burstGap  The largest time between two link errors of the same burst, in nanoseconds
+     * @param outageGap The smallest time without uplink frames that is an outage, in nanoseconds
+     */
+    public FlightStatistics(long burstGap, long outageGap) {
+        fBurstGap = burstGap;
+        fOutageGap = outageGap;
+
+        for (int i = 0; i < RECENT_SAMPLES; i++) {
+            fRecentData[i] = new byte[PayloadSensors.PAYLOAD_SIZE];
+        }
+        for (int i = 0; i < fCommandStages.length; i++) {
+            fCommandStages[i] = new Histogram();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method adds the current record of a reader to the statistics. The records must be
+     * given in order.
+     *
+     * @param reader The reader positioned on the record
+     */
+    public void add(FlightLogReader reader) {
+        long timestamp = reader.getTimestamp();
+        RecordType type = reader.getType();
+
+        /* The first record is the origin of the flight */
+        if (fFirstTimestamp < 0) {
+            fFirstTimestamp = timestamp;
+            fPhaseStart = timestamp;
+        }
+        fLastTimestamp = timestamp;
+        fRecords++;
+
+        /* A missing sequence number is a lost record */
+        if (fLastSequence >= 0 && reader.getSequence() != fLastSequence + 1) {
+            fSequenceGaps++;
+        }
+        fLastSequence = reader.getSequence();
+
+        /* Skip the records that are unknown to this version */
+        if (type == null) {
+            fUnknownRecords++;
+            return;
+        }
+
+        fTypeCounts[type.ordinal()]++;
+        fTypeBytes[type.ordinal()] += reader.getLength();
+
+        switch (type) {
+            case GPS:
+                addSample(KIND_GPS, reader);
+                break;
+            case SENSORS:
+                addSample(KIND_SENSORS, reader);
+                break;
+            case UPLINK:
+                addFrame(reader);
+                break;
+            case MISSION_STATE:
+                addState(reader.getData()[0], timestamp);
+                break;
+            case LINK_ERROR:
+                addLinkError(timestamp);
+                break;
+            case COMMAND_TRACE:
+                addCommandTrace(reader);
+                break;
+            case DOWNLINK:
+                break;
+        }
+    }
+
+    /**
+     * This method keeps a telemetry sample in the window of recent samples.
+     *
+     * @param kind   The kind of sample
+     * @param reader The reader positioned on the sample
+     */
+    private void addSample(int kind, FlightLogReader reader) {
+        int length = Math.min(reader.getLength(), PayloadSensors.PAYLOAD_SIZE);
+
+        /* Overwrite the oldest sample */
+        System.arraycopy(reader.getData(), 0, fRecentData[fRecentHead], 0, length);
+        fRecentTimestamps[fRecentHead] = reader.getTimestamp();
+        fRecentKinds[fRecentHead] = kind;
+
+        fRecentHead = (fRecentHead + 1) % RECENT_SAMPLES;
+        fRecentCount = Math.min(fRecentCount + 1, RECENT_SAMPLES);
+    }
+
+    /**
+     * This method measures the interval since the previous uplink frame and the age of the sample
+     * that the frame contains.
+     *
+     * @param reader The reader positioned on the frame
+     */
+    private void addFrame(FlightLogReader reader) {
+        long timestamp = reader.getTimestamp();
+        int kind = getKind(reader.getLength());
+        fKindCounts[kind]++;
+
+        /* Measure the interval between the frames */
+        if (fLastFrame >= 0) {
+            long interval = timestamp - fLastFrame;
+            fFrameIntervals.add(interval);
+
+            if (interval >= fOutageGap) {
+                fOutages++;
+                fLongestOutage = Math.max(fLongestOutage, interval);
+            }
+        }
+        fLastFrame = timestamp;
+
+        /* Commands don't come from a sample */
+        if (kind != KIND_GPS && kind != KIND_SENSORS) {
+            return;
+        }
+
+        /* Find the most recent sample that was sent */
+        for (int i = 1; i <= fRecentCount; i++) {
+            int index = (fRecentHead - i + RECENT_SAMPLES) % RECENT_SAMPLES;
+            if (fRecentKinds[index] == kind && equals(fRecentData[index], reader.getData(),
+                    reader.getLength())) {
+                Histogram latency = (kind == KIND_GPS) ? fGPSLatency : fSensorsLatency;
+                latency.add(timestamp - fRecentTimestamps[index]);
+                return;
+            }
+        }
+
+        fUnmatchedFrames++;
+    }
+
+    /**
+     * This method accounts the time spent in the previous phase of the mission.
+     *
+     * @param number    The recorded ordinal of the new state
+     * @param timestamp The time of the change
+     */
+    private void addState(int number, long timestamp) {
+        State[] states = State.values();
+
+        /* Skip the states that are unknown to this version */
+        if (number < 0 || number >= states.length) {
+            return;
+        }
+
+        fPhaseDurations[fPhase.ordinal()] += timestamp - fPhaseStart;
+        fPhase = states[number];
+        fPhaseStart = timestamp;
+        fPhaseEntries[fPhase.ordinal()]++;
+    }
+
+    /**
+     * This method groups the link errors into bursts.
+     *
+     * @param timestamp The time of the error
+     */
+    private void addLinkError(long timestamp) {
+        fLinkErrors++;
+
+        /* Start a new burst if the previous error is too old */
+        if (fLastError < 0 || timestamp - fLastError > fBurstGap) {
+            fBursts++;
+            fBurstStart = timestamp;
+            fBurstSize = 0;
+        }
+
+        fBurstSize++;
+        fLargestBurst = Math.max(fLargestBurst, fBurstSize);
+        fLongestBurst = Math.max(fLongestBurst, timestamp - fBurstStart);
+        fLastError = timestamp;
+    }
+
+    /**
+     * This method adds the latency of each stage of a command that was acknowledged.
+     *
+     * @param reader The reader positioned on the trace
+     */
+    private void addCommandTrace(FlightLogReader reader) {
+        /* Skip the traces written by another version */
+        if (reader.getLength() != CommandTrace.RECORD_SIZE) {
+            return;
+        }
+
+        CommandTrace trace = CommandTrace.fromRecord(reader.getData());
+        fCommandOutcomes[trace.getOutcome().ordinal()]++;
+
+        if (trace.getOutcome() != Outcome.ACKED) {
+            return;
+        }
+
+        for (Stage stage : Stage.values()) {
+            long latency = trace.getLatency(stage);
+            if (latency >= 0) {
+                fCommandStages[stage.ordinal()].add(latency);
+            }
+        }
+        fCommandTotal.add(trace.getTotalLatency());
+    }
+
+    /**
+     * This method prints a report of the statistics.
+     *
+     * @param out          The stream of the report
+     * @param tornSegments The number of torn segments found by the reader
+     */
+    public void print(PrintStream out, int tornSegments) {
+        long duration = getDuration();
+
+        out.println("Flight");
+        out.println(format("  duration        %.3f s", seconds(duration)));
+        out.println(format("  records         %d (%d unknown, %d sequence gaps)",
+                fRecords, fUnknownRecords, fSequenceGaps));
+        out.println(format("  torn segments   %d", tornSegments));
+
+        out.println("Records");
+        for (RecordType type : RecordType.values()) {
+            long count = fTypeCounts[type.ordinal()];
+            out.println(format("  %-15s %10d  %9.2f Hz  %12d bytes",
+                    type, count, rate(count, duration), fTypeBytes[type.ordinal()]));
+        }
+
+        out.println("Uplink payloads");
+        for (int i = 0; i < KIND_NAMES.length; i++) {
+            out.println(format("  %-15s %10d  %9.2f Hz",
+                    KIND_NAMES[i], fKindCounts[i], rate(fKindCounts[i], duration)));
+        }
+
+        out.println("Inter-frame interval");
+        printHistogram(out, fFrameIntervals);
+        out.println(format("  outages         %d (longest %.3f s)",
+                fOutages, seconds(fLongestOutage)));
+
+        out.println("Sensor-to-send latency, GPS");
+        printHistogram(out, fGPSLatency);
+        out.println("Sensor-to-send latency, sensors");
+        printHistogram(out, fSensorsLatency);
+        out.println(format("  unmatched       %d", fUnmatchedFrames));
+
+        out.println("Link errors");
+        out.println(format("  errors          %d", fLinkErrors));
+        out.println(format("  bursts          %d (largest %d errors, longest %.3f s)",
+                fBursts, fLargestBurst, seconds(fLongestBurst)));
+
+        out.println("Command latency");
+        for (Outcome outcome : Outcome.values()) {
+            out.println(format("  %-15s %d", outcome, fCommandOutcomes[outcome.ordinal()]));
+        }
+        for (Stage stage : Stage.values()) {
+            if (stage != Stage.TRIGGER) {
+                out.println("Command latency, to " + stage);
+                printHistogram(out, fCommandStages[stage.ordinal()]);
+            }
+        }
+        out.println("Command latency, trigger to ack");
+        printHistogram(out, fCommandTotal);
+
+        out.println("Mission phases");
+        long[] durations = getPhaseDurations();
+        for (State state : State.values()) {
+            out.println(format("  %-15s %10.3f s  %d entries",
+                    state, seconds(durations[state.ordinal()]), fPhaseEntries[state.ordinal()]));
+        }
+    }
+
+    /**
+     * This method prints the distribution of a histogram of durations.
+     *
+     * @param out       The stream of the report
+     * @param histogram The histogram to print
+     */
+    private static void printHistogram(PrintStream out, Histogram histogram) {
+        out.println(format("  count           %d", histogram.getCount()));
+        out.println(format("  mean            %.3f ms (stddev %.3f ms)",
+                histogram.getMean() / NANOS_PER_MILLI,
+                histogram.getStandardDeviation() / NANOS_PER_MILLI));
+        out.println(format("  min/p50/p90/p99/max  %.3f / %.3f / %.3f / %.3f / %.3f ms",
+                millis(histogram.getMin()),
+                millis(histogram.getPercentile(0.50)),
+                millis(histogram.getPercentile(0.90)),
+                millis(histogram.getPercentile(0.99)),
+                millis(histogram.getMax())));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the time between the first and the last record in nanoseconds.
+     *
+     * @return The duration of the flight
+     */
+    public long getDuration() {
+        return (fFirstTimestamp < 0) ? 0 : fLastTimestamp - fFirstTimestamp;
+    }
+
+    /**
+     * Accessor that returns the time spent in each state of the mission in nanoseconds, indexed by
+     * the ordinal of the state. The current phase lasts until the last record.
+     *
+     * @return The durations of the phases
+     */
+    public long[] getPhaseDurations() {
+        long[] durations = Arrays.copyOf(fPhaseDurations, fPhaseDurations.length);
+        if (fPhaseStart >= 0) {
+            durations[fPhase.ordinal()] += fLastTimestamp - fPhaseStart;
+        }
+
+        return durations;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method finds the kind of payload of an uplink frame from its size.
+     *
+     * @param length The length of the frame
+     *
+     * @return The kind of payload
+     */
+    public static int getKind(int length) {
+        switch (length) {
+            case PayloadGPS.PAYLOAD_SIZE:
+                return KIND_GPS;
+            case PayloadSensors.PAYLOAD_SIZE:
+                return KIND_SENSORS;
+            case PayloadCommand.PAYLOAD_SIZE:
+                return KIND_COMMAND;
+            default:
+                return KIND_UNKNOWN;
+        }
+    }
+
+    /**
+     * This method returns the name of a kind of payload.
+     *
+     * @param kind The kind of payload
+     *
+     * @return The name of the kind
+     */
+    public static String getKindName(int kind) {
+        return KIND_NAMES[kind];
+    }
+
+    private static boolean equals(byte[] sample, byte[] frame, int length) {
+        for (int i = 0; i < length; i++) {
+            if (sample[i] != frame[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static double rate(long count, long duration) {
+        return (duration > 0) ? count * (double) NANOS_PER_SECOND / duration : 0.0;
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / (double) NANOS_PER_SECOND;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) NANOS_PER_MILLI;
+    }
+
+    private static String format(String format, Object... args) {
+        return String.format(Locale.US, format, args);
+    }
+
+}
@@ -0,0 +1,221 @@
+package ca.polymtl.mrasl.flightlog.export;
+
+import static ca.polymtl.mrasl.flightlog.export.ColumnarWriter.TYPE_FLOAT;
+import static ca.polymtl.mrasl.flightlog.export.ColumnarWriter.TYPE_LONG;
+
+import java.io.File;
+import java.io.IOException;
+
+import ca.polymtl.mrasl.flightlog.FlightStatistics;
+import ca.polymtl.mrasl.payload.PayloadGPS;
+import ca.polymtl.mrasl.payload.PayloadSensors;
+import ca.polymtl.mrasl.recorder.FlightLogReader;
+import ca.polymtl.mrasl.recorder.RecordType;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.trace.Stage;
+
+/**
+ * This class exports a flight log into a columnar file per type of record. Only the numeric
+ * fields are exported: the frames are reduced to their kind and length, and the link errors to
+ * their time. The CSV export keeps everything.
+ *
+ * @see ColumnarWriter
+ */
+public class ColumnarExporter implements IRecordExporter {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String EXTENSION = ".col";
+
+    /* Every table starts with these columns */
+    private static final int COL_SEQUENCE = 0;
+    private static final int COL_TIMESTAMP = 1;
+    private static final int COL_WALL_TIME = 2;
+    private static final int COL_FIRST = 3;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final ColumnarWriter fGPS;
+    private final ColumnarWriter fSensors;
+    private final ColumnarWriter fUplink;
+    private final ColumnarWriter fDownlink;
+    private final ColumnarWriter fMission;
+    private final ColumnarWriter fLinkErrors;
+    private final ColumnarWriter fCommands;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a columnar exporter.
+     *
+     * @param directory The directory of the columnar files
+     *
+     * @throws IOException If the files cannot be created
+     */
+    public ColumnarExporter(File directory) throws IOException {
+        fGPS = open(directory, "gps", TYPE_FLOAT,
+                "latitude", "longitude", "altitude", "bearing", "accuracy", "speed");
+        fSensors = open(directory, "sensors", TYPE_FLOAT,
+                "acc_x", "acc_y", "acc_z", "rot_1", "rot_2", "rot_3", "rot_4");
+        fUplink = open(directory, "uplink", TYPE_LONG, "kind", "length");
+        fDownlink = open(directory, "downlink", TYPE_LONG, "length");
+        fMission = open(directory, "mission", TYPE_LONG, "state");
+        fLinkErrors = open(directory, "link_errors", TYPE_LONG);
+        fCommands = open(directory, "commands", TYPE_LONG, "source", "command", "outcome",
+                "transition_us", "enqueue_us", "send_us", "ack_us");
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void export(FlightLogReader reader) throws IOException {
+        RecordType type = reader.getType();
+
+        /* Skip the records that are unknown to this version */
+        if (type == null) {
+            return;
+        }
+
+        switch (type) {
+            case GPS:
+                writeGPS(reader);
+                break;
+            case SENSORS:
+                writeSensors(reader);
+                break;
+            case UPLINK:
+                writePrefix(fUplink, reader);
+                fUplink.setLong(COL_FIRST, FlightStatistics.getKind(reader.getLength()));
+                fUplink.setLong(COL_FIRST + 1, reader.getLength());
+                fUplink.endRow();
+                break;
+            case DOWNLINK:
+                writePrefix(fDownlink, reader);
+                fDownlink.setLong(COL_FIRST, reader.getLength());
+                fDownlink.endRow();
+                break;
+            case MISSION_STATE:
+                writePrefix(fMission, reader);
+                fMission.setLong(COL_FIRST, reader.getData()[0]);
+                fMission.endRow();
+                break;
+            case LINK_ERROR:
+                writePrefix(fLinkErrors, reader);
+                fLinkErrors.endRow();
+                break;
+            case COMMAND_TRACE:
+                writeCommand(reader);
+                break;
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        IOException failure = null;
+
+        /* Close every file even if one fails */
+        for (ColumnarWriter writer : new ColumnarWriter[]{fGPS, fSensors, fUplink, fDownlink,
+                fMission, fLinkErrors, fCommands}) {
+            try {
+                writer.close();
+            } catch (IOException exception) {
+                failure = exception;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private void writeGPS(FlightLogReader reader) throws IOException {
+        PayloadGPS payload = PayloadGPS.fromPayload(reader.getData());
+
+        writePrefix(fGPS, reader);
+        fGPS.setFloat(COL_FIRST, payload.getLatitude());
+        fGPS.setFloat(COL_FIRST + 1, payload.getLongitude());
+        fGPS.setFloat(COL_FIRST + 2, payload.getAltitude());
+        fGPS.setFloat(COL_FIRST + 3, payload.getBearing());
+        fGPS.setFloat(COL_FIRST + 4, payload.getAccuracy());
+        fGPS.setFloat(COL_FIRST + 5, payload.getSpeed());
+        fGPS.endRow();
+    }
+
+    private void writeSensors(FlightLogReader reader) throws IOException {
+        PayloadSensors payload = PayloadSensors.fromPayload(reader.getData());
+        float[] acc = payload.getAccelerometer();
+        float[] rot = payload.getRotation();
+
+        writePrefix(fSensors, reader);
+        for (int i = 0; i < acc.length; i++) {
+            fSensors.setFloat(COL_FIRST + i, acc[i]);
+        }
+        for (int i = 0; i < rot.length; i++) {
+            fSensors.setFloat(COL_FIRST + acc.length + i, rot[i]);
+        }
+        fSensors.endRow();
+    }
+
+    private void writeCommand(FlightLogReader reader) throws IOException {
+        /* Skip the traces written by another version */
+        if (reader.getLength() != CommandTrace.RECORD_SIZE) {
+            return;
+        }
+
+        CommandTrace trace = CommandTrace.fromRecord(reader.getData());
+
+        writePrefix(fCommands, reader);
+        fCommands.setLong(COL_FIRST, trace.getSource().ordinal());
+        fCommands.setLong(COL_FIRST + 1, (trace.getCommand() != null) ?
+                trace.getCommand().ordinal() : -1);
+        fCommands.setLong(COL_FIRST + 2, trace.getOutcome().ordinal());
+        for (Stage stage : Stage.values()) {
+            if (stage != Stage.TRIGGER) {
+                long elapsed = trace.getElapsed(stage);
+                fCommands.setLong(COL_FIRST + 2 + stage.ordinal(),
+                        (elapsed >= 0) ? elapsed / 1000 : -1);
+            }
+        }
+        fCommands.endRow();
+    }
+
+    private static void writePrefix(ColumnarWriter writer, FlightLogReader reader) {
+        writer.setLong(COL_SEQUENCE, reader.getSequence());
+        writer.setLong(COL_TIMESTAMP, reader.getTimestamp());
+        writer.setLong(COL_WALL_TIME, reader.getWallTime());
+    }
+
+    private static ColumnarWriter open(File directory, String name, byte type, String... columns)
+            throws IOException {
+        String[] names = new String[COL_FIRST + columns.length];
+        byte[] types = new byte[names.length];
+
+        /* The common columns come first */
+        names[COL_SEQUENCE] = "sequence";
+        names[COL_TIMESTAMP] = "timestamp";
+        names[COL_WALL_TIME] = "wall_time";
+        for (int i = 0; i < COL_FIRST; i++) {
+            types[i] = TYPE_LONG;
+        }
+
+        for (int i = 0; i < columns.length; i++) {
+            names[COL_FIRST + i] = columns[i];
+            types[COL_FIRST + i] = type;
+        }
+
+        return new ColumnarWriter(new File(directory, name + EXTENSION), names, types);
+    }
+
+}
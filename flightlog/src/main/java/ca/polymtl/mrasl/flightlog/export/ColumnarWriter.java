@@ -0,0 +1,230 @@
+package ca.polymtl.mrasl.flightlog.export;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class writes a table of primitive columns into a columnar file. The rows are buffered into
+ * row groups of a fixed size, then each column of the group is written as a contiguous chunk. The
+ * file ends with a footer that describes the columns and indexes the chunks, so a reader can load
+ * only the columns it needs. The format is defined in the following graph:
+ * <p/>
+ * [ 0 - 3 ] The magic number
+ * [ 4 - 5 ] The version of the format
+ * [ ...   ] The row groups, each made of a chunk per column
+ * [ ...   ] The footer
+ * [ -12   ] The position of the footer on 8 bytes
+ * [ -4    ] The magic number
+ * <p/>
+ * The footer contains the number of columns, the name and the type of each column, the number of
+ * row groups, then for each group its number of rows and, for each column, the position of the
+ * chunk with the smallest and the largest value. Every number is big-endian.
+ */
+public class ColumnarWriter {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    public static final int MAGIC_NUMBER = 0x4D52434C;
+    public static final short VERSION = 1;
+
+    /**
+     * Type of a column of 64-bit integers
+     */
+    public static final byte TYPE_LONG = 0x1;
+
+    /**
+     * Type of a column of 32-bit floats
+     */
+    public static final byte TYPE_FLOAT = 0x2;
+
+    private static final int ROW_GROUP_SIZE = 64 * 1024;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final DataOutputStream fOutput;
+    private final String[] fNames;
+    private final byte[] fTypes;
+    private final long[][] fLongs;
+    private final float[][] fFloats;
+    private final List<long[]> fChunkPositions = new ArrayList<>();
+    private final List<double[]> fChunkBounds = new ArrayList<>();
+    private final List<Integer> fGroupSizes = new ArrayList<>();
+
+    private long fPosition;
+    private int fRows;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a columnar writer.
+     *
+     * @param file  The file to write
+     * @param names The names of the columns
+     * @param types The types of the columns
+     *
+     * @throws IOException If the file cannot be created
+     */
+    public ColumnarWriter(File file, String[] names, byte[] types) throws IOException {
+        fNames = names;
+        fTypes = types;
+        fLongs = new long[names.length][];
+        fFloats = new float[names.length][];
+
+        /* Allocate a buffer of the right type for each column */
+        for (int i = 0; i < names.length; i++) {
+            if (types[i] == TYPE_LONG) {
+                fLongs[i] = new long[ROW_GROUP_SIZE];
+            } else if (types[i] == TYPE_FLOAT) {
+                fFloats[i] = new float[ROW_GROUP_SIZE];
+            } else {
+                throw new IllegalArgumentException("Unknown type of column: " + types[i]);
+            }
+        }
+
+        fOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        fOutput.writeInt(MAGIC_NUMBER);
+        fOutput.writeShort(VERSION);
+        fPosition = 6;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method sets a value of the current row.
+     *
+     * @param column The index of a column of 64-bit integers
+     * @param value  The value
+     */
+    public void setLong(int column, long value) {
+        fLongs[column][fRows] = value;
+    }
+
+    /**
+     * This method sets a value of the current row.
+     *
+     * @param column The index of a column of 32-bit floats
+     * @param value  The value
+     */
+    public void setFloat(int column, float value) {
+        fFloats[column][fRows] = value;
+    }
+
+    /**
+     * This method ends the current row and writes the row group if it is full.
+     *
+     * @throws IOException If the row group cannot be written
+     */
+    public void endRow() throws IOException {
+        fRows++;
+
+        if (fRows == ROW_GROUP_SIZE) {
+            writeRowGroup();
+        }
+    }
+
+    /**
+     * This method writes the last row group and the footer, then closes the file.
+     *
+     * @throws IOException If the file cannot be written
+     */
+    public void close() throws IOException {
+        try {
+            if (fRows > 0) {
+                writeRowGroup();
+            }
+            writeFooter();
+        } finally {
+            fOutput.close();
+        }
+    }
+
+    /**
+     * This method writes each column of the buffered rows as a chunk.
+     *
+     * @throws IOException If the chunks cannot be written
+     */
+    private void writeRowGroup() throws IOException {
+        long[] positions = new long[fNames.length];
+        double[] bounds = new double[fNames.length * 2];
+
+        for (int i = 0; i < fNames.length; i++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            positions[i] = fPosition;
+
+            /* Write the chunk and compute its bounds */
+            if (fTypes[i] == TYPE_LONG) {
+                long[] values = fLongs[i];
+                for (int row = 0; row < fRows; row++) {
+                    fOutput.writeLong(values[row]);
+                    min = Math.min(min, values[row]);
+                    max = Math.max(max, values[row]);
+                }
+                fPosition += fRows * 8L;
+            } else {
+                float[] values = fFloats[i];
+                for (int row = 0; row < fRows; row++) {
+                    fOutput.writeFloat(values[row]);
+                    min = Math.min(min, values[row]);
+                    max = Math.max(max, values[row]);
+                }
+                fPosition += fRows * 4L;
+            }
+
+            bounds[i * 2] = min;
+            bounds[i * 2 + 1] = max;
+        }
+
+        fChunkPositions.add(positions);
+        fChunkBounds.add(bounds);
+        fGroupSizes.add(fRows);
+        fRows = 0;
+    }
+
+    /**
+     * This method writes the index of the chunks at the end of the file.
+     *
+     * @throws IOException If the footer cannot be written
+     */
+    private void writeFooter() throws IOException {
+        long footer = fPosition;
+
+        /* Describe the columns */
+        fOutput.writeInt(fNames.length);
+        for (int i = 0; i < fNames.length; i++) {
+            fOutput.writeUTF(fNames[i]);
+            fOutput.writeByte(fTypes[i]);
+        }
+
+        /* Index the chunks of every row group */
+        fOutput.writeInt(fGroupSizes.size());
+        for (int group = 0; group < fGroupSizes.size(); group++) {
+            long[] positions = fChunkPositions.get(group);
+            double[] bounds = fChunkBounds.get(group);
+
+            fOutput.writeInt(fGroupSizes.get(group));
+            for (int i = 0; i < fNames.length; i++) {
+                fOutput.writeLong(positions[i]);
+                fOutput.writeDouble(bounds[i * 2]);
+                fOutput.writeDouble(bounds[i * 2 + 1]);
+            }
+        }
+
+        fOutput.writeLong(footer);
+        fOutput.writeInt(MAGIC_NUMBER);
+    }
+
+}
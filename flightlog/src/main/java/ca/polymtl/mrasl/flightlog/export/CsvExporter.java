@@ -0,0 +1,224 @@
+package ca.polymtl.mrasl.flightlog.export;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import ca.polymtl.mrasl.flightlog.FlightStatistics;
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.payload.PayloadGPS;
+import ca.polymtl.mrasl.payload.PayloadSensors;
+import ca.polymtl.mrasl.recorder.FlightLogReader;
+import ca.polymtl.mrasl.recorder.RecordType;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.trace.Stage;
+
+/**
+ * This class exports a flight log into a CSV file per type of record. Every file starts with the
+ * sequence number, the monotonic timestamp in nanoseconds and the wall clock time in milliseconds
+ * of the records.
+ */
+public class CsvExporter implements IRecordExporter {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String PREFIX = "sequence,timestamp,wall_time,";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final Writer fGPS;
+    private final Writer fSensors;
+    private final Writer fUplink;
+    private final Writer fDownlink;
+    private final Writer fMission;
+    private final Writer fLinkErrors;
+    private final Writer fCommands;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a CSV exporter.
+     *
+     * @param directory The directory of the CSV files
+     *
+     * @throws IOException If the files cannot be created
+     */
+    public CsvExporter(File directory) throws IOException {
+        fGPS = open(directory, "gps.csv",
+                "latitude,longitude,altitude,bearing,accuracy,speed");
+        fSensors = open(directory, "sensors.csv",
+                "acc_x,acc_y,acc_z,rot_1,rot_2,rot_3,rot_4");
+        fUplink = open(directory, "uplink.csv", "kind,length,data");
+        fDownlink = open(directory, "downlink.csv", "length,data");
+        fMission = open(directory, "mission.csv", "state");
+        fLinkErrors = open(directory, "link_errors.csv", "description");
+        fCommands = open(directory, "commands.csv",
+                "source,command,outcome,transition_us,enqueue_us,send_us,ack_us");
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void export(FlightLogReader reader) throws IOException {
+        RecordType type = reader.getType();
+
+        /* Skip the records that are unknown to this version */
+        if (type == null) {
+            return;
+        }
+
+        switch (type) {
+            case GPS:
+                writeGPS(reader);
+                break;
+            case SENSORS:
+                writeSensors(reader);
+                break;
+            case UPLINK:
+                writePrefix(fUplink, reader);
+                fUplink.write(FlightStatistics.getKindName(
+                        FlightStatistics.getKind(reader.getLength())));
+                fUplink.write(',');
+                writeFrame(fUplink, reader);
+                break;
+            case DOWNLINK:
+                writePrefix(fDownlink, reader);
+                writeFrame(fDownlink, reader);
+                break;
+            case MISSION_STATE:
+                writeState(reader);
+                break;
+            case LINK_ERROR:
+                writePrefix(fLinkErrors, reader);
+                writeQuoted(fLinkErrors,
+                        new String(reader.getData(), 0, reader.getLength(), UTF_8));
+                fLinkErrors.write('\n');
+                break;
+            case COMMAND_TRACE:
+                writeCommand(reader);
+                break;
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        IOException failure = null;
+
+        /* Close every file even if one fails */
+        for (Writer writer : new Writer[]{fGPS, fSensors, fUplink, fDownlink, fMission,
+                fLinkErrors, fCommands}) {
+            try {
+                writer.close();
+            } catch (IOException exception) {
+                failure = exception;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    private void writeGPS(FlightLogReader reader) throws IOException {
+        PayloadGPS payload = PayloadGPS.fromPayload(reader.getData());
+
+        writePrefix(fGPS, reader);
+        fGPS.write(payload.getLatitude() + "," +
+                payload.getLongitude() + "," +
+                payload.getAltitude() + "," +
+                payload.getBearing() + "," +
+                payload.getAccuracy() + "," +
+                payload.getSpeed() + "\n");
+    }
+
+    private void writeSensors(FlightLogReader reader) throws IOException {
+        PayloadSensors payload = PayloadSensors.fromPayload(reader.getData());
+        float[] acc = payload.getAccelerometer();
+        float[] rot = payload.getRotation();
+
+        writePrefix(fSensors, reader);
+        fSensors.write(acc[0] + "," + acc[1] + "," + acc[2] + "," +
+                rot[0] + "," + rot[1] + "," + rot[2] + "," + rot[3] + "\n");
+    }
+
+    private void writeState(FlightLogReader reader) throws IOException {
+        State[] states = State.values();
+        int number = reader.getData()[0];
+
+        writePrefix(fMission, reader);
+        fMission.write((number >= 0 && number < states.length) ?
+                states[number].name() : String.valueOf(number));
+        fMission.write('\n');
+    }
+
+    private void writeCommand(FlightLogReader reader) throws IOException {
+        /* Skip the traces written by another version */
+        if (reader.getLength() != CommandTrace.RECORD_SIZE) {
+            return;
+        }
+
+        CommandTrace trace = CommandTrace.fromRecord(reader.getData());
+
+        writePrefix(fCommands, reader);
+        fCommands.write(trace.getSource() + "," + trace.getCommand() + "," + trace.getOutcome());
+        for (Stage stage : Stage.values()) {
+            if (stage != Stage.TRIGGER) {
+                long elapsed = trace.getElapsed(stage);
+                fCommands.write("," + ((elapsed >= 0) ? elapsed / 1000 : -1));
+            }
+        }
+        fCommands.write('\n');
+    }
+
+    private static void writePrefix(Writer writer, FlightLogReader reader) throws IOException {
+        writer.write(reader.getSequence() + "," + reader.getTimestamp() + "," +
+                reader.getWallTime() + ",");
+    }
+
+    private static void writeFrame(Writer writer, FlightLogReader reader) throws IOException {
+        byte[] data = reader.getData();
+        int length = reader.getLength();
+
+        /* Write the frame in hexadecimal */
+        writer.write(length + ",");
+        for (int i = 0; i < length; i++) {
+            writer.write(HEX[(data[i] >> 4) & 0xF]);
+            writer.write(HEX[data[i] & 0xF]);
+        }
+        writer.write('\n');
+    }
+
+    private static void writeQuoted(Writer writer, String value) throws IOException {
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static Writer open(File directory, String name, String columns) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(new File(directory, name)), UTF_8));
+
+        writer.write(PREFIX + columns + "\n");
+
+        return writer;
+    }
+
+}
@@ -0,0 +1,31 @@
+package ca.polymtl.mrasl.flightlog.export;
+
+import java.io.IOException;
+
+import ca.polymtl.mrasl.recorder.FlightLogReader;
+
+/**
+ * This interface is used for exporting the records of a flight log into another format. The
+ * records are given one at a time, in order, so an exporter should only buffer a bounded amount of
+ * them.
+ */
+public interface IRecordExporter {
+
+    /**
+     * This method exports the current record of a reader. The data of the reader is reused by the
+     * next record, so it must be copied if needed.
+     *
+     * @param reader The reader positioned on the record
+     *
+     * @throws IOException If the record cannot be written
+     */
+    void export(FlightLogReader reader) throws IOException;
+
+    /**
+     * This method writes the buffered records and closes the exported files.
+     *
+     * @throws IOException If the files cannot be written
+     */
+    void finish() throws IOException;
+
+}
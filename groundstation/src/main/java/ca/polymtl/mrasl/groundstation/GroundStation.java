@@ -0,0 +1,456 @@
+package ca.polymtl.mrasl.groundstation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.clock.ThreadScheduler;
+import ca.polymtl.mrasl.clock.VirtualClock;
+import ca.polymtl.mrasl.ford.FordBridge;
+import ca.polymtl.mrasl.ford.FordConsole;
+import ca.polymtl.mrasl.log.ConsoleLogger;
+import ca.polymtl.mrasl.log.Level;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.mission.Mission;
+import ca.polymtl.mrasl.mission.MissionCheckpoint;
+import ca.polymtl.mrasl.mission.MissionTimeline;
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.payload.PayloadGPS;
+import ca.polymtl.mrasl.payload.PayloadManager;
+import ca.polymtl.mrasl.payload.PayloadSensors;
+import ca.polymtl.mrasl.platform.Platform;
+import ca.polymtl.mrasl.ros.NodeLauncher;
+import ca.polymtl.mrasl.shared.Histogram;
+import ca.polymtl.mrasl.shared.IDisposable;
+import ca.polymtl.mrasl.tag.Tag;
+import ca.polymtl.mrasl.trace.CommandTrace;
+import ca.polymtl.mrasl.trace.CommandTrace.Outcome;
+import ca.polymtl.mrasl.trace.CommandTracer;
+import ca.polymtl.mrasl.trace.TriggerSource;
+import ca.polymtl.mrasl.transport.LoopbackTransport;
+import ca.polymtl.mrasl.transport.Uplink;
+
+/**
+ * This class is the entry point of the headless ground station. It runs the mission, the payload
+ * manager and the ROS subscriber nodes of the application on a plain JVM, with a loopback
+ * transport and a simulated drone in place of the DJI radio link.
+ * <p/>
+ * In real time, the mission is driven from the standard input or from the Ford console. In virtual
+ * time, the missions run back to back for a number of hours, as fast as the JVM can go, and the
+ * statistics of the link are printed at the end. The same options always give the same run. A
+ * recording of the mission planner can also be replayed against a mission to check its states.
+ */
+public class GroundStation implements IDisposable {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = GroundStation.class.getName();
+
+    private static final String USAGE =
+            "Usage: groundstation [--master <uri>] [--ford <address>] [--checkpoint <file>]\n" +
+            "                     [--latency <ms>] [--failure-period <frames>]\n" +
+            "                     [--flight-time <s>] [--virtual <hours>] [--verbose]\n" +
+            "       groundstation --replay <recording> [--verbose]";
+
+    private static final String COMMANDS =
+            "Commands: start, land, abort, finish, status, quit";
+
+    private static final String TEAM = "Team MRASL";
+    private static final long TELEMETRY_DELAY = 100;
+    private static final float LATITUDE = 45.5048f;
+    private static final float LONGITUDE = -73.6132f;
+    private static final long STEP = 1000;
+    private static final long EPOCH = 1466000000000L;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final IScheduler fScheduler;
+    private final LoopbackTransport fTransport;
+    private final SimulatedDrone fDrone;
+    private final FordConsole fConsole;
+    private final Runnable fTelemetry = new Telemetry();
+
+    private Mission fMission;
+    private volatile Uplink fUplink;
+    private FordBridge fBridge;
+    private long fMissionCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a ground station. The platform must be configured before.
+     *
+     * @param latency       The latency of the loopback transport in milliseconds
+     * @param failurePeriod The period of the transmission failures, or zero for none
+     * @param flightTime    The time of a mission in milliseconds
+     * @param ford          The address of the Ford console, or {@code null} if there is none
+     */
+    GroundStation(long latency, int failurePeriod, long flightTime, String ford) {
+        fScheduler = Platform.getInstance().createScheduler("radio");
+
+        /* The console is connected before the first mission, so its bridge is ready */
+        fConsole = (ford != null) ? new FordConsole(fScheduler, TEAM) : null;
+        if (fConsole != null) {
+            fConsole.connect(ford);
+        }
+
+        /* Create the radio link and the drone at its other end */
+        fTransport = new LoopbackTransport(fScheduler, latency);
+        fTransport.setFailurePeriod(failurePeriod);
+        fDrone = new SimulatedDrone(fTransport, fScheduler, flightTime);
+
+        /* Start the first mission, it continues the checkpoint if there is one */
+        newMission();
+
+        /* The simulated drone doesn't survive the restart, so a recovered flight lands now */
+        State state = fMission.getState();
+        if (state != State.READY && state != State.FINISHED) {
+            fDrone.land();
+        }
+
+        /* Start the telemetry of the tablet */
+        fScheduler.post(fTelemetry);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    public static void main(String[] args) {
+        String master = null;
+        File replay = null;
+        String ford = null;
+        File checkpoint = null;
+        long latency = 20;
+        int failurePeriod = 0;
+        long flightTime = 600;
+        double hours = 0.0;
+        boolean verbose = false;
+
+        /* Parse the options */
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (option.equals("--verbose")) {
+                    verbose = true;
+                    continue;
+                }
+
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+
+                String value = args[++i];
+                if (option.equals("--master")) {
+                    master = value;
+                } else if (option.equals("--ford")) {
+                    ford = value;
+                } else if (option.equals("--checkpoint")) {
+                    checkpoint = new File(value);
+                } else if (option.equals("--latency")) {
+                    latency = Long.parseLong(value);
+                } else if (option.equals("--failure-period")) {
+                    failurePeriod = Integer.parseInt(value);
+                } else if (option.equals("--flight-time")) {
+                    flightTime = Long.parseLong(value);
+                } else if (option.equals("--virtual")) {
+                    hours = Double.parseDouble(value);
+                } else if (option.equals("--replay")) {
+                    replay = new File(value);
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+        } catch (IllegalArgumentException exception) {
+            System.err.println("groundstation: " + exception.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        /* Setup the platform before creating anything */
+        Platform platform = Platform.getInstance();
+        Log.setLogger(new ConsoleLogger(verbose ? Level.DEBUG : Level.INFO));
+
+        /* A replay of the planner runs alone, in its own virtual time */
+        if (replay != null) {
+            System.exit(PlannerReplay.run(replay) ? 0 : 1);
+        }
+
+        VirtualClock clock = null;
+        if (hours > 0.0) {
+            clock = new VirtualClock(EPOCH);
+            platform.setVirtualClock(clock);
+        }
+
+        platform.setImageDecoder(new ImageIODecoder());
+
+        if (checkpoint != null) {
+            platform.setCheckpoint(new MissionCheckpoint(checkpoint,
+                    platform.createScheduler("checkpoint")));
+        }
+
+        /* The ROS nodes talk to a real master, so they always run in the real time */
+        NodeLauncher launcher = null;
+        if (master != null) {
+            launcher = new NodeLauncher(new ThreadScheduler("ros"), URI.create(master));
+            platform.setNodeLauncher(launcher);
+        }
+
+        GroundStation station = new GroundStation(latency, failurePeriod, flightTime * 1000, ford);
+
+        try {
+            if (clock != null) {
+                station.soak(clock, (long) (hours * 3600.0 * 1000.0));
+            } else {
+                station.console();
+            }
+        } catch (IOException exception) {
+            Log.e(TAG, "Unable to read the console", exception);
+        } finally {
+            station.dispose();
+            if (launcher != null) {
+                launcher.shutdown();
+            }
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * This method runs the missions back to back in virtual time. A mission is started as soon as
+     * the previous one is finished, and the drone finishes it after the flight time.
+     *
+     * @param clock    The virtual clock of the platform
+     * @param duration The virtual time to run in milliseconds
+     */
+    private void soak(VirtualClock clock, long duration) {
+        long start = System.nanoTime();
+
+        while (clock.getElapsed() < duration) {
+            synchronized (this) {
+                State state = fMission.getState();
+                if (state == State.FINISHED) {
+                    newMission();
+                } else if (state == State.READY) {
+                    fMission.startMission(new CommandTrace(TriggerSource.UI));
+                }
+            }
+
+            clock.advance(STEP);
+        }
+
+        long wall = (System.nanoTime() - start) / NANOS_PER_MILLI;
+        System.out.println(String.format(Locale.US, "Ran %.1f hours in %d ms, %d tasks",
+                clock.getElapsed() / 3600000.0, wall, clock.getRunCount()));
+        printStatus();
+    }
+
+    /**
+     * This method reads the commands of the operator on the standard input until it is closed.
+     *
+     * @throws IOException If the standard input cannot be read
+     */
+    private void console() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+        System.out.println(COMMANDS);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String command = line.trim();
+            if (command.isEmpty()) {
+                continue;
+            }
+
+            if (command.equals("quit")) {
+                break;
+            }
+
+            synchronized (this) {
+                execute(command);
+            }
+        }
+    }
+
+    /**
+     * This method executes a command of the operator.
+     *
+     * @param command The name of the command
+     */
+    private void execute(String command) {
+        boolean result;
+
+        switch (command) {
+            case "start":
+                /* A finished mission is replaced by a new one */
+                if (fMission.getState() == State.FINISHED) {
+                    newMission();
+                }
+                result = fMission.startMission(new CommandTrace(TriggerSource.UI));
+                break;
+            case "land":
+                result = fMission.abortLanding(new CommandTrace(TriggerSource.UI));
+                break;
+            case "abort":
+                result = fMission.abortMission(new CommandTrace(TriggerSource.UI));
+                break;
+            case "finish":
+                /* The drone reports the end of the flight like it would after landing */
+                fDrone.land();
+                result = true;
+                break;
+            case "status":
+                printStatus();
+                return;
+            default:
+                System.out.println(COMMANDS);
+                return;
+        }
+
+        if (!result) {
+            System.out.println("Not allowed in " + fMission.getState());
+        }
+    }
+
+    /**
+     * This method replaces the current mission by a new one, with its own radio link.
+     */
+    private void newMission() {
+        disposeMission();
+
+        /* Create the mission and its link to the drone */
+        fMission = new Mission();
+        fUplink = new Uplink(fTransport, fMission, fScheduler);
+        fMission.setPayloadManager(fUplink.getPayloadManager());
+        fMissionCount++;
+
+        /* Drive the mission from the Ford console */
+        if (fConsole != null) {
+            fBridge = new FordBridge(fConsole, fMission, fScheduler);
+        }
+
+        Log.i(TAG, "Mission " + fMissionCount + " in " + fMission.getState());
+    }
+
+    /**
+     * This method disposes the current mission and its radio link.
+     */
+    private void disposeMission() {
+        if (fBridge != null) {
+            fBridge.dispose();
+            fBridge = null;
+        }
+
+        if (fUplink != null) {
+            fUplink.dispose();
+            fUplink = null;
+        }
+
+        if (fMission != null) {
+            fMission.dispose();
+            fMission = null;
+        }
+    }
+
+    /**
+     * This method prints the state of the mission and the statistics of the link.
+     */
+    private synchronized void printStatus() {
+        CommandTracer tracer = CommandTracer.getInstance();
+        Histogram total = tracer.getTotalHistogram();
+
+        System.out.println(String.format(Locale.US, "Mission %d: %s, %d tags",
+                fMissionCount, fMission.getState(), fMission.getTagList().getSnapshot().getCount()));
+        MissionTimeline timeline = fMission.getTimeline();
+        int last = timeline.getCount() - 1;
+        System.out.println(String.format(Locale.US, "Timeline: %d events, link %s, pending %s",
+                timeline.getCount(), timeline.isLinkUp(last) ? "up" : "down",
+                timeline.getPendingCommand(last)));
+        System.out.println("Planner: " + fMission.getPlannerFeed());
+        System.out.println("Imagery: " + fMission.getTagList().getSubscriber());
+        System.out.println("Images: " + fMission.getTagList().getImageStore());
+        List<Tag> closest = fMission.getTagList().getNearest(LATITUDE, LONGITUDE, 1);
+        if (!closest.isEmpty()) {
+            Tag tag = closest.get(0);
+            System.out.println(String.format(Locale.US,
+                    "Closest tag: %d at %.1f m, seen %d times, +/- %.1f m", tag.getID(),
+                    tag.distanceTo(LATITUDE, LONGITUDE), tag.getSightingCount(),
+                    tag.getUncertainty()));
+        }
+        System.out.println(String.format(Locale.US, "Uplink: %d sent, %d failed, %d received",
+                fTransport.getSentCount(), fTransport.getFailedCount(),
+                fTransport.getReceivedCount()));
+        System.out.println(String.format(Locale.US,
+                "Drone: %d commands, %d gps, %d sensors, %d unknown, %d landings",
+                fDrone.getCommandCount(), fDrone.getGPSCount(), fDrone.getSensorsCount(),
+                fDrone.getUnknownCount(), fDrone.getLandingCount()));
+        System.out.println(String.format(Locale.US,
+                "Commands: %d acked, %d failed, %d dropped, %d rejected, %d followed",
+                tracer.getCount(Outcome.ACKED), tracer.getCount(Outcome.FAILED),
+                tracer.getCount(Outcome.DROPPED), tracer.getCount(Outcome.REJECTED),
+                tracer.getCount(Outcome.FOLLOWED)));
+        if (fConsole != null) {
+            System.out.println("Ford console: " + fConsole);
+        }
+        if (total.getCount() > 0) {
+            System.out.println(String.format(Locale.US,
+                    "Latency: p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                    total.getPercentile(0.5) / (double) NANOS_PER_MILLI,
+                    total.getPercentile(0.99) / (double) NANOS_PER_MILLI,
+                    total.getMax() / (double) NANOS_PER_MILLI));
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public synchronized void dispose() {
+        fScheduler.removeCallbacks(fTelemetry);
+        disposeMission();
+
+        if (fConsole != null) {
+            fConsole.dispose();
+        }
+
+        MissionCheckpoint checkpoint = Platform.getInstance().getCheckpoint();
+        if (checkpoint != null) {
+            checkpoint.dispose();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class feeds the payload manager with the telemetry of a tablet that doesn't move, so
+     * the link has something to send between the commands.
+     */
+    private class Telemetry implements Runnable {
+        @Override
+        public void run() {
+            Uplink uplink = fUplink;
+            if (uplink != null) {
+                PayloadManager manager = uplink.getPayloadManager();
+                manager.setPayload(new PayloadGPS(LATITUDE, LONGITUDE, 0.0f, 0.0f, 5.0f, 0.0f));
+                manager.setPayload(new PayloadSensors());
+            }
+
+            fScheduler.postDelayed(this, TELEMETRY_DELAY);
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package ca.polymtl.mrasl.groundstation;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.ros.IImageDecoder;
+import ca.polymtl.mrasl.tag.TagImage;
+
+/**
+ * This class decodes the compressed images of the survivors with the image readers of the JVM.
+ * The region is given to the reader, so the JPEG reader skips the rest of the frame.
+ */
+class ImageIODecoder implements IImageDecoder {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = ImageIODecoder.class.getName();
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public TagImage decodeRegion(byte[] data, int offset, int length, int left, int top,
+                                 int right, int bottom) {
+        try {
+            ImageInputStream input = ImageIO.createImageInputStream(
+                    new ByteArrayInputStream(data, offset, length));
+
+            /* Find a reader for the format of the image */
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                input.close();
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+
+                /* Clamp the region to the image */
+                int x = Math.max(0, left);
+                int y = Math.max(0, top);
+                int w = Math.min(right, reader.getWidth(0)) - x;
+                int h = Math.min(bottom, reader.getHeight(0)) - y;
+                if (w <= 0 || h <= 0) {
+                    return null;
+                }
+
+                /* Decode only the region */
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle(x, y, w, h));
+                BufferedImage image = reader.read(0, param);
+
+                int[] pixels = image.getRGB(0, 0, w, h, null, 0, w);
+                return new TagImage(w, h, pixels);
+            } finally {
+                reader.dispose();
+                input.close();
+            }
+        } catch (IOException exception) {
+            Log.e(TAG, "Unable to decode a compressed image", exception);
+            return null;
+        }
+    }
+
+}
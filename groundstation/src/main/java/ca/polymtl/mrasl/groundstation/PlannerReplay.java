@@ -0,0 +1,208 @@
+package ca.polymtl.mrasl.groundstation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Locale;
+
+import ca.polymtl.mrasl.clock.VirtualClock;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.mission.Mission;
+import ca.polymtl.mrasl.mission.PlannerFeed;
+import ca.polymtl.mrasl.mission.State;
+import ca.polymtl.mrasl.platform.Platform;
+
+/**
+ * This class replays a recording of the mission planner against a mission, in virtual time. The
+ * recording is the output of {@code rostopic echo -p} on the state topic: a header starting with
+ * {@code %}, then one line per message with its time in nanoseconds and its content. The times are
+ * relative to the first message.
+ * <p/>
+ * The recording can hold the states the mission must be in, as comments of the form
+ * {@code # expect <ms> <state>}, so a replay is also a regression check of the feed. The other
+ * comments are ignored.
+ */
+class PlannerReplay {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = PlannerReplay.class.getName();
+    private static final String EXPECT = "# expect ";
+    private static final long EPOCH = 1466000000000L;
+    private static final long SETTLE_DELAY = 3000;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final VirtualClock fClock = new VirtualClock(EPOCH);
+    private final Mission fMission;
+
+    private long fFirstNanos = -1;
+    private long fTime;
+    private int fExpectCount;
+    private int fFailureCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a replay. The platform is moved to the virtual time of the replay.
+     */
+    private PlannerReplay() {
+        Platform.getInstance().setVirtualClock(fClock);
+        fMission = new Mission();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method replays a recording and prints the statistics of the feed and the result of the
+     * expectations.
+     *
+     * @param file The recording to replay
+     *
+     * @return {@code true} if every expectation was met, else {@code false}
+     */
+    static boolean run(File file) {
+        PlannerReplay replay = new PlannerReplay();
+
+        try {
+            replay.replay(file);
+        } catch (IOException | IllegalArgumentException exception) {
+            Log.e(TAG, "Unable to replay " + file, exception);
+            return false;
+        } finally {
+            replay.fMission.dispose();
+        }
+
+        return replay.report();
+    }
+
+    /**
+     * This method replays the lines of a recording.
+     *
+     * @param file The recording to replay
+     *
+     * @throws IOException If the recording cannot be read
+     */
+    private void replay(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), "UTF-8"));
+
+        try {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.trim();
+
+                /* Skip the header and the blank lines */
+                if (line.isEmpty() || line.startsWith("%")) {
+                    continue;
+                }
+
+                if (line.startsWith(EXPECT)) {
+                    expect(line.substring(EXPECT.length()).trim(), number);
+                } else if (!line.startsWith("#")) {
+                    message(line, number);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        /* Let the last states be applied and the watchdog see the end of the recording */
+        advanceTo(fTime + SETTLE_DELAY);
+    }
+
+    /**
+     * This method delivers a recorded message to the feed at its time.
+     *
+     * @param line   The line of the message
+     * @param number The number of the line
+     */
+    private void message(String line, int number) {
+        int comma = line.indexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("Line " + number + ": missing data");
+        }
+
+        /* The times are relative to the first message */
+        long nanos = Long.parseLong(line.substring(0, comma).trim());
+        if (fFirstNanos < 0) {
+            fFirstNanos = nanos;
+        }
+        advanceTo((nanos - fFirstNanos) / NANOS_PER_MILLI);
+
+        fMission.getPlannerFeed().onMessage(line.substring(comma + 1));
+    }
+
+    /**
+     * This method checks the state of the mission at a time of the recording.
+     *
+     * @param expectation The time in milliseconds and the expected state
+     * @param number      The number of the line
+     */
+    private void expect(String expectation, int number) {
+        String[] fields = expectation.split("\\s+");
+        if (fields.length != 2) {
+            throw new IllegalArgumentException("Line " + number + ": malformed expectation");
+        }
+
+        advanceTo(Long.parseLong(fields[0]));
+        State expected = State.valueOf(fields[1].toUpperCase(Locale.US));
+        State actual = fMission.getState();
+
+        fExpectCount++;
+        if (actual != expected) {
+            fFailureCount++;
+            System.out.println(String.format(Locale.US, "FAIL line %d at %d ms: %s instead of %s",
+                    number, fTime, actual, expected));
+        }
+    }
+
+    /**
+     * This method prints the statistics of the feed and the result of the expectations.
+     *
+     * @return {@code true} if every expectation was met, else {@code false}
+     */
+    private boolean report() {
+        PlannerFeed feed = fMission.getPlannerFeed();
+
+        System.out.println("Replayed " + fTime + " ms, mission in " + fMission.getState());
+        System.out.println("Planner: " + feed);
+        System.out.println(String.format(Locale.US, "Expectations: %d met, %d failed",
+                fExpectCount - fFailureCount, fFailureCount));
+
+        return fFailureCount == 0;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method advances the virtual time to a time of the recording. The recording never goes
+     * back in time.
+     *
+     * @param time The time relative to the first message in milliseconds
+     */
+    private void advanceTo(long time) {
+        if (time < fTime) {
+            throw new IllegalArgumentException("The recording goes back to " + time + " ms");
+        }
+
+        fClock.advance(time - fTime);
+        fTime = time;
+    }
+
+}
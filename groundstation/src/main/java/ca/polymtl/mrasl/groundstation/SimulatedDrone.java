@@ -0,0 +1,202 @@
+package ca.polymtl.mrasl.groundstation;
+
+import ca.polymtl.mrasl.clock.IScheduler;
+import ca.polymtl.mrasl.log.Log;
+import ca.polymtl.mrasl.payload.PayloadCommand;
+import ca.polymtl.mrasl.payload.PayloadGPS;
+import ca.polymtl.mrasl.payload.PayloadSensors;
+import ca.polymtl.mrasl.transport.IFrameListener;
+import ca.polymtl.mrasl.transport.LoopbackTransport;
+
+/**
+ * This class plays the onboard SDK device of the drone at the other end of a loopback transport.
+ * It reads the frames of the uplink and, like the real drone, reports the end of the flight with
+ * a frame on the downlink. The drone lands on its own after the flight time of a mission, or
+ * shortly after an abort by landing. An abort by hovering keeps it in the air until it is told to
+ * finish.
+ * <p/>
+ * The frames are received on the thread of the link, so the drone uses the same scheduler.
+ */
+public class SimulatedDrone implements IFrameListener {
+
+    // ---------------------------------------------------------------------------------------------
+    // Constants
+    // ---------------------------------------------------------------------------------------------
+
+    private static final String TAG = SimulatedDrone.class.getName();
+    private static final long LANDING_TIME = 5000;
+
+    // ---------------------------------------------------------------------------------------------
+    // Attributes
+    // ---------------------------------------------------------------------------------------------
+
+    private final LoopbackTransport fTransport;
+    private final IScheduler fScheduler;
+    private final long fFlightTime;
+    private final Runnable fLand = new Land();
+
+    private long fCommandCount;
+    private long fGPSCount;
+    private long fSensorsCount;
+    private long fUnknownCount;
+    private long fLandingCount;
+
+    // ---------------------------------------------------------------------------------------------
+    // Constructors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor for a drone that listens to the uplink of a transport.
+     *
+     * @param transport  The loopback transport to the ground station
+     * @param scheduler  The scheduler of the link
+     * @param flightTime The time of a whole mission in milliseconds
+     */
+    public SimulatedDrone(LoopbackTransport transport, IScheduler scheduler, long flightTime) {
+        fTransport = transport;
+        fScheduler = scheduler;
+        fFlightTime = flightTime;
+
+        /* Receive the frames sent by the ground station */
+        fTransport.setUplinkListener(this);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Operations
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method makes the drone land now and report the end of the flight.
+     */
+    public void land() {
+        fScheduler.removeCallbacks(fLand);
+        fScheduler.post(fLand);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Overriden methods
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public synchronized void onFrame(byte[] frame) {
+        /* The type of payload is known by its size */
+        switch (frame.length) {
+            case PayloadCommand.PAYLOAD_SIZE:
+                fCommandCount++;
+                onCommand(frame[0]);
+                break;
+            case PayloadGPS.PAYLOAD_SIZE:
+                fGPSCount++;
+                break;
+            case PayloadSensors.PAYLOAD_SIZE:
+                fSensorsCount++;
+                break;
+            default:
+                fUnknownCount++;
+                break;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Accessor that returns the number of command frames received.
+     *
+     * @return The number of commands
+     */
+    public synchronized long getCommandCount() {
+        return fCommandCount;
+    }
+
+    /**
+     * Accessor that returns the number of GPS frames received.
+     *
+     * @return The number of GPS frames
+     */
+    public synchronized long getGPSCount() {
+        return fGPSCount;
+    }
+
+    /**
+     * Accessor that returns the number of sensors frames received.
+     *
+     * @return The number of sensors frames
+     */
+    public synchronized long getSensorsCount() {
+        return fSensorsCount;
+    }
+
+    /**
+     * Accessor that returns the number of frames that aren't a known payload.
+     *
+     * @return The number of unknown frames
+     */
+    public synchronized long getUnknownCount() {
+        return fUnknownCount;
+    }
+
+    /**
+     * Accessor that returns the number of times the drone landed.
+     *
+     * @return The number of landings
+     */
+    public synchronized long getLandingCount() {
+        return fLandingCount;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Util methods
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This method executes a command of the ground station.
+     *
+     * @param command The magic number of the command
+     */
+    private void onCommand(byte command) {
+        switch (command) {
+            case 0x0:
+                /* Start the mission, the drone lands once it is done */
+                Log.i(TAG, "Starting the mission");
+                fScheduler.removeCallbacks(fLand);
+                fScheduler.postDelayed(fLand, fFlightTime);
+                break;
+            case 0x1:
+                /* Abort by landing immediately */
+                Log.i(TAG, "Aborting the mission by landing");
+                fScheduler.removeCallbacks(fLand);
+                fScheduler.postDelayed(fLand, LANDING_TIME);
+                break;
+            case 0x2:
+                /* Abort by hovering on place until told otherwise */
+                Log.i(TAG, "Aborting the mission by hovering");
+                fScheduler.removeCallbacks(fLand);
+                break;
+            default:
+                Log.w(TAG, "Unknown command " + command);
+                break;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Anonymous classes
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * This class lands the drone and reports it to the ground station.
+     */
+    private class Land implements Runnable {
+        @Override
+        public void run() {
+            synchronized (SimulatedDrone.this) {
+                fLandingCount++;
+            }
+
+            Log.i(TAG, "Landed, the motors are off");
+            fTransport.receive(new byte[]{0x0});
+        }
+    }
+
+}